@@ -7,8 +7,12 @@ import javax.cache.CacheManager;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.ExpiryPolicyBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
 import org.ehcache.jsr107.Eh107Configuration;
 import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
@@ -27,10 +31,17 @@ import io.github.jhipster.config.JHipsterProperties;
 @EnableCaching
 public class CacheConfiguration {
 
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+
+    private final CacheRegionConfiguration cacheRegionConfiguration;
+
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, CacheRegionConfiguration cacheRegionConfiguration) {
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.cacheRegionConfiguration = cacheRegionConfiguration;
 
         jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
                 CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
@@ -171,16 +182,51 @@ public class CacheConfiguration {
             createIfNotExists(cm, GradingCriterion.class.getName(), jcacheConfiguration);
             createIfNotExists(cm, GradingCriterion.class.getName() + ".structuredGradingInstructions", jcacheConfiguration);
             // jhipster-needle-ehcache-add-entry
-            createIfNotExists(cm, "files", jcacheConfiguration);
         };
     }
 
     // This method is a hotfix for the issue described in: https://github.com/jhipster/generator-jhipster/issues/5354.
     // During the execution of tests, spring boot will try to instantiate the same cache multiple times, leading to an error.
     // This issue appears if e.g. a MockBean is used in a test.
+    // Regions configured in artemis.cache.regions use their own configuration instead of the given one.
     private void createIfNotExists(CacheManager cacheManager, String cacheName, javax.cache.configuration.Configuration<Object, Object> cacheConfiguration) {
         if (cacheManager.getCache(cacheName) == null) {
-            cacheManager.createCache(cacheName, cacheConfiguration);
+            cacheManager.createCache(cacheName, cacheRegionConfiguration.hasRegion(cacheName) ? regionConfiguration(cacheName) : cacheConfiguration);
+            if (cacheRegionConfiguration.isStatisticsEnabled()) {
+                // exported per cache by the cache metrics of Spring Boot (cache.gets, cache.puts, cache.evictions and cache.removals)
+                cacheManager.enableStatistics(cacheName, true);
+            }
+        }
+    }
+
+    /**
+     * Builds the configuration of one cache from its region configuration (artemis.cache.regions), unset values are taken from jhipster.cache.ehcache. Entries in the off-heap
+     * tier are stored serialized, Hibernate cache keys and entries are serialized with Java serialization.
+     *
+     * @param cacheName the name of the cache
+     * @return the configuration of the cache
+     */
+    private javax.cache.configuration.Configuration<Object, Object> regionConfiguration(String cacheName) {
+        CacheRegionConfiguration.Region region = cacheRegionConfiguration.getRegion(cacheName);
+        ResourcePoolsBuilder resourcePools;
+        if (region.getHeapSize() != null) {
+            resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder().heap(region.getHeapSize().toBytes(), MemoryUnit.B);
+        }
+        else {
+            resourcePools = ResourcePoolsBuilder.heap(region.getMaxEntries() != null ? region.getMaxEntries() : ehcache.getMaxEntries());
+        }
+        if (region.getOffHeapSize() != null) {
+            resourcePools = resourcePools.offheap(region.getOffHeapSize().toMegabytes(), MemoryUnit.MB);
+        }
+        Duration timeToLive = region.getTimeToLive() != null ? region.getTimeToLive() : Duration.ofSeconds(ehcache.getTimeToLiveSeconds());
+        log.debug("Cache {} uses {} with a time to live of {}", cacheName, resourcePools.build(), timeToLive);
+        CacheConfigurationBuilder<Object, Object> configuration = CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive));
+        if (region.getOffHeapSize() != null) {
+            // Ehcache has no default serializer for Object, as it cannot know that all keys and values are serializable
+            configuration = configuration.withKeySerializer(new PlainJavaSerializer<>(CacheConfiguration.class.getClassLoader()))
+                    .withValueSerializer(new PlainJavaSerializer<>(CacheConfiguration.class.getClassLoader()));
         }
+        return Eh107Configuration.fromEhcacheCacheConfiguration(configuration.build());
     }
 }
@@ -0,0 +1,114 @@
+package de.tum.in.www1.artemis.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Sizes of the caches (mostly Hibernate second level cache regions) from the artemis.cache configuration in the application.yml file. Regions without configuration use the
+ * defaults of jhipster.cache.ehcache. The key of a region is its cache name without the domain package, e.g. Course, Course.exercises or quiz.QuizQuestion. Keys that contain
+ * dots have to be written in brackets in yaml, e.g. "[Course.exercises]".
+ */
+@Component
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "artemis.cache")
+public class CacheRegionConfiguration {
+
+    private static final String DOMAIN_PACKAGE = "de.tum.in.www1.artemis.domain.";
+
+    private boolean statisticsEnabled = true;
+
+    private Map<String, Region> regions = new HashMap<>();
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    public Map<String, Region> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, Region> regions) {
+        this.regions = regions;
+    }
+
+    /**
+     * @param cacheName the name of the cache, e.g. the fully qualified name of an entity
+     * @return true if the region of the cache is configured
+     */
+    public boolean hasRegion(String cacheName) {
+        return regions.containsKey(getRegionKey(cacheName));
+    }
+
+    /**
+     * @param cacheName the name of the cache, e.g. the fully qualified name of an entity
+     * @return the configuration of the region, which is empty if the region is not configured
+     */
+    public Region getRegion(String cacheName) {
+        return regions.getOrDefault(getRegionKey(cacheName), new Region());
+    }
+
+    /**
+     * @param cacheName the name of the cache, e.g. the fully qualified name of an entity
+     * @return the key of the region in the configuration, i.e. the cache name without the domain package
+     */
+    public static String getRegionKey(String cacheName) {
+        return cacheName.startsWith(DOMAIN_PACKAGE) ? cacheName.substring(DOMAIN_PACKAGE.length()) : cacheName;
+    }
+
+    /**
+     * The size of one region. The heap is either limited by the number of entries or by bytes (heap-size), entries that do not fit into the heap can be moved to an optional
+     * off-heap tier, which has to be larger than the heap.
+     */
+    public static class Region {
+
+        private Long maxEntries;
+
+        private DataSize heapSize;
+
+        private DataSize offHeapSize;
+
+        private Duration timeToLive;
+
+        public Long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(Long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public DataSize getHeapSize() {
+            return heapSize;
+        }
+
+        public void setHeapSize(DataSize heapSize) {
+            this.heapSize = heapSize;
+        }
+
+        public DataSize getOffHeapSize() {
+            return offHeapSize;
+        }
+
+        public void setOffHeapSize(DataSize offHeapSize) {
+            this.offHeapSize = offHeapSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+}
@@ -90,17 +90,14 @@ public final class Constants {
 
     public static final String PROGRAMMING_EXERCISE_SUCCESSFUL_LOCK_OPERATION_NOTIFICATION = "The student repositories for this programming exercise were locked successfully when the due date passed.";
 
+    public static final String PROGRAMMING_EXERCISE_LOCK_LATENCY_NOTIFICATION = "%d student repositories were locked within %.1f seconds after the due date.";
+
     public static final int FEEDBACK_DETAIL_TEXT_MAX_CHARACTERS = 5000;
 
     public static final String ASSIGNMENT_CHECKOUT_PATH = "assignment";
 
     public static final String TESTS_CHECKOUT_PATH = "tests";
 
-    public static final int EXTERNAL_SYSTEM_REQUEST_BATCH_SIZE = 100;
-
-    // Currently 10s.
-    public static final int EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS = 10 * 1000; // 10s
-
     public static final String SETUP_COMMIT_MESSAGE = "Setup";
 
     public static final String REGISTER_FOR_COURSE = "REGISTER_FOR_COURSE";
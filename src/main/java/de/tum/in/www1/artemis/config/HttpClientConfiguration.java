@@ -0,0 +1,110 @@
+package de.tum.in.www1.artemis.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Provides one pooled Apache HTTP client that is shared by all connectors to external systems (VCS, CI, user management, LTI consumers, remote Artemis services),
+ * so that bulk operations reuse TCP/TLS connections instead of opening a new connection for every request.
+ */
+@Configuration
+public class HttpClientConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(HttpClientConfiguration.class);
+
+    @Value("${artemis.http-client.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${artemis.http-client.max-connections-per-route:50}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${artemis.http-client.connect-timeout-ms:10000}")
+    private int connectTimeout;
+
+    @Value("${artemis.http-client.connection-request-timeout-ms:30000}")
+    private int connectionRequestTimeout;
+
+    /**
+     * The maximum time without data while waiting for a response. 0 (the default) means no timeout, as the connectors used before the shared client had none either: e.g.
+     * creating a build plan in Bamboo or copying a repository in Bitbucket can take minutes for large exercises and must not be aborted.
+     */
+    @Value("${artemis.http-client.socket-timeout-ms:0}")
+    private int socketTimeout;
+
+    @Value("${artemis.http-client.keep-alive-ms:30000}")
+    private long keepAlive;
+
+    /**
+     * The connection pool of the shared http client. The limit per route limits the number of concurrent connections to one external system (e.g. the VCS server).
+     *
+     * @param meterRegistry registry to which the pool statistics are exported
+     * @return the connection manager
+     */
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager pooledHttpClientConnectionManager(MeterRegistry meterRegistry) {
+        log.debug("Creating pooled http client connection manager with {} connections ({} per route)", maxConnections, maxConnectionsPerRoute);
+        final var connectionManager = new PoolingHttpClientConnectionManager(keepAlive, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        // connections that were idle for some time might have been closed by the server in the meantime
+        connectionManager.setValidateAfterInactivity(2000);
+
+        Gauge.builder("artemis.http.client.pool.leased", connectionManager, manager -> manager.getTotalStats().getLeased()).description("Leased connections of the shared http client")
+                .register(meterRegistry);
+        Gauge.builder("artemis.http.client.pool.available", connectionManager, manager -> manager.getTotalStats().getAvailable())
+                .description("Idle connections of the shared http client").register(meterRegistry);
+        Gauge.builder("artemis.http.client.pool.pending", connectionManager, manager -> manager.getTotalStats().getPending())
+                .description("Requests waiting for a connection of the shared http client").register(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * The client does not store cookies: it is shared by all connectors and users, e.g. JiraAuthenticationProvider checks the password of each user with basic authentication,
+     * so a session cookie of one request must not be sent with the requests of other users.
+     *
+     * @param pooledHttpClientConnectionManager the shared connection pool
+     * @return the http client shared by all connectors
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pooledHttpClient(PoolingHttpClientConnectionManager pooledHttpClientConnectionManager) {
+        final var requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeout).setConnectionRequestTimeout(connectionRequestTimeout).setSocketTimeout(socketTimeout)
+                .build();
+        return HttpClients.custom().setConnectionManager(pooledHttpClientConnectionManager).setDefaultRequestConfig(requestConfig).setKeepAliveStrategy(keepAliveStrategy())
+                .disableCookieManagement().evictExpiredConnections().evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS).useSystemProperties().build();
+    }
+
+    /**
+     * @param pooledHttpClient the shared http client
+     * @return a request factory for RestTemplates that uses the shared http client
+     */
+    @Bean
+    public ClientHttpRequestFactory pooledClientHttpRequestFactory(CloseableHttpClient pooledHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(pooledHttpClient);
+    }
+
+    /**
+     * Use the keep alive duration announced by the server, but never keep connections longer than the configured keep alive time.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            final long announcedKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return announcedKeepAlive > 0 ? Math.min(announcedKeepAlive, keepAlive) : keepAlive;
+        };
+    }
+}
@@ -1,70 +1,105 @@
 package de.tum.in.www1.artemis.config;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import de.tum.in.www1.artemis.config.auth.JiraAuthorizationInterceptor;
+import de.tum.in.www1.artemis.service.connectors.ConnectorMetricsService;
 import de.tum.in.www1.artemis.service.connectors.gitlab.GitLabHeaderAuthorizationInterceptor;
 import de.tum.in.www1.artemis.service.connectors.jenkins.JenkinsAuthorizationInterceptor;
 
 /**
- * For now only provides a basic {@link org.springframework.web.client.RestTemplate RestTemplate} bean. Can be extended
- * to further customize how requests to other REST APIs are handled
+ * Provides the {@link org.springframework.web.client.RestTemplate RestTemplate} beans for all connectors to external systems. All RestTemplates share the pooled http client
+ * from {@link HttpClientConfiguration} and record latency and error metrics per connector.
  */
 @Configuration
 public class RestTemplateConfiguration {
 
+    private final CloseableHttpClient pooledHttpClient;
+
+    private final ClientHttpRequestFactory pooledClientHttpRequestFactory;
+
+    private final ConnectorMetricsService connectorMetricsService;
+
+    public RestTemplateConfiguration(CloseableHttpClient pooledHttpClient, ClientHttpRequestFactory pooledClientHttpRequestFactory,
+            ConnectorMetricsService connectorMetricsService) {
+        this.pooledHttpClient = pooledHttpClient;
+        this.pooledClientHttpRequestFactory = pooledClientHttpRequestFactory;
+        this.connectorMetricsService = connectorMetricsService;
+    }
+
     @Bean
     @Profile("gitlab")
     @Autowired
     public RestTemplate gitlabRestTemplate(GitLabHeaderAuthorizationInterceptor gitlabInterceptor) {
-        return initializeRestTemplateWithInterceptors(gitlabInterceptor);
+        return initializeRestTemplateWithInterceptors("gitlab", gitlabInterceptor);
     }
 
     @Bean
     @Profile("jenkins")
     @Autowired
     public RestTemplate jenkinsRestTemplate(JenkinsAuthorizationInterceptor jenkinsInterceptor) {
-        return initializeRestTemplateWithInterceptors(jenkinsInterceptor);
+        return initializeRestTemplateWithInterceptors("jenkins", jenkinsInterceptor);
     }
 
     @Bean
     @Profile("jira")
     @Autowired
     public RestTemplate jiraRestTemplate(JiraAuthorizationInterceptor jiraAuthorizationInterceptor) {
-        return initializeRestTemplateWithInterceptors(jiraAuthorizationInterceptor);
+        return initializeRestTemplateWithInterceptors("jira", jiraAuthorizationInterceptor);
     }
 
     @Bean
     @Profile("bitbucket")
     public RestTemplate bitbucketRestTemplate() {
         // TODO: authenticate here
-        return new RestTemplate();
+        return initializeRestTemplateWithInterceptors("bitbucket");
     }
 
     @Bean
     @Profile("bamboo")
     public RestTemplate bambooRestTemplate() {
         // TODO: authenticate here
-        return new RestTemplate();
+        return initializeRestTemplateWithInterceptors("bamboo");
+    }
+
+    /**
+     * The remote Artemis services (e.g. text clustering) can take several minutes to answer, therefore we do not apply the default socket timeout here.
+     *
+     * @return the RestTemplate for all remote Artemis services
+     */
+    @Bean
+    @Profile("automaticText")
+    public RestTemplate remoteArtemisServiceRestTemplate() {
+        final var restTemplate = initializeRestTemplateWithInterceptors("remote-artemis-service");
+        final var requestFactory = new HttpComponentsClientHttpRequestFactory(pooledHttpClient);
+        requestFactory.setReadTimeout(0);
+        restTemplate.setRequestFactory(requestFactory);
+        return restTemplate;
     }
 
     @NotNull
-    private RestTemplate initializeRestTemplateWithInterceptors(ClientHttpRequestInterceptor interceptor) {
-        final var restTemplate = new RestTemplate();
+    private RestTemplate initializeRestTemplateWithInterceptors(String connector, ClientHttpRequestInterceptor... additionalInterceptors) {
+        final var restTemplate = new RestTemplate(pooledClientHttpRequestFactory);
         var interceptors = restTemplate.getInterceptors();
         if (interceptors.isEmpty()) {
             interceptors = new ArrayList<>();
         }
-        interceptors.add(interceptor);
+        // the metrics interceptor comes first so that the measured time includes the time needed for authentication (e.g. Jenkins crumbs)
+        interceptors.add(connectorMetricsService.interceptorFor(connector));
+        interceptors.addAll(Arrays.asList(additionalInterceptors));
         restTemplate.setInterceptors(interceptors);
 
         return restTemplate;
@@ -73,6 +108,6 @@ public class RestTemplateConfiguration {
     @Bean
     @Primary
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        return initializeRestTemplateWithInterceptors("default");
     }
 }
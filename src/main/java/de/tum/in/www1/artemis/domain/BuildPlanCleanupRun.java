@@ -0,0 +1,121 @@
+package de.tum.in.www1.artemis.domain;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+import javax.persistence.*;
+
+/**
+ * A run of the nightly build plan cleanup. The run stores the id of the last participation that was processed, so that an interrupted run (e.g. because the server was
+ * restarted) can be resumed where it stopped.
+ */
+@Entity
+@Table(name = "build_plan_cleanup_run")
+public class BuildPlanCleanupRun implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "start_date", nullable = false)
+    private ZonedDateTime startDate;
+
+    /**
+     * Null as long as the run is not finished.
+     */
+    @Column(name = "end_date")
+    private ZonedDateTime endDate;
+
+    @Column(name = "last_participation_id", nullable = false)
+    private long lastParticipationId = 0;
+
+    @Column(name = "cleaned_build_plans", nullable = false)
+    private int cleanedBuildPlans = 0;
+
+    @Column(name = "failed_build_plans", nullable = false)
+    private int failedBuildPlans = 0;
+
+    public BuildPlanCleanupRun() {
+    }
+
+    public BuildPlanCleanupRun(ZonedDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ZonedDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(ZonedDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public ZonedDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(ZonedDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public long getLastParticipationId() {
+        return lastParticipationId;
+    }
+
+    public void setLastParticipationId(long lastParticipationId) {
+        this.lastParticipationId = lastParticipationId;
+    }
+
+    public int getCleanedBuildPlans() {
+        return cleanedBuildPlans;
+    }
+
+    public void setCleanedBuildPlans(int cleanedBuildPlans) {
+        this.cleanedBuildPlans = cleanedBuildPlans;
+    }
+
+    public int getFailedBuildPlans() {
+        return failedBuildPlans;
+    }
+
+    public void setFailedBuildPlans(int failedBuildPlans) {
+        this.failedBuildPlans = failedBuildPlans;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BuildPlanCleanupRun run = (BuildPlanCleanupRun) o;
+        if (run.id == null || id == null) {
+            return false;
+        }
+        return Objects.equals(id, run.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "BuildPlanCleanupRun{" + "id=" + id + ", startDate=" + startDate + ", endDate=" + endDate + ", lastParticipationId=" + lastParticipationId + ", cleanedBuildPlans="
+                + cleanedBuildPlans + ", failedBuildPlans=" + failedBuildPlans + '}';
+    }
+}
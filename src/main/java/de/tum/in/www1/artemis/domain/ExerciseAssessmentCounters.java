@@ -0,0 +1,161 @@
+package de.tum.in.www1.artemis.domain;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+import javax.persistence.*;
+
+/**
+ * The assessment related numbers of an exercise that are shown on the tutor and instructor dashboards (submissions, assessments, complaints, more feedback requests and their
+ * responses). They are counted once and stored, so that the dashboards can read the numbers of all exercises of a course with one query instead of counting them on every
+ * request. The counters can always be rebuilt from the submissions, results and complaints of the exercise.
+ */
+@Entity
+@Table(name = "exercise_assessment_counters")
+public class ExerciseAssessmentCounters implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "exercise_id")
+    private Long exerciseId;
+
+    @Column(name = "number_of_submissions", nullable = false)
+    private long numberOfSubmissions = 0;
+
+    @Column(name = "number_of_assessments", nullable = false)
+    private long numberOfAssessments = 0;
+
+    @Column(name = "number_of_automatic_assisted_assessments", nullable = false)
+    private long numberOfAutomaticAssistedAssessments = 0;
+
+    @Column(name = "number_of_complaints", nullable = false)
+    private long numberOfComplaints = 0;
+
+    @Column(name = "number_of_complaint_responses", nullable = false)
+    private long numberOfComplaintResponses = 0;
+
+    @Column(name = "number_of_more_feedback_requests", nullable = false)
+    private long numberOfMoreFeedbackRequests = 0;
+
+    @Column(name = "number_of_more_feedback_responses", nullable = false)
+    private long numberOfMoreFeedbackResponses = 0;
+
+    /**
+     * The time the counters were counted, counters older than the configured maximum age are counted again when they are read.
+     */
+    @Column(name = "last_update", nullable = false)
+    private ZonedDateTime lastUpdate;
+
+    public ExerciseAssessmentCounters() {
+    }
+
+    public ExerciseAssessmentCounters(Long exerciseId, ZonedDateTime lastUpdate) {
+        this.exerciseId = exerciseId;
+        this.lastUpdate = lastUpdate;
+    }
+
+    public Long getExerciseId() {
+        return exerciseId;
+    }
+
+    public void setExerciseId(Long exerciseId) {
+        this.exerciseId = exerciseId;
+    }
+
+    public long getNumberOfSubmissions() {
+        return numberOfSubmissions;
+    }
+
+    public void setNumberOfSubmissions(long numberOfSubmissions) {
+        this.numberOfSubmissions = numberOfSubmissions;
+    }
+
+    public long getNumberOfAssessments() {
+        return numberOfAssessments;
+    }
+
+    public void setNumberOfAssessments(long numberOfAssessments) {
+        this.numberOfAssessments = numberOfAssessments;
+    }
+
+    public long getNumberOfAutomaticAssistedAssessments() {
+        return numberOfAutomaticAssistedAssessments;
+    }
+
+    public void setNumberOfAutomaticAssistedAssessments(long numberOfAutomaticAssistedAssessments) {
+        this.numberOfAutomaticAssistedAssessments = numberOfAutomaticAssistedAssessments;
+    }
+
+    public long getNumberOfComplaints() {
+        return numberOfComplaints;
+    }
+
+    public void setNumberOfComplaints(long numberOfComplaints) {
+        this.numberOfComplaints = numberOfComplaints;
+    }
+
+    public long getNumberOfComplaintResponses() {
+        return numberOfComplaintResponses;
+    }
+
+    public void setNumberOfComplaintResponses(long numberOfComplaintResponses) {
+        this.numberOfComplaintResponses = numberOfComplaintResponses;
+    }
+
+    public long getNumberOfMoreFeedbackRequests() {
+        return numberOfMoreFeedbackRequests;
+    }
+
+    public void setNumberOfMoreFeedbackRequests(long numberOfMoreFeedbackRequests) {
+        this.numberOfMoreFeedbackRequests = numberOfMoreFeedbackRequests;
+    }
+
+    public long getNumberOfMoreFeedbackResponses() {
+        return numberOfMoreFeedbackResponses;
+    }
+
+    public void setNumberOfMoreFeedbackResponses(long numberOfMoreFeedbackResponses) {
+        this.numberOfMoreFeedbackResponses = numberOfMoreFeedbackResponses;
+    }
+
+    public long getNumberOfOpenComplaints() {
+        return numberOfComplaints - numberOfComplaintResponses;
+    }
+
+    public long getNumberOfOpenMoreFeedbackRequests() {
+        return numberOfMoreFeedbackRequests - numberOfMoreFeedbackResponses;
+    }
+
+    public ZonedDateTime getLastUpdate() {
+        return lastUpdate;
+    }
+
+    public void setLastUpdate(ZonedDateTime lastUpdate) {
+        this.lastUpdate = lastUpdate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ExerciseAssessmentCounters counters = (ExerciseAssessmentCounters) o;
+        return Objects.equals(exerciseId, counters.exerciseId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(exerciseId);
+    }
+
+    @Override
+    public String toString() {
+        return "ExerciseAssessmentCounters{" + "exerciseId=" + exerciseId + ", numberOfSubmissions=" + numberOfSubmissions + ", numberOfAssessments=" + numberOfAssessments
+                + ", numberOfComplaints=" + numberOfComplaints + ", numberOfMoreFeedbackRequests=" + numberOfMoreFeedbackRequests + ", lastUpdate=" + lastUpdate + '}';
+    }
+}
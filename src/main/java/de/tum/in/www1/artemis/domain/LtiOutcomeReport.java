@@ -0,0 +1,139 @@
+package de.tum.in.www1.artemis.domain;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+import javax.persistence.*;
+
+/**
+ * A pending report of the latest score of a participation to the LTI consumers of its students.
+ * There is at most one pending report per participation: reports for newer results are coalesced into the existing entry, because the score is only read when the report is sent.
+ */
+@Entity
+@Table(name = "lti_outcome_report", uniqueConstraints = @UniqueConstraint(columnNames = { "participation_id" }))
+public class LtiOutcomeReport implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Deliberately no foreign key, so that participations can be deleted while a report is pending.
+     */
+    @Column(name = "participation_id", nullable = false)
+    private Long participationId;
+
+    @Column(name = "enqueued_date", nullable = false)
+    private ZonedDateTime enqueuedDate;
+
+    @Column(name = "next_attempt_date", nullable = false)
+    private ZonedDateTime nextAttemptDate;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts = 0;
+
+    /**
+     * Identifies the run of the queue (on any server instance) that currently delivers the report, null if the report is not claimed.
+     */
+    @Column(name = "claim_token")
+    private String claimToken;
+
+    /**
+     * The claim expires at this time, so that reports claimed by an instance that crashed during the delivery are delivered by another run.
+     */
+    @Column(name = "claimed_until")
+    private ZonedDateTime claimedUntil;
+
+    public LtiOutcomeReport() {
+    }
+
+    public LtiOutcomeReport(Long participationId, ZonedDateTime enqueuedDate, ZonedDateTime nextAttemptDate) {
+        this.participationId = participationId;
+        this.enqueuedDate = enqueuedDate;
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getParticipationId() {
+        return participationId;
+    }
+
+    public void setParticipationId(Long participationId) {
+        this.participationId = participationId;
+    }
+
+    public ZonedDateTime getEnqueuedDate() {
+        return enqueuedDate;
+    }
+
+    public void setEnqueuedDate(ZonedDateTime enqueuedDate) {
+        this.enqueuedDate = enqueuedDate;
+    }
+
+    public ZonedDateTime getNextAttemptDate() {
+        return nextAttemptDate;
+    }
+
+    public void setNextAttemptDate(ZonedDateTime nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public ZonedDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(ZonedDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        LtiOutcomeReport report = (LtiOutcomeReport) o;
+        if (report.id == null || id == null) {
+            return false;
+        }
+        return Objects.equals(id, report.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "LtiOutcomeReport{" + "id=" + id + ", participationId=" + participationId + ", enqueuedDate=" + enqueuedDate + ", attempts=" + attempts + '}';
+    }
+}
@@ -0,0 +1,129 @@
+package de.tum.in.www1.artemis.domain;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+import javax.persistence.*;
+
+/**
+ * A build result notification of the continuous integration server that was received, but not processed yet.
+ * The notification is stored before the CI server gets its response, so that results that are still queued survive a restart of the server.
+ */
+@Entity
+@Table(name = "pending_build_result")
+public class PendingBuildResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "plan_key", nullable = false)
+    private String planKey;
+
+    /**
+     * The notification of the CI server as JSON, exactly as it was received.
+     */
+    @Lob
+    @Column(name = "request_body", nullable = false)
+    private String requestBody;
+
+    @Column(name = "received_date", nullable = false)
+    private ZonedDateTime receivedDate;
+
+    /**
+     * Identifies the worker (on any server instance) that currently processes the result, null if the result is not claimed.
+     */
+    @Column(name = "claim_token")
+    private String claimToken;
+
+    /**
+     * The claim expires at this time, so that results claimed by an instance that crashed during the processing are processed by another worker.
+     */
+    @Column(name = "claimed_until")
+    private ZonedDateTime claimedUntil;
+
+    public PendingBuildResult() {
+    }
+
+    public PendingBuildResult(String planKey, String requestBody, ZonedDateTime receivedDate) {
+        this.planKey = planKey;
+        this.requestBody = requestBody;
+        this.receivedDate = receivedDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPlanKey() {
+        return planKey;
+    }
+
+    public void setPlanKey(String planKey) {
+        this.planKey = planKey;
+    }
+
+    public String getRequestBody() {
+        return requestBody;
+    }
+
+    public void setRequestBody(String requestBody) {
+        this.requestBody = requestBody;
+    }
+
+    public ZonedDateTime getReceivedDate() {
+        return receivedDate;
+    }
+
+    public void setReceivedDate(ZonedDateTime receivedDate) {
+        this.receivedDate = receivedDate;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public ZonedDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(ZonedDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PendingBuildResult pendingBuildResult = (PendingBuildResult) o;
+        if (pendingBuildResult.id == null || id == null) {
+            return false;
+        }
+        return Objects.equals(id, pendingBuildResult.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "PendingBuildResult{" + "id=" + id + ", planKey='" + planKey + '\'' + ", receivedDate=" + receivedDate + '}';
+    }
+}
@@ -52,6 +52,16 @@ public class Repository extends org.eclipse.jgit.internal.storage.file.FileRepos
         return isValidFile(file.getParentFile());
     }
 
+    /**
+     * Called by JGit when the last reference to the repository was released. Also drops the cached file listings, so that closed repositories do not keep them in memory.
+     */
+    @Override
+    protected void doClose() {
+        filesAndFolders = null;
+        files = null;
+        super.doClose();
+    }
+
     public ProgrammingExerciseParticipation getParticipation() {
         return participation;
     }
@@ -2,6 +2,7 @@ package de.tum.in.www1.artemis.domain.participation;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.ZonedDateTime;
 
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
@@ -28,6 +29,12 @@ public class ProgrammingExerciseStudentParticipation extends StudentParticipatio
     @JsonView(QuizView.Before.class)
     private String buildPlanId;
 
+    /**
+     * The time when the write permissions of the student repository were removed at the due date.
+     */
+    @Column(name = "repository_locked_date")
+    private ZonedDateTime repositoryLockedDate;
+
     public String getRepositoryUrl() {
         return repositoryUrl;
     }
@@ -54,6 +61,14 @@ public class ProgrammingExerciseStudentParticipation extends StudentParticipatio
         this.buildPlanId = buildPlanId;
     }
 
+    public ZonedDateTime getRepositoryLockedDate() {
+        return repositoryLockedDate;
+    }
+
+    public void setRepositoryLockedDate(ZonedDateTime repositoryLockedDate) {
+        this.repositoryLockedDate = repositoryLockedDate;
+    }
+
     /**
      * @return the repository URL as an URL Object
      */
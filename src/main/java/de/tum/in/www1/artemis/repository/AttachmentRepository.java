@@ -1,5 +1,7 @@
 package de.tum.in.www1.artemis.repository;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -19,4 +21,7 @@ public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
     @Query("select a FROM Attachment a WHERE a.lecture.id =  :#{#lectureId}")
     List<Attachment> findAllByLectureId(@Param("lectureId") Long lectureId);
 
+    @Query("select min(a.releaseDate) FROM Attachment a WHERE a.lecture.course.id in :#{#courseIds} and a.releaseDate > :#{#now}")
+    ZonedDateTime findNextReleaseDateByCourseIds(@Param("courseIds") Collection<Long> courseIds, @Param("now") ZonedDateTime now);
+
 }
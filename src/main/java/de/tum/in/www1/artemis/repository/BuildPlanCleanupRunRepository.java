@@ -0,0 +1,34 @@
+package de.tum.in.www1.artemis.repository;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.tum.in.www1.artemis.domain.BuildPlanCleanupRun;
+
+/**
+ * Spring Data JPA repository for the BuildPlanCleanupRun entity, which stores the progress of the nightly build plan cleanup.
+ */
+@Repository
+public interface BuildPlanCleanupRunRepository extends JpaRepository<BuildPlanCleanupRun, Long> {
+
+    Optional<BuildPlanCleanupRun> findFirstByEndDateIsNullOrderByStartDateDesc();
+
+    /**
+     * Finish the run unless it has already been finished, e.g. by another server of the cluster.
+     *
+     * @param id the id of the run
+     * @param endDate the end date to set
+     * @return 1 if the run was finished by this call, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("update BuildPlanCleanupRun run set run.endDate = :#{#endDate} where run.id = :#{#id} and run.endDate is null")
+    int finishIfRunning(@Param("id") Long id, @Param("endDate") ZonedDateTime endDate);
+}
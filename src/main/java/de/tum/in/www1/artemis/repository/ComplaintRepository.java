@@ -2,6 +2,7 @@ package de.tum.in.www1.artemis.repository;
 
 import static org.springframework.data.jpa.repository.EntityGraph.EntityGraphType.LOAD;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -68,6 +69,17 @@ public interface ComplaintRepository extends JpaRepository<Complaint, Long> {
 
     long countByResult_Participation_Exercise_IdAndComplaintType(Long exerciseId, ComplaintType complaintType);
 
+    /**
+     * Counts the number of complaints of the given type for each of the given exercises
+     *
+     * @param exerciseIds   - the ids of the exercises we want to filter by
+     * @param complaintType - complaint type we want to filter by
+     * @return tuples of exercise ids and the number of complaints associated to the exercise (exercises without complaints are not included)
+     */
+    @Query("SELECT c.result.participation.exercise.id, COUNT(c) FROM Complaint c WHERE c.result.participation.exercise.id IN :#{#exerciseIds} "
+            + "AND c.complaintType = :#{#complaintType} GROUP BY c.result.participation.exercise.id")
+    List<long[]> countByExerciseIdsAndComplaintType(@Param("exerciseIds") Collection<Long> exerciseIds, @Param("complaintType") ComplaintType complaintType);
+
     /**
      * This magic method counts the number of complaints associated to a exercise id and to the results assessed by a specific user, identified by a tutor id
      *
@@ -1,8 +1,12 @@
 package de.tum.in.www1.artemis.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import de.tum.in.www1.artemis.domain.ComplaintResponse;
@@ -34,6 +38,17 @@ public interface ComplaintResponseRepository extends JpaRepository<ComplaintResp
      */
     long countByComplaint_Result_Participation_Exercise_Id_AndComplaint_ComplaintType(long exerciseId, ComplaintType complaintType);
 
+    /**
+     * Counts the number of complaint responses by complaint type for each of the given exercises
+     *
+     * @param exerciseIds   - the ids of the exercises we want to filter by
+     * @param complaintType - complaint type we want to filter by
+     * @return tuples of exercise ids and the number of complaint responses associated to the exercise (exercises without responses are not included)
+     */
+    @Query("SELECT cr.complaint.result.participation.exercise.id, COUNT(cr) FROM ComplaintResponse cr WHERE cr.complaint.result.participation.exercise.id IN :#{#exerciseIds} "
+            + "AND cr.complaint.complaintType = :#{#complaintType} GROUP BY cr.complaint.result.participation.exercise.id")
+    List<long[]> countByExerciseIdsAndComplaintType(@Param("exerciseIds") Collection<Long> exerciseIds, @Param("complaintType") ComplaintType complaintType);
+
     /**
      * Delete all complaint responses that belong to complaints of submission results of a given participation
      * @param participationId the Id of the participation where the complaint response should be deleted
@@ -30,6 +30,9 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     @Query("select distinct course from Course course where (course.startDate <= :#{#now} or course.startDate is null) and (course.endDate >= :#{#now} or course.endDate is null)")
     List<Course> findAllActive(@Param("now") ZonedDateTime now);
 
+    @Query("select min(course.startDate) from Course course where course.startDate > :#{#now}")
+    ZonedDateTime findNextStartDate(@Param("now") ZonedDateTime now);
+
     // Note: this is currently only used for testing purposes
     @Query("select distinct course from Course course left join fetch course.exercises exercises left join fetch course.lectures lectures left join fetch lectures.attachments left join fetch exercises.categories where (course.startDate <= :#{#now} or course.startDate is null) and (course.endDate >= :#{#now} or course.endDate is null)")
     List<Course> findAllActiveWithEagerExercisesAndLectures(@Param("now") ZonedDateTime now);
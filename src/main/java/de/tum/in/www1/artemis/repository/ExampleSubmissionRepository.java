@@ -1,5 +1,6 @@
 package de.tum.in.www1.artemis.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +22,9 @@ public interface ExampleSubmissionRepository extends JpaRepository<ExampleSubmis
 
     List<ExampleSubmission> findAllByExerciseId(long exerciseId);
 
+    @Query("select distinct exampleSubmission from ExampleSubmission exampleSubmission join fetch exampleSubmission.submission s join fetch s.result where exampleSubmission.exercise.id in :#{#exerciseIds}")
+    List<ExampleSubmission> findAllWithResultByExerciseIdIn(@Param("exerciseIds") Collection<Long> exerciseIds);
+
     List<ExampleSubmission> findAllByExerciseIdAndUsedForTutorial(Long exercise_id, Boolean usedForTutorial);
 
     @Query("select distinct exampleSubmission from ExampleSubmission exampleSubmission left join fetch exampleSubmission.tutorParticipations where exampleSubmission.id = :#{#exampleSubmissionId}")
@@ -0,0 +1,18 @@
+package de.tum.in.www1.artemis.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import de.tum.in.www1.artemis.domain.ExerciseAssessmentCounters;
+
+/**
+ * Spring Data JPA repository for the ExerciseAssessmentCounters entity, which stores the numbers shown on the assessment dashboards per exercise.
+ */
+@Repository
+public interface ExerciseAssessmentCountersRepository extends JpaRepository<ExerciseAssessmentCounters, Long> {
+
+    List<ExerciseAssessmentCounters> findAllByExerciseIdIn(Collection<Long> exerciseIds);
+}
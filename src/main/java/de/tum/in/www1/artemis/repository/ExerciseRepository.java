@@ -2,6 +2,8 @@ package de.tum.in.www1.artemis.repository;
 
 import static org.springframework.data.jpa.repository.EntityGraph.EntityGraphType.LOAD;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -36,6 +38,27 @@ public interface ExerciseRepository extends JpaRepository<Exercise, Long> {
     @Query("select e from Exercise e where e.course.id = :#{#courseId} and exists (select l from LtiOutcomeUrl l where e = l.exercise and l.user.login = :#{#login})")
     List<Exercise> findByCourseIdWhereLtiOutcomeUrlExists(@Param("courseId") Long courseId, @Param("login") String login);
 
+    /**
+     * Select the exercises of multiple courses with their categories and course in one query, e.g. for the course dashboard
+     * @param courseIds the ids of the courses
+     * @return list of exercises
+     */
+    @Query("select distinct e from Exercise e join fetch e.course left join fetch e.categories where e.course.id in :#{#courseIds}")
+    List<Exercise> findByCourseIdsWithCategories(@Param("courseIds") Collection<Long> courseIds);
+
+    /**
+     * Select the exercises of multiple courses WHERE there does exist an LtiOutcomeUrl for the current user, see findByCourseIdWhereLtiOutcomeUrlExists
+     * @param courseIds the ids of the courses
+     * @param login the login of the corresponding user
+     * @return list of exercises
+     */
+    @Query("select distinct e from Exercise e join fetch e.course left join fetch e.categories where e.course.id in :#{#courseIds} "
+            + "and exists (select l from LtiOutcomeUrl l where e = l.exercise and l.user.login = :#{#login})")
+    List<Exercise> findByCourseIdsWhereLtiOutcomeUrlExistsWithCategories(@Param("courseIds") Collection<Long> courseIds, @Param("login") String login);
+
+    @Query("select min(e.releaseDate) from Exercise e where e.course.id in :#{#courseIds} and e.releaseDate > :#{#now}")
+    ZonedDateTime findNextReleaseDateByCourseIds(@Param("courseIds") Collection<Long> courseIds, @Param("now") ZonedDateTime now);
+
     @Query("select distinct c from Exercise e join e.categories c where e.course.id = :#{#courseId}")
     Set<String> findAllCategoryNames(@Param("courseId") Long courseId);
 
@@ -1,5 +1,6 @@
 package de.tum.in.www1.artemis.repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 
@@ -20,6 +21,9 @@ public interface LectureRepository extends JpaRepository<Lecture, Long> {
     @Query("select lecture from Lecture lecture left join fetch lecture.attachments WHERE lecture.course.id = :#{#courseId}")
     Set<Lecture> findAllByCourseId(@Param("courseId") Long courseId);
 
+    @Query("select distinct lecture from Lecture lecture join fetch lecture.course left join fetch lecture.attachments WHERE lecture.course.id in :#{#courseIds}")
+    Set<Lecture> findAllByCourseIdsWithAttachments(@Param("courseIds") Collection<Long> courseIds);
+
     @Query("select lecture from Lecture lecture left join fetch lecture.studentQuestions WHERE lecture.id = :#{#lectureId}")
     Optional<Lecture> findByIdWithStudentQuestions(@Param("lectureId") Long lectureId);
 }
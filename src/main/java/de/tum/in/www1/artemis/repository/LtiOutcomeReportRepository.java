@@ -0,0 +1,101 @@
+package de.tum.in.www1.artemis.repository;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.tum.in.www1.artemis.domain.LtiOutcomeReport;
+
+/**
+ * Spring Data JPA repository for the LtiOutcomeReport entity, which is used as durable outbound queue for LTI score reports.
+ */
+@Repository
+public interface LtiOutcomeReportRepository extends JpaRepository<LtiOutcomeReport, Long> {
+
+    /**
+     * Find the ids of the reports that are due and not claimed by another run of the queue (or whose claim has expired).
+     *
+     * @param now      the current time
+     * @param pageable the maximum number of reports
+     * @return the ids of the due reports, the report that is due the longest first
+     */
+    @Query("select report.id from LtiOutcomeReport report where report.nextAttemptDate < :#{#now} and (report.claimedUntil is null or report.claimedUntil < :#{#now}) order by report.nextAttemptDate asc")
+    List<Long> findIdsOfDueReports(@Param("now") ZonedDateTime now, Pageable pageable);
+
+    /**
+     * Claim the given reports for one run of the queue. The update only claims reports that are not claimed by another run, the database locks the updated rows, so every
+     * report is claimed by at most one run, even if the queue runs on several server instances at the same time.
+     *
+     * @param ids          the ids of the due reports
+     * @param claimToken   identifies the run that claims the reports
+     * @param now          the current time
+     * @param claimedUntil the time at which the claim expires
+     * @return the number of claimed reports
+     */
+    @Modifying
+    @Transactional
+    @Query("update LtiOutcomeReport report set report.claimToken = :#{#claimToken}, report.claimedUntil = :#{#claimedUntil} where report.id in :#{#ids} and (report.claimedUntil is null or report.claimedUntil < :#{#now})")
+    int claim(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken, @Param("now") ZonedDateTime now, @Param("claimedUntil") ZonedDateTime claimedUntil);
+
+    List<LtiOutcomeReport> findAllByClaimTokenOrderByNextAttemptDateAsc(String claimToken);
+
+    /**
+     * Release the claim of a report, e.g. because a newer result was coalesced into the report during the delivery and the report has to be sent again.
+     *
+     * @param id         the id of the report
+     * @param claimToken identifies the run that claimed the report
+     * @return the number of released reports
+     */
+    @Modifying
+    @Transactional
+    @Query("update LtiOutcomeReport report set report.claimToken = null, report.claimedUntil = null where report.id = :#{#id} and report.claimToken = :#{#claimToken}")
+    int release(@Param("id") Long id, @Param("claimToken") String claimToken);
+
+    /**
+     * Coalesce a new report into the pending report of the participation (if there is one).
+     *
+     * @param participationId the id of the participation with a new result
+     * @param enqueuedDate the time of the new result
+     * @param nextAttemptDate the earliest time the report should be sent
+     * @return the number of updated reports, i.e. 0 if no report was pending for the participation
+     */
+    @Modifying
+    @Transactional
+    @Query("update LtiOutcomeReport report set report.enqueuedDate = :#{#enqueuedDate}, report.nextAttemptDate = :#{#nextAttemptDate}, report.attempts = 0 where report.participationId = :#{#participationId}")
+    int coalesce(@Param("participationId") Long participationId, @Param("enqueuedDate") ZonedDateTime enqueuedDate, @Param("nextAttemptDate") ZonedDateTime nextAttemptDate);
+
+    /**
+     * Remove a delivered report, but only if no newer result was coalesced into it in the meantime.
+     *
+     * @param id the id of the report
+     * @param enqueuedDate the enqueued date of the report when it was picked up for delivery
+     * @return the number of deleted reports
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from LtiOutcomeReport report where report.id = :#{#id} and report.enqueuedDate = :#{#enqueuedDate}")
+    int deleteIfNotEnqueuedAgain(@Param("id") Long id, @Param("enqueuedDate") ZonedDateTime enqueuedDate);
+
+    /**
+     * Schedule another delivery attempt after a failed delivery and release the claim, unless a newer result was coalesced into the report in the meantime (which resets the
+     * attempts).
+     *
+     * @param id the id of the report
+     * @param enqueuedDate the enqueued date of the report when it was picked up for delivery
+     * @param attempts the number of failed attempts so far
+     * @param nextAttemptDate the time of the next attempt
+     * @return the number of updated reports
+     */
+    @Modifying
+    @Transactional
+    @Query("update LtiOutcomeReport report set report.attempts = :#{#attempts}, report.nextAttemptDate = :#{#nextAttemptDate}, report.claimToken = null, report.claimedUntil = null where report.id = :#{#id} and report.enqueuedDate = :#{#enqueuedDate}")
+    int scheduleRetry(@Param("id") Long id, @Param("enqueuedDate") ZonedDateTime enqueuedDate, @Param("attempts") int attempts,
+            @Param("nextAttemptDate") ZonedDateTime nextAttemptDate);
+}
@@ -24,4 +24,10 @@ public interface LtiOutcomeUrlRepository extends JpaRepository<LtiOutcomeUrl, Lo
     Optional<LtiOutcomeUrl> findByUserIsCurrentUserAndExercise(@Param("exercise") Exercise exercise);
 
     Optional<LtiOutcomeUrl> findByUserAndExercise(User user, Exercise exercise);
+
+    @Query("select distinct outcomeUrl from StudentParticipation participation left join participation.student student left join participation.team team left join team.students teamStudent, LtiOutcomeUrl outcomeUrl where participation.id = :#{#participationId} and outcomeUrl.exercise.id = participation.exercise.id and (outcomeUrl.user.id = student.id or outcomeUrl.user.id = teamStudent.id)")
+    List<LtiOutcomeUrl> findAllByParticipationId(@Param("participationId") Long participationId);
+
+    @Query("select case when count(outcomeUrl) > 0 then true else false end from StudentParticipation participation left join participation.student student left join participation.team team left join team.students teamStudent, LtiOutcomeUrl outcomeUrl where participation.id = :#{#participationId} and outcomeUrl.exercise.id = participation.exercise.id and (outcomeUrl.user.id = student.id or outcomeUrl.user.id = teamStudent.id)")
+    boolean existsByParticipationId(@Param("participationId") Long participationId);
 }
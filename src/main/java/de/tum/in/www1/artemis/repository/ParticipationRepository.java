@@ -15,9 +15,6 @@ import de.tum.in.www1.artemis.domain.participation.Participation;
 @Repository
 public interface ParticipationRepository extends JpaRepository<Participation, Long> {
 
-    @Query("select distinct p from Participation p left join fetch p.submissions left join fetch p.results where p.id = :#{#participationId}")
-    Participation getOneWithEagerSubmissionsAndResults(@Param("participationId") Long participationId);
-
     @Query("select p from Participation p left join fetch p.results pr left join fetch pr.feedbacks prf where p.id = :participationId and (pr.id = (select max(id) from p.results) or pr.id = null)")
     Optional<Participation> findByIdWithLatestResultAndFeedbacks(@Param("participationId") Long participationId);
 
@@ -30,4 +27,10 @@ public interface ParticipationRepository extends JpaRepository<Participation, Lo
      */
     @EntityGraph(type = LOAD, attributePaths = { "submissions" })
     Optional<Participation> findWithEagerSubmissionsById(Long participationId);
+
+    @Query("select distinct p from Participation p left join fetch p.submissions s left join fetch s.result where p.id = :#{#participationId}")
+    Optional<Participation> findWithEagerSubmissionsAndResultOfSubmissionsById(@Param("participationId") Long participationId);
+
+    @EntityGraph(type = LOAD, attributePaths = { "results" })
+    Optional<Participation> findWithEagerResultsById(Long participationId);
 }
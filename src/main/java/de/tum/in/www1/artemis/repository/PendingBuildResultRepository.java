@@ -0,0 +1,61 @@
+package de.tum.in.www1.artemis.repository;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.tum.in.www1.artemis.domain.PendingBuildResult;
+
+/**
+ * Spring Data JPA repository for the PendingBuildResult entity, which is used as durable inbound queue for new build results.
+ */
+@Repository
+public interface PendingBuildResultRepository extends JpaRepository<PendingBuildResult, Long> {
+
+    /**
+     * Find the ids of the results that are not claimed by a worker (or whose claim has expired).
+     *
+     * @param now      the current time
+     * @param pageable the maximum number of results
+     * @return the ids of the unclaimed results, in the order they were received
+     */
+    @Query("select pending.id from PendingBuildResult pending where pending.claimedUntil is null or pending.claimedUntil < :#{#now} order by pending.id asc")
+    List<Long> findIdsOfUnclaimed(@Param("now") ZonedDateTime now, Pageable pageable);
+
+    /**
+     * Claim the given results for one worker. The update only claims results that are not claimed by another worker, the database locks the updated rows, so every result is
+     * claimed by at most one worker, even if the results are processed on several server instances at the same time.
+     *
+     * @param ids          the ids of the unclaimed results
+     * @param claimToken   identifies the worker that claims the results
+     * @param now          the current time
+     * @param claimedUntil the time at which the claim expires
+     * @return the number of claimed results
+     */
+    @Modifying
+    @Transactional
+    @Query("update PendingBuildResult pending set pending.claimToken = :#{#claimToken}, pending.claimedUntil = :#{#claimedUntil} where pending.id in :#{#ids} and (pending.claimedUntil is null or pending.claimedUntil < :#{#now})")
+    int claim(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken, @Param("now") ZonedDateTime now, @Param("claimedUntil") ZonedDateTime claimedUntil);
+
+    List<PendingBuildResult> findAllByClaimTokenOrderByIdAsc(String claimToken);
+
+    /**
+     * Remove a result, but only if it is still claimed by the given worker. In the transaction that processes the result, the removed row stays locked until the commit, so
+     * no other worker can claim the result while it is processed.
+     *
+     * @param id         the id of the result
+     * @param claimToken identifies the worker that claimed the result
+     * @return the number of removed results, i.e. 0 if the claim expired and the result was claimed by another worker
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from PendingBuildResult pending where pending.id = :#{#id} and pending.claimToken = :#{#claimToken}")
+    int deleteIfClaimedBy(@Param("id") Long id, @Param("claimToken") String claimToken);
+}
@@ -3,6 +3,7 @@ package de.tum.in.www1.artemis.repository;
 import static org.springframework.data.jpa.repository.EntityGraph.EntityGraphType.LOAD;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -91,6 +92,14 @@ public interface ProgrammingExerciseRepository extends JpaRepository<Programming
     @Query("SELECT COUNT (DISTINCT p) FROM ProgrammingExerciseStudentParticipation p WHERE p.exercise.id = :#{#exerciseId} AND EXISTS (SELECT s FROM ProgrammingSubmission s WHERE s.participation.id = p.id AND s.submitted = TRUE)")
     long countSubmissionsByExerciseIdSubmitted(@Param("exerciseId") Long exerciseId);
 
+    /**
+     * @param exerciseIds the exercise ids we are interested in
+     * @return tuples of exercise ids and the number of participations with a submitted submission (exercises without such participations are not included)
+     */
+    @Query("SELECT p.exercise.id, COUNT (DISTINCT p) FROM ProgrammingExerciseStudentParticipation p WHERE p.exercise.id IN :#{#exerciseIds} "
+            + "AND EXISTS (SELECT s FROM ProgrammingSubmission s WHERE s.participation.id = p.id AND s.submitted = TRUE) GROUP BY p.exercise.id")
+    List<long[]> countSubmissionsByExerciseIdsSubmitted(@Param("exerciseIds") Collection<Long> exerciseIds);
+
     /**
      * In distinction to other exercise types, students can have multiple submissions in a programming exercise.
      * We therefore have to check here if any submission of the student was submitted before the deadline.
@@ -2,15 +2,19 @@ package de.tum.in.www1.artemis.repository;
 
 import static org.springframework.data.jpa.repository.EntityGraph.EntityGraphType.LOAD;
 
+import java.time.ZonedDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
 
@@ -24,11 +28,38 @@ public interface ProgrammingExerciseStudentParticipationRepository extends JpaRe
     @Query("select p from ProgrammingExerciseStudentParticipation p left join fetch p.results pr left join fetch pr.feedbacks left join fetch pr.submission where p.id = :participationId and (pr.id = (select max(id) from p.results) or pr.id = null)")
     Optional<ProgrammingExerciseStudentParticipation> findByIdWithLatestResultAndFeedbacksAndRelatedSubmissions(@Param("participationId") Long participationId);
 
-    @EntityGraph(type = LOAD, attributePaths = { "results", "exercise" })
-    List<ProgrammingExerciseStudentParticipation> findByBuildPlanId(String buildPlanId);
+    @EntityGraph(type = LOAD, attributePaths = "exercise")
+    List<ProgrammingExerciseStudentParticipation> findWithExerciseByBuildPlanId(String buildPlanId);
 
-    @Query("select distinct p from ProgrammingExerciseStudentParticipation p left join fetch p.results where p.buildPlanId is not null and (p.student is not null or p.team is not null)")
-    List<ProgrammingExerciseStudentParticipation> findAllWithBuildPlanId();
+    /**
+     * Get the next page of student participations whose build plans can be cleaned up, ordered by id (keyset pagination). A build plan can be cleaned up
+     * <ul>
+     * <li>1 day after the build and test student submissions after due date, because then no builds should be executed any more,</li>
+     * <li>7 days after the participation was initialized in case there is no result,</li>
+     * <li>3 days after the latest result in case it is successful,</li>
+     * <li>7 days after the latest result in case it is not successful.</li>
+     * </ul>
+     * Build plans of exercises with a build and test date in the future and of exercises where students configure the build plan (published build plan url) are only
+     * cleaned up in the first case.
+     *
+     * @param lastParticipationId only participations with a larger id are returned
+     * @param now the current time
+     * @param pageable the page size (the page number should always be 0)
+     * @return the participations with exercise and students
+     */
+    @Query("select p from ProgrammingExerciseStudentParticipation p join fetch p.exercise left join fetch p.student left join fetch p.team, ProgrammingExercise e "
+            + "where p.exercise.id = e.id and p.id > :#{#lastParticipationId} and p.buildPlanId is not null and (p.student is not null or p.team is not null) "
+            + "and (e.buildAndTestStudentSubmissionsAfterDueDate < :#{#now.minusDays(1)} "
+            + "or ((e.buildAndTestStudentSubmissionsAfterDueDate is null or e.buildAndTestStudentSubmissionsAfterDueDate < :#{#now}) "
+            + "and (e.publishBuildPlanUrl is null or e.publishBuildPlanUrl = false) "
+            + "and ((p.initializationDate < :#{#now.minusDays(7)} and not exists (select r from Result r where r.participation.id = p.id)) "
+            + "or exists (select r from Result r where r.participation.id = p.id "
+            + "and r.completionDate = (select max(r2.completionDate) from Result r2 where r2.participation.id = p.id) "
+            + "and ((r.successful = true and r.completionDate < :#{#now.minusDays(3)}) "
+            + "or ((r.successful is null or r.successful = false) and r.completionDate < :#{#now.minusDays(7)})))))) "
+            + "order by p.id asc")
+    List<ProgrammingExerciseStudentParticipation> findNextWithBuildPlanToCleanup(@Param("lastParticipationId") long lastParticipationId, @Param("now") ZonedDateTime now,
+            Pageable pageable);
 
     Optional<ProgrammingExerciseStudentParticipation> findByExerciseIdAndStudentLogin(Long exerciseId, String username);
 
@@ -49,4 +80,18 @@ public interface ProgrammingExerciseStudentParticipationRepository extends JpaRe
 
     @EntityGraph(type = LOAD, attributePaths = "student")
     Optional<ProgrammingExerciseStudentParticipation> findWithStudentById(Long participationId);
+
+    /**
+     * Get all participations of an exercise with their students (or teams with their students), but without results or submissions.
+     *
+     * @param exerciseId the id of the exercise
+     * @return the participations with students
+     */
+    @Query("select distinct p from ProgrammingExerciseStudentParticipation p left join fetch p.student left join fetch p.team t left join fetch t.students where p.exercise.id = :#{#exerciseId}")
+    List<ProgrammingExerciseStudentParticipation> findAllWithStudentsByExerciseId(@Param("exerciseId") Long exerciseId);
+
+    @Modifying
+    @Transactional
+    @Query("update ProgrammingExerciseStudentParticipation p set p.repositoryLockedDate = :#{#lockedDate} where p.id = :#{#participationId}")
+    void updateRepositoryLockedDate(@Param("participationId") Long participationId, @Param("lockedDate") ZonedDateTime lockedDate);
 }
@@ -23,6 +23,31 @@ public interface ProgrammingSubmissionRepository extends JpaRepository<Programmi
     @EntityGraph(type = LOAD, attributePaths = { "result.feedbacks" })
     ProgrammingSubmission findFirstByParticipationIdAndCommitHash(Long participationId, String commitHash);
 
+    /**
+     * Check if there is a submission for the given commit, uses the index on (participation_id, commit_hash).
+     *
+     * @param participationId the id of the participation
+     * @param commitHash the hash of the commit
+     * @return true if the participation already has a submission for the commit
+     */
+    boolean existsByParticipationIdAndCommitHash(Long participationId, String commitHash);
+
+    /**
+     * Find the latest pending submission (i.e. without result) of a participation that matches the commits of a build, uses the index on (participation_id, commit_hash).
+     * Submissions of type 'MANUAL' and 'INSTRUCTOR' are matched with the commit of the assignment repository, submissions of type 'TEST' with the commit of the test repository.
+     *
+     * @param participationId the id of the participation
+     * @param assignmentCommitHash the hash of the assignment repository commit of the build (can be null)
+     * @param testsCommitHash the hash of the test repository commit of the build (can be null)
+     * @param pageable Pageable, only the first submission is relevant
+     * @return the matching pending submissions ordered by submission date (latest first)
+     */
+    @Query("select s from ProgrammingSubmission s left join s.result r where s.participation.id = :#{#participationId} and r.id is null "
+            + "and (((s.type = 'MANUAL' or s.type = 'INSTRUCTOR') and s.commitHash = :#{#assignmentCommitHash}) or (s.type = 'TEST' and s.commitHash = :#{#testsCommitHash})) "
+            + "order by s.submissionDate desc")
+    List<ProgrammingSubmission> findPendingByParticipationIdAndCommitHash(@Param("participationId") Long participationId, @Param("assignmentCommitHash") String assignmentCommitHash,
+            @Param("testsCommitHash") String testsCommitHash, Pageable pageable);
+
     @EntityGraph(type = LOAD, attributePaths = "result")
     Optional<ProgrammingSubmission> findFirstByParticipationIdOrderBySubmissionDateDesc(Long participationId);
 
@@ -40,9 +65,6 @@ public interface ProgrammingSubmissionRepository extends JpaRepository<Programmi
     @Query("select s from ProgrammingSubmission s left join s.participation p left join p.exercise e where p.id = :#{#participationId} and (s.type = 'INSTRUCTOR' or s.type = 'TEST' or e.dueDate is null or s.submissionDate <= e.dueDate) order by s.submissionDate desc")
     List<ProgrammingSubmission> findGradedByParticipationIdOrderBySubmissionDateDesc(@Param("participationId") Long participationId, Pageable pageable);
 
-    @EntityGraph(type = LOAD, attributePaths = { "result.feedbacks" })
-    List<ProgrammingSubmission> findByParticipationIdAndResultIsNullOrderBySubmissionDateDesc(Long participationId);
-
     @EntityGraph(type = LOAD, attributePaths = "result")
     Optional<ProgrammingSubmission> findWithEagerResultById(Long submissionId);
 
@@ -2,6 +2,7 @@ package de.tum.in.www1.artemis.repository;
 
 import static org.springframework.data.jpa.repository.EntityGraph.EntityGraphType.LOAD;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -53,6 +54,9 @@ public interface ResultRepository extends JpaRepository<Result, Long> {
     @EntityGraph(type = LOAD, attributePaths = "feedbacks")
     Optional<Result> findDistinctWithFeedbackBySubmissionId(Long submissionId);
 
+    @Query("select distinct result from Result result left join fetch result.feedbacks where result.submission.participation.id in :#{#participationIds}")
+    List<Result> findAllWithEagerFeedbacksBySubmissionParticipationIdIn(@Param("participationIds") Collection<Long> participationIds);
+
     List<Result> findAllByParticipationExerciseIdAndAssessorId(Long exerciseId, Long assessorId);
 
     @Query("select r from Result r left join fetch r.feedbacks where r.id = :resultId")
@@ -88,6 +92,15 @@ public interface ResultRepository extends JpaRepository<Result, Long> {
     @Query(value = "SELECT COUNT(DISTINCT p) FROM Participation p left join p.results r WHERE p.exercise.id = :exerciseId AND r.assessor IS NOT NULL AND r.rated = TRUE AND r.completionDate IS NOT NULL")
     long countNumberOfFinishedAssessmentsForExercise(@Param("exerciseId") Long exerciseId);
 
+    @Query("SELECT p.exercise.id, COUNT(DISTINCT p) FROM Participation p left join p.results r WHERE p.exercise.id IN :#{#exerciseIds} AND r.assessor IS NOT NULL AND r.rated = TRUE "
+            + "AND r.completionDate IS NOT NULL GROUP BY p.exercise.id")
+    List<long[]> countNumberOfFinishedAssessmentsForExercises(@Param("exerciseIds") Collection<Long> exerciseIds);
+
+    @Query("SELECT r.participation.exercise.id, COUNT(r) FROM Result r WHERE r.participation.exercise.id IN :#{#exerciseIds} AND r.assessor IS NOT NULL AND r.rated = TRUE "
+            + "AND r.assessmentType IN :#{#assessmentTypes} AND r.completionDate IS NOT NULL GROUP BY r.participation.exercise.id")
+    List<long[]> countNumberOfAssessmentsForExercisesByAssessmentTypes(@Param("exerciseIds") Collection<Long> exerciseIds,
+            @Param("assessmentTypes") Collection<AssessmentType> assessmentTypes);
+
     @EntityGraph(type = LOAD, attributePaths = { "feedbacks" })
     List<Result> findAllWithEagerFeedbackByAssessorIsNotNullAndParticipation_ExerciseIdAndCompletionDateIsNotNull(Long exerciseId);
 
@@ -0,0 +1,140 @@
+package de.tum.in.www1.artemis.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
+
+/**
+ * Loads student participations together with several of their collections (submissions, results, feedbacks and team members).
+ *
+ * Fetching more than one collection in the same query (with join fetch or an entity graph) returns the cartesian product of the collections, e.g. a participation with 20
+ * submissions and 20 results results in 400 rows. Instead, the participations are loaded in phases: first their ids, then one query per collection which fetches the collection
+ * for a batch of ids. All queries of one call run in the same (read-only) transaction, so Hibernate attaches the fetched collections to the participations of the first query.
+ */
+@Repository
+public class StudentParticipationFetchRepository {
+
+    /**
+     * The maximum number of ids in the in clause of one query, more participations are loaded in several batches.
+     */
+    static final int BATCH_SIZE = 500;
+
+    private final StudentParticipationRepository studentParticipationRepository;
+
+    private final ResultRepository resultRepository;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public StudentParticipationFetchRepository(StudentParticipationRepository studentParticipationRepository, ResultRepository resultRepository,
+            PlatformTransactionManager transactionManager) {
+        this.studentParticipationRepository = studentParticipationRepository;
+        this.resultRepository = resultRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Find the participation with the given id. Additionally, load all the submissions (with their result), all the results and the team members of the participation.
+     *
+     * @param participationId the id of the participation
+     * @return the participation with eager submissions and results or an empty Optional
+     */
+    public Optional<StudentParticipation> findWithEagerSubmissionsAndResultsById(long participationId) {
+        return fetch(List.of(participationId), studentParticipationRepository::findAllWithEagerParticipantByIdIn,
+                studentParticipationRepository::findAllWithEagerSubmissionsAndResultOfSubmissionByIdIn, studentParticipationRepository::findAllWithEagerResultsByIdIn).stream()
+                        .findFirst();
+    }
+
+    /**
+     * Find the participation with the given id. Additionally, load all the submissions (with their result), all the results with their assessor and the team members of the
+     * participation.
+     *
+     * @param participationId the id of the participation
+     * @return the participation with eager submissions, results and assessors or an empty Optional
+     */
+    public Optional<StudentParticipation> findWithEagerSubmissionsAndResultsAssessorsById(long participationId) {
+        return fetch(List.of(participationId), studentParticipationRepository::findAllWithEagerParticipantByIdIn,
+                studentParticipationRepository::findAllWithEagerSubmissionsAndResultOfSubmissionByIdIn, studentParticipationRepository::findAllWithEagerResultsAndAssessorByIdIn)
+                        .stream().findFirst();
+    }
+
+    /**
+     * Find the participation with the given id. Additionally, load all the submissions (with their result and its feedbacks), all the results, the exercise with its course and
+     * the team members of the participation.
+     *
+     * @param participationId the id of the participation
+     * @return the participation with eager submissions, results, exercise and course or an empty Optional
+     */
+    public Optional<StudentParticipation> findWithEagerSubmissionsAndResultsAndExerciseAndCourseById(long participationId) {
+        return fetch(List.of(participationId), studentParticipationRepository::findAllWithEagerExerciseAndCourseAndParticipantByIdIn,
+                studentParticipationRepository::findAllWithEagerSubmissionsAndResultOfSubmissionByIdIn, studentParticipationRepository::findAllWithEagerResultsByIdIn,
+                resultRepository::findAllWithEagerFeedbacksBySubmissionParticipationIdIn).stream().findFirst();
+    }
+
+    /**
+     * Find the participations of the student in the exercise with all their submissions (with their result) and all their results.
+     *
+     * @param exerciseId the id of the exercise
+     * @param studentId  the id of the student
+     * @return the participations of the student with eager submissions and results
+     */
+    public List<StudentParticipation> findByExerciseIdAndStudentIdWithEagerResultsAndSubmissions(long exerciseId, long studentId) {
+        return readOnlyTransactionTemplate.execute(status -> fetch(studentParticipationRepository.findIdsByExerciseIdAndStudentId(exerciseId, studentId),
+                studentParticipationRepository::findAllWithEagerParticipantByIdIn, studentParticipationRepository::findAllWithEagerSubmissionsAndResultOfSubmissionByIdIn,
+                studentParticipationRepository::findAllWithEagerResultsByIdIn));
+    }
+
+    /**
+     * Find the participations of the team in the exercise with all their submissions (with their result) and all their results.
+     *
+     * @param exerciseId the id of the exercise
+     * @param teamId     the id of the team
+     * @return the participations of the team with eager submissions and results
+     */
+    public List<StudentParticipation> findByExerciseIdAndTeamIdWithEagerResultsAndSubmissions(long exerciseId, long teamId) {
+        return readOnlyTransactionTemplate.execute(status -> fetch(studentParticipationRepository.findIdsByExerciseIdAndTeamId(exerciseId, teamId),
+                studentParticipationRepository::findAllWithEagerParticipantByIdIn, studentParticipationRepository::findAllWithEagerSubmissionsAndResultOfSubmissionByIdIn,
+                studentParticipationRepository::findAllWithEagerResultsByIdIn));
+    }
+
+    /**
+     * Loads the participations with the given ids in batches. For each batch, the participations are selected first, then each collection query initializes one collection of
+     * the same (already managed) participations. Joins the transaction of the caller, if there is one.
+     *
+     * @param participationIds   the ids of the participations
+     * @param participationQuery selects the participations (and their single valued associations)
+     * @param collectionQueries  each fetches one collection of the participations, their return value is not needed
+     * @return the participations with the fetched collections
+     */
+    @SafeVarargs
+    private List<StudentParticipation> fetch(Collection<Long> participationIds, Function<Collection<Long>, List<StudentParticipation>> participationQuery,
+            Function<Collection<Long>, ? extends Collection<?>>... collectionQueries) {
+        if (participationIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return readOnlyTransactionTemplate.execute(status -> {
+            List<StudentParticipation> participations = new ArrayList<>();
+            List<Long> ids = new ArrayList<>(participationIds);
+            for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+                List<Long> batch = ids.subList(start, Math.min(start + BATCH_SIZE, ids.size()));
+                List<StudentParticipation> participationsOfBatch = participationQuery.apply(batch);
+                if (participationsOfBatch.isEmpty()) {
+                    continue;
+                }
+                for (Function<Collection<Long>, ? extends Collection<?>> collectionQuery : collectionQueries) {
+                    collectionQuery.apply(batch);
+                }
+                participations.addAll(participationsOfBatch);
+            }
+            return participations;
+        });
+    }
+}
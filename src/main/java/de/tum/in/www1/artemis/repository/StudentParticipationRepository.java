@@ -2,17 +2,25 @@ package de.tum.in.www1.artemis.repository;
 
 import static org.springframework.data.jpa.repository.EntityGraph.EntityGraphType.LOAD;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import de.tum.in.www1.artemis.domain.Exercise;
 import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
+import de.tum.in.www1.artemis.web.rest.dto.ExerciseResultDTO;
+import de.tum.in.www1.artemis.web.rest.dto.RelevantResultDTO;
 
 /**
  * Spring Data JPA repository for the Participation entity.
@@ -28,6 +36,38 @@ public interface StudentParticipationRepository extends JpaRepository<StudentPar
     @Query("select distinct participation from StudentParticipation participation left join fetch participation.results r where participation.exercise.course.id = :#{#courseId} and (r.rated is null or r.rated = true)")
     List<StudentParticipation> findByCourseIdWithEagerRatedResults(@Param("courseId") Long courseId);
 
+    /**
+     * Get the participations of students and teams in the course without their results. Like in {@link #findByCourseIdWithEagerRatedResults(Long)}, participations that only
+     * have unrated results are not included.
+     *
+     * @param courseId the id of the course
+     * @return the participations with exercise and participant
+     */
+    @Query("select distinct participation from StudentParticipation participation join fetch participation.exercise left join fetch participation.student "
+            + "left join fetch participation.team where participation.exercise.course.id = :#{#courseId} and (participation.student is not null or participation.team is not null) "
+            + "and (not exists (select result.id from Result result where result.participation = participation) "
+            + "or exists (select result.id from Result result where result.participation = participation and (result.rated is null or result.rated = true)))")
+    List<StudentParticipation> findByCourseIdWithStudentOrTeam(@Param("courseId") Long courseId);
+
+    /**
+     * Stream the relevant result of each participation of a student or team in the course, i.e. the latest rated result with completion date and score (the highest id for
+     * equal completion dates). The latest result is selected by the database as groupwise maximum, so that only one slim row per participation is transferred. The stream must
+     * be consumed and closed within a transaction.
+     *
+     * @param courseId the id of the course
+     * @return the relevant result of each participation that has one
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select new de.tum.in.www1.artemis.web.rest.dto.RelevantResultDTO(participation.id, participation.exercise.id, student.id, team.id, result.id, result.completionDate, "
+            + "result.score, result.successful, result.resultString, result.rated, result.assessmentType, result.hasFeedback) "
+            + "from StudentParticipation participation join participation.results result left join participation.student student left join participation.team team "
+            + "where participation.exercise.course.id = :#{#courseId} and (student.id is not null or team.id is not null) "
+            + "and (result.rated is null or result.rated = true) and result.completionDate is not null and result.score is not null "
+            + "and not exists (select newerResult.id from Result newerResult where newerResult.participation = participation "
+            + "and (newerResult.rated is null or newerResult.rated = true) and newerResult.completionDate is not null and newerResult.score is not null "
+            + "and (newerResult.completionDate > result.completionDate or (newerResult.completionDate = result.completionDate and newerResult.id > result.id)))")
+    Stream<RelevantResultDTO> streamRelevantResultsByCourseId(@Param("courseId") Long courseId);
+
     @Query("select distinct participation from StudentParticipation participation where participation.exercise.course.id = :#{#courseId} and participation.team.shortName = :#{#teamShortName}")
     List<StudentParticipation> findAllByCourseIdAndTeamShortName(@Param("courseId") Long courseId, @Param("teamShortName") String teamShortName);
 
@@ -65,11 +105,11 @@ public interface StudentParticipationRepository extends JpaRepository<StudentPar
     @Query("select distinct participation from StudentParticipation participation left join fetch participation.results result where participation.exercise.id = :#{#exerciseId} and (result.id = (select max(id) from participation.results) or result is null)")
     List<StudentParticipation> findByExerciseIdWithLatestResult(@Param("exerciseId") Long exerciseId);
 
-    @Query("select distinct participation from StudentParticipation participation left join fetch participation.results left join fetch participation.submissions where participation.exercise.id = :#{#exerciseId} and participation.student.id = :#{#studentId}")
-    List<StudentParticipation> findByExerciseIdAndStudentIdWithEagerResultsAndSubmissions(@Param("exerciseId") Long exerciseId, @Param("studentId") Long studentId);
+    @Query("select participation.id from StudentParticipation participation where participation.exercise.id = :#{#exerciseId} and participation.student.id = :#{#studentId}")
+    List<Long> findIdsByExerciseIdAndStudentId(@Param("exerciseId") Long exerciseId, @Param("studentId") Long studentId);
 
-    @Query("select distinct participation from StudentParticipation participation left join fetch participation.results left join fetch participation.submissions where participation.exercise.id = :#{#exerciseId} and participation.team.id = :#{#teamId}")
-    List<StudentParticipation> findByExerciseIdAndTeamIdWithEagerResultsAndSubmissions(@Param("exerciseId") Long exerciseId, @Param("teamId") Long teamId);
+    @Query("select participation.id from StudentParticipation participation where participation.exercise.id = :#{#exerciseId} and participation.team.id = :#{#teamId}")
+    List<Long> findIdsByExerciseIdAndTeamId(@Param("exerciseId") Long exerciseId, @Param("teamId") Long teamId);
 
     @Query("select distinct participation from StudentParticipation participation left join fetch participation.results as par left join fetch par.feedbacks where participation.exercise.id = :#{#exerciseId} and participation.student.id = :#{#studentId} and (par.id = (select max(id) from participation.results) or par.id = null)")
     Optional<StudentParticipation> findByExerciseIdAndStudentIdWithLatestResult(@Param("exerciseId") Long exerciseId, @Param("studentId") Long studentId);
@@ -92,28 +132,29 @@ public interface StudentParticipationRepository extends JpaRepository<StudentPar
     @Query("select distinct participation from StudentParticipation participation left join fetch participation.results where participation.id = :#{#participationId}")
     Optional<StudentParticipation> findByIdWithEagerResults(@Param("participationId") Long participationId);
 
-    /**
-     * Find the participation with the given id. Additionally, load all the submissions and results of the participation from the database. Returns an empty Optional if the
-     * participation could not be found.
-     *
-     * @param participationId the id of the participation
-     * @return the participation with eager submissions and results or an empty Optional
+    /*
+     * The following queries fetch at most one collection of the participations with the given ids each. They are combined by StudentParticipationFetchRepository, so that the
+     * collections of a participation are not loaded as cartesian product in one statement.
      */
-    @EntityGraph(type = LOAD, attributePaths = { "submissions", "submissions.result", "results", "team.students" })
-    Optional<StudentParticipation> findWithEagerSubmissionsAndResultsById(Long participationId);
 
-    /**
-     * Find the participation with the given id. Additionally, load all the submissions and results of the participation from the database.
-     * Further, load the exercise and its course. Returns an empty Optional if the participation could not be found.
-     *
-     * @param participationId the id of the participation
-     * @return the participation with eager submissions, results, exercise and course or an empty Optional
-     */
-    @EntityGraph(type = LOAD, attributePaths = { "submissions", "submissions.result", "submissions.result.feedbacks", "results", "exercise", "exercise.course", "team.students" })
-    Optional<StudentParticipation> findWithEagerSubmissionsAndResultsAndExerciseAndCourseById(Long participationId);
+    @Query("select distinct participation from StudentParticipation participation left join fetch participation.student left join fetch participation.team team "
+            + "left join fetch team.students where participation.id in :#{#participationIds}")
+    List<StudentParticipation> findAllWithEagerParticipantByIdIn(@Param("participationIds") Collection<Long> participationIds);
+
+    @Query("select distinct participation from StudentParticipation participation join fetch participation.exercise exercise left join fetch exercise.course "
+            + "left join fetch participation.student left join fetch participation.team team left join fetch team.students where participation.id in :#{#participationIds}")
+    List<StudentParticipation> findAllWithEagerExerciseAndCourseAndParticipantByIdIn(@Param("participationIds") Collection<Long> participationIds);
+
+    @Query("select distinct participation from StudentParticipation participation left join fetch participation.submissions submission left join fetch submission.result "
+            + "where participation.id in :#{#participationIds}")
+    List<StudentParticipation> findAllWithEagerSubmissionsAndResultOfSubmissionByIdIn(@Param("participationIds") Collection<Long> participationIds);
+
+    @Query("select distinct participation from StudentParticipation participation left join fetch participation.results where participation.id in :#{#participationIds}")
+    List<StudentParticipation> findAllWithEagerResultsByIdIn(@Param("participationIds") Collection<Long> participationIds);
 
-    @EntityGraph(type = LOAD, attributePaths = { "submissions", "results", "results.assessor" })
-    Optional<StudentParticipation> findWithEagerSubmissionsAndResultsAssessorsById(Long participationId);
+    @Query("select distinct participation from StudentParticipation participation left join fetch participation.results result left join fetch result.assessor "
+            + "where participation.id in :#{#participationIds}")
+    List<StudentParticipation> findAllWithEagerResultsAndAssessorByIdIn(@Param("participationIds") Collection<Long> participationIds);
 
     @EntityGraph(type = LOAD, attributePaths = { "submissions", "submissions.result", "submissions.result.assessor" })
     List<StudentParticipation> findAllWithEagerSubmissionsAndEagerResultsAndEagerAssessorByExerciseId(long exerciseId);
@@ -152,4 +193,38 @@ public interface StudentParticipationRepository extends JpaRepository<StudentPar
      */
     @Query("select participation.id, count(submissions) from StudentParticipation participation left join participation.submissions submissions where participation.team.shortName = :#{#teamShortName} and participation.exercise.course.id = :#{#courseId} group by participation.id")
     List<long[]> countSubmissionsPerParticipationByCourseIdAndTeamShortName(@Param("courseId") long courseId, @Param("teamShortName") String teamShortName);
+
+    /**
+     * Count the number of submissions for each of the given participations.
+     *
+     * @param participationIds the ids of the participations
+     * @return Tuples of participation ids and number of submissions per participation
+     */
+    @Query("select participation.id, count(submissions) from StudentParticipation participation left join participation.submissions submissions where participation.id in :#{#participationIds} group by participation.id")
+    List<long[]> countSubmissionsPerParticipationByIds(@Param("participationIds") Collection<Long> participationIds);
+
+    /**
+     * Get the latest rated result with completion date of each participation (with a student or team) in the exercise, ordered by participation id. The latest result is the one
+     * with the latest completion date (the highest id for equal dates), it is selected by the database, so that neither the other results nor the submissions without the
+     * result have to be loaded. Pass the id of the last participation of the previous page to get the next page (keyset pagination).
+     *
+     * @param exerciseId the id of the exercise
+     * @param afterParticipationId only participations with a greater id are returned, 0 for the first page
+     * @param includeNotSubmitted whether results of submissions that are not submitted are included
+     * @param pageable the size of the page, the page number must be 0
+     * @return the latest rated result of each participation of the page
+     */
+    @Query("select new de.tum.in.www1.artemis.web.rest.dto.ExerciseResultDTO(participation.id, student.login, student.firstName, student.lastName, team.shortName, team.name, "
+            + "submission.id, submission.submissionDate, submission.type, submission.submitted, result.id, result.completionDate, result.successful, result.score, "
+            + "result.resultString, result.rated, result.hasFeedback, result.assessmentType, assessor.login, assessor.firstName, assessor.lastName) "
+            + "from StudentParticipation participation join participation.submissions submission join submission.result result left join participation.student student "
+            + "left join participation.team team left join result.assessor assessor "
+            + "where participation.exercise.id = :#{#exerciseId} and participation.id > :#{#afterParticipationId} and (student.id is not null or team.id is not null) "
+            + "and result.rated = true and result.completionDate is not null and (submission.submitted = true or :#{#includeNotSubmitted} = true) "
+            + "and not exists (select newerResult.id from Submission newerSubmission join newerSubmission.result newerResult where newerSubmission.participation = participation "
+            + "and newerResult.rated = true and newerResult.completionDate is not null and (newerSubmission.submitted = true or :#{#includeNotSubmitted} = true) "
+            + "and (newerResult.completionDate > result.completionDate "
+            + "or (newerResult.completionDate = result.completionDate and newerResult.id > result.id))) order by participation.id asc")
+    List<ExerciseResultDTO> findLatestRatedResultsByExerciseId(@Param("exerciseId") Long exerciseId, @Param("afterParticipationId") long afterParticipationId,
+            @Param("includeNotSubmitted") boolean includeNotSubmitted, Pageable pageable);
 }
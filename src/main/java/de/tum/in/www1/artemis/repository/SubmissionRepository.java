@@ -2,6 +2,7 @@ package de.tum.in.www1.artemis.repository;
 
 import static org.springframework.data.jpa.repository.EntityGraph.EntityGraphType.LOAD;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -65,4 +66,14 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
      */
     @Query("SELECT COUNT (DISTINCT submission) FROM Submission submission WHERE submission.participation.exercise.id = :#{#exerciseId} AND submission.submitted = TRUE AND (submission.submissionDate < submission.participation.exercise.dueDate OR submission.participation.exercise.dueDate IS NULL)")
     long countByExerciseIdSubmittedBeforeDueDate(@Param("exerciseId") long exerciseId);
+
+    /**
+     * @param exerciseIds the exercise ids we are interested in
+     * @return tuples of exercise ids and the number of submissions belonging to the exercise, which have the submitted flag set to true and the submission date before the
+     *         exercise due date, or no exercise due date at all (exercises without such submissions are not included)
+     */
+    @Query("SELECT submission.participation.exercise.id, COUNT (DISTINCT submission) FROM Submission submission WHERE submission.participation.exercise.id IN :#{#exerciseIds} "
+            + "AND submission.submitted = TRUE AND (submission.submissionDate < submission.participation.exercise.dueDate OR submission.participation.exercise.dueDate IS NULL) "
+            + "GROUP BY submission.participation.exercise.id")
+    List<long[]> countByExerciseIdsSubmittedBeforeDueDate(@Param("exerciseIds") Collection<Long> exerciseIds);
 }
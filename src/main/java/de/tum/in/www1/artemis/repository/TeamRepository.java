@@ -1,5 +1,6 @@
 package de.tum.in.www1.artemis.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +32,12 @@ public interface TeamRepository extends JpaRepository<Team, Long> {
     @Query(value = "select student.id, team.id from Team team left join team.students student where team.exercise.id = :#{#exerciseId} and student.id in :#{#userIds}")
     List<long[]> findAssignedUserIdsWithTeamIdsByExerciseIdAndUserIds(@Param("exerciseId") Long exerciseId, @Param("userIds") List<Long> userIds);
 
+    @Query(value = "select team.exercise.id, team.id from Team team left join team.students student where team.exercise.id in :#{#exerciseIds} and student.id = :#{#userId}")
+    List<long[]> findExerciseIdsWithTeamIdsByExerciseIdsAndUserId(@Param("exerciseIds") Collection<Long> exerciseIds, @Param("userId") Long userId);
+
+    @Query(value = "select team.id, student.id from Team team join team.students student where team.exercise.course.id = :#{#courseId}")
+    List<long[]> findTeamIdsWithStudentIdsByCourseId(@Param("courseId") Long courseId);
+
     @Query(value = "select distinct team from Team team left join fetch team.students where team.exercise.id = :#{#exerciseId}")
     List<Team> findAllByExerciseIdWithEagerStudents(@Param("exerciseId") Long exerciseId);
 
@@ -1,5 +1,6 @@
 package de.tum.in.www1.artemis.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -13,4 +14,6 @@ public interface TutorLeaderboardAnsweredMoreFeedbackRequestsViewRepository exte
     List<TutorLeaderboardAnsweredMoreFeedbackRequestsView> findAllByCourseId(long courseId);
 
     List<TutorLeaderboardAnsweredMoreFeedbackRequestsView> findAllByLeaderboardId_ExerciseId(long exerciseId);
+
+    List<TutorLeaderboardAnsweredMoreFeedbackRequestsView> findAllByLeaderboardId_ExerciseIdIn(Collection<Long> exerciseIds);
 }
@@ -1,5 +1,6 @@
 package de.tum.in.www1.artemis.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -13,4 +14,6 @@ public interface TutorLeaderboardComplaintsViewRepository extends JpaRepository<
     List<TutorLeaderboardComplaintsView> findAllByCourseId(long courseId);
 
     List<TutorLeaderboardComplaintsView> findAllByLeaderboardId_ExerciseId(long exerciseId);
+
+    List<TutorLeaderboardComplaintsView> findAllByLeaderboardId_ExerciseIdIn(Collection<Long> exerciseIds);
 }
@@ -34,9 +34,13 @@ public class AssessmentService {
 
     private final SubmissionRepository submissionRepository;
 
+    protected final ExerciseAssessmentCountersService exerciseAssessmentCountersService;
+
+    protected final TutorLeaderboardService tutorLeaderboardService;
+
     public AssessmentService(ComplaintResponseService complaintResponseService, ComplaintRepository complaintRepository, FeedbackRepository feedbackRepository,
             ResultRepository resultRepository, StudentParticipationRepository studentParticipationRepository, ResultService resultService,
-            SubmissionRepository submissionRepository) {
+            SubmissionRepository submissionRepository, ExerciseAssessmentCountersService exerciseAssessmentCountersService, TutorLeaderboardService tutorLeaderboardService) {
         this.complaintResponseService = complaintResponseService;
         this.complaintRepository = complaintRepository;
         this.feedbackRepository = feedbackRepository;
@@ -44,6 +48,8 @@ public class AssessmentService {
         this.studentParticipationRepository = studentParticipationRepository;
         this.resultService = resultService;
         this.submissionRepository = submissionRepository;
+        this.exerciseAssessmentCountersService = exerciseAssessmentCountersService;
+        this.tutorLeaderboardService = tutorLeaderboardService;
     }
 
     Result submitResult(Result result, Exercise exercise, Double calculatedScore) {
@@ -53,7 +59,10 @@ public class AssessmentService {
         double totalScore = calculateTotalScore(calculatedScore, maxScore);
         result.setScore(totalScore, maxScore);
         result.setResultString(totalScore, maxScore);
-        return resultRepository.save(result);
+        Result savedResult = resultRepository.save(result);
+        exerciseAssessmentCountersService.invalidate(exercise);
+        tutorLeaderboardService.invalidate(exercise);
+        return savedResult;
     }
 
     /**
@@ -93,7 +102,10 @@ public class AssessmentService {
         }
         // Note: This also saves the feedback objects in the database because of the 'cascade =
         // CascadeType.ALL' option.
-        return resultRepository.save(originalResult);
+        final Result savedResult = resultRepository.save(originalResult);
+        exerciseAssessmentCountersService.invalidate(exercise);
+        tutorLeaderboardService.invalidate(exercise);
+        return savedResult;
     }
 
     /**
@@ -135,6 +147,8 @@ public class AssessmentService {
         participation.removeResult(result);
         feedbackRepository.deleteByResult_Id(result.getId());
         resultRepository.deleteById(result.getId());
+        exerciseAssessmentCountersService.invalidate(participation.getExercise());
+        tutorLeaderboardService.invalidate(participation.getExercise());
     }
 
     /**
@@ -1,12 +1,9 @@
 package de.tum.in.www1.artemis.service;
 
-import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.toList;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 
 import javax.validation.constraints.NotNull;
 
@@ -26,20 +23,21 @@ import de.tum.in.www1.artemis.repository.TextBlockRepository;
 @Profile("automaticText")
 public class AutomaticTextFeedbackService {
 
-    private final FeedbackService feedbackService;
+    private final TextClusterFeedbackIndexService textClusterFeedbackIndexService;
 
     private static final double DISTANCE_THRESHOLD = 1;
 
     private final TextBlockRepository textBlockRepository;
 
-    public AutomaticTextFeedbackService(FeedbackService feedbackService, TextBlockRepository textBlockRepository) {
-        this.feedbackService = feedbackService;
+    public AutomaticTextFeedbackService(TextClusterFeedbackIndexService textClusterFeedbackIndexService, TextBlockRepository textBlockRepository) {
+        this.textClusterFeedbackIndexService = textClusterFeedbackIndexService;
         this.textBlockRepository = textBlockRepository;
     }
 
     /**
      * Suggest Feedback for a Submission based on its cluster.
      * For each TextBlock of the submission, this method finds already existing Feedback elements in the same cluster and chooses the one with the minimum distance.
+     * The closest assessed block is looked up in the {@link TextClusterFeedbackIndexService}, so only the blocks of the submission are fetched from the database.
      * Otherwise, an empty Feedback Element is created for simplicity.
      * Feedbacks are stored inline with the provided Result object.
      *
@@ -54,28 +52,12 @@ public class AutomaticTextFeedbackService {
         final List<Feedback> suggestedFeedback = blocks.stream().map(block -> {
             final TextCluster cluster = block.getCluster();
 
-            // if TextBlock is part of a cluster, we try to find an existing Feedback Element
+            // if TextBlock is part of a cluster, we look up the Feedback of the closest assessed Block in the cluster index
             if (cluster != null) {
-                // Find all Feedbacks for other Blocks in Cluster.
-                final List<TextBlock> allBlocksInCluster = cluster.getBlocks().parallelStream().filter(elem -> !elem.equals(block)).collect(toList());
-                final Map<String, Feedback> feedbackForTextExerciseInCluster = feedbackService.getFeedbackForTextExerciseInCluster(cluster);
-
-                if (feedbackForTextExerciseInCluster.size() != 0) {
-                    final Optional<TextBlock> mostSimilarBlockInClusterWithFeedback = allBlocksInCluster.parallelStream()
-
-                            // Filter all other blocks in the cluster for those with Feedback
-                            .filter(element -> feedbackForTextExerciseInCluster.containsKey(element.getId()))
-
-                            // Find the closest block
-                            .min(comparing(element -> cluster.distanceBetweenBlocks(block, element)));
-
-                    if (mostSimilarBlockInClusterWithFeedback.isPresent()
-                            && cluster.distanceBetweenBlocks(block, mostSimilarBlockInClusterWithFeedback.get()) < DISTANCE_THRESHOLD) {
-                        final Feedback similarFeedback = feedbackForTextExerciseInCluster.get(mostSimilarBlockInClusterWithFeedback.get().getId());
-                        return new Feedback().reference(block.getId()).credits(similarFeedback.getCredits()).detailText(similarFeedback.getDetailText())
-                                .type(FeedbackType.AUTOMATIC);
-                    }
-                }
+                return textClusterFeedbackIndexService.findClosestFeedback(block, cluster, DISTANCE_THRESHOLD)
+                        .map(similarFeedback -> new Feedback().reference(block.getId()).credits(similarFeedback.getCredits()).detailText(similarFeedback.getDetailText())
+                                .type(FeedbackType.AUTOMATIC))
+                        .orElse(null);
             }
 
             return null;
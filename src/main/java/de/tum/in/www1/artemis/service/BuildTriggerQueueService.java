@@ -0,0 +1,270 @@
+package de.tum.in.www1.artemis.service;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import de.tum.in.www1.artemis.security.SecurityUtils;
+import de.tum.in.www1.artemis.service.util.TokenBucket;
+import de.tum.in.www1.artemis.web.rest.dto.BuildRunProgressDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Triggers builds on the continuous integration server asynchronously. The build triggers of all runs (e.g. all participations of an exercise) are queued and sent with
+ * bounded concurrency and a token bucket rate limit, so that large runs neither overload the CI server nor block the calling thread. Failed triggers are retried with
+ * exponential backoff and the progress of each run is sent to the client over websocket.
+ *
+ * The rate limit is global on purpose: it protects the one CI server that is shared by all courses, so it is not divided per course or run. The runs are served in the order
+ * in which they were queued, i.e. a large run delays the builds of runs queued after it.
+ */
+@Service
+public class BuildTriggerQueueService {
+
+    private final Logger log = LoggerFactory.getLogger(BuildTriggerQueueService.class);
+
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+    @Value("${artemis.continuous-integration.build-trigger.concurrency:4}")
+    private int concurrency;
+
+    @Value("${artemis.continuous-integration.build-trigger.rate-per-second:10}")
+    private double ratePerSecond;
+
+    @Value("${artemis.continuous-integration.build-trigger.burst:20}")
+    private int burst;
+
+    @Value("${artemis.continuous-integration.build-trigger.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${artemis.continuous-integration.build-trigger.retry-delay-ms:5000}")
+    private long retryDelayMillis;
+
+    private final WebsocketMessagingService websocketMessagingService;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Limits the rate of the build triggers of all runs, see the class comment.
+     */
+    private TokenBucket rateLimiter;
+
+    /**
+     * Build triggers which have been queued, but were neither sent nor finally failed yet.
+     */
+    private final AtomicInteger pendingTriggers = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService retryScheduler;
+
+    private Counter sentTriggers;
+
+    private Counter failedTriggers;
+
+    private Counter retriedTriggers;
+
+    public BuildTriggerQueueService(WebsocketMessagingService websocketMessagingService, MeterRegistry meterRegistry) {
+        this.websocketMessagingService = websocketMessagingService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Create the threads that send the build triggers and register the queue metrics.
+     */
+    @PostConstruct
+    public void init() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final Thread thread = new Thread(runnable, "build-trigger-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "build-trigger-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rateLimiter = new TokenBucket(ratePerSecond, burst);
+        Gauge.builder("artemis.ci.build.triggers.pending", pendingTriggers, AtomicInteger::get).description("Build triggers waiting to be sent to the CI server")
+                .register(meterRegistry);
+        sentTriggers = Counter.builder("artemis.ci.build.triggers").tag("outcome", "sent").description("Build triggers for the CI server").register(meterRegistry);
+        failedTriggers = Counter.builder("artemis.ci.build.triggers").tag("outcome", "failed").description("Build triggers for the CI server").register(meterRegistry);
+        retriedTriggers = Counter.builder("artemis.ci.build.triggers.retries").description("Retried build triggers").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue the build triggers of a run. The method returns immediately, the builds are triggered in the order of the given items.
+     * The progress of the run is sent to /topic/programming-exercises/{programmingExerciseId}/all-builds-triggered/progress.
+     *
+     * @param programmingExerciseId the exercise the builds belong to
+     * @param items the items (e.g. submissions) whose builds should be triggered
+     * @param trigger triggers the build of one item, an exception leads to a retry
+     * @param onFailure called for every item whose build could not be triggered in any attempt, e.g. to inform the student
+     * @param <T> the type of the items
+     * @return a future that completes with the final progress when all builds of the run have been triggered or have failed
+     */
+    public <T> CompletableFuture<BuildRunProgressDTO> triggerBuilds(long programmingExerciseId, List<T> items, BuildTrigger<T> trigger, BiConsumer<T, Exception> onFailure) {
+        final BuildRun<T> run = new BuildRun<>(programmingExerciseId, items.size(), trigger, onFailure);
+        if (items.isEmpty()) {
+            run.complete();
+            return run.completion;
+        }
+        pendingTriggers.addAndGet(items.size());
+        run.sendProgress(true);
+        items.forEach(item -> submit(run, item, 1));
+        return run.completion;
+    }
+
+    private <T> void submit(BuildRun<T> run, T item, int attempt) {
+        try {
+            executor.execute(() -> execute(run, item, attempt));
+        }
+        catch (RejectedExecutionException ex) {
+            // the server is shutting down
+            run.triggerFailed(item, ex);
+        }
+    }
+
+    private <T> void execute(BuildRun<T> run, T item, int attempt) {
+        try {
+            rateLimiter.acquire();
+            // the builds are triggered on behalf of the system, e.g. resuming a participation needs an authenticated user
+            SecurityUtils.setAuthorizationObject();
+            run.trigger.trigger(item);
+            run.triggerSent();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            run.triggerFailed(item, ex);
+        }
+        catch (Exception ex) {
+            if (attempt >= maxAttempts) {
+                log.warn("Triggering a build of the run for programming exercise {} failed {} times: {}", run.programmingExerciseId, attempt, ex.getMessage());
+                run.triggerFailed(item, ex);
+                return;
+            }
+            retriedTriggers.increment();
+            final long delay = retryDelayMillis << (attempt - 1);
+            log.debug("Triggering a build of the run for programming exercise {} failed (attempt {}), retrying in {}ms: {}", run.programmingExerciseId, attempt, delay,
+                    ex.getMessage());
+            try {
+                retryScheduler.schedule(() -> submit(run, item, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            }
+            catch (RejectedExecutionException rejectedException) {
+                run.triggerFailed(item, ex);
+            }
+        }
+        finally {
+            // the threads of the pool are reused, so the authentication of the system must not leak into the next trigger
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Triggers the build of one item.
+     *
+     * @param <T> the type of the items
+     */
+    @FunctionalInterface
+    public interface BuildTrigger<T> {
+
+        void trigger(T item) throws Exception;
+    }
+
+    /**
+     * The progress of one run: all its builds are either queued (including retries), sent or failed.
+     */
+    private final class BuildRun<T> {
+
+        private final long programmingExerciseId;
+
+        private final int totalBuilds;
+
+        private final BuildTrigger<T> trigger;
+
+        private final BiConsumer<T, Exception> onFailure;
+
+        private final AtomicInteger sentBuilds = new AtomicInteger();
+
+        private final AtomicInteger failedBuilds = new AtomicInteger();
+
+        private final CompletableFuture<BuildRunProgressDTO> completion = new CompletableFuture<>();
+
+        private long lastProgressMillis;
+
+        private BuildRun(long programmingExerciseId, int totalBuilds, BuildTrigger<T> trigger, BiConsumer<T, Exception> onFailure) {
+            this.programmingExerciseId = programmingExerciseId;
+            this.totalBuilds = totalBuilds;
+            this.trigger = trigger;
+            this.onFailure = onFailure;
+        }
+
+        private void triggerSent() {
+            sentTriggers.increment();
+            sentBuilds.incrementAndGet();
+            triggerFinished();
+        }
+
+        private void triggerFailed(T item, Exception ex) {
+            failedTriggers.increment();
+            failedBuilds.incrementAndGet();
+            try {
+                onFailure.accept(item, ex);
+            }
+            catch (RuntimeException callbackException) {
+                log.error("Could not handle the failed build trigger", callbackException);
+            }
+            triggerFinished();
+        }
+
+        private void triggerFinished() {
+            pendingTriggers.decrementAndGet();
+            if (sentBuilds.get() + failedBuilds.get() == totalBuilds) {
+                complete();
+            }
+            else {
+                sendProgress(false);
+            }
+        }
+
+        private void complete() {
+            completion.complete(sendProgress(true));
+        }
+
+        /**
+         * Sends the progress, but at most once per second unless it is the first or final message.
+         *
+         * @param force true if the message should be sent in any case
+         * @return the current progress
+         */
+        private synchronized BuildRunProgressDTO sendProgress(boolean force) {
+            final int sent = sentBuilds.get();
+            final int failed = failedBuilds.get();
+            final BuildRunProgressDTO progress = new BuildRunProgressDTO(totalBuilds - sent - failed, sent, failed);
+            final long now = System.currentTimeMillis();
+            if (force || now - lastProgressMillis >= PROGRESS_INTERVAL_MILLIS) {
+                lastProgressMillis = now;
+                websocketMessagingService.sendMessage("/topic/programming-exercises/" + programmingExerciseId + "/all-builds-triggered/progress", progress);
+            }
+            return progress;
+        }
+    }
+}
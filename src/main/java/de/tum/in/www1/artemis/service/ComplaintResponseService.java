@@ -34,12 +34,19 @@ public class ComplaintResponseService {
 
     private AuthorizationCheckService authorizationCheckService;
 
+    private ExerciseAssessmentCountersService exerciseAssessmentCountersService;
+
+    private TutorLeaderboardService tutorLeaderboardService;
+
     public ComplaintResponseService(ComplaintRepository complaintRepository, ComplaintResponseRepository complaintResponseRepository, UserService userService,
-            AuthorizationCheckService authorizationCheckService) {
+            AuthorizationCheckService authorizationCheckService, ExerciseAssessmentCountersService exerciseAssessmentCountersService,
+            TutorLeaderboardService tutorLeaderboardService) {
         this.complaintRepository = complaintRepository;
         this.complaintResponseRepository = complaintResponseRepository;
         this.userService = userService;
         this.authorizationCheckService = authorizationCheckService;
+        this.exerciseAssessmentCountersService = exerciseAssessmentCountersService;
+        this.tutorLeaderboardService = tutorLeaderboardService;
     }
 
     /**
@@ -94,6 +101,9 @@ public class ComplaintResponseService {
         // make sure the original complaint from the database is connected to the complaint response as we take it out later one and
         // potential changes on the client side (e.g. remove student id) should not be saved
         complaintResponse.setComplaint(originalComplaint);
-        return complaintResponseRepository.save(complaintResponse);
+        ComplaintResponse savedComplaintResponse = complaintResponseRepository.save(complaintResponse);
+        exerciseAssessmentCountersService.invalidate(studentParticipation.getExercise());
+        tutorLeaderboardService.invalidate(studentParticipation.getExercise());
+        return savedComplaintResponse;
     }
 }
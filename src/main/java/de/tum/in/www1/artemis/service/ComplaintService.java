@@ -34,11 +34,18 @@ public class ComplaintService {
 
     private CourseService courseService;
 
-    public ComplaintService(ComplaintRepository complaintRepository, ResultRepository resultRepository, ResultService resultService, CourseService courseService) {
+    private ExerciseAssessmentCountersService exerciseAssessmentCountersService;
+
+    private TutorLeaderboardService tutorLeaderboardService;
+
+    public ComplaintService(ComplaintRepository complaintRepository, ResultRepository resultRepository, ResultService resultService, CourseService courseService,
+            ExerciseAssessmentCountersService exerciseAssessmentCountersService, TutorLeaderboardService tutorLeaderboardService) {
         this.complaintRepository = complaintRepository;
         this.resultRepository = resultRepository;
         this.resultService = resultService;
         this.courseService = courseService;
+        this.exerciseAssessmentCountersService = exerciseAssessmentCountersService;
+        this.tutorLeaderboardService = tutorLeaderboardService;
     }
 
     /**
@@ -86,7 +93,10 @@ public class ComplaintService {
 
         resultRepository.save(originalResult);
 
-        return complaintRepository.save(complaint);
+        Complaint savedComplaint = complaintRepository.save(complaint);
+        exerciseAssessmentCountersService.invalidate(studentParticipation.getExercise());
+        tutorLeaderboardService.invalidate(studentParticipation.getExercise());
+        return savedComplaint;
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,537 @@
+package de.tum.in.www1.artemis.service;
+
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.tum.in.www1.artemis.domain.*;
+import de.tum.in.www1.artemis.domain.participation.Participation;
+import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
+import de.tum.in.www1.artemis.domain.quiz.QuizExercise;
+import de.tum.in.www1.artemis.repository.AttachmentRepository;
+import de.tum.in.www1.artemis.repository.CourseRepository;
+import de.tum.in.www1.artemis.repository.ExerciseRepository;
+import de.tum.in.www1.artemis.web.rest.errors.InternalServerErrorException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of the serialized course dashboard (/courses/for-dashboard) per user. Every cached dashboard knows what it depends on: the user, the courses, the participations,
+ * the exercises and the lectures it contains. Changes to these entities (and to the results and submissions of the participations) are observed with Hibernate event listeners and
+ * remove exactly the dashboards that depend on them. A dashboard is also removed when the next date that changes its content is reached (e.g. a release or due date), but at
+ * the latest after the configured maximum age, which also covers changes that bypass Hibernate (e.g. on another server instance or with bulk queries).
+ */
+@Service
+public class CourseDashboardCacheService {
+
+    private final Logger log = LoggerFactory.getLogger(CourseDashboardCacheService.class);
+
+    /**
+     * How long invalidations are remembered, so that a dashboard that was loaded while one of its dependencies changed is not cached. Dashboards that took longer to load are
+     * not cached.
+     */
+    private static final long RECENT_INVALIDATION_WINDOW_MS = 60_000;
+
+    private static final String USER = "user-";
+
+    private static final String COURSE = "course-";
+
+    private static final String EXERCISE = "exercise-";
+
+    private static final String PARTICIPATION = "participation-";
+
+    private static final String LECTURE = "lecture-";
+
+    @Value("${artemis.course-dashboard.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${artemis.course-dashboard.cache.max-size-mb:64}")
+    private long maxSizeMb;
+
+    @Value("${artemis.course-dashboard.cache.max-age-seconds:600}")
+    private long maxAgeSeconds;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    private final CourseRepository courseRepository;
+
+    private final ExerciseRepository exerciseRepository;
+
+    private final AttachmentRepository attachmentRepository;
+
+    /**
+     * The cached dashboards mapped by user id, the least recently used dashboard first. The map, the dependency index and the size are guarded by the lock of this map.
+     */
+    private final LinkedHashMap<Long, CachedDashboard> dashboards = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, Set<Long>> userIdsByDependency = new HashMap<>();
+
+    private long sizeInBytes = 0;
+
+    private final AtomicLong invalidationSequence = new AtomicLong();
+
+    private final Map<String, RecentInvalidation> recentInvalidations = new ConcurrentHashMap<>();
+
+    private volatile long lastPruneOfRecentInvalidations = 0;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    public CourseDashboardCacheService(EntityManagerFactory entityManagerFactory, ObjectMapper objectMapper, MeterRegistry meterRegistry, CourseRepository courseRepository,
+            ExerciseRepository exerciseRepository, AttachmentRepository attachmentRepository) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.courseRepository = courseRepository;
+        this.exerciseRepository = exerciseRepository;
+        this.attachmentRepository = attachmentRepository;
+    }
+
+    /**
+     * Register the cache metrics and the Hibernate event listeners that invalidate the cached dashboards. The listeners are registered even if the cache is disabled, they
+     * ignore all changes while it is disabled.
+     */
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("artemis.dashboard.cache.requests").tag("result", "hit").description("Course dashboard requests served from the cache").register(meterRegistry);
+        misses = Counter.builder("artemis.dashboard.cache.requests").tag("result", "miss").description("Course dashboard requests loaded from the database")
+                .register(meterRegistry);
+        Gauge.builder("artemis.dashboard.cache.hit.ratio", this, cache -> {
+            final double requests = cache.hits.count() + cache.misses.count();
+            return requests == 0 ? 0 : cache.hits.count() / requests;
+        }).description("Share of the course dashboard requests served from the cache").register(meterRegistry);
+        Gauge.builder("artemis.dashboard.cache.entries", this, CourseDashboardCacheService::getNumberOfEntries).description("Cached course dashboards").register(meterRegistry);
+        Gauge.builder("artemis.dashboard.cache.size", this, CourseDashboardCacheService::getSizeInBytes).baseUnit("bytes").description("Size of the cached course dashboards")
+                .register(meterRegistry);
+        final DashboardInvalidationListener listener = new DashboardInvalidationListener();
+        final EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+    }
+
+    /**
+     * Returns the serialized dashboard of the user. If no valid dashboard is cached, it is loaded with the given loader, serialized and cached.
+     *
+     * @param user the user whose dashboard is requested
+     * @param dashboardLoader loads the courses of the dashboard including the exercises, lectures and participations of the user
+     * @return the serialized dashboard with its ETag
+     */
+    public CachedDashboard getDashboard(User user, Supplier<List<Course>> dashboardLoader) {
+        if (enabled) {
+            synchronized (dashboards) {
+                final CachedDashboard cachedDashboard = dashboards.get(user.getId());
+                if (cachedDashboard != null && cachedDashboard.validUntil > System.currentTimeMillis()) {
+                    hits.increment();
+                    return cachedDashboard;
+                }
+            }
+        }
+        misses.increment();
+        final long sequenceBeforeLoad = invalidationSequence.get();
+        final long start = System.currentTimeMillis();
+        final List<Course> courses = dashboardLoader.get();
+
+        final byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(courses);
+        }
+        catch (JsonProcessingException ex) {
+            throw new InternalServerErrorException("The course dashboard could not be serialized: " + ex.getMessage());
+        }
+        if (!enabled) {
+            return new CachedDashboard(json, Set.of(), start);
+        }
+        final CachedDashboard dashboard = new CachedDashboard(json, dependenciesOf(user, courses), validUntil(courses, start));
+        store(user.getId(), dashboard, sequenceBeforeLoad, start);
+        return dashboard;
+    }
+
+    /**
+     * Remove the cached dashboards that depend on one of the given dependencies.
+     *
+     * @param dependencies the changed dependencies, e.g. "participation-42"
+     */
+    void invalidate(Collection<String> dependencies) {
+        if (dependencies.isEmpty()) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final RecentInvalidation invalidation = new RecentInvalidation(invalidationSequence.incrementAndGet(), now);
+        for (String dependency : dependencies) {
+            recentInvalidations.put(dependency, invalidation);
+        }
+        synchronized (dashboards) {
+            for (String dependency : dependencies) {
+                final Set<Long> userIds = userIdsByDependency.get(dependency);
+                if (userIds != null) {
+                    new ArrayList<>(userIds).forEach(this::remove);
+                }
+            }
+        }
+        if (now - lastPruneOfRecentInvalidations > 1000) {
+            lastPruneOfRecentInvalidations = now;
+            recentInvalidations.values().removeIf(recentInvalidation -> recentInvalidation.timestamp < now - RECENT_INVALIDATION_WINDOW_MS);
+        }
+    }
+
+    private void store(Long userId, CachedDashboard dashboard, long sequenceBeforeLoad, long loadStart) {
+        final long now = System.currentTimeMillis();
+        if (now - loadStart > RECENT_INVALIDATION_WINDOW_MS || dashboard.validUntil <= now || dashboard.getSizeInBytes() > maxSizeMb * 1024 * 1024) {
+            return;
+        }
+        synchronized (dashboards) {
+            // invalidations are recorded before they take this lock, so an invalidation during the load is either visible here or removes the dashboard afterwards
+            for (String dependency : dashboard.dependencies) {
+                final RecentInvalidation invalidation = recentInvalidations.get(dependency);
+                if (invalidation != null && invalidation.sequence > sequenceBeforeLoad) {
+                    log.debug("Not caching the dashboard of user {}, because {} changed while it was loaded", userId, dependency);
+                    return;
+                }
+            }
+            remove(userId);
+            dashboards.put(userId, dashboard);
+            sizeInBytes += dashboard.getSizeInBytes();
+            for (String dependency : dashboard.dependencies) {
+                userIdsByDependency.computeIfAbsent(dependency, key -> new HashSet<>()).add(userId);
+            }
+            final Iterator<Long> leastRecentlyUsed = new ArrayList<>(dashboards.keySet()).iterator();
+            while (sizeInBytes > maxSizeMb * 1024 * 1024 && leastRecentlyUsed.hasNext()) {
+                remove(leastRecentlyUsed.next());
+            }
+        }
+    }
+
+    /**
+     * Remove the dashboard of the user, the caller must hold the lock of the dashboards.
+     */
+    private void remove(Long userId) {
+        final CachedDashboard dashboard = dashboards.remove(userId);
+        if (dashboard == null) {
+            return;
+        }
+        sizeInBytes -= dashboard.getSizeInBytes();
+        for (String dependency : dashboard.dependencies) {
+            final Set<Long> userIds = userIdsByDependency.get(dependency);
+            if (userIds != null) {
+                userIds.remove(userId);
+                if (userIds.isEmpty()) {
+                    userIdsByDependency.remove(dependency);
+                }
+            }
+        }
+    }
+
+    private Set<String> dependenciesOf(User user, List<Course> courses) {
+        final Set<String> dependencies = new HashSet<>();
+        dependencies.add(USER + user.getId());
+        for (Course course : courses) {
+            dependencies.add(COURSE + course.getId());
+            if (course.getLectures() != null) {
+                for (Lecture lecture : course.getLectures()) {
+                    dependencies.add(LECTURE + lecture.getId());
+                }
+            }
+            for (Exercise exercise : course.getExercises()) {
+                // e.g. new team participations, which are not assigned to a user directly, or attachments of the exercise
+                dependencies.add(EXERCISE + exercise.getId());
+                if (exercise.getStudentParticipations() != null) {
+                    for (StudentParticipation participation : exercise.getStudentParticipations()) {
+                        if (participation.getId() != null) {
+                            dependencies.add(PARTICIPATION + participation.getId());
+                        }
+                    }
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * The dashboard is valid until the next date that changes its content: due dates and release dates of the contained exercises, the end of the contained courses and the
+     * release of exercises and attachments that the user cannot see yet or the start of courses that the user cannot see yet.
+     */
+    private long validUntil(List<Course> courses, long loadStart) {
+        final ZonedDateTime now = ZonedDateTime.now();
+        long validUntil = loadStart + maxAgeSeconds * 1000;
+        for (Course course : courses) {
+            validUntil = earliestFutureDate(validUntil, now, course.getEndDate());
+            for (Exercise exercise : course.getExercises()) {
+                validUntil = earliestFutureDate(validUntil, now, exercise.getReleaseDate());
+                validUntil = earliestFutureDate(validUntil, now, exercise.getDueDate());
+                validUntil = earliestFutureDate(validUntil, now, exercise.getAssessmentDueDate());
+                // the submissions of running quizzes are only kept in memory until the quiz has ended
+                if (exercise instanceof QuizExercise && Boolean.TRUE.equals(((QuizExercise) exercise).isStarted()) && !Boolean.TRUE.equals(((QuizExercise) exercise).isEnded())) {
+                    return loadStart;
+                }
+            }
+            if (course.getLectures() != null) {
+                for (Lecture lecture : course.getLectures()) {
+                    for (Attachment attachment : lecture.getAttachments()) {
+                        validUntil = earliestFutureDate(validUntil, now, attachment.getReleaseDate());
+                    }
+                }
+            }
+        }
+        final Set<Long> courseIds = courses.stream().map(Course::getId).collect(Collectors.toSet());
+        if (!courseIds.isEmpty()) {
+            validUntil = earliestFutureDate(validUntil, now, exerciseRepository.findNextReleaseDateByCourseIds(courseIds, now));
+            validUntil = earliestFutureDate(validUntil, now, attachmentRepository.findNextReleaseDateByCourseIds(courseIds, now));
+        }
+        return earliestFutureDate(validUntil, now, courseRepository.findNextStartDate(now));
+    }
+
+    private static long earliestFutureDate(long validUntil, ZonedDateTime now, ZonedDateTime date) {
+        if (date == null || !date.isAfter(now)) {
+            return validUntil;
+        }
+        return Math.min(validUntil, date.toInstant().toEpochMilli());
+    }
+
+    private long getNumberOfEntries() {
+        synchronized (dashboards) {
+            return dashboards.size();
+        }
+    }
+
+    private long getSizeInBytes() {
+        synchronized (dashboards) {
+            return sizeInBytes;
+        }
+    }
+
+    /**
+     * The dependencies of a changed entity, i.e. the dashboards that show the entity. This runs while the session is flushed, so only the ids of the associated entities are
+     * read and no lazy association is loaded.
+     */
+    private static Set<String> dependenciesOfChangedEntity(Object entity) {
+        final Set<String> dependencies = new HashSet<>();
+        if (entity instanceof Result) {
+            addDependency(dependencies, PARTICIPATION, idOf(((Result) entity).getParticipation()));
+        }
+        else if (entity instanceof Submission) {
+            addDependency(dependencies, PARTICIPATION, idOf(((Submission) entity).getParticipation()));
+        }
+        else if (entity instanceof StudentParticipation) {
+            final StudentParticipation participation = (StudentParticipation) entity;
+            addDependency(dependencies, PARTICIPATION, participation.getId());
+            // new participations are not part of any dashboard yet
+            participation.getStudent().ifPresent(student -> addDependency(dependencies, USER, idOf(student)));
+            if (participation.getTeam().isPresent()) {
+                addDependency(dependencies, EXERCISE, idOf(participation.getExercise()));
+            }
+        }
+        else if (entity instanceof Exercise) {
+            addDependency(dependencies, COURSE, idOf(((Exercise) entity).getCourse()));
+        }
+        else if (entity instanceof Course) {
+            addDependency(dependencies, COURSE, ((Course) entity).getId());
+        }
+        else if (entity instanceof Lecture) {
+            addDependency(dependencies, COURSE, idOf(((Lecture) entity).getCourse()));
+        }
+        else if (entity instanceof Attachment) {
+            final Attachment attachment = (Attachment) entity;
+            addDependency(dependencies, LECTURE, idOf(attachment.getLecture()));
+            addDependency(dependencies, EXERCISE, idOf(attachment.getExercise()));
+        }
+        else if (entity instanceof User) {
+            // e.g. changed groups
+            addDependency(dependencies, USER, ((User) entity).getId());
+        }
+        else if (entity instanceof Team) {
+            addDependency(dependencies, EXERCISE, idOf(((Team) entity).getExercise()));
+        }
+        else if (entity instanceof LtiOutcomeUrl) {
+            addDependency(dependencies, USER, idOf(((LtiOutcomeUrl) entity).getUser()));
+        }
+        return dependencies;
+    }
+
+    private static void addDependency(Set<String> dependencies, String type, Long id) {
+        if (id != null) {
+            dependencies.add(type + id);
+        }
+    }
+
+    /**
+     * The id of an entity, without loading the entity if it is a lazy proxy.
+     */
+    private static Long idOf(Object entity) {
+        if (entity instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) entity).getHibernateLazyInitializer().getIdentifier();
+        }
+        if (entity instanceof Participation) {
+            return ((Participation) entity).getId();
+        }
+        if (entity instanceof Exercise) {
+            return ((Exercise) entity).getId();
+        }
+        if (entity instanceof Course) {
+            return ((Course) entity).getId();
+        }
+        if (entity instanceof Lecture) {
+            return ((Lecture) entity).getId();
+        }
+        if (entity instanceof User) {
+            return ((User) entity).getId();
+        }
+        return null;
+    }
+
+    /**
+     * Invalidates the dashboards that depend on a changed entity. The dashboards are invalidated again after the transaction has completed, as a concurrent request could
+     * otherwise cache a dashboard from before the change.
+     */
+    private final class DashboardInvalidationListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+            PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            onChange(event.getEntity());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            onChange(event.getEntity());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            onChange(event.getEntity());
+        }
+
+        @Override
+        public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+            onChange(event.getAffectedOwnerOrNull());
+        }
+
+        @Override
+        public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+            onChange(event.getAffectedOwnerOrNull());
+        }
+
+        @Override
+        public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+            onChange(event.getAffectedOwnerOrNull());
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+
+        private void onChange(Object entity) {
+            if (!enabled) {
+                return;
+            }
+            final Set<String> dependencies = dependenciesOfChangedEntity(entity);
+            invalidate(dependencies);
+            if (!dependencies.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        invalidate(dependencies);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * A serialized dashboard with its ETag and the dependencies it was loaded from.
+     */
+    public static final class CachedDashboard {
+
+        private final byte[] json;
+
+        private final String eTag;
+
+        private final Set<String> dependencies;
+
+        private final long validUntil;
+
+        CachedDashboard(byte[] json, Set<String> dependencies, long validUntil) {
+            this.json = json;
+            this.eTag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            this.dependencies = dependencies;
+            this.validUntil = validUntil;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public long getSizeInBytes() {
+            return json.length;
+        }
+
+        /**
+         * @param ifNoneMatch the If-None-Match header of the request, may be null
+         * @return true if the client already has this dashboard
+         */
+        public boolean isNotModified(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals(eTag) || tag.equals("*")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class RecentInvalidation {
+
+        private final long sequence;
+
+        private final long timestamp;
+
+        private RecentInvalidation(long sequence, long timestamp) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,579 @@
+package de.tum.in.www1.artemis.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.LongObjectHashMap;
+
+import de.tum.in.www1.artemis.domain.*;
+import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
+import de.tum.in.www1.artemis.repository.CourseRepository;
+import de.tum.in.www1.artemis.repository.TeamRepository;
+import de.tum.in.www1.artemis.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Keeps the scores of the students of a course as matrix (students x exercises) in memory. The matrix of a course is built with one streamed query for the relevant results
+ * (see {@link ParticipationService#forEachRelevantResultInCourse}) and afterwards updated with every relevant result that is saved on this instance. Changes that cannot be
+ * applied to a cell (e.g. a deleted result, a new exercise or a new team member) mark the matrix as outdated, it is built again on the next request. Changes on other instances
+ * or with bulk queries are included after the configured maximum age.
+ */
+@Service
+public class CourseScoreMatrixService {
+
+    private final Logger log = LoggerFactory.getLogger(CourseScoreMatrixService.class);
+
+    @Value("${artemis.score-matrix.max-age-seconds:600}")
+    private long maxAgeSeconds;
+
+    @Value("${artemis.score-matrix.max-courses:20}")
+    private int maxCourses;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ParticipationService participationService;
+
+    private final CourseRepository courseRepository;
+
+    private final UserRepository userRepository;
+
+    private final TeamRepository teamRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The matrices mapped by course id, the least recently used course first. The map and the running builds are guarded by the lock of this map.
+     */
+    private final LinkedHashMap<Long, ScoreMatrix> matrices = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Updates that arrive while the matrix of their course is built are collected and applied to the new matrix afterwards.
+     */
+    private final List<RunningBuild> runningBuilds = new ArrayList<>();
+
+    private final Set<Long> outdatedCourseIds = ConcurrentHashMap.newKeySet();
+
+    private Timer buildTimer;
+
+    public CourseScoreMatrixService(EntityManagerFactory entityManagerFactory, ParticipationService participationService, CourseRepository courseRepository,
+            UserRepository userRepository, TeamRepository teamRepository, MeterRegistry meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.participationService = participationService;
+        this.courseRepository = courseRepository;
+        this.userRepository = userRepository;
+        this.teamRepository = teamRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Register the metrics and the Hibernate event listeners that update the matrices.
+     */
+    @PostConstruct
+    public void init() {
+        buildTimer = Timer.builder("artemis.score.matrix.build").description("Time to build the score matrix of a course").register(meterRegistry);
+        Gauge.builder("artemis.score.matrix.courses", this, CourseScoreMatrixService::getNumberOfMatrices).description("Courses with a score matrix in memory")
+                .register(meterRegistry);
+        final ScoreMatrixListener listener = new ScoreMatrixListener();
+        final EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    /**
+     * Returns the up to date score matrix of the course, it is built if it is not in memory, outdated or older than the maximum age.
+     *
+     * @param courseId the id of the course
+     * @return the score matrix of the course
+     */
+    public ScoreMatrix getScoreMatrix(long courseId) {
+        final RunningBuild build = new RunningBuild(courseId);
+        synchronized (matrices) {
+            final ScoreMatrix matrix = matrices.get(courseId);
+            if (matrix != null && !outdatedCourseIds.contains(courseId) && matrix.builtAt > System.currentTimeMillis() - maxAgeSeconds * 1000) {
+                return matrix;
+            }
+            runningBuilds.add(build);
+        }
+        // changes during the build mark the course as outdated again
+        outdatedCourseIds.remove(courseId);
+        final ScoreMatrix matrix;
+        try {
+            matrix = buildTimer.record(() -> build(courseId));
+        }
+        finally {
+            synchronized (matrices) {
+                runningBuilds.remove(build);
+            }
+        }
+        synchronized (matrices) {
+            build.updates.forEach(update -> apply(matrix, update));
+            matrices.put(courseId, matrix);
+            if (matrices.size() > maxCourses) {
+                matrices.remove(matrices.keySet().iterator().next());
+            }
+        }
+        return matrix;
+    }
+
+    private ScoreMatrix build(long courseId) {
+        final long start = System.currentTimeMillis();
+        final Course course = courseRepository.findWithEagerExercisesById(courseId);
+        final List<Exercise> exercises = course.getExercises().stream()
+                .sorted(Comparator.comparing(Exercise::getDueDate, Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(Exercise::getId)).collect(Collectors.toList());
+        final Map<Long, User> students = new LinkedHashMap<>();
+        userRepository.findAllInGroup(course.getStudentGroupName()).stream().sorted(Comparator.comparing(User::getLogin)).forEach(student -> students.put(student.getId(), student));
+
+        final LongObjectHashMap<LongArrayList> studentIdsPerTeam = new LongObjectHashMap<>();
+        for (long[] teamIdAndStudentId : teamRepository.findTeamIdsWithStudentIdsByCourseId(courseId)) {
+            if (!studentIdsPerTeam.containsKey(teamIdAndStudentId[0])) {
+                studentIdsPerTeam.put(teamIdAndStudentId[0], new LongArrayList());
+            }
+            studentIdsPerTeam.get(teamIdAndStudentId[0]).add(teamIdAndStudentId[1]);
+        }
+
+        // collect the relevant results first, as participants that are no longer in the student group (e.g. unregistered students) are part of the matrix as well
+        final List<ScoreUpdate> relevantResults = new ArrayList<>();
+        participationService.forEachRelevantResultInCourse(courseId, relevantResult -> relevantResults.add(new ScoreUpdate(relevantResult.getExerciseId(),
+                relevantResult.getStudentId(), relevantResult.getTeamId(), relevantResult.getResultId(), relevantResult.getCompletionDate().toInstant().toEpochMilli(),
+                (int) relevantResult.getScore(), true)));
+        final Set<Long> otherParticipantIds = relevantResults.stream().filter(update -> update.studentId != null && !students.containsKey(update.studentId))
+                .map(update -> update.studentId).collect(Collectors.toSet());
+        if (!otherParticipantIds.isEmpty()) {
+            userRepository.findAllById(otherParticipantIds).stream().sorted(Comparator.comparing(User::getLogin)).forEach(student -> students.put(student.getId(), student));
+        }
+
+        final ScoreMatrix matrix = new ScoreMatrix(courseId, new ArrayList<>(students.values()), exercises, studentIdsPerTeam);
+        relevantResults.forEach(update -> apply(matrix, update));
+        log.debug("Building the score matrix of course {} with {} students and {} exercises took {}ms", courseId, students.size(), exercises.size(),
+                System.currentTimeMillis() - start);
+        return matrix;
+    }
+
+    /**
+     * Apply a changed result to the matrix if it contains the exercise of the result, changes that cannot be applied mark the matrix as outdated.
+     */
+    private void apply(ScoreMatrix matrix, ScoreUpdate update) {
+        if (matrix.containsExercise(update.exerciseId) && !matrix.apply(update)) {
+            outdatedCourseIds.add(matrix.courseId);
+        }
+    }
+
+    /**
+     * Apply a changed result to the matrices that contain its exercise. The exercises of the running builds are not known yet, so they collect all changes.
+     */
+    private void onChange(ScoreUpdate update) {
+        synchronized (matrices) {
+            runningBuilds.forEach(build -> build.updates.add(update));
+            matrices.values().forEach(matrix -> apply(matrix, update));
+        }
+    }
+
+    private void markOutdated(Long courseId) {
+        if (courseId == null) {
+            markAllOutdated();
+        }
+        else {
+            outdatedCourseIds.add(courseId);
+        }
+    }
+
+    private void markAllOutdated() {
+        synchronized (matrices) {
+            outdatedCourseIds.addAll(matrices.keySet());
+            runningBuilds.forEach(build -> outdatedCourseIds.add(build.courseId));
+        }
+    }
+
+    private long getNumberOfMatrices() {
+        synchronized (matrices) {
+            return matrices.size();
+        }
+    }
+
+    /**
+     * Run the action after the current transaction has been committed, or immediately if there is none.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+        else {
+            action.run();
+        }
+    }
+
+    /**
+     * The id of an entity, without loading the entity if it is a lazy proxy.
+     */
+    private static Long idOf(Object entity) {
+        if (entity instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) entity).getHibernateLazyInitializer().getIdentifier();
+        }
+        if (entity instanceof Course) {
+            return ((Course) entity).getId();
+        }
+        if (entity instanceof Exercise) {
+            return ((Exercise) entity).getId();
+        }
+        if (entity instanceof User) {
+            return ((User) entity).getId();
+        }
+        if (entity instanceof Team) {
+            return ((Team) entity).getId();
+        }
+        return null;
+    }
+
+    /**
+     * Updates the matrices when results are saved or deleted, and marks them as outdated when exercises or teams change. The listener runs during the flush, so it only reads
+     * ids and never loads lazy associations. All changes are applied after the transaction has been committed, so that the matrix never contains results that were rolled back
+     * and a build that starts before the commit is marked as outdated again.
+     */
+    private final class ScoreMatrixListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            onChange(event.getEntity(), false);
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            onChange(event.getEntity(), false);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            onChange(event.getEntity(), true);
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+
+        private void onChange(Object entity, boolean deleted) {
+            if (entity instanceof Result) {
+                onResultChange((Result) entity, deleted);
+            }
+            else if (entity instanceof Exercise) {
+                final Long courseId = idOf(((Exercise) entity).getCourse());
+                afterCommit(() -> markOutdated(courseId));
+            }
+            else if (entity instanceof Team) {
+                // the exercise of a team is loaded eagerly, it is only a proxy if the team was attached by reference
+                final Exercise exercise = ((Team) entity).getExercise();
+                final Long courseId = exercise != null && Hibernate.isInitialized(exercise) ? idOf(exercise.getCourse()) : null;
+                afterCommit(() -> markOutdated(courseId));
+            }
+        }
+
+        private void onResultChange(Result result, boolean deleted) {
+            if (result.getId() == null || result.getParticipation() == null) {
+                return;
+            }
+            if (!Hibernate.isInitialized(result.getParticipation())) {
+                // the participation of a result is loaded eagerly, it is only a proxy if the result was attached by reference, so its exercise is unknown without loading it
+                afterCommit(CourseScoreMatrixService.this::markAllOutdated);
+                return;
+            }
+            final Object participation = Hibernate.unproxy(result.getParticipation());
+            if (!(participation instanceof StudentParticipation)) {
+                // e.g. template and solution participations
+                return;
+            }
+            final StudentParticipation studentParticipation = (StudentParticipation) participation;
+            final Long exerciseId = idOf(studentParticipation.getExercise());
+            if (exerciseId == null) {
+                return;
+            }
+            // team members are resolved by the matrix, so that the students of the team are not loaded here
+            final Long studentId = idOf(studentParticipation.getStudent().orElse(null));
+            final Long teamId = idOf(studentParticipation.getTeam().orElse(null));
+            final boolean relevant = !deleted && result.isRated() != Boolean.FALSE && result.getCompletionDate() != null && result.getScore() != null;
+            final ScoreUpdate update = new ScoreUpdate(exerciseId, studentId, teamId, result.getId(), relevant ? result.getCompletionDate().toInstant().toEpochMilli() : 0,
+                    relevant ? Math.toIntExact(result.getScore()) : 0, relevant);
+            afterCommit(() -> CourseScoreMatrixService.this.onChange(update));
+        }
+    }
+
+    /**
+     * A changed result of a student or a team: its score if it is relevant (rated, with completion date and score), otherwise it is removed from the matrix.
+     */
+    static final class ScoreUpdate {
+
+        private final long exerciseId;
+
+        private final Long studentId;
+
+        private final Long teamId;
+
+        private final long resultId;
+
+        private final long completionDate;
+
+        private final int score;
+
+        private final boolean relevant;
+
+        ScoreUpdate(long exerciseId, Long studentId, Long teamId, long resultId, long completionDate, int score, boolean relevant) {
+            this.exerciseId = exerciseId;
+            this.studentId = studentId;
+            this.teamId = teamId;
+            this.resultId = resultId;
+            this.completionDate = completionDate;
+            this.score = score;
+            this.relevant = relevant;
+        }
+    }
+
+    private static final class RunningBuild {
+
+        private final long courseId;
+
+        private final List<ScoreUpdate> updates = new ArrayList<>();
+
+        private RunningBuild(long courseId) {
+            this.courseId = courseId;
+        }
+    }
+
+    /**
+     * The scores of the students (rows) in the exercises (columns) of a course. Students and exercises are mapped to dense indices, the cells are stored row by row in
+     * primitive arrays: the score of the relevant result, its completion date and its id (to recognize updates of the same result). The results of a team count for the
+     * students that were members of the team when the matrix was built.
+     */
+    public static final class ScoreMatrix {
+
+        private static final int NO_SCORE = -1;
+
+        private final long courseId;
+
+        private final long builtAt = System.currentTimeMillis();
+
+        private final LongIntHashMap studentIndices = new LongIntHashMap();
+
+        private final String[] logins;
+
+        private final String[] names;
+
+        private final String[] registrationNumbers;
+
+        private final LongIntHashMap exerciseIndices = new LongIntHashMap();
+
+        private final long[] exerciseIds;
+
+        private final String[] exerciseTitles;
+
+        private final int[] scores;
+
+        private final long[] completionDates;
+
+        private final long[] resultIds;
+
+        private final LongObjectHashMap<LongArrayList> studentIdsPerTeam;
+
+        ScoreMatrix(long courseId, List<User> students, List<Exercise> exercises, LongObjectHashMap<LongArrayList> studentIdsPerTeam) {
+            this.courseId = courseId;
+            this.studentIdsPerTeam = studentIdsPerTeam;
+            logins = new String[students.size()];
+            names = new String[students.size()];
+            registrationNumbers = new String[students.size()];
+            for (int index = 0; index < students.size(); index++) {
+                final User student = students.get(index);
+                studentIndices.put(student.getId(), index);
+                logins[index] = student.getLogin();
+                names[index] = student.getName();
+                registrationNumbers[index] = student.getRegistrationNumber();
+            }
+            exerciseIds = new long[exercises.size()];
+            exerciseTitles = new String[exercises.size()];
+            for (int index = 0; index < exercises.size(); index++) {
+                exerciseIndices.put(exercises.get(index).getId(), index);
+                exerciseIds[index] = exercises.get(index).getId();
+                exerciseTitles[index] = exercises.get(index).getTitle();
+            }
+            scores = new int[students.size() * exercises.size()];
+            Arrays.fill(scores, NO_SCORE);
+            completionDates = new long[scores.length];
+            resultIds = new long[scores.length];
+        }
+
+        boolean containsExercise(long exerciseId) {
+            return exerciseIndices.containsKey(exerciseId);
+        }
+
+        /**
+         * @return false if the update could not be applied and the matrix has to be built again
+         */
+        synchronized boolean apply(ScoreUpdate update) {
+            final int exerciseIndex = exerciseIndices.getOrDefault(update.exerciseId, -1);
+            if (exerciseIndex < 0) {
+                return false;
+            }
+            final long[] studentIds;
+            if (update.studentId != null) {
+                studentIds = new long[] { update.studentId };
+            }
+            else if (update.teamId == null) {
+                return true;
+            }
+            else if (studentIdsPerTeam.containsKey(update.teamId)) {
+                studentIds = studentIdsPerTeam.get(update.teamId).toArray();
+            }
+            else {
+                // e.g. a team that was created after the matrix was built
+                return false;
+            }
+            boolean applied = true;
+            for (long studentId : studentIds) {
+                final int studentIndex = studentIndices.getOrDefault(studentId, -1);
+                if (studentIndex < 0) {
+                    applied = false;
+                    continue;
+                }
+                final int cell = studentIndex * exerciseIds.length + exerciseIndex;
+                final boolean sameResult = scores[cell] != NO_SCORE && resultIds[cell] == update.resultId;
+                if (!update.relevant) {
+                    // the previous relevant result of the participation is unknown
+                    applied &= !sameResult;
+                }
+                else if (sameResult || scores[cell] == NO_SCORE || update.completionDate > completionDates[cell]
+                        || update.completionDate == completionDates[cell] && update.resultId > resultIds[cell]) {
+                    scores[cell] = update.score;
+                    completionDates[cell] = update.completionDate;
+                    resultIds[cell] = update.resultId;
+                }
+            }
+            return applied;
+        }
+
+        /**
+         * @param studentId the id of the student
+         * @param exerciseId the id of the exercise
+         * @return the score of the relevant result of the student in the exercise, empty if there is none
+         */
+        public synchronized OptionalInt getScore(long studentId, long exerciseId) {
+            final int studentIndex = studentIndices.getOrDefault(studentId, -1);
+            final int exerciseIndex = exerciseIndices.getOrDefault(exerciseId, -1);
+            if (studentIndex < 0 || exerciseIndex < 0 || scores[studentIndex * exerciseIds.length + exerciseIndex] == NO_SCORE) {
+                return OptionalInt.empty();
+            }
+            return OptionalInt.of(scores[studentIndex * exerciseIds.length + exerciseIndex]);
+        }
+
+        public int getNumberOfStudents() {
+            return logins.length;
+        }
+
+        public int getNumberOfExercises() {
+            return exerciseIds.length;
+        }
+
+        /**
+         * @return a copy of the scores that is not changed by later updates, e.g. to write it after the request has returned
+         */
+        public synchronized ScoreMatrixSnapshot snapshot() {
+            return new ScoreMatrixSnapshot(this, scores.clone());
+        }
+    }
+
+    /**
+     * An immutable copy of the scores of a matrix that can be written as CSV: one row per student with login, name and registration number, one column per exercise with the
+     * score of the relevant result in percent (empty if there is no relevant result).
+     */
+    public static final class ScoreMatrixSnapshot {
+
+        private final ScoreMatrix matrix;
+
+        private final int[] scores;
+
+        private ScoreMatrixSnapshot(ScoreMatrix matrix, int[] scores) {
+            this.matrix = matrix;
+            this.scores = scores;
+        }
+
+        /**
+         * Write the scores as CSV (RFC 4180) to the output stream.
+         *
+         * @param outputStream the stream to write to, it is not closed
+         * @throws IOException if writing to the stream fails
+         */
+        public void writeCsv(OutputStream outputStream) throws IOException {
+            final Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            writer.write("Login,Name,Registration Number");
+            for (String exerciseTitle : matrix.exerciseTitles) {
+                writer.write(',');
+                writeCsvField(writer, exerciseTitle);
+            }
+            writer.write("\r\n");
+            final int numberOfExercises = matrix.exerciseIds.length;
+            for (int studentIndex = 0; studentIndex < matrix.logins.length; studentIndex++) {
+                writeCsvField(writer, matrix.logins[studentIndex]);
+                writer.write(',');
+                writeCsvField(writer, matrix.names[studentIndex]);
+                writer.write(',');
+                writeCsvField(writer, matrix.registrationNumbers[studentIndex]);
+                for (int exerciseIndex = 0; exerciseIndex < numberOfExercises; exerciseIndex++) {
+                    writer.write(',');
+                    final int score = scores[studentIndex * numberOfExercises + exerciseIndex];
+                    if (score != ScoreMatrix.NO_SCORE) {
+                        writer.write(Integer.toString(score));
+                    }
+                }
+                writer.write("\r\n");
+            }
+            writer.flush();
+        }
+
+        /**
+         * Write a field, quoted if necessary. Values that start like a formula are prefixed with an apostrophe, so that spreadsheet applications do not evaluate names or
+         * titles entered by users (CSV injection).
+         */
+        private static void writeCsvField(Writer writer, String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            final String field = !value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+            if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+                writer.write(field);
+                return;
+            }
+            writer.write('"');
+            writer.write(field.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
@@ -3,6 +3,7 @@ package de.tum.in.www1.artemis.service;
 import java.time.ZonedDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -89,23 +90,29 @@ public class CourseService {
     }
 
     /**
-     * Get all courses with exercises (filtered for given user)
+     * Get all courses with exercises (filtered for given user). The exercises and lectures of all courses are loaded together, so the number of queries does not depend on
+     * the number of courses.
      *
      * @param user      the user entity
      * @return the list of all courses including exercises for the user
      */
     public List<Course> findAllActiveWithExercisesAndLecturesForUser(User user) {
-        return findAllActive().stream()
+        List<Course> courses = findAllActive().stream()
                 // filter old courses and courses the user should not be able to see
                 // skip old courses that have already finished
                 .filter(course -> course.getEndDate() == null || course.getEndDate().isAfter(ZonedDateTime.now())).filter(course -> isActiveCourseVisibleForUser(user, course))
-                .peek(course -> {
-                    // fetch visible lectures exercises for each course after filtering
-                    Set<Lecture> lectures = lectureService.findAllForCourse(course, user);
-                    List<Exercise> exercises = exerciseService.findAllForCourse(course, user);
-                    course.setExercises(new HashSet<>(exercises));
-                    course.setLectures(lectures);
-                }).collect(Collectors.toList());
+                .collect(Collectors.toList());
+        if (courses.isEmpty()) {
+            return courses;
+        }
+        // fetch visible lectures and exercises of all courses after filtering
+        Map<Long, Set<Lecture>> lectures = lectureService.findAllForCourses(courses, user);
+        Map<Long, List<Exercise>> exercises = exerciseService.findAllForCourses(courses, user);
+        for (Course course : courses) {
+            course.setExercises(new HashSet<>(exercises.getOrDefault(course.getId(), List.of())));
+            course.setLectures(lectures.getOrDefault(course.getId(), new HashSet<>()));
+        }
+        return courses;
     }
 
     private boolean isActiveCourseVisibleForUser(User user, Course course) {
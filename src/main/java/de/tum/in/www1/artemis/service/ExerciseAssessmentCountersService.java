@@ -0,0 +1,180 @@
+package de.tum.in.www1.artemis.service;
+
+import static java.util.Arrays.asList;
+
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import de.tum.in.www1.artemis.domain.Exercise;
+import de.tum.in.www1.artemis.domain.ExerciseAssessmentCounters;
+import de.tum.in.www1.artemis.domain.ProgrammingExercise;
+import de.tum.in.www1.artemis.domain.enumeration.AssessmentType;
+import de.tum.in.www1.artemis.domain.enumeration.ComplaintType;
+import de.tum.in.www1.artemis.repository.*;
+
+/**
+ * Provides the assessment counters of exercises for the tutor and instructor dashboards. The counters are stored per exercise and read with one query. Submissions, assessments,
+ * complaints and complaint responses mark the counters of their exercise as outdated, outdated counters are counted again for all requested exercises together (one query per
+ * counter instead of one query per counter and exercise). Changes that are not reported to this service (e.g. on another server instance) are included after the configured
+ * maximum age of the counters.
+ */
+@Service
+public class ExerciseAssessmentCountersService {
+
+    private final Logger log = LoggerFactory.getLogger(ExerciseAssessmentCountersService.class);
+
+    @Value("${artemis.assessment-dashboard.counters-max-age-seconds:60}")
+    private long countersMaxAgeSeconds;
+
+    private final ExerciseAssessmentCountersRepository exerciseAssessmentCountersRepository;
+
+    private final SubmissionRepository submissionRepository;
+
+    private final ProgrammingExerciseRepository programmingExerciseRepository;
+
+    private final ResultRepository resultRepository;
+
+    private final ComplaintRepository complaintRepository;
+
+    private final ComplaintResponseRepository complaintResponseRepository;
+
+    private final Set<Long> outdatedExerciseIds = ConcurrentHashMap.newKeySet();
+
+    public ExerciseAssessmentCountersService(ExerciseAssessmentCountersRepository exerciseAssessmentCountersRepository, SubmissionRepository submissionRepository,
+            ProgrammingExerciseRepository programmingExerciseRepository, ResultRepository resultRepository, ComplaintRepository complaintRepository,
+            ComplaintResponseRepository complaintResponseRepository) {
+        this.exerciseAssessmentCountersRepository = exerciseAssessmentCountersRepository;
+        this.submissionRepository = submissionRepository;
+        this.programmingExerciseRepository = programmingExerciseRepository;
+        this.resultRepository = resultRepository;
+        this.complaintRepository = complaintRepository;
+        this.complaintResponseRepository = complaintResponseRepository;
+    }
+
+    /**
+     * Mark the counters of the given exercise as outdated, e.g. because a submission, assessment, complaint or complaint response of the exercise was saved or deleted. The
+     * counters are counted again the next time they are read. Within a transaction, the counters are marked again after the transaction completed: a concurrent read before
+     * the commit would count the old state and remove the mark.
+     *
+     * @param exercise the exercise whose counters changed, may be null
+     */
+    public void invalidate(Exercise exercise) {
+        if (exercise == null || exercise.getId() == null) {
+            return;
+        }
+        final Long exerciseId = exercise.getId();
+        outdatedExerciseIds.add(exerciseId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(int status) {
+                    outdatedExerciseIds.add(exerciseId);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param exercise the exercise we are interested in
+     * @return the up to date assessment counters of the exercise
+     */
+    public ExerciseAssessmentCounters getCounters(Exercise exercise) {
+        return getCounters(List.of(exercise)).get(exercise.getId());
+    }
+
+    /**
+     * Read the stored counters of the given exercises with one query and count the counters of the exercises again that are outdated, older than the maximum age or not
+     * counted yet.
+     *
+     * @param exercises the exercises we are interested in, e.g. all exercises of a course on the tutor dashboard
+     * @return the up to date assessment counters, mapped by exercise id
+     */
+    public Map<Long, ExerciseAssessmentCounters> getCounters(Collection<? extends Exercise> exercises) {
+        if (exercises.isEmpty()) {
+            return new HashMap<>();
+        }
+        final Set<Long> exerciseIds = exercises.stream().map(Exercise::getId).collect(Collectors.toSet());
+        final Map<Long, ExerciseAssessmentCounters> counters = exerciseAssessmentCountersRepository.findAllByExerciseIdIn(exerciseIds).stream()
+                .collect(Collectors.toMap(ExerciseAssessmentCounters::getExerciseId, Function.identity()));
+
+        final ZonedDateTime oldestValidUpdate = ZonedDateTime.now().minusSeconds(countersMaxAgeSeconds);
+        final List<Exercise> outdatedExercises = exercises.stream().filter(exercise -> {
+            final ExerciseAssessmentCounters exerciseCounters = counters.get(exercise.getId());
+            return exerciseCounters == null || outdatedExerciseIds.contains(exercise.getId()) || !exerciseCounters.getLastUpdate().isAfter(oldestValidUpdate);
+        }).collect(Collectors.toList());
+        if (!outdatedExercises.isEmpty()) {
+            counters.putAll(rebuild(outdatedExercises));
+        }
+        return counters;
+    }
+
+    /**
+     * Count the assessment counters of the given exercises from scratch and store them.
+     *
+     * @param exercises the exercises whose counters should be counted
+     * @return the counted counters, mapped by exercise id
+     */
+    public Map<Long, ExerciseAssessmentCounters> rebuild(Collection<? extends Exercise> exercises) {
+        final long start = System.currentTimeMillis();
+        final Set<Long> exerciseIds = exercises.stream().map(Exercise::getId).collect(Collectors.toSet());
+        // changes during the counting mark the exercises as outdated again, so that they are not lost
+        outdatedExerciseIds.removeAll(exerciseIds);
+
+        final ZonedDateTime now = ZonedDateTime.now();
+        final Map<Long, ExerciseAssessmentCounters> counters = new HashMap<>();
+        for (Exercise exercise : exercises) {
+            counters.put(exercise.getId(), new ExerciseAssessmentCounters(exercise.getId(), now));
+        }
+
+        final Set<Long> programmingExerciseIds = exercises.stream().filter(exercise -> exercise instanceof ProgrammingExercise).map(Exercise::getId).collect(Collectors.toSet());
+        final Set<Long> otherExerciseIds = exercises.stream().filter(exercise -> !(exercise instanceof ProgrammingExercise)).map(Exercise::getId).collect(Collectors.toSet());
+        if (!programmingExerciseIds.isEmpty()) {
+            apply(counters, programmingExerciseRepository.countSubmissionsByExerciseIdsSubmitted(programmingExerciseIds), ExerciseAssessmentCounters::setNumberOfSubmissions);
+        }
+        if (!otherExerciseIds.isEmpty()) {
+            apply(counters, submissionRepository.countByExerciseIdsSubmittedBeforeDueDate(otherExerciseIds), ExerciseAssessmentCounters::setNumberOfSubmissions);
+        }
+        apply(counters, resultRepository.countNumberOfFinishedAssessmentsForExercises(exerciseIds), ExerciseAssessmentCounters::setNumberOfAssessments);
+        apply(counters, resultRepository.countNumberOfAssessmentsForExercisesByAssessmentTypes(exerciseIds, asList(AssessmentType.AUTOMATIC, AssessmentType.SEMI_AUTOMATIC)),
+                ExerciseAssessmentCounters::setNumberOfAutomaticAssistedAssessments);
+        apply(counters, complaintRepository.countByExerciseIdsAndComplaintType(exerciseIds, ComplaintType.COMPLAINT), ExerciseAssessmentCounters::setNumberOfComplaints);
+        apply(counters, complaintResponseRepository.countByExerciseIdsAndComplaintType(exerciseIds, ComplaintType.COMPLAINT),
+                ExerciseAssessmentCounters::setNumberOfComplaintResponses);
+        apply(counters, complaintRepository.countByExerciseIdsAndComplaintType(exerciseIds, ComplaintType.MORE_FEEDBACK),
+                ExerciseAssessmentCounters::setNumberOfMoreFeedbackRequests);
+        apply(counters, complaintResponseRepository.countByExerciseIdsAndComplaintType(exerciseIds, ComplaintType.MORE_FEEDBACK),
+                ExerciseAssessmentCounters::setNumberOfMoreFeedbackResponses);
+
+        try {
+            exerciseAssessmentCountersRepository.saveAll(counters.values());
+        }
+        catch (DataIntegrityViolationException ex) {
+            // another request counted the same exercise at the same time, the counted values are still valid for this request
+            log.debug("Could not store the assessment counters of exercises {}: {}", exerciseIds, ex.getMessage());
+        }
+        log.debug("Counting the assessment counters of {} exercises took {}ms", exerciseIds.size(), System.currentTimeMillis() - start);
+        return counters;
+    }
+
+    private void apply(Map<Long, ExerciseAssessmentCounters> counters, List<long[]> countsPerExercise, BiConsumer<ExerciseAssessmentCounters, Long> setter) {
+        for (long[] exerciseIdAndCount : countsPerExercise) {
+            final ExerciseAssessmentCounters exerciseCounters = counters.get(exerciseIdAndCount[0]);
+            if (exerciseCounters != null) {
+                setter.accept(exerciseCounters, exerciseIdAndCount[1]);
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package de.tum.in.www1.artemis.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -15,12 +19,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import de.tum.in.www1.artemis.config.Constants;
 import de.tum.in.www1.artemis.domain.*;
-import de.tum.in.www1.artemis.domain.enumeration.ComplaintType;
 import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
 import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
 import de.tum.in.www1.artemis.domain.quiz.QuizExercise;
-import de.tum.in.www1.artemis.repository.ComplaintRepository;
-import de.tum.in.www1.artemis.repository.ComplaintResponseRepository;
 import de.tum.in.www1.artemis.repository.ExerciseRepository;
 import de.tum.in.www1.artemis.repository.TutorParticipationRepository;
 import de.tum.in.www1.artemis.service.scheduled.QuizScheduleService;
@@ -53,16 +54,12 @@ public class ExerciseService {
 
     private final AuditEventRepository auditEventRepository;
 
-    private final ComplaintRepository complaintRepository;
-
-    private final ComplaintResponseRepository complaintResponseRepository;
-
     private final TeamService teamService;
 
     public ExerciseService(ExerciseRepository exerciseRepository, ParticipationService participationService, AuthorizationCheckService authCheckService,
             ProgrammingExerciseService programmingExerciseService, QuizStatisticService quizStatisticService, QuizScheduleService quizScheduleService,
             TutorParticipationRepository tutorParticipationRepository, ExampleSubmissionService exampleSubmissionService, AuditEventRepository auditEventRepository,
-            ComplaintRepository complaintRepository, ComplaintResponseRepository complaintResponseRepository, TeamService teamService) {
+            TeamService teamService) {
         this.exerciseRepository = exerciseRepository;
         this.participationService = participationService;
         this.authCheckService = authCheckService;
@@ -72,8 +69,6 @@ public class ExerciseService {
         this.tutorParticipationRepository = tutorParticipationRepository;
         this.exampleSubmissionService = exampleSubmissionService;
         this.auditEventRepository = auditEventRepository;
-        this.complaintRepository = complaintRepository;
-        this.complaintResponseRepository = complaintResponseRepository;
         this.teamService = teamService;
     }
 
@@ -99,46 +94,61 @@ public class ExerciseService {
     }
 
     /**
-     * Finds all Exercises for a given Course
+     * Finds all Exercises for multiple Courses with a fixed number of queries (independent of the number of courses), e.g. for the course dashboard. Teaching assistants
+     * and instructors see all exercises, students only see released exercises (in online courses only exercises they started using LTI).
      *
-     * @param course corresponding course
+     * @param courses the courses the user is allowed to see
      * @param user the user entity
-     * @return a List of all Exercises for the given course
+     * @return the exercises the user can see, mapped by course id (courses without visible exercises are missing)
      */
-    public List<Exercise> findAllForCourse(Course course, User user) {
-        List<Exercise> exercises = null;
-        if (authCheckService.isAtLeastTeachingAssistantInCourse(course, user)) {
-            // user can see all exercises of the course
-            exercises = exerciseRepository.findByCourseIdWithCategories(course.getId());
-        }
-        else if (authCheckService.isStudentInCourse(course, user)) {
-
-            if (course.isOnlineCourse()) {
-                // students in online courses can only see exercises where the lti outcome url exists, otherwise the result cannot be reported later on
-                exercises = exerciseRepository.findByCourseIdWhereLtiOutcomeUrlExists(course.getId(), user.getLogin());
+    public Map<Long, List<Exercise>> findAllForCourses(Collection<Course> courses, User user) {
+        Set<Long> courseIdsWithAllExercises = new HashSet<>();
+        Set<Long> onlineCourseIdsForStudent = new HashSet<>();
+        Set<Long> courseIdsForTeachingAssistant = new HashSet<>();
+        for (Course course : courses) {
+            if (authCheckService.isAtLeastTeachingAssistantInCourse(course, user)) {
+                courseIdsForTeachingAssistant.add(course.getId());
+                courseIdsWithAllExercises.add(course.getId());
             }
-            else {
-                exercises = exerciseRepository.findByCourseIdWithCategories(course.getId());
+            else if (authCheckService.isStudentInCourse(course, user)) {
+                // students in online courses can only see exercises where the lti outcome url exists, otherwise the result cannot be reported later on
+                if (course.isOnlineCourse()) {
+                    onlineCourseIdsForStudent.add(course.getId());
+                }
+                else {
+                    courseIdsWithAllExercises.add(course.getId());
+                }
             }
+        }
 
-            // user is student for this course and might not have the right to see it so we have to filter
-            // filter out exercises that are not released (or explicitly made visible to students) yet
-            exercises = exercises.stream().filter(Exercise::isVisibleToStudents).collect(Collectors.toList());
+        List<Exercise> exercises = new ArrayList<>();
+        if (!courseIdsWithAllExercises.isEmpty()) {
+            exercises.addAll(exerciseRepository.findByCourseIdsWithCategories(courseIdsWithAllExercises));
+        }
+        if (!onlineCourseIdsForStudent.isEmpty()) {
+            exercises.addAll(exerciseRepository.findByCourseIdsWhereLtiOutcomeUrlExistsWithCategories(onlineCourseIdsForStudent, user.getLogin()));
         }
 
-        if (exercises != null) {
-            for (Exercise exercise : exercises) {
-                setAssignedTeamIdForExerciseAndUser(exercise, user);
+        // students only see exercises that are released (or explicitly made visible to students)
+        exercises = exercises.stream().filter(exercise -> courseIdsForTeachingAssistant.contains(exercise.getCourse().getId()) || exercise.isVisibleToStudents())
+                .collect(Collectors.toList());
 
-                // filter out questions and all statistical information about the quizPointStatistic from quizExercises (so users can't see which answer options are correct)
-                if (exercise instanceof QuizExercise) {
-                    QuizExercise quizExercise = (QuizExercise) exercise;
-                    quizExercise.filterSensitiveInformation();
-                }
-            }
+        List<Exercise> teamExercises = exercises.stream().filter(Exercise::isTeamMode).collect(Collectors.toList());
+        Map<Long, Long> assignedTeamIds = teamService.findAssignedTeamIdsByExercisesAndUser(teamExercises, user);
+        for (Exercise teamExercise : teamExercises) {
+            teamExercise.setStudentAssignedTeamId(assignedTeamIds.get(teamExercise.getId()));
+            teamExercise.setStudentAssignedTeamIdComputed(true);
         }
 
-        return exercises;
+        Map<Long, List<Exercise>> exercisesPerCourse = new HashMap<>();
+        for (Exercise exercise : exercises) {
+            // filter out questions and all statistical information about the quizPointStatistic from quizExercises (so users can't see which answer options are correct)
+            if (exercise instanceof QuizExercise) {
+                ((QuizExercise) exercise).filterSensitiveInformation();
+            }
+            exercisesPerCourse.computeIfAbsent(exercise.getCourse().getId(), courseId -> new ArrayList<>()).add(exercise);
+        }
+        return exercisesPerCourse;
     }
 
     /**
@@ -345,28 +355,6 @@ public class ExerciseService {
         log.info("User " + user.getLogin() + " has requested to delete {} {} with id {}", exercise.getClass().getSimpleName(), exercise.getTitle(), exercise.getId());
     }
 
-    /**
-     * Calculates the number of unevaluated complaints and feedback requests for tutor dashboard participation graph
-     *
-     * @param exercise the exercise for which the number of unevaluated complaints should be calculated
-     */
-    public void calculateNrOfOpenComplaints(Exercise exercise) {
-
-        long numberOfComplaints = complaintRepository.countByResult_Participation_Exercise_IdAndComplaintType(exercise.getId(), ComplaintType.COMPLAINT);
-        long numberOfComplaintResponses = complaintResponseRepository.countByComplaint_Result_Participation_Exercise_Id_AndComplaint_ComplaintType(exercise.getId(),
-                ComplaintType.COMPLAINT);
-
-        exercise.setNumberOfOpenComplaints(numberOfComplaints - numberOfComplaintResponses);
-        exercise.setNumberOfComplaints(numberOfComplaints);
-
-        long numberOfMoreFeedbackRequests = complaintRepository.countByResult_Participation_Exercise_IdAndComplaintType(exercise.getId(), ComplaintType.MORE_FEEDBACK);
-        long numberOfMoreFeedbackComplaintResponses = complaintResponseRepository.countByComplaint_Result_Participation_Exercise_Id_AndComplaint_ComplaintType(exercise.getId(),
-                ComplaintType.MORE_FEEDBACK);
-
-        exercise.setNumberOfOpenMoreFeedbackRequests(numberOfMoreFeedbackRequests - numberOfMoreFeedbackComplaintResponses);
-        exercise.setNumberOfMoreFeedbackRequests(numberOfMoreFeedbackRequests);
-    }
-
     /**
      * Sets the transient attribute "studentAssignedTeamId" that contains the id of the team to which the user is assigned
      *
@@ -0,0 +1,245 @@
+package de.tum.in.www1.artemis.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of uploaded files that are served by FileResource (e.g. drag and drop images, course icons and lecture attachments). The content of small files is kept outside of the
+ * heap in direct byte buffers, so that the cache does not add to the garbage collection work. The cache is limited by the total size of the cached files, the least recently
+ * used files are removed first. Files that are larger than the maximum file size (e.g. lecture slides) are not cached, but streamed from the file system.
+ * A cached file is only served as long as the size and the modification time of the file on disk are unchanged, so changed files never have to be removed explicitly.
+ */
+@Service
+public class FileCacheService {
+
+    private final Logger log = LoggerFactory.getLogger(FileCacheService.class);
+
+    @Value("${artemis.file-cache.max-size-mb:128}")
+    private long maxSizeMb;
+
+    @Value("${artemis.file-cache.max-file-size-kb:2048}")
+    private long maxFileSizeKb;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The cached files by their normalized path in access order, guarded by this.
+     */
+    private final LinkedHashMap<String, CachedFileResource> files = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long sizeInBytes;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    private Counter uncached;
+
+    public FileCacheService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Registers the metrics of the cache.
+     */
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("artemis.file.cache.requests").tag("result", "hit").description("File requests served from the file cache").register(meterRegistry);
+        misses = Counter.builder("artemis.file.cache.requests").tag("result", "miss").description("File requests read from the file system into the file cache")
+                .register(meterRegistry);
+        uncached = Counter.builder("artemis.file.cache.requests").tag("result", "uncached").description("File requests streamed from the file system, because the file is too large")
+                .register(meterRegistry);
+        Gauge.builder("artemis.file.cache.entries", this, FileCacheService::getNumberOfEntries).description("Cached files").register(meterRegistry);
+        Gauge.builder("artemis.file.cache.size", this, FileCacheService::getSizeInBytes).baseUnit("bytes").description("Size of the cached files (off-heap)").register(meterRegistry);
+    }
+
+    /**
+     * Get the file for the given path. Small files are served from (and added to) the cache, larger files are streamed from the file system.
+     *
+     * @param path the path of the file
+     * @return the file with its size and modification time, or null if the file doesn't exist
+     * @throws IOException if the file can't be accessed
+     */
+    public Resource getFile(String path) throws IOException {
+        Path filePath = Path.of(path);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        }
+        catch (NoSuchFileException ex) {
+            return null;
+        }
+        if (!attributes.isRegularFile()) {
+            return null;
+        }
+        String key = filePath.normalize().toString();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        synchronized (this) {
+            CachedFileResource cachedFile = files.get(key);
+            if (cachedFile != null && cachedFile.lastModified == lastModified && cachedFile.content.capacity() == size) {
+                hits.increment();
+                return cachedFile;
+            }
+        }
+        if (size > maxFileSizeKb * 1024 || size > maxSizeMb * 1024 * 1024) {
+            uncached.increment();
+            return new FileSystemResource(filePath);
+        }
+        misses.increment();
+
+        ByteBuffer content = ByteBuffer.allocateDirect((int) size);
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            while (content.hasRemaining() && channel.read(content) >= 0) {
+                // read until the buffer is full or the file ends
+            }
+        }
+        if (content.hasRemaining() || Files.getLastModifiedTime(filePath).toMillis() != lastModified) {
+            // the file was changed while it was read, don't cache it
+            log.debug("File {} changed while it was read into the file cache", key);
+            return new FileSystemResource(filePath);
+        }
+        content.flip();
+        CachedFileResource cachedFile = new CachedFileResource(filePath.getFileName().toString(), content.asReadOnlyBuffer(), lastModified);
+        put(key, cachedFile);
+        return cachedFile;
+    }
+
+    /**
+     * Removes the file from the cache, e.g. because it is replaced or deleted.
+     *
+     * @param path the path of the file
+     */
+    public synchronized void evict(String path) {
+        CachedFileResource removed = files.remove(Path.of(path).normalize().toString());
+        if (removed != null) {
+            sizeInBytes -= removed.content.capacity();
+        }
+    }
+
+    private synchronized void put(String key, CachedFileResource cachedFile) {
+        CachedFileResource replaced = files.put(key, cachedFile);
+        if (replaced != null) {
+            sizeInBytes -= replaced.content.capacity();
+        }
+        sizeInBytes += cachedFile.content.capacity();
+        Iterator<Map.Entry<String, CachedFileResource>> leastRecentlyUsed = files.entrySet().iterator();
+        while (sizeInBytes > maxSizeMb * 1024 * 1024 && leastRecentlyUsed.hasNext()) {
+            sizeInBytes -= leastRecentlyUsed.next().getValue().content.capacity();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    public synchronized int getNumberOfEntries() {
+        return files.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * A cached file, the content is a read-only direct buffer that is shared by all requests. Every input stream reads from its own view of the buffer, so that concurrent (and
+     * partial) reads don't affect each other.
+     */
+    static final class CachedFileResource extends AbstractResource {
+
+        private final String filename;
+
+        private final ByteBuffer content;
+
+        private final long lastModified;
+
+        CachedFileResource(String filename, ByteBuffer content, long lastModified) {
+            this.filename = filename;
+            this.content = content;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(content.duplicate());
+        }
+
+        @Override
+        public long contentLength() {
+            return content.capacity();
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public String getDescription() {
+            return "cached file [" + filename + "]";
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -24,8 +24,9 @@ public class FileUploadAssessmentService extends AssessmentService {
     public FileUploadAssessmentService(UserService userService, ComplaintResponseService complaintResponseService, ComplaintRepository complaintRepository,
             FeedbackRepository feedbackRepository, ResultRepository resultRepository, FileUploadSubmissionRepository fileUploadSubmissionRepository,
             StudentParticipationRepository studentParticipationRepository, ResultService resultService, FileUploadSubmissionService fileUploadSubmissionService,
-            SubmissionRepository submissionRepository) {
-        super(complaintResponseService, complaintRepository, feedbackRepository, resultRepository, studentParticipationRepository, resultService, submissionRepository);
+            SubmissionRepository submissionRepository, ExerciseAssessmentCountersService exerciseAssessmentCountersService, TutorLeaderboardService tutorLeaderboardService) {
+        super(complaintResponseService, complaintRepository, feedbackRepository, resultRepository, studentParticipationRepository, resultService, submissionRepository,
+                exerciseAssessmentCountersService, tutorLeaderboardService);
         this.fileUploadSubmissionRepository = fileUploadSubmissionRepository;
         this.fileUploadSubmissionService = fileUploadSubmissionService;
         this.userService = userService;
@@ -47,7 +48,10 @@ public class FileUploadAssessmentService extends AssessmentService {
         result.setRatedIfNotExceeded(fileUploadExercise.getDueDate(), submissionDate);
         result.setCompletionDate(ZonedDateTime.now());
         result.evaluateFeedback(fileUploadExercise.getMaxScore());
-        return resultRepository.save(result);
+        Result savedResult = resultRepository.save(result);
+        exerciseAssessmentCountersService.invalidate(fileUploadExercise);
+        tutorLeaderboardService.invalidate(fileUploadExercise);
+        return savedResult;
     }
 
     /**
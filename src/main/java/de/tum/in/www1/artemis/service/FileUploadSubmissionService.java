@@ -47,8 +47,8 @@ public class FileUploadSubmissionService extends SubmissionService {
 
     public FileUploadSubmissionService(FileUploadSubmissionRepository fileUploadSubmissionRepository, SubmissionRepository submissionRepository, ResultRepository resultRepository,
             ParticipationService participationService, UserService userService, StudentParticipationRepository studentParticipationRepository, FileService fileService,
-            AuthorizationCheckService authCheckService) {
-        super(submissionRepository, userService, authCheckService, resultRepository);
+            AuthorizationCheckService authCheckService, ExerciseAssessmentCountersService exerciseAssessmentCountersService) {
+        super(submissionRepository, userService, authCheckService, resultRepository, exerciseAssessmentCountersService);
         this.fileUploadSubmissionRepository = fileUploadSubmissionRepository;
         this.resultRepository = resultRepository;
         this.participationService = participationService;
@@ -76,7 +76,11 @@ public class FileUploadSubmissionService extends SubmissionService {
         }
         StudentParticipation participation = optionalParticipation.get();
 
-        return save(fileUploadSubmission, file, participation, fileUploadExercise);
+        FileUploadSubmission savedSubmission = save(fileUploadSubmission, file, participation, fileUploadExercise);
+        if (savedSubmission.isSubmitted()) {
+            exerciseAssessmentCountersService.invalidate(fileUploadExercise);
+        }
+        return savedSubmission;
     }
 
     /**
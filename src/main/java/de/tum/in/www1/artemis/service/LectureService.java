@@ -1,8 +1,9 @@
 package de.tum.in.www1.artemis.service;
 
 import java.time.ZonedDateTime;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 
@@ -29,18 +30,26 @@ public class LectureService {
     }
 
     /**
-     * Finds all Lectures for a given Course
+     * Finds all Lectures for multiple Courses with one query, e.g. for the course dashboard. Students only see the released attachments.
      *
-     * @param course corresponding course
+     * @param courses the courses the user is allowed to see
      * @param user the user entity
-     * @return a List of all Lectures for the given course
+     * @return the lectures with attachments, mapped by course id (courses without lectures are missing)
      */
-    public Set<Lecture> findAllForCourse(Course course, User user) {
-        Set<Lecture> lectures = lectureRepository.findAllByCourseId(course.getId());
-        if (authCheckService.isOnlyStudentInCourse(course, user)) {
-            lectures = filterActiveAttachments(lectures, user);
+    public Map<Long, Set<Lecture>> findAllForCourses(Collection<Course> courses, User user) {
+        if (courses.isEmpty()) {
+            return new HashMap<>();
         }
-        return lectures;
+        Map<Long, Course> coursesById = courses.stream().collect(Collectors.toMap(Course::getId, Function.identity()));
+        Map<Long, Set<Lecture>> lecturesPerCourse = new HashMap<>();
+        for (Lecture lecture : lectureRepository.findAllByCourseIdsWithAttachments(coursesById.keySet())) {
+            Course course = coursesById.get(lecture.getCourse().getId());
+            if (authCheckService.isOnlyStudentInCourse(course, user)) {
+                lecture = filterActiveAttachments(lecture, user);
+            }
+            lecturesPerCourse.computeIfAbsent(course.getId(), courseId -> new HashSet<>()).add(lecture);
+        }
+        return lecturesPerCourse;
     }
 
     /**
@@ -66,21 +75,6 @@ public class LectureService {
         return lectureWithAttachments;
     }
 
-    /**
-     * Filter active attachments for a set of lectures.
-     *
-     * @param lecturesWithAttachments lectures that have attachments
-     * @param user the user for which this call should filter
-     * @return lectures with filtered attachments
-     */
-    public Set<Lecture> filterActiveAttachments(Set<Lecture> lecturesWithAttachments, User user) {
-        Set<Lecture> lecturesWithFilteredAttachments = new HashSet<>();
-        for (Lecture lecture : lecturesWithAttachments) {
-            lecturesWithFilteredAttachments.add(filterActiveAttachments(lecture, user));
-        }
-        return lecturesWithFilteredAttachments;
-    }
-
     public void delete(Lecture lecture) {
         lectureRepository.delete(lecture);
     }
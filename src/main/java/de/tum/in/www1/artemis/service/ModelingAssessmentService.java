@@ -36,8 +36,10 @@ public class ModelingAssessmentService extends AssessmentService {
     public ModelingAssessmentService(UserService userService, ComplaintResponseService complaintResponseService, CompassService compassService,
             ModelingSubmissionRepository modelingSubmissionRepository, ComplaintRepository complaintRepository, FeedbackRepository feedbackRepository,
             ResultRepository resultRepository, StudentParticipationRepository studentParticipationRepository, ResultService resultService,
-            ModelingSubmissionService modelingSubmissionService, SubmissionRepository submissionRepository) {
-        super(complaintResponseService, complaintRepository, feedbackRepository, resultRepository, studentParticipationRepository, resultService, submissionRepository);
+            ModelingSubmissionService modelingSubmissionService, SubmissionRepository submissionRepository, ExerciseAssessmentCountersService exerciseAssessmentCountersService,
+            TutorLeaderboardService tutorLeaderboardService) {
+        super(complaintResponseService, complaintRepository, feedbackRepository, resultRepository, studentParticipationRepository, resultService, submissionRepository,
+                exerciseAssessmentCountersService, tutorLeaderboardService);
         this.userService = userService;
         this.compassService = compassService;
         this.modelingSubmissionRepository = modelingSubmissionRepository;
@@ -62,7 +64,10 @@ public class ModelingAssessmentService extends AssessmentService {
         result.setCompletionDate(ZonedDateTime.now());
         result.evaluateFeedback(exercise.getMaxScore()); // TODO CZ: move to AssessmentService class, as it's the same for modeling and text exercises (i.e. total score is sum of
         // feedback credits)
-        return resultRepository.save(result);
+        Result savedResult = resultRepository.save(result);
+        exerciseAssessmentCountersService.invalidate(exercise);
+        tutorLeaderboardService.invalidate(exercise);
+        return savedResult;
     }
 
     /**
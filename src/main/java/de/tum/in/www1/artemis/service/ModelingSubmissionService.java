@@ -34,8 +34,8 @@ public class ModelingSubmissionService extends SubmissionService {
 
     public ModelingSubmissionService(ModelingSubmissionRepository modelingSubmissionRepository, SubmissionRepository submissionRepository, ResultRepository resultRepository,
             CompassService compassService, ParticipationService participationService, UserService userService, StudentParticipationRepository studentParticipationRepository,
-            AuthorizationCheckService authCheckService) {
-        super(submissionRepository, userService, authCheckService, resultRepository);
+            AuthorizationCheckService authCheckService, ExerciseAssessmentCountersService exerciseAssessmentCountersService) {
+        super(submissionRepository, userService, authCheckService, resultRepository, exerciseAssessmentCountersService);
         this.modelingSubmissionRepository = modelingSubmissionRepository;
         this.resultRepository = resultRepository;
         this.compassService = compassService;
@@ -217,6 +217,7 @@ public class ModelingSubmissionService extends SubmissionService {
                 log.error(ex.getMessage(), ex);
             }
             participation.setInitializationState(InitializationState.FINISHED);
+            exerciseAssessmentCountersService.invalidate(modelingExercise);
         }
 
         StudentParticipation savedParticipation = studentParticipationRepository.save(participation);
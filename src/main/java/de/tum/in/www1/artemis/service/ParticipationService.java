@@ -5,13 +5,19 @@ import static de.tum.in.www1.artemis.domain.enumeration.InitializationState.*;
 
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import de.tum.in.www1.artemis.domain.*;
 import de.tum.in.www1.artemis.domain.enumeration.AssessmentType;
@@ -29,6 +35,8 @@ import de.tum.in.www1.artemis.service.connectors.ContinuousIntegrationService;
 import de.tum.in.www1.artemis.service.connectors.GitService;
 import de.tum.in.www1.artemis.service.connectors.VersionControlService;
 import de.tum.in.www1.artemis.service.scheduled.QuizScheduleService;
+import de.tum.in.www1.artemis.web.rest.dto.ExerciseResultDTO;
+import de.tum.in.www1.artemis.web.rest.dto.RelevantResultDTO;
 import de.tum.in.www1.artemis.web.rest.errors.EntityNotFoundException;
 
 /**
@@ -43,6 +51,8 @@ public class ParticipationService {
 
     private final StudentParticipationRepository studentParticipationRepository;
 
+    private final StudentParticipationFetchRepository studentParticipationFetchRepository;
+
     private final ProgrammingExerciseStudentParticipationRepository programmingExerciseStudentParticipationRepository;
 
     private final TemplateProgrammingExerciseParticipationRepository templateProgrammingExerciseParticipationRepository;
@@ -75,19 +85,23 @@ public class ParticipationService {
 
     private final AuthorizationCheckService authCheckService;
 
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
     public ParticipationService(ProgrammingExerciseStudentParticipationRepository programmingExerciseStudentParticipationRepository,
             TemplateProgrammingExerciseParticipationRepository templateProgrammingExerciseParticipationRepository,
             SolutionProgrammingExerciseParticipationRepository solutionProgrammingExerciseParticipationRepository, ParticipationRepository participationRepository,
-            StudentParticipationRepository studentParticipationRepository, ExerciseRepository exerciseRepository, ResultRepository resultRepository,
-            SubmissionRepository submissionRepository, ComplaintResponseRepository complaintResponseRepository, ComplaintRepository complaintRepository,
-            TeamRepository teamRepository, QuizSubmissionService quizSubmissionService, UserService userService, GitService gitService,
-            Optional<ContinuousIntegrationService> continuousIntegrationService, Optional<VersionControlService> versionControlService,
-            ConflictingResultService conflictingResultService, AuthorizationCheckService authCheckService) {
+            StudentParticipationRepository studentParticipationRepository, StudentParticipationFetchRepository studentParticipationFetchRepository,
+            ExerciseRepository exerciseRepository, ResultRepository resultRepository, SubmissionRepository submissionRepository,
+            ComplaintResponseRepository complaintResponseRepository, ComplaintRepository complaintRepository, TeamRepository teamRepository,
+            QuizSubmissionService quizSubmissionService, UserService userService, GitService gitService, Optional<ContinuousIntegrationService> continuousIntegrationService,
+            Optional<VersionControlService> versionControlService, ConflictingResultService conflictingResultService, AuthorizationCheckService authCheckService,
+            PlatformTransactionManager transactionManager) {
         this.participationRepository = participationRepository;
         this.programmingExerciseStudentParticipationRepository = programmingExerciseStudentParticipationRepository;
         this.templateProgrammingExerciseParticipationRepository = templateProgrammingExerciseParticipationRepository;
         this.solutionProgrammingExerciseParticipationRepository = solutionProgrammingExerciseParticipationRepository;
         this.studentParticipationRepository = studentParticipationRepository;
+        this.studentParticipationFetchRepository = studentParticipationFetchRepository;
         this.exerciseRepository = exerciseRepository;
         this.resultRepository = resultRepository;
         this.submissionRepository = submissionRepository;
@@ -101,6 +115,8 @@ public class ParticipationService {
         this.versionControlService = versionControlService;
         this.conflictingResultService = conflictingResultService;
         this.authCheckService = authCheckService;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
     }
 
     /**
@@ -586,7 +602,7 @@ public class ParticipationService {
      **/
     public StudentParticipation findOneStudentParticipationWithEagerSubmissionsResultsExerciseAndCourse(Long participationId) {
         log.debug("Request to get Participation : {}", participationId);
-        Optional<StudentParticipation> participation = studentParticipationRepository.findWithEagerSubmissionsAndResultsAndExerciseAndCourseById(participationId);
+        Optional<StudentParticipation> participation = studentParticipationFetchRepository.findWithEagerSubmissionsAndResultsAndExerciseAndCourseById(participationId);
         if (participation.isEmpty()) {
             throw new EntityNotFoundException("StudentParticipation with " + participationId + " was not found!");
         }
@@ -646,7 +662,7 @@ public class ParticipationService {
      */
     public StudentParticipation findOneWithEagerSubmissionsAndResults(Long participationId) {
         log.debug("Request to get Participation : {}", participationId);
-        Optional<StudentParticipation> participation = studentParticipationRepository.findWithEagerSubmissionsAndResultsById(participationId);
+        Optional<StudentParticipation> participation = studentParticipationFetchRepository.findWithEagerSubmissionsAndResultsById(participationId);
         if (participation.isEmpty()) {
             throw new EntityNotFoundException("Participation with " + participationId + " was not found!");
         }
@@ -733,14 +749,14 @@ public class ParticipationService {
     }
 
     /**
-     * Get all programming exercise participations belonging to build plan and initialize there state with eager results.
+     * Get the participations of a build plan with their exercise, but without results and submissions.
      *
-     * @param buildPlanId the id of build plan
-     * @return the list of programming exercise participations belonging to build plan
+     * @param buildPlanId the id of the build plan
+     * @return the participations of the build plan (usually one)
      */
-    public List<ProgrammingExerciseStudentParticipation> findByBuildPlanIdWithEagerResults(String buildPlanId) {
+    public List<ProgrammingExerciseStudentParticipation> findByBuildPlanId(String buildPlanId) {
         log.debug("Request to get Participation for build plan id: {}", buildPlanId);
-        return programmingExerciseStudentParticipationRepository.findByBuildPlanId(buildPlanId);
+        return programmingExerciseStudentParticipationRepository.findWithExerciseByBuildPlanId(buildPlanId);
     }
 
     /**
@@ -793,6 +809,32 @@ public class ParticipationService {
         return studentParticipationRepository.findByExerciseIdWithEagerSubmissionsResultAssessor(exerciseId);
     }
 
+    /**
+     * Get one page of the latest rated results of the participations in the exercise, ordered by participation id. This selects the same results as
+     * {@link Exercise#findLatestSubmissionWithRatedResultWithCompletionDate(Participation, Boolean)} (ignoring the assessment due date), but only loads the selected results of
+     * the page as flat DTOs.
+     *
+     * @param exercise the exercise of the participations
+     * @param afterParticipationId the id of the last participation of the previous page, 0 for the first page
+     * @param pageSize the maximum number of results
+     * @param onlySubmitted whether only results of submitted submissions are returned
+     * @return the latest rated results of the page including the number of submissions of each participation
+     */
+    public List<ExerciseResultDTO> findLatestRatedResultsByExercise(Exercise exercise, long afterParticipationId, int pageSize, boolean onlySubmitted) {
+        // results of quizzes are not relevant before the quiz has ended
+        if (exercise instanceof QuizExercise && ((QuizExercise) exercise).shouldFilterForStudents()) {
+            return List.of();
+        }
+        List<ExerciseResultDTO> results = studentParticipationRepository.findLatestRatedResultsByExerciseId(exercise.getId(), afterParticipationId, !onlySubmitted,
+                PageRequest.of(0, pageSize));
+        if (!results.isEmpty()) {
+            Set<Long> participationIds = results.stream().map(ExerciseResultDTO::getParticipationId).collect(Collectors.toSet());
+            Map<Long, Integer> submissionCounts = convertListOfCountsIntoMap(studentParticipationRepository.countSubmissionsPerParticipationByIds(participationIds));
+            results.forEach(result -> result.setSubmissionCount(submissionCounts.get(result.getParticipationId())));
+        }
+        return results;
+    }
+
     /**
      * Get all programming exercise participations belonging to exercise and student with eager results and submissions.
      *
@@ -803,10 +845,10 @@ public class ParticipationService {
     public List<StudentParticipation> findByExerciseAndStudentIdWithEagerResultsAndSubmissions(Exercise exercise, Long studentId) {
         if (exercise.isTeamMode()) {
             Optional<Team> optionalTeam = teamRepository.findOneByExerciseIdAndUserId(exercise.getId(), studentId);
-            return optionalTeam.map(team -> studentParticipationRepository.findByExerciseIdAndTeamIdWithEagerResultsAndSubmissions(exercise.getId(), team.getId()))
+            return optionalTeam.map(team -> studentParticipationFetchRepository.findByExerciseIdAndTeamIdWithEagerResultsAndSubmissions(exercise.getId(), team.getId()))
                     .orElse(List.of());
         }
-        return studentParticipationRepository.findByExerciseIdAndStudentIdWithEagerResultsAndSubmissions(exercise.getId(), studentId);
+        return studentParticipationFetchRepository.findByExerciseIdAndStudentIdWithEagerResultsAndSubmissions(exercise.getId(), studentId);
     }
 
     /**
@@ -817,7 +859,7 @@ public class ParticipationService {
      * @return the list of exercise participations belonging to exercise and team
      */
     public List<StudentParticipation> findByExerciseAndTeamWithEagerResultsAndSubmissions(Exercise exercise, Team team) {
-        return studentParticipationRepository.findByExerciseIdAndTeamIdWithEagerResultsAndSubmissions(exercise.getId(), team.getId());
+        return studentParticipationFetchRepository.findByExerciseIdAndTeamIdWithEagerResultsAndSubmissions(exercise.getId(), team.getId());
     }
 
     /**
@@ -832,47 +874,41 @@ public class ParticipationService {
     }
 
     /**
-     * Get all participations belonging to course with relevant results.
+     * Get all participations belonging to course with relevant results, i.e. each participation contains its latest rated result with completion date and score (if any).
+     * Participations without students / teams (e.g. template and solution participations of programming exercises) are not included. The relevant results are selected by the
+     * database and only contain the columns of the result itself.
      *
-     * @param courseId the id of the exercise
+     * @param courseId the id of the course
      * @return list of participations belonging to course
      */
     public List<StudentParticipation> findByCourseIdWithRelevantResult(Long courseId) {
-        List<StudentParticipation> participations = studentParticipationRepository.findByCourseIdWithEagerRatedResults(courseId);
-
-        return participations.stream()
-
-                // Filter out participations without Students
-                // These participations are used e.g. to store template and solution build plans in programming exercises
-                .filter(participation -> participation.getParticipant() != null)
-
-                // filter all irrelevant results, i.e. rated = false or no completion date or no score
-                .peek(participation -> {
-                    List<Result> relevantResults = new ArrayList<Result>();
-
-                    // search for the relevant result by filtering out irrelevant results using the continue keyword
-                    // this for loop is optimized for performance and thus not very easy to understand ;)
-                    for (Result result : participation.getResults()) {
-                        // this should not happen because the database call above only retrieves rated results
-                        if (result.isRated() == Boolean.FALSE) {
-                            continue;
-                        }
-                        if (result.getCompletionDate() == null || result.getScore() == null) {
-                            // we are only interested in results with completion date and with score
-                            continue;
-                        }
-                        relevantResults.add(result);
-                    }
-                    // we take the last rated result
-                    if (!relevantResults.isEmpty()) {
-                        // make sure to take the latest result
-                        relevantResults.sort((r1, r2) -> r2.getCompletionDate().compareTo(r1.getCompletionDate()));
-                        Result correctResult = relevantResults.get(0);
-                        relevantResults.clear();
-                        relevantResults.add(correctResult);
-                    }
-                    participation.setResults(new HashSet<>(relevantResults));
-                }).collect(Collectors.toList());
+        List<StudentParticipation> participations = studentParticipationRepository.findByCourseIdWithStudentOrTeam(courseId);
+        Map<Long, StudentParticipation> participationsById = participations.stream().collect(Collectors.toMap(StudentParticipation::getId, Function.identity()));
+        participations.forEach(participation -> participation.setResults(new HashSet<>()));
+
+        forEachRelevantResultInCourse(courseId, relevantResult -> {
+            StudentParticipation participation = participationsById.get(relevantResult.getParticipationId());
+            // the participation can be missing if it was created after it was loaded
+            if (participation != null) {
+                participation.getResults().add(relevantResult.toResult());
+            }
+        });
+        return participations;
+    }
+
+    /**
+     * Stream the relevant result (the latest rated result with completion date and score) of each participation of a student or team in the course to the consumer. The
+     * results are read with one query in a read-only transaction, neither the participations nor the other results are loaded.
+     *
+     * @param courseId the id of the course
+     * @param consumer is called once per participation that has a relevant result, in no particular order
+     */
+    public void forEachRelevantResultInCourse(Long courseId, Consumer<RelevantResultDTO> consumer) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<RelevantResultDTO> relevantResults = studentParticipationRepository.streamRelevantResultsByCourseId(courseId)) {
+                relevantResults.forEach(consumer);
+            }
+        });
     }
 
     /**
@@ -928,7 +964,7 @@ public class ParticipationService {
      */
     @Transactional
     public void delete(Long participationId, boolean deleteBuildPlan, boolean deleteRepository) {
-        StudentParticipation participation = studentParticipationRepository.findWithEagerSubmissionsAndResultsById(participationId).get();
+        StudentParticipation participation = studentParticipationFetchRepository.findWithEagerSubmissionsAndResultsById(participationId).get();
         log.debug("Request to delete Participation : {}", participation);
 
         if (participation instanceof ProgrammingExerciseStudentParticipation) {
@@ -976,7 +1012,10 @@ public class ParticipationService {
      */
     @Transactional
     public Participation deleteResultsAndSubmissionsOfParticipation(Long participationId) {
-        Participation participation = participationRepository.getOneWithEagerSubmissionsAndResults(participationId);
+        // the submissions and the results are fetched with separate queries (within this transaction) to avoid the cartesian product of both collections
+        Participation participation = participationRepository.findWithEagerSubmissionsAndResultOfSubmissionsById(participationId)
+                .orElseThrow(() -> new EntityNotFoundException("Participation with " + participationId + " was not found!"));
+        participationRepository.findWithEagerResultsById(participationId);
         // This is the default case: We delete results and submissions from direction result -> submission. This will only delete submissions that have a result.
         if (participation.getResults() != null) {
             for (Result result : participation.getResults()) {
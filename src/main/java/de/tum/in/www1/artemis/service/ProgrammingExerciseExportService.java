@@ -7,15 +7,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.validation.constraints.NotNull;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -45,10 +45,10 @@ import de.tum.in.www1.artemis.domain.Submission;
 import de.tum.in.www1.artemis.domain.enumeration.ProgrammingLanguage;
 import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
 import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
-import de.tum.in.www1.artemis.exception.GitException;
 import de.tum.in.www1.artemis.repository.ProgrammingExerciseRepository;
 import de.tum.in.www1.artemis.service.connectors.GitService;
 import de.tum.in.www1.artemis.web.rest.dto.RepositoryExportOptionsDTO;
+import de.tum.in.www1.artemis.web.rest.dto.RepositoryExportProgressDTO;
 
 @Service
 public class ProgrammingExerciseExportService {
@@ -61,16 +61,49 @@ public class ProgrammingExerciseExportService {
 
     private final GitService gitService;
 
-    public ProgrammingExerciseExportService(ProgrammingExerciseRepository programmingExerciseRepository, FileService fileService, GitService gitService) {
+    private final WebsocketMessagingService websocketMessagingService;
+
+    public ProgrammingExerciseExportService(ProgrammingExerciseRepository programmingExerciseRepository, FileService fileService, GitService gitService,
+            WebsocketMessagingService websocketMessagingService) {
         this.programmingExerciseRepository = programmingExerciseRepository;
         this.fileService = fileService;
         this.gitService = gitService;
+        this.websocketMessagingService = websocketMessagingService;
     }
 
     // The downloaded repos should be cloned into another path in order to not interfere with the repo used by the student
     @Value("${artemis.repo-download-clone-path}")
     private String REPO_DOWNLOAD_CLONE_PATH;
 
+    // Number of repositories that are cloned and prepared for the export at the same time
+    @Value("${artemis.repository-export.parallelism:4}")
+    private int exportParallelism;
+
+    /**
+     * Minimum time between two progress messages of an export
+     */
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+    private ExecutorService exportExecutor;
+
+    /**
+     * Create the threads which export the repositories. They are shared by all exports, so that concurrent exports cannot overload the VCS server.
+     */
+    @PostConstruct
+    public void init() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        exportExecutor = Executors.newFixedThreadPool(exportParallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "repository-export-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdownNow();
+    }
+
     /**
      * Get participations of coding exercises of a requested list of students packed together in one zip file.
      *
@@ -92,79 +125,101 @@ public class ProgrammingExerciseExportService {
                     + "' of the following students or teams: " + participations.stream().map(StudentParticipation::getParticipantIdentifier).collect(Collectors.joining(", ")));
         }
 
-        List<Path> zippedRepoFiles = new ArrayList<>();
-        for (ProgrammingExerciseStudentParticipation participation : participations) {
-            Repository repo = null;
-            try {
-                if (participation.getRepositoryUrlAsUrl() == null) {
-                    log.warn("Ignore participation " + participation.getId() + " for export, because its repository URL is null");
-                    continue;
+        final Path zipFilePath = Paths.get(REPO_DOWNLOAD_CLONE_PATH, "zippedRepos",
+                programmingExercise.getCourse().getShortName() + "-" + programmingExercise.getShortName() + "-" + System.currentTimeMillis() + ".zip");
+        final ExportProgress progress = new ExportProgress(programmingExerciseId, participations.size());
+        try {
+            Files.createDirectories(zipFilePath.getParent());
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(zipFilePath))) {
+                // The repositories are cloned and prepared in parallel, their files are streamed directly into the one archive (one folder per repository)
+                final List<Future<?>> exports = new ArrayList<>();
+                for (ProgrammingExerciseStudentParticipation participation : participations) {
+                    exports.add(exportExecutor.submit(() -> exportRepository(programmingExercise, participation, repositoryExportOptions, zipOutputStream, progress)));
+                }
+                try {
+                    for (Future<?> export : exports) {
+                        export.get();
+                    }
+                }
+                finally {
+                    // if the export fails or is interrupted, the remaining repositories must not be cloned and written into the closed archive
+                    exports.forEach(export -> export.cancel(true));
                 }
-                repo = zipRepositoryForParticipation(programmingExercise, participation, repositoryExportOptions, zippedRepoFiles);
-            }
-            catch (IOException | GitException | GitAPIException | InterruptedException ex) {
-                log.error("export student repository " + participation.getRepositoryUrlAsUrl() + " in exercise '" + programmingExercise.getTitle() + "' did not work as expected: "
-                        + ex.getMessage());
-            }
-            finally {
-                deleteTempLocalRepository(participation, repo);
             }
         }
-
-        if (zippedRepoFiles.isEmpty()) {
-            log.warn("The zip file could not be created. Ignoring the request to export repositories for exercise " + programmingExercise.getTitle());
+        catch (IOException | ExecutionException ex) {
+            log.error("Export students repositories for exercise '" + programmingExercise.getTitle() + "' did not work as expected: " + ex.getMessage());
+            deleteFile(zipFilePath);
             return null;
         }
-
-        try {
-            // create a large zip file with all zipped repos and provide it for download
-            return createZipWithAllRepositories(programmingExercise, zippedRepoFiles);
-        }
-        catch (IOException ex) {
-            log.error("Export students repositories for exercise '" + programmingExercise.getTitle() + "' did not work as expected: " + ex.getMessage());
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            deleteFile(zipFilePath);
+            return null;
         }
-        finally {
-            // we do some cleanup here to prevent future errors with file handling
-            deleteTempZipRepoFiles(zippedRepoFiles);
+        progress.send(true);
+
+        if (progress.exported.get() == 0) {
+            log.warn("The zip file could not be created. Ignoring the request to export repositories for exercise " + programmingExercise.getTitle());
+            deleteFile(zipFilePath);
+            return null;
         }
 
-        return null;
+        scheduleForDeletion(zipFilePath, 15);
+        log.info("Export of {} student repositories of programming exercise {} with title '{}' was successful ({} failed).", progress.exported.get(), programmingExerciseId,
+                programmingExercise.getTitle(), progress.failed.get());
+        return new File(zipFilePath.toString());
     }
 
     /**
-     * Delete all temporary zipped repositories created during export
+     * Checks out the repository of the given participation, applies the export options and adds its files to the archive. Failures are logged and counted, so that the other
+     * repositories can still be exported.
      *
-     * @param pathsToZipeedRepos A list of all paths to the zip files, that should be deleted
+     * @param programmingExercise The programming exercise for the participation
+     * @param participation The participation, whose repository should get exported
+     * @param repositoryExportOptions The options, that should get applied to the repository
+     * @param zipOutputStream The archive of the export
+     * @param progress The progress of the export
      */
-    private void deleteTempZipRepoFiles(List<Path> pathsToZipeedRepos) {
-        log.debug("Delete all temporary zip repo files");
-        // delete the temporary zipped repo files
-        for (Path zippedRepoFile : pathsToZipeedRepos) {
-            try {
-                Files.delete(zippedRepoFile);
+    private void exportRepository(final ProgrammingExercise programmingExercise, final ProgrammingExerciseStudentParticipation participation,
+            final RepositoryExportOptionsDTO repositoryExportOptions, final ZipOutputStream zipOutputStream, final ExportProgress progress) {
+        Repository repo = null;
+        try {
+            if (participation.getRepositoryUrlAsUrl() == null) {
+                log.warn("Ignore participation " + participation.getId() + " for export, because its repository URL is null");
+                progress.repositoryFailed();
+                return;
             }
-            catch (Exception ex) {
-                log.warn("Could not delete file " + zippedRepoFile + ". Error message: " + ex.getMessage());
+            repo = gitService.getOrCheckoutRepository(participation, REPO_DOWNLOAD_CLONE_PATH);
+            prepareRepositoryForExport(repo, programmingExercise, participation, repositoryExportOptions);
+            addRepositoryToZip(repo, programmingExercise, zipOutputStream);
+            progress.repositoryExported();
+        }
+        catch (IOException | GitAPIException | InterruptedException | RuntimeException ex) {
+            // any failure only affects this repository, the other repositories are still exported
+            log.error("export student repository " + participation.getRepositoryUrlAsUrl() + " in exercise '" + programmingExercise.getTitle() + "' did not work as expected: "
+                    + ex.getMessage());
+            progress.repositoryFailed();
+        }
+        finally {
+            if (repo != null) {
+                // release the repository first, open files can prevent its deletion
+                repo.close();
             }
+            deleteTempLocalRepository(participation, repo);
         }
     }
 
     /**
-     * Checks out the repository fo the given participation, zips it and adds the path to the given list of already
-     * zipped repos.
+     * Applies the export options to the checked out repository of the given participation.
      *
+     * @param repo The checked out repository of the participation
      * @param programmingExercise The programming exercise for the participation
-     * @param participation The participation, for which the repository should get zipped
-     * @param repositoryExportOptions The options, that should get applied to the zipeed repo
-     * @param pathsToZippedRepos A list of already zipped repos. The path of the newly zip file will get added to this list
-     * @return The checked out and zipeed repository
-     * @throws GitAPIException If something went wrong checking out the repo
-     * @throws InterruptedException
-     * @throws IOException
+     * @param participation The participation, for which the repository should get exported
+     * @param repositoryExportOptions The options, that should get applied to the repository
      */
-    private Repository zipRepositoryForParticipation(final ProgrammingExercise programmingExercise, final ProgrammingExerciseStudentParticipation participation,
-            final RepositoryExportOptionsDTO repositoryExportOptions, List<Path> pathsToZippedRepos) throws GitAPIException, InterruptedException, IOException {
-        final var repo = gitService.getOrCheckoutRepository(participation, REPO_DOWNLOAD_CLONE_PATH);
+    private void prepareRepositoryForExport(final Repository repo, final ProgrammingExercise programmingExercise, final ProgrammingExerciseStudentParticipation participation,
+            final RepositoryExportOptionsDTO repositoryExportOptions) {
         gitService.resetToOriginMaster(repo); // start with clean state
 
         if (repositoryExportOptions.isFilterLateSubmissions() && repositoryExportOptions.getFilterLateSubmissionsDate() != null) {
@@ -191,32 +246,81 @@ public class ProgrammingExerciseExportService {
                 log.warn("Cannot normalize code style in the repo " + repo.getLocalPath() + " due to the following exception: " + ex.getMessage());
             }
         }
-
-        log.debug("Create temporary zip file for repository " + repo.getLocalPath().toString());
-        Path zippedRepoFile = gitService.zipRepository(repo, REPO_DOWNLOAD_CLONE_PATH);
-        pathsToZippedRepos.add(zippedRepoFile);
-
-        return repo;
     }
 
     /**
-     * Creates one single zip archive containing all zipped repositories found under the given paths
+     * Adds all files of the repository to the archive, in a folder named after the course and the repository. The archive is shared by all threads of the export, so only one
+     * repository is written at a time.
      *
-     * @param programmingExercise The programming exercise to which all repos belong to
-     * @param pathsToZippedRepos The paths to all zipped repositories
-     * @return
-     * @throws IOException
+     * @param repo The repository which should be added to the archive
+     * @param programmingExercise The programming exercise of the repository
+     * @param zipOutputStream The archive of the export
+     * @throws IOException if a file of the repository could not be read or written to the archive
      */
-    private File createZipWithAllRepositories(ProgrammingExercise programmingExercise, List<Path> pathsToZippedRepos) throws IOException {
-        log.debug("Create zip file for all repositories");
-        final var programmingExerciseId = programmingExercise.getId();
-        Path zipFilePath = Paths.get(pathsToZippedRepos.get(0).getParent().toString(),
-                programmingExercise.getCourse().getShortName() + "-" + programmingExercise.getShortName() + "-" + System.currentTimeMillis() + ".zip");
-        createZipFile(zipFilePath, pathsToZippedRepos);
-        scheduleForDeletion(zipFilePath, 15);
-        log.info("Export student repositories of programming exercise " + programmingExerciseId + " with title '" + programmingExercise.getTitle() + "' was successful.");
+    private void addRepositoryToZip(Repository repo, ProgrammingExercise programmingExercise, ZipOutputStream zipOutputStream) throws IOException {
+        String[] repositoryUrlComponents = repo.getParticipation().getRepositoryUrl().split("/");
+        String courseShortName = programmingExercise.getCourse().getShortName().replaceAll("\\s", "");
+        String folderName = courseShortName + "-" + repositoryUrlComponents[repositoryUrlComponents.length - 1].replaceAll("\\.git$", "");
+
+        Path repoPath = repo.getLocalPath();
+        log.debug("Add repository " + repoPath + " to the export archive");
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(repoPath)) {
+            files = walk.filter(path -> !Files.isDirectory(path)).collect(Collectors.toList());
+        }
+        synchronized (zipOutputStream) {
+            for (Path path : files) {
+                zipOutputStream.putNextEntry(new ZipEntry(folderName + "/" + repoPath.relativize(path).toString().replace(File.separatorChar, '/')));
+                Files.copy(path, zipOutputStream);
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
 
-        return new File(zipFilePath.toString());
+    /**
+     * Counts the exported repositories and sends the progress of an export to the instructors of the exercise.
+     */
+    private class ExportProgress {
+
+        private final long programmingExerciseId;
+
+        private final int totalRepositories;
+
+        private final AtomicInteger exported = new AtomicInteger();
+
+        private final AtomicInteger failed = new AtomicInteger();
+
+        private volatile long lastMessageMillis = 0;
+
+        private ExportProgress(long programmingExerciseId, int totalRepositories) {
+            this.programmingExerciseId = programmingExerciseId;
+            this.totalRepositories = totalRepositories;
+        }
+
+        private void repositoryExported() {
+            exported.incrementAndGet();
+            send(false);
+        }
+
+        private void repositoryFailed() {
+            failed.incrementAndGet();
+            send(false);
+        }
+
+        /**
+         * Sends the progress, but at most once per second unless it is the final message.
+         *
+         * @param force true if the message should be sent in any case
+         */
+        private synchronized void send(boolean force) {
+            final long now = System.currentTimeMillis();
+            if (!force && now - lastMessageMillis < PROGRESS_INTERVAL_MILLIS) {
+                return;
+            }
+            lastMessageMillis = now;
+            websocketMessagingService.sendMessage("/topic/programming-exercises/" + programmingExerciseId + "/export-repos-progress",
+                    new RepositoryExportProgressDTO(exported.get(), failed.get(), totalRepositories));
+        }
     }
 
     /**
@@ -254,29 +358,6 @@ public class ProgrammingExerciseExportService {
         gitService.filterLateSubmissions(repo, lastValidSubmission, submissionDate);
     }
 
-    /**
-     * Create a zipfile of the given paths and save it in the zipFilePath
-     *
-     * @param zipFilePath path where the zipfile should be saved
-     * @param paths the paths that should be zipped
-     * @throws IOException if an error occured while zipping
-     */
-    private void createZipFile(Path zipFilePath, List<Path> paths) throws IOException {
-        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(zipFilePath))) {
-            paths.stream().filter(path -> !Files.isDirectory(path)).forEach(path -> {
-                ZipEntry zipEntry = new ZipEntry(path.toString());
-                try {
-                    zipOutputStream.putNextEntry(zipEntry);
-                    Files.copy(path, zipOutputStream);
-                    zipOutputStream.closeEntry();
-                }
-                catch (Exception e) {
-                    log.error("Create zip file error", e);
-                }
-            });
-        }
-    }
-
     /**
      * Adds the participant identifier (student login or team short name) of the given student participation to the project name in all .project (Eclipse)
      * and pom.xml (Maven) files found in the given repository.
@@ -400,7 +481,7 @@ public class ProgrammingExerciseExportService {
         return allRepoFiles;
     }
 
-    private Map<Path, ScheduledFuture> futures = new HashMap<>();
+    private Map<Path, ScheduledFuture> futures = new ConcurrentHashMap<>();
 
     private ScheduledExecutorService executor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
 
@@ -426,4 +507,13 @@ public class ProgrammingExerciseExportService {
 
         futures.put(path, future);
     }
+
+    private void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException ex) {
+            log.warn("Could not delete file " + path + ". Error message: " + ex.getMessage());
+        }
+    }
 }
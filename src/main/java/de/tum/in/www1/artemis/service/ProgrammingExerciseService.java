@@ -210,26 +210,26 @@ public class ProgrammingExerciseService {
         Resource[] testResources = ResourcePatternUtils.getResourcePatternResolver(resourceLoader).getResources(testPath);
         Resource[] solutionResources = ResourcePatternUtils.getResourcePatternResolver(resourceLoader).getResources(solutionPath);
 
-        Repository exerciseRepo = gitService.getOrCheckoutRepository(exerciseRepoUrl, true);
-        Repository testRepo = gitService.getOrCheckoutRepository(testsRepoUrl, true);
-        Repository solutionRepo = gitService.getOrCheckoutRepository(solutionRepoUrl, true);
-
-        try {
-            String exercisePrefix = programmingLanguage + File.separator + "exercise";
-            String testPrefix = programmingLanguage + File.separator + "test";
-            String solutionPrefix = programmingLanguage + File.separator + "solution";
-            setupTemplateAndPush(exerciseRepo, exerciseResources, exercisePrefix, "Exercise", programmingExercise, user);
-            setupTemplateAndPush(solutionRepo, solutionResources, solutionPrefix, "Solution", programmingExercise, user);
-            setupTestTemplateAndPush(testRepo, testResources, testPrefix, "Test", programmingExercise, user);
+        try (Repository exerciseRepo = gitService.getOrCheckoutRepository(exerciseRepoUrl, true);
+                Repository testRepo = gitService.getOrCheckoutRepository(testsRepoUrl, true);
+                Repository solutionRepo = gitService.getOrCheckoutRepository(solutionRepoUrl, true)) {
+            try {
+                String exercisePrefix = programmingLanguage + File.separator + "exercise";
+                String testPrefix = programmingLanguage + File.separator + "test";
+                String solutionPrefix = programmingLanguage + File.separator + "solution";
+                setupTemplateAndPush(exerciseRepo, exerciseResources, exercisePrefix, "Exercise", programmingExercise, user);
+                setupTemplateAndPush(solutionRepo, solutionResources, solutionPrefix, "Solution", programmingExercise, user);
+                setupTestTemplateAndPush(testRepo, testResources, testPrefix, "Test", programmingExercise, user);
 
-        }
-        catch (Exception ex) {
-            // if any exception occurs, try to at least push an empty commit, so that the
-            // repositories can be used by the build plans
-            log.warn("An exception occurred while setting up the repositories", ex);
-            gitService.commitAndPush(exerciseRepo, "Empty Setup by Artemis", user);
-            gitService.commitAndPush(testRepo, "Empty Setup by Artemis", user);
-            gitService.commitAndPush(solutionRepo, "Empty Setup by Artemis", user);
+            }
+            catch (Exception ex) {
+                // if any exception occurs, try to at least push an empty commit, so that the
+                // repositories can be used by the build plans
+                log.warn("An exception occurred while setting up the repositories", ex);
+                gitService.commitAndPush(exerciseRepo, "Empty Setup by Artemis", user);
+                gitService.commitAndPush(testRepo, "Empty Setup by Artemis", user);
+                gitService.commitAndPush(solutionRepo, "Empty Setup by Artemis", user);
+            }
         }
     }
 
@@ -519,8 +519,9 @@ public class ProgrammingExerciseService {
      * @throws GitAPIException If the checkout fails
      */
     public void combineAllCommitsOfRepositoryIntoOne(URL repoUrl) throws InterruptedException, GitAPIException {
-        Repository exerciseRepository = gitService.getOrCheckoutRepository(repoUrl, true);
-        gitService.combineAllCommitsIntoInitialCommit(exerciseRepository);
+        try (Repository exerciseRepository = gitService.getOrCheckoutRepository(repoUrl, true)) {
+            gitService.combineAllCommitsIntoInitialCommit(exerciseRepository);
+        }
     }
 
     /**
@@ -568,23 +569,23 @@ public class ProgrammingExerciseService {
      */
     public boolean generateStructureOracleFile(URL solutionRepoURL, URL exerciseRepoURL, URL testRepoURL, String testsPath, User user)
             throws IOException, GitAPIException, InterruptedException {
-        Repository solutionRepository = gitService.getOrCheckoutRepository(solutionRepoURL, true);
-        Repository exerciseRepository = gitService.getOrCheckoutRepository(exerciseRepoURL, true);
-        Repository testRepository = gitService.getOrCheckoutRepository(testRepoURL, true);
-
-        gitService.resetToOriginMaster(solutionRepository);
-        gitService.pullIgnoreConflicts(solutionRepository);
-        gitService.resetToOriginMaster(exerciseRepository);
-        gitService.pullIgnoreConflicts(exerciseRepository);
-        gitService.resetToOriginMaster(testRepository);
-        gitService.pullIgnoreConflicts(testRepository);
-
-        Path solutionRepositoryPath = solutionRepository.getLocalPath().toRealPath();
-        Path exerciseRepositoryPath = exerciseRepository.getLocalPath().toRealPath();
-        Path structureOraclePath = Paths.get(testRepository.getLocalPath().toRealPath().toString(), testsPath, "test.json");
-
-        String structureOracleJSON = OracleGenerator.generateStructureOracleJSON(solutionRepositoryPath, exerciseRepositoryPath);
-        return saveAndPushStructuralOracle(user, testRepository, structureOraclePath, structureOracleJSON);
+        try (Repository solutionRepository = gitService.getOrCheckoutRepository(solutionRepoURL, true);
+                Repository exerciseRepository = gitService.getOrCheckoutRepository(exerciseRepoURL, true);
+                Repository testRepository = gitService.getOrCheckoutRepository(testRepoURL, true)) {
+            gitService.resetToOriginMaster(solutionRepository);
+            gitService.pullIgnoreConflicts(solutionRepository);
+            gitService.resetToOriginMaster(exerciseRepository);
+            gitService.pullIgnoreConflicts(exerciseRepository);
+            gitService.resetToOriginMaster(testRepository);
+            gitService.pullIgnoreConflicts(testRepository);
+
+            Path solutionRepositoryPath = solutionRepository.getLocalPath().toRealPath();
+            Path exerciseRepositoryPath = exerciseRepository.getLocalPath().toRealPath();
+            Path structureOraclePath = Paths.get(testRepository.getLocalPath().toRealPath().toString(), testsPath, "test.json");
+
+            String structureOracleJSON = OracleGenerator.generateStructureOracleJSON(solutionRepositoryPath, exerciseRepositoryPath);
+            return saveAndPushStructuralOracle(user, testRepository, structureOraclePath, structureOracleJSON);
+        }
     }
 
     private boolean saveAndPushStructuralOracle(User user, Repository testRepository, Path structureOraclePath, String structureOracleJSON) throws IOException {
@@ -654,6 +655,7 @@ public class ProgrammingExerciseService {
                 final var templateRepositoryUrlAsUrl = programmingExercise.getTemplateRepositoryUrlAsUrl();
                 versionControlService.get().deleteRepository(templateRepositoryUrlAsUrl);
                 gitService.deleteLocalRepository(templateRepositoryUrlAsUrl);
+                gitService.deleteMirror(templateRepositoryUrlAsUrl);
             }
             if (programmingExercise.getSolutionRepositoryUrl() != null) {
                 final var solutionRepositoryUrlAsUrl = programmingExercise.getSolutionRepositoryUrlAsUrl();
@@ -2,11 +2,13 @@ package de.tum.in.www1.artemis.service;
 
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.function.Predicate;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import de.tum.in.www1.artemis.domain.Feedback;
 import de.tum.in.www1.artemis.domain.ProgrammingExercise;
@@ -20,6 +22,20 @@ import de.tum.in.www1.artemis.web.rest.errors.EntityNotFoundException;
 @Service
 public class ProgrammingExerciseTestCaseService {
 
+    private static final int TEST_CASE_TABLE_CACHE_SIZE = 1000;
+
+    /**
+     * Least recently used cache of the active test cases per exercise, so that new build results do not have to query the test cases of the exercise again.
+     * The entry of an exercise is invalidated whenever its test cases are changed through this service.
+     */
+    private final Map<Long, TestCaseTable> testCaseTableCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, TestCaseTable> eldest) {
+            return size() > TEST_CASE_TABLE_CACHE_SIZE;
+        }
+    });
+
     private final ProgrammingExerciseTestCaseRepository testCaseRepository;
 
     private final ProgrammingExerciseService programmingExerciseService;
@@ -81,6 +97,7 @@ public class ProgrammingExerciseTestCaseService {
             matchingTestCase.setAfterDueDate(programmingExerciseTestCaseDTO.isAfterDueDate());
             updatedTests.add(matchingTestCase);
         }
+        invalidateTestCaseTable(exerciseId);
         // At least one test was updated with a new weight or runAfterDueDate flag. We use this flag to inform the instructor about outdated student results.
         programmingSubmissionService.setTestCasesChangedAndTriggerTestCaseUpdate(exerciseId);
         return updatedTests;
@@ -98,6 +115,7 @@ public class ProgrammingExerciseTestCaseService {
         for (ProgrammingExerciseTestCase testCase : testCases) {
             testCase.setWeight(1);
         }
+        invalidateTestCaseTable(exerciseId);
         // The tests' weights were updated. We use this flag to inform the instructor about outdated student results.
         programmingSubmissionService.setTestCasesChangedAndTriggerTestCaseUpdate(exerciseId);
         return testCases;
@@ -112,18 +130,17 @@ public class ProgrammingExerciseTestCaseService {
      * @return Returns true if the test cases have changed, false if they haven't.
      */
     public boolean generateTestCasesFromFeedbacks(List<Feedback> feedbacks, ProgrammingExercise exercise) {
-        Set<ProgrammingExerciseTestCase> existingTestCases = testCaseRepository.findByExerciseId(exercise.getId());
-        Set<ProgrammingExerciseTestCase> testCasesFromFeedbacks = feedbacks.stream()
-                .map(feedback -> new ProgrammingExerciseTestCase().testName(feedback.getText()).weight(1).exercise(exercise).active(true)).collect(Collectors.toSet());
+        Map<String, ProgrammingExerciseTestCase> existingTestCases = testCaseRepository.findByExerciseId(exercise.getId()).stream()
+                .collect(Collectors.toMap(ProgrammingExerciseTestCase::getTestName, Function.identity(), (first, second) -> first));
+        Set<String> testNamesFromFeedbacks = feedbacks.stream().map(Feedback::getText).collect(Collectors.toSet());
         // Get test cases that are not already in database - those will be added as new entries.
-        Set<ProgrammingExerciseTestCase> newTestCases = testCasesFromFeedbacks.stream().filter(testCase -> existingTestCases.stream().noneMatch(testCase::equals))
-                .collect(Collectors.toSet());
+        Set<ProgrammingExerciseTestCase> newTestCases = testNamesFromFeedbacks.stream().filter(testName -> !existingTestCases.containsKey(testName))
+                .map(testName -> new ProgrammingExerciseTestCase().testName(testName).weight(1).exercise(exercise).active(true)).collect(Collectors.toSet());
         // Get test cases which activate state flag changed.
-        Set<ProgrammingExerciseTestCase> testCasesWithUpdatedActivation = existingTestCases.stream().filter(existing -> {
-            Optional<ProgrammingExerciseTestCase> matchingText = testCasesFromFeedbacks.stream().filter(existing::equals).findFirst();
-            // Either the test case was active and is not part of the feedback anymore OR was not active before and is now part of the feedback again.
-            return matchingText.isEmpty() && existing.isActive() || matchingText.isPresent() && matchingText.get().isActive() && !existing.isActive();
-        }).map(existing -> existing.clone().active(!existing.isActive())).collect(Collectors.toSet());
+        // Either the test case was active and is not part of the feedback anymore OR was not active before and is now part of the feedback again.
+        Set<ProgrammingExerciseTestCase> testCasesWithUpdatedActivation = existingTestCases.values().stream()
+                .filter(existing -> existing.isActive() != testNamesFromFeedbacks.contains(existing.getTestName())).map(existing -> existing.clone().active(!existing.isActive()))
+                .collect(Collectors.toSet());
 
         Set<ProgrammingExerciseTestCase> testCasesToSave = new HashSet<>();
         testCasesToSave.addAll(newTestCases);
@@ -131,6 +148,7 @@ public class ProgrammingExerciseTestCaseService {
 
         if (testCasesToSave.size() > 0) {
             testCaseRepository.saveAll(testCasesToSave);
+            invalidateTestCaseTable(exercise.getId());
             return true;
         }
         return false;
@@ -152,30 +170,41 @@ public class ProgrammingExerciseTestCaseService {
     public Result updateResultFromTestCases(Result result, ProgrammingExercise exercise, boolean isStudentParticipation) {
         boolean shouldTestsWithAfterDueDateFlagBeRemoved = isStudentParticipation && exercise.getBuildAndTestStudentSubmissionsAfterDueDate() != null
                 && ZonedDateTime.now().isBefore(exercise.getBuildAndTestStudentSubmissionsAfterDueDate());
-        Set<ProgrammingExerciseTestCase> testCases = findActiveByExerciseId(exercise.getId());
+        TestCaseTable testCases = getActiveTestCaseTable(exercise.getId());
         // Filter all test cases from the score calculation that are only executed after due date if the due date has not yet passed.
         // We also don't filter the test cases for the solution/template participation's results as they are used as indicators for the instructor!
-        Set<ProgrammingExerciseTestCase> testCasesForCurrentDate = testCases.stream().filter(testCase -> !shouldTestsWithAfterDueDateFlagBeRemoved || !testCase.isAfterDueDate())
-                .collect(Collectors.toSet());
+        Map<String, TestCaseEntry> testCasesForCurrentDate = shouldTestsWithAfterDueDateFlagBeRemoved ? testCases.testCasesBeforeDueDate : testCases.testCases;
         // Case 1: There are tests and feedbacks, find out which tests were not executed or should only count to the score after the due date.
         if (testCasesForCurrentDate.size() > 0 && result.getFeedbacks().size() > 0) {
-            // Remove feedbacks that the student should not see yet because of the due date.
-            removeFeedbacksForAfterDueDateTests(result, testCasesForCurrentDate);
-
-            Set<ProgrammingExerciseTestCase> successfulTestCases = testCasesForCurrentDate.stream().filter(isSuccessful(result)).collect(Collectors.toSet());
+            // Merge the feedbacks with the test cases in a single pass: remove feedbacks that the student should not see yet because of the due date
+            // and collect the executed and the successful test cases.
+            Set<String> executedTestNames = new HashSet<>();
+            Set<String> successfulTestNames = new HashSet<>();
+            List<Feedback> feedbacksForAfterDueDateTests = new ArrayList<>();
+            for (Feedback feedback : result.getFeedbacks()) {
+                if (!testCasesForCurrentDate.containsKey(feedback.getText())) {
+                    feedbacksForAfterDueDateTests.add(feedback);
+                    continue;
+                }
+                executedTestNames.add(feedback.getText());
+                if (Boolean.TRUE.equals(feedback.isPositive())) {
+                    successfulTestNames.add(feedback.getText());
+                }
+            }
+            removeFeedbacks(result, feedbacksForAfterDueDateTests);
 
             // Add feedbacks for tests that were not executed ("test was not executed").
-            createFeedbackForNotExecutedTests(result, testCasesForCurrentDate);
+            createFeedbackForNotExecutedTests(result, testCasesForCurrentDate, executedTestNames);
 
             // Recalculate the achieved score by including the test cases individual weight.
             // The score is always calculated from ALL test cases, regardless of the current date!
-            updateScore(result, successfulTestCases, testCases);
+            updateScore(result, successfulTestNames, testCases);
 
             // Create a new result string that reflects passed, failed & not executed test cases.
-            updateResultString(result, successfulTestCases, testCasesForCurrentDate);
+            updateResultString(result, successfulTestNames.size(), testCasesForCurrentDate.size());
         }
         // Case 2: There are no test cases that are executed before the due date has passed. We need to do this to differentiate this case from a build error.
-        else if (testCases.size() > 0 && result.getFeedbacks().size() > 0) {
+        else if (testCases.testCases.size() > 0 && result.getFeedbacks().size() > 0) {
             removeAllFeedbackAndSetScoreToZero(result);
         }
         // Case 3: If there are no feedbacks, the build has failed. In this case we just return the original result without changing it.
@@ -183,58 +212,73 @@ public class ProgrammingExerciseTestCaseService {
     }
 
     /**
-     * Check if the provided test was found in the result's feedbacks with positive = true.
-     * @param result of the build run.
-     * @return true if there is a positive feedback for a given test.
+     * Returns the lookup table of the active test cases of the exercise, which is only loaded from the database if it is not cached yet.
+     *
+     * @param exerciseId of the programming exercise.
+     * @return the active test cases of the exercise by their name.
      */
-    private Predicate<ProgrammingExerciseTestCase> isSuccessful(Result result) {
-        return testCase -> result.getFeedbacks().stream().anyMatch(feedback -> feedback.getText().equals(testCase.getTestName()) && feedback.isPositive());
+    TestCaseTable getActiveTestCaseTable(Long exerciseId) {
+        TestCaseTable testCaseTable = testCaseTableCache.get(exerciseId);
+        if (testCaseTable == null) {
+            testCaseTable = new TestCaseTable(findActiveByExerciseId(exerciseId));
+            testCaseTableCache.put(exerciseId, testCaseTable);
+        }
+        return testCaseTable;
     }
 
     /**
-     * Check if the provided test was not found in the result's feedbacks.
-     * @param result of the build run.
-     * @return true if there is no feedback for a given test.
+     * Removes the cached test cases of the exercise. If the test cases are changed within a transaction, the cache entry is removed again after the transaction has completed,
+     * as a concurrent build result could otherwise cache the test cases from before the change.
+     *
+     * @param exerciseId of the programming exercise whose test cases have changed.
      */
-    private Predicate<ProgrammingExerciseTestCase> wasNotExecuted(Result result) {
-        return testCase -> result.getFeedbacks().stream().noneMatch(feedback -> feedback.getText().equals(testCase.getTestName()));
+    private void invalidateTestCaseTable(Long exerciseId) {
+        testCaseTableCache.remove(exerciseId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(int status) {
+                    testCaseTableCache.remove(exerciseId);
+                }
+            });
+        }
     }
 
     /**
-     * Check which tests were not executed and add a new Feedback for them to the exercise.
+     * Remove the feedbacks of tests which were executed but which result should not be made public to the student yet.
      * @param result of the build run.
-     * @param allTests of the given programming exercise.
+     * @param feedbacksForAfterDueDateTests feedbacks of tests that only count after the due date.
      */
-    private void createFeedbackForNotExecutedTests(Result result, Set<ProgrammingExerciseTestCase> allTests) {
-        List<Feedback> feedbacksForNotExecutedTestCases = allTests.stream().filter(wasNotExecuted(result))
-                .map(testCase -> new Feedback().type(FeedbackType.AUTOMATIC).text(testCase.getTestName()).detailText("Test was not executed.")).collect(Collectors.toList());
-        result.addFeedbacks(feedbacksForNotExecutedTestCases);
+    private void removeFeedbacks(Result result, List<Feedback> feedbacksForAfterDueDateTests) {
+        feedbacksForAfterDueDateTests.forEach(result::removeFeedback);
+        // If there are no feedbacks left after filtering those not valid for the current date, also setHasFeedback to false.
+        if (result.getFeedbacks().stream().noneMatch(feedback -> !feedback.isPositive() || feedback.getType() != null && feedback.getType().equals(FeedbackType.MANUAL)))
+            result.setHasFeedback(false);
     }
 
     /**
-     * Check which tests were executed but which result should not be made public to the student yet.
+     * Check which tests were not executed and add a new Feedback for them to the exercise.
      * @param result of the build run.
-     * @param testCasesForCurrentDate of the given programming exercise.
+     * @param allTests of the given programming exercise by their name.
+     * @param executedTestNames names of the tests for which the result contains a feedback.
      */
-    private void removeFeedbacksForAfterDueDateTests(Result result, Set<ProgrammingExerciseTestCase> testCasesForCurrentDate) {
-        List<Feedback> feedbacksToFilterForCurrentDate = result.getFeedbacks().stream()
-                .filter(feedback -> testCasesForCurrentDate.stream().noneMatch(testCase -> testCase.getTestName().equals(feedback.getText()))).collect(Collectors.toList());
-        feedbacksToFilterForCurrentDate.forEach(result::removeFeedback);
-        // If there are no feedbacks left after filtering those not valid for the current date, also setHasFeedback to false.
-        if (result.getFeedbacks().stream().noneMatch(feedback -> !feedback.isPositive() || feedback.getType() != null && feedback.getType().equals(FeedbackType.MANUAL)))
-            result.setHasFeedback(false);
+    private void createFeedbackForNotExecutedTests(Result result, Map<String, TestCaseEntry> allTests, Set<String> executedTestNames) {
+        List<Feedback> feedbacksForNotExecutedTestCases = allTests.keySet().stream().filter(testName -> !executedTestNames.contains(testName))
+                .map(testName -> new Feedback().type(FeedbackType.AUTOMATIC).text(testName).detailText("Test was not executed.")).collect(Collectors.toList());
+        result.addFeedbacks(feedbacksForNotExecutedTestCases);
     }
 
     /**
      * Update the score given the postive tests score divided by all tests's score.
      * @param result of the build run.
-     * @param successfulTestCases test cases with positive feedback.
+     * @param successfulTestNames names of the test cases with positive feedback.
      * @param allTests of a given programming exercise.
      */
-    private void updateScore(Result result, Set<ProgrammingExerciseTestCase> successfulTestCases, Set<ProgrammingExerciseTestCase> allTests) {
-        if (successfulTestCases.size() > 0) {
-            long successfulTestScore = successfulTestCases.stream().map(ProgrammingExerciseTestCase::getWeight).mapToLong(w -> w).sum();
-            long maxTestScore = allTests.stream().map(ProgrammingExerciseTestCase::getWeight).mapToLong(w -> w).sum();
+    private void updateScore(Result result, Set<String> successfulTestNames, TestCaseTable allTests) {
+        if (successfulTestNames.size() > 0) {
+            long successfulTestScore = successfulTestNames.stream().mapToLong(testName -> allTests.testCases.get(testName).weight).sum();
+            long maxTestScore = allTests.totalWeight;
             long score = maxTestScore > 0 ? (long) ((float) successfulTestScore / maxTestScore * 100.) : 0L;
             result.setScore(score);
         }
@@ -243,12 +287,12 @@ public class ProgrammingExerciseTestCaseService {
     /**
      * Update the result's result string given the successful tests vs. all tests (x of y passed).
      * @param result of the build run.
-     * @param successfulTestCases test cases with positive feedback.
-     * @param allTests of the given programming exercise.
+     * @param successfulTests number of test cases with positive feedback.
+     * @param allTests number of test cases of the given programming exercise.
      */
-    private void updateResultString(Result result, Set<ProgrammingExerciseTestCase> successfulTestCases, Set<ProgrammingExerciseTestCase> allTests) {
+    private void updateResultString(Result result, int successfulTests, int allTests) {
         // Create a new result string that reflects passed, failed & not executed test cases.
-        String newResultString = successfulTestCases.size() + " of " + allTests.size() + " passed";
+        String newResultString = successfulTests + " of " + allTests + " passed";
         result.setResultString(newResultString);
     }
 
@@ -262,4 +306,49 @@ public class ProgrammingExerciseTestCaseService {
         result.setScore(0L);
         result.setResultString("0 of 0 passed");
     }
+
+    /**
+     * Immutable snapshot of the active test cases of an exercise, which can be shared between concurrently processed build results.
+     */
+    static final class TestCaseTable {
+
+        /**
+         * All active test cases by their name.
+         */
+        final Map<String, TestCaseEntry> testCases;
+
+        /**
+         * The active test cases which are not only executed after the due date by their name.
+         */
+        final Map<String, TestCaseEntry> testCasesBeforeDueDate;
+
+        final long totalWeight;
+
+        TestCaseTable(Collection<ProgrammingExerciseTestCase> activeTestCases) {
+            Map<String, TestCaseEntry> testCases = new HashMap<>();
+            Map<String, TestCaseEntry> testCasesBeforeDueDate = new HashMap<>();
+            for (ProgrammingExerciseTestCase testCase : activeTestCases) {
+                TestCaseEntry entry = new TestCaseEntry(testCase.getWeight() != null ? testCase.getWeight() : 0, testCase.isAfterDueDate() != null && testCase.isAfterDueDate());
+                testCases.put(testCase.getTestName(), entry);
+                if (!entry.afterDueDate) {
+                    testCasesBeforeDueDate.put(testCase.getTestName(), entry);
+                }
+            }
+            this.testCases = Collections.unmodifiableMap(testCases);
+            this.testCasesBeforeDueDate = Collections.unmodifiableMap(testCasesBeforeDueDate);
+            this.totalWeight = testCases.values().stream().mapToLong(entry -> entry.weight).sum();
+        }
+    }
+
+    static final class TestCaseEntry {
+
+        final long weight;
+
+        final boolean afterDueDate;
+
+        TestCaseEntry(long weight, boolean afterDueDate) {
+            this.weight = weight;
+            this.afterDueDate = afterDueDate;
+        }
+    }
 }
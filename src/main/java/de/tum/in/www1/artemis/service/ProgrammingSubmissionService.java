@@ -69,12 +69,15 @@ public class ProgrammingSubmissionService extends SubmissionService {
 
     private final StudentParticipationRepository studentParticipationRepository;
 
+    private final BuildTriggerQueueService buildTriggerQueueService;
+
     public ProgrammingSubmissionService(ProgrammingSubmissionRepository programmingSubmissionRepository, ProgrammingExerciseRepository programmingExerciseRepository,
             GroupNotificationService groupNotificationService, SubmissionRepository submissionRepository, UserService userService, AuthorizationCheckService authCheckService,
             WebsocketMessagingService websocketMessagingService, Optional<VersionControlService> versionControlService, ResultRepository resultRepository,
             Optional<ContinuousIntegrationService> continuousIntegrationService, ParticipationService participationService, SimpMessageSendingOperations messagingTemplate,
-            ProgrammingExerciseParticipationService programmingExerciseParticipationService, GitService gitService, StudentParticipationRepository studentParticipationRepository) {
-        super(submissionRepository, userService, authCheckService, resultRepository);
+            ProgrammingExerciseParticipationService programmingExerciseParticipationService, GitService gitService, StudentParticipationRepository studentParticipationRepository,
+            BuildTriggerQueueService buildTriggerQueueService, ExerciseAssessmentCountersService exerciseAssessmentCountersService) {
+        super(submissionRepository, userService, authCheckService, resultRepository, exerciseAssessmentCountersService);
         this.programmingSubmissionRepository = programmingSubmissionRepository;
         this.programmingExerciseRepository = programmingExerciseRepository;
         this.groupNotificationService = groupNotificationService;
@@ -87,6 +90,7 @@ public class ProgrammingSubmissionService extends SubmissionService {
         this.gitService = gitService;
         this.studentParticipationRepository = studentParticipationRepository;
         this.resultRepository = resultRepository;
+        this.buildTriggerQueueService = buildTriggerQueueService;
     }
 
     /**
@@ -100,7 +104,8 @@ public class ProgrammingSubmissionService extends SubmissionService {
      * @throws IllegalArgumentException it the Commit hash could not be parsed for submission from participation
      */
     public ProgrammingSubmission notifyPush(Long participationId, Object requestBody) throws EntityNotFoundException, IllegalStateException, IllegalArgumentException {
-        Participation participation = participationService.findOneWithEagerSubmissions(participationId);
+        // the submissions of the participation are not loaded, existing submissions for the commit are looked up using the index on (participation_id, commit_hash)
+        Participation participation = participationService.findOne(participationId);
         if (!(participation instanceof ProgrammingExerciseParticipation)) {
             throw new EntityNotFoundException("ProgrammingExerciseParticipation with id " + participationId + " could not be found!");
         }
@@ -132,6 +137,8 @@ public class ProgrammingSubmissionService extends SubmissionService {
             // if the commit was made by Artemis (this means it is a setup commit), we ignore this as well
             throw new IllegalStateException("Submission for participation id " + participationId + " based on an empty setup commit by Artemis will be ignored!");
         }
+        // the master branch of the repository has changed, so a cached last commit hash is outdated
+        gitService.invalidateCachedLastCommitHash(programmingExerciseParticipation.getRepositoryUrlAsUrl());
 
         if (programmingExerciseParticipation instanceof ProgrammingExerciseStudentParticipation && (programmingExerciseParticipation.getBuildPlanId() == null
                 || !programmingExerciseParticipation.getInitializationState().hasCompletedState(InitializationState.INITIALIZED))) {
@@ -150,12 +157,11 @@ public class ProgrammingSubmissionService extends SubmissionService {
         }
 
         // There can't be two submissions for the same participation and commitHash!
-        ProgrammingSubmission programmingSubmission = programmingSubmissionRepository.findFirstByParticipationIdAndCommitHash(participationId, commit.getCommitHash());
-        if (programmingSubmission != null) {
+        if (programmingSubmissionRepository.existsByParticipationIdAndCommitHash(participationId, commit.getCommitHash())) {
             throw new IllegalStateException("Submission for participation id " + participationId + " and commitHash " + commit.getCommitHash() + " already exists!");
         }
 
-        programmingSubmission = new ProgrammingSubmission();
+        ProgrammingSubmission programmingSubmission = new ProgrammingSubmission();
         programmingSubmission.setCommitHash(commit.getCommitHash());
         log.info("create new programmingSubmission with commitHash: " + commit.getCommitHash() + " for participation " + participationId);
 
@@ -163,9 +169,10 @@ public class ProgrammingSubmissionService extends SubmissionService {
         programmingSubmission.setSubmissionDate(ZonedDateTime.now());
         programmingSubmission.setType(SubmissionType.MANUAL);
 
-        programmingExerciseParticipation.addSubmissions(programmingSubmission);
+        programmingSubmission.setParticipation(participation);
 
         programmingSubmission = programmingSubmissionRepository.save(programmingSubmission);
+        exerciseAssessmentCountersService.invalidate(participation.getExercise());
         // NOTE: we don't need to save the participation here, this might lead to concurrency problems when doing the empty commit during resume exercise!
         return programmingSubmission;
     }
@@ -220,6 +227,7 @@ public class ProgrammingSubmissionService extends SubmissionService {
     /**
      * Trigger the CI of all student participations and the template participation of the given exercise.
      * The build result will become rated regardless of the due date as the submission type is INSTRUCTOR.
+     * The builds are triggered by the {@link BuildTriggerQueueService}, the instructors are notified when all builds have been triggered.
      *
      * The method is async because it would timeout a calling resource method.
      *
@@ -240,27 +248,30 @@ public class ProgrammingSubmissionService extends SubmissionService {
         // Let the instructor know that a build run was triggered.
         notifyInstructorAboutStartedExerciseBuildRun(programmingExercise);
         List<ProgrammingExerciseParticipation> participations = new LinkedList<>(programmingExerciseParticipationService.findByExerciseId(exerciseId));
+        // resolve the last commit hashes of all repositories up front instead of querying the VCS one by one between the build triggers
+        List<ProgrammingSubmission> submissions = createSubmissionWithLastCommitHashForParticipationsOfExercise(participations, SubmissionType.INSTRUCTOR);
+
+        buildTriggerQueueService.triggerBuilds(programmingExercise.getId(), submissions, this::triggerBuild, this::notifyUserAboutFailedBuildTrigger).thenRun(() -> {
+            // When the instructor build was triggered for the programming exercise, it is not considered 'dirty' anymore.
+            setTestCasesChanged(programmingExercise.getId(), false);
+            // Let the instructor know that the build run is finished.
+            notifyInstructorAboutCompletedExerciseBuildRun(programmingExercise);
+        }).exceptionally(ex -> {
+            log.error("Could not complete the build run of programming exercise " + programmingExercise.getId(), ex);
+            return null;
+        });
+    }
 
-        var index = 0;
-        for (var participation : participations) {
-            // Execute requests in batches instead all at once.
-            if (index > 0 && index % EXTERNAL_SYSTEM_REQUEST_BATCH_SIZE == 0) {
-                try {
-                    log.info("Sleep for {}s during triggerBuild", EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS / 1000);
-                    Thread.sleep(EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS);
-                }
-                catch (InterruptedException ex) {
-                    log.error("Exception encountered when pausing before executing successive build for participation " + participation.getId(), ex);
-                }
-            }
-            triggerBuildAndNotifyUser(participation);
-            index++;
-        }
-
-        // When the instructor build was triggered for the programming exercise, it is not considered 'dirty' anymore.
-        setTestCasesChanged(programmingExercise.getId(), false);
-        // Let the instructor know that the build run is finished.
-        notifyInstructorAboutCompletedExerciseBuildRun(programmingExercise);
+    /**
+     * Trigger the CI of the given participations of an exercise, e.g. of the participations whose last build failed.
+     * The submissions are created right away, the builds are triggered by the {@link BuildTriggerQueueService}.
+     *
+     * @param programmingExerciseId the exercise of the participations
+     * @param participations the participations whose builds should be triggered
+     */
+    public void triggerInstructorBuildForParticipations(Long programmingExerciseId, List<ProgrammingExerciseParticipation> participations) {
+        List<ProgrammingSubmission> submissions = createSubmissionWithLastCommitHashForParticipationsOfExercise(participations, SubmissionType.INSTRUCTOR);
+        buildTriggerQueueService.triggerBuilds(programmingExerciseId, submissions, this::triggerBuild, this::notifyUserAboutFailedBuildTrigger);
     }
 
     private void notifyInstructorAboutStartedExerciseBuildRun(ProgrammingExercise programmingExercise) {
@@ -358,8 +369,9 @@ public class ProgrammingSubmissionService extends SubmissionService {
     }
 
     /**
-     * Uses {@link #createSubmissionWithLastCommitHashForParticipation(ProgrammingExerciseParticipation, SubmissionType)} but for multiple participations.
-     * Will ignore exceptions that are raised by this method and just not create a submission for the concerned participations.
+     * Like {@link #createSubmissionWithLastCommitHashForParticipation(ProgrammingExerciseParticipation, SubmissionType)} but for multiple participations.
+     * The last commit hashes of all repositories are resolved in one batch (see {@link GitService#getLastCommitHashes(Collection)}).
+     * No submission is created for participations whose last commit hash could not be retrieved.
      *
      * @param participations for which to create new submissions.
      * @param submissionType the type for the submissions to be created.
@@ -367,14 +379,16 @@ public class ProgrammingSubmissionService extends SubmissionService {
      */
     public List<ProgrammingSubmission> createSubmissionWithLastCommitHashForParticipationsOfExercise(List<ProgrammingExerciseParticipation> participations,
             SubmissionType submissionType) {
+        final Map<String, ObjectId> lastCommitHashes = gitService
+                .getLastCommitHashes(participations.stream().map(ProgrammingExerciseParticipation::getRepositoryUrlAsUrl).collect(Collectors.toList()));
         return participations.stream().map(participation -> {
-            try {
-                return createSubmissionWithLastCommitHashForParticipation(participation, submissionType);
-            }
-            catch (IllegalStateException ex) {
-                // The exception is already logged, we just return null here.
+            final URL repoUrl = participation.getRepositoryUrlAsUrl();
+            final ObjectId lastCommitHash = repoUrl != null ? lastCommitHashes.get(repoUrl.toString()) : null;
+            if (lastCommitHash == null) {
+                log.warn("Last commit hash for participation " + participation.getId() + " could not be retrieved, no submission will be created");
                 return null;
             }
+            return createSubmissionWithCommitHashAndSubmissionType(participation, lastCommitHash, submissionType);
         }).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
@@ -400,24 +414,39 @@ public class ProgrammingSubmissionService extends SubmissionService {
      * @param submission ProgrammingSubmission that was just created.
      */
     public void triggerBuildAndNotifyUser(ProgrammingSubmission submission) {
-        var programmingExerciseParticipation = (ProgrammingExerciseParticipation) submission.getParticipation();
         try {
-            if (programmingExerciseParticipation instanceof ProgrammingExerciseStudentParticipation && (programmingExerciseParticipation.getBuildPlanId() == null
-                    || !programmingExerciseParticipation.getInitializationState().hasCompletedState(InitializationState.INITIALIZED))) {
-                // in this case, we first have to resume the exercise: this includes that we again setup the build plan properly before we trigger it
-                participationService.resumeExercise((ProgrammingExerciseStudentParticipation) programmingExerciseParticipation);
-                // Note: in this case we do not need an empty commit: when we trigger the build manually (below), subsequent commits will work correctly
-            }
-            continuousIntegrationService.get().triggerBuild(programmingExerciseParticipation);
-            notifyUserAboutSubmission(submission);
+            triggerBuild(submission);
         }
         catch (Exception e) {
-            log.error("Trigger build failed for " + programmingExerciseParticipation.getBuildPlanId() + " with the exception " + e.getMessage());
-            BuildTriggerWebsocketError error = new BuildTriggerWebsocketError(e.getMessage(), submission.getParticipation().getId());
-            notifyUserAboutSubmissionError(submission, error);
+            notifyUserAboutFailedBuildTrigger(submission, e);
         }
     }
 
+    /**
+     * Triggers the build of the submission on the CI system (resuming the participation if necessary) and sends a websocket message to the user about the new submission.
+     *
+     * @param submission ProgrammingSubmission that was just created.
+     * @throws Exception if the build could not be triggered
+     */
+    private void triggerBuild(ProgrammingSubmission submission) throws Exception {
+        var programmingExerciseParticipation = (ProgrammingExerciseParticipation) submission.getParticipation();
+        if (programmingExerciseParticipation instanceof ProgrammingExerciseStudentParticipation && (programmingExerciseParticipation.getBuildPlanId() == null
+                || !programmingExerciseParticipation.getInitializationState().hasCompletedState(InitializationState.INITIALIZED))) {
+            // in this case, we first have to resume the exercise: this includes that we again setup the build plan properly before we trigger it
+            participationService.resumeExercise((ProgrammingExerciseStudentParticipation) programmingExerciseParticipation);
+            // Note: in this case we do not need an empty commit: when we trigger the build manually (below), subsequent commits will work correctly
+        }
+        continuousIntegrationService.get().triggerBuild(programmingExerciseParticipation);
+        notifyUserAboutSubmission(submission);
+    }
+
+    private void notifyUserAboutFailedBuildTrigger(ProgrammingSubmission submission, Exception e) {
+        var programmingExerciseParticipation = (ProgrammingExerciseParticipation) submission.getParticipation();
+        log.error("Trigger build failed for " + programmingExerciseParticipation.getBuildPlanId() + " with the exception " + e.getMessage());
+        BuildTriggerWebsocketError error = new BuildTriggerWebsocketError(e.getMessage(), submission.getParticipation().getId());
+        notifyUserAboutSubmissionError(submission, error);
+    }
+
     /**
      * Trigger the template repository build with the given commitHash.
      *
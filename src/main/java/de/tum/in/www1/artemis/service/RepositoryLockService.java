@@ -0,0 +1,232 @@
+package de.tum.in.www1.artemis.service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import de.tum.in.www1.artemis.domain.ProgrammingExercise;
+import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
+import de.tum.in.www1.artemis.repository.ProgrammingExerciseStudentParticipationRepository;
+import de.tum.in.www1.artemis.service.connectors.VersionControlService;
+import de.tum.in.www1.artemis.service.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Removes the write permissions of student repositories in the VCS in parallel. The requests are sent with bounded concurrency and a token bucket rate limit, so that
+ * all repositories of an exercise are locked shortly after the due date without overloading the VCS. Failed requests are retried with exponential backoff and the time
+ * each repository was locked is stored in its participation.
+ */
+@Service
+public class RepositoryLockService {
+
+    private final Logger log = LoggerFactory.getLogger(RepositoryLockService.class);
+
+    @Value("${artemis.version-control.lock.concurrency:8}")
+    private int concurrency;
+
+    @Value("${artemis.version-control.lock.rate-per-second:20}")
+    private double ratePerSecond;
+
+    @Value("${artemis.version-control.lock.burst:20}")
+    private int burst;
+
+    @Value("${artemis.version-control.lock.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${artemis.version-control.lock.retry-delay-ms:1000}")
+    private long retryDelayMillis;
+
+    private final Optional<VersionControlService> versionControlService;
+
+    private final ProgrammingExerciseStudentParticipationRepository studentParticipationRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+
+    private TokenBucket rateLimiter;
+
+    private Timer lockLatency;
+
+    private Counter retriedLocks;
+
+    private Counter failedLocks;
+
+    public RepositoryLockService(Optional<VersionControlService> versionControlService, ProgrammingExerciseStudentParticipationRepository studentParticipationRepository,
+            MeterRegistry meterRegistry) {
+        this.versionControlService = versionControlService;
+        this.studentParticipationRepository = studentParticipationRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Create the threads that send the lock requests and register the metrics.
+     */
+    @PostConstruct
+    public void init() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final Thread thread = new Thread(runnable, "repository-lock-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        rateLimiter = new TokenBucket(ratePerSecond, burst);
+        lockLatency = Timer.builder("artemis.vcs.repository.lock.latency").description("Time between the due date and the locking of all student repositories of an exercise")
+                .publishPercentileHistogram().register(meterRegistry);
+        retriedLocks = Counter.builder("artemis.vcs.repository.lock.retries").description("Retried requests to lock a student repository").register(meterRegistry);
+        failedLocks = Counter.builder("artemis.vcs.repository.lock.failures").description("Student repositories that could not be locked").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Remove the write permissions of the students for the given repositories and wait until all repositories are locked or failed in every attempt.
+     * The students will still be able to read the code, but won't be able to change it.
+     *
+     * @param programmingExercise the exercise the participations belong to
+     * @param participations the participations (with students) whose repositories should be locked
+     * @return the participations whose repositories could not be locked and the time it took to lock all repositories
+     */
+    public RepositoryLockResult lockStudentRepositories(ProgrammingExercise programmingExercise, List<ProgrammingExerciseStudentParticipation> participations) {
+        final ZonedDateTime start = ZonedDateTime.now();
+        // the latency is measured from the due date if the locking was started because the due date has passed
+        final ZonedDateTime reference = programmingExercise.getDueDate() != null && programmingExercise.getDueDate().isBefore(start) ? programmingExercise.getDueDate() : start;
+        final AtomicReference<ZonedDateTime> lastLockDate = new AtomicReference<>(start);
+        final List<ProgrammingExerciseStudentParticipation> failedParticipations = Collections.synchronizedList(new ArrayList<>());
+        // only the completed locks are counted, the locks that are still running when the thread is interrupted are neither locked nor failed
+        final AtomicInteger lockedRepositories = new AtomicInteger();
+
+        final List<Future<?>> locks = new ArrayList<>(participations.size());
+        for (ProgrammingExerciseStudentParticipation participation : participations) {
+            try {
+                locks.add(executor.submit(() -> {
+                    final ZonedDateTime lockDate = lock(programmingExercise, participation);
+                    if (lockDate != null) {
+                        lockedRepositories.incrementAndGet();
+                        lastLockDate.accumulateAndGet(lockDate, (first, second) -> first.isAfter(second) ? first : second);
+                    }
+                    else {
+                        failedParticipations.add(participation);
+                    }
+                }));
+            }
+            catch (RejectedExecutionException ex) {
+                // the server is shutting down
+                failedParticipations.add(participation);
+            }
+        }
+        for (Future<?> lock : locks) {
+            try {
+                lock.get();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch (ExecutionException ex) {
+                log.error("Unexpected error while locking a student repository of programming exercise {}", programmingExercise.getId(), ex);
+            }
+        }
+
+        final Duration latency = Duration.between(reference, lastLockDate.get());
+        final int locked = lockedRepositories.get();
+        final List<ProgrammingExerciseStudentParticipation> failed = new ArrayList<>(failedParticipations);
+        lockLatency.record(latency);
+        failedLocks.increment(failed.size());
+        log.info("Locked {} of {} student repositories of programming exercise {} within {}ms after the due date", locked, participations.size(), programmingExercise.getId(),
+                latency.toMillis());
+        return new RepositoryLockResult(failed, locked, latency);
+    }
+
+    /**
+     * Lock the repository of one participation, retrying failed requests.
+     *
+     * @return the time the repository was locked, or null if it could not be locked
+     */
+    private ZonedDateTime lock(ProgrammingExercise programmingExercise, ProgrammingExerciseStudentParticipation participation) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                rateLimiter.acquire();
+                versionControlService.get().setRepositoryPermissionsToReadOnly(participation.getRepositoryUrlAsUrl(), programmingExercise.getProjectKey(),
+                        participation.getStudents());
+                final ZonedDateTime lockDate = ZonedDateTime.now();
+                studentParticipationRepository.updateRepositoryLockedDate(participation.getId(), lockDate);
+                participation.setRepositoryLockedDate(lockDate);
+                return lockDate;
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            catch (Exception ex) {
+                if (attempt >= maxAttempts) {
+                    log.error("Removing write permissions failed for programming exercise with id " + programmingExercise.getId() + " for student repository with participation id "
+                            + participation.getId() + ": " + ex.getMessage());
+                    return null;
+                }
+                retriedLocks.increment();
+                final long delay = retryDelayMillis << (attempt - 1);
+                log.debug("Removing write permissions for participation {} failed (attempt {}), retrying in {}ms: {}", participation.getId(), attempt, delay, ex.getMessage());
+                try {
+                    Thread.sleep(delay);
+                }
+                catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * The outcome of locking the student repositories of an exercise.
+     */
+    public static final class RepositoryLockResult {
+
+        private final List<ProgrammingExerciseStudentParticipation> failedParticipations;
+
+        private final int lockedRepositories;
+
+        private final Duration latency;
+
+        public RepositoryLockResult(List<ProgrammingExerciseStudentParticipation> failedParticipations, int lockedRepositories, Duration latency) {
+            this.failedParticipations = failedParticipations;
+            this.lockedRepositories = lockedRepositories;
+            this.latency = latency;
+        }
+
+        public List<ProgrammingExerciseStudentParticipation> getFailedParticipations() {
+            return failedParticipations;
+        }
+
+        public int getLockedRepositories() {
+            return lockedRepositories;
+        }
+
+        /**
+         * @return the time between the due date (or the start, if locking was started before the due date) and the locking of the last repository
+         */
+        public Duration getLatency() {
+            return latency;
+        }
+    }
+}
@@ -215,8 +215,9 @@ public class RepositoryService {
      * @throws GitAPIException if the repository status can't be retrieved.
      */
     public boolean isClean(URL repositoryUrl) throws IOException, GitAPIException, InterruptedException {
-        Repository repository = gitService.getOrCheckoutRepository(repositoryUrl, true);
-        return gitService.isClean(repository);
+        try (Repository repository = gitService.getOrCheckoutRepository(repositoryUrl, true)) {
+            return gitService.isClean(repository);
+        }
     }
 
     /**
@@ -225,7 +226,7 @@ public class RepositoryService {
      * @param exercise to which the repository belongs.
      * @param repoUrl of the repository on the server.
      * @param pullOnCheckout if true pulls after checking out the git repository.
-     * @return the repository if available.
+     * @return the repository if available, which the caller must close when it is done with it.
      * @throws IOException if the repository can't be checked out.
      * @throws GitAPIException if the repository can't be checked out.
      * @throws IllegalAccessException if the user does not have access to the repository.
@@ -248,7 +249,7 @@ public class RepositoryService {
      * @param principal entity used for permission checking.
      * @param exercise to which the repository belongs.
      * @param repoUrl of the repository on the server.
-     * @return the repository if available.
+     * @return the repository if available, which the caller must close when it is done with it.
      * @throws GitAPIException if the repository can't be checked out.
      * @throws IllegalAccessException if the user does not have access to the repository.
      * @throws InterruptedException if the repository can't be checked out.
@@ -267,7 +268,7 @@ public class RepositoryService {
      * Retrieve a repository by the participation connected to it.
      *
      * @param participation to which the repository belongs.
-     * @return the repository if available.
+     * @return the repository if available, which the caller must close when it is done with it.
      * @throws IOException if the repository can't be checked out.
      * @throws GitAPIException if the repository can't be checked out.
      * @throws IllegalAccessException if the user does not have access to the repository.
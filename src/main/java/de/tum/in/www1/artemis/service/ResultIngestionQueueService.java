@@ -0,0 +1,419 @@
+package de.tum.in.www1.artemis.service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.tum.in.www1.artemis.domain.PendingBuildResult;
+import de.tum.in.www1.artemis.domain.Result;
+import de.tum.in.www1.artemis.domain.enumeration.BuildPlanType;
+import de.tum.in.www1.artemis.domain.participation.*;
+import de.tum.in.www1.artemis.repository.PendingBuildResultRepository;
+import de.tum.in.www1.artemis.security.SecurityUtils;
+import de.tum.in.www1.artemis.service.connectors.LtiService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Ingestion stage for new build results of the continuous integration server. When many builds finish at the same time (e.g. after an instructor triggered all builds or
+ * after the due date), the results are stored in the pending_build_result table and the CI server gets its response as soon as the result is persisted, so results that
+ * are still waiting survive a restart of the server. Only results of existing build plans are stored. The results are processed with bounded parallelism: every worker
+ * claims a batch of results, processes the batch in one transaction (which also removes the stored results, so a result is never processed twice) and afterwards sends one
+ * websocket notification per participation with the latest result of the batch, grouped by exercise.
+ */
+@Service
+public class ResultIngestionQueueService {
+
+    private final Logger log = LoggerFactory.getLogger(ResultIngestionQueueService.class);
+
+    /**
+     * How long the shutdown waits for the workers to finish the batches they are processing, unprocessed results stay stored and are processed after the restart.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Results claimed by a worker that did not finish them (e.g. because the server crashed) are processed again after this time.
+     */
+    private static final Duration CLAIM_DURATION = Duration.ofMinutes(5);
+
+    /**
+     * Idle workers look for results stored by other server instances in this interval, results of this instance wake them up immediately.
+     */
+    private static final long POLL_INTERVAL_SECONDS = 5;
+
+    @Value("${artemis.continuous-integration.result-ingestion.enabled:true}")
+    private boolean enabled;
+
+    @Value("${artemis.continuous-integration.result-ingestion.concurrency:4}")
+    private int concurrency;
+
+    @Value("${artemis.continuous-integration.result-ingestion.batch-size:20}")
+    private int batchSize;
+
+    private final ParticipationService participationService;
+
+    private final ResultService resultService;
+
+    private final WebsocketMessagingService messagingService;
+
+    private final LtiService ltiService;
+
+    private final PendingBuildResultRepository pendingBuildResultRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Semaphore newResults = new Semaphore(0);
+
+    private ExecutorService executor;
+
+    private volatile boolean stopping = false;
+
+    private Timer ingestionLatency;
+
+    private Counter failedResults;
+
+    public ResultIngestionQueueService(ParticipationService participationService, ResultService resultService, WebsocketMessagingService messagingService, LtiService ltiService,
+            PendingBuildResultRepository pendingBuildResultRepository, ObjectMapper objectMapper, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.participationService = participationService;
+        this.resultService = resultService;
+        this.messagingService = messagingService;
+        this.ltiService = ltiService;
+        this.pendingBuildResultRepository = pendingBuildResultRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Start the workers (which also process the results that were stored before a restart) and register the queue metrics.
+     */
+    @PostConstruct
+    public void init() {
+        stopping = false;
+        Gauge.builder("artemis.ci.results.queue.depth", pendingBuildResultRepository, PendingBuildResultRepository::count).description("Build results waiting to be processed")
+                .register(meterRegistry);
+        ingestionLatency = Timer.builder("artemis.ci.results.latency").description("Time between receiving a build result and notifying the participants about the new result")
+                .publishPercentileHistogram().register(meterRegistry);
+        failedResults = Counter.builder("artemis.ci.results.failures").description("Build results that could not be processed").register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final Thread thread = new Thread(runnable, "result-ingestion-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    /**
+     * Stop taking new results and give the workers some time to finish the batches they are processing.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        if (executor == null) {
+            return;
+        }
+        // wake up the idle workers, so that they notice the shutdown
+        newResults.release(concurrency);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("The build results claimed before the shutdown could not be processed, they are processed again after the claims expired");
+                executor.shutdownNow();
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        executor = null;
+    }
+
+    /**
+     * Store a new build result for the workers. If the queue is disabled or the server is shutting down, the result is processed in the calling thread. If the result cannot
+     * be stored, the exception is passed on, so that the CI server does not get a successful response for a result that is lost.
+     *
+     * @param planKey the key of the build plan of the result
+     * @param requestBody the result notification of the CI server
+     * @return true if the result was stored or processed, false if no participation exists for the build plan
+     */
+    public boolean submit(String planKey, Object requestBody) {
+        final Optional<ProgrammingExerciseParticipation> participation = getParticipationByBuildPlanId(planKey);
+        if (participation.isEmpty()) {
+            log.warn("Participation is missing for notifyResultNew (PlanKey: {}).", planKey);
+            return false;
+        }
+        if (enabled && !stopping) {
+            final String json;
+            try {
+                json = objectMapper.writeValueAsString(requestBody);
+            }
+            catch (JsonProcessingException ex) {
+                throw new IllegalArgumentException("The build result for build plan " + planKey + " cannot be stored", ex);
+            }
+            pendingBuildResultRepository.save(new PendingBuildResult(planKey, json, ZonedDateTime.now()));
+            newResults.release();
+            return true;
+        }
+        final PendingResult pendingResult = new PendingResult(null, planKey, requestBody, ZonedDateTime.now());
+        final Optional<NewResult> newResult = processNewResult(participation.get(), pendingResult);
+        if (newResult.isPresent()) {
+            notifyAboutResult(newResult.get());
+        }
+        else {
+            failedResults.increment();
+        }
+        recordLatency(pendingResult);
+        return true;
+    }
+
+    private void work() {
+        // The 'user' is not properly logged into Artemis, this leads to an issue when accessing custom repository methods.
+        SecurityUtils.setAuthorizationObject();
+        while (!stopping) {
+            try {
+                if (!processNextBatch()) {
+                    newResults.tryAcquire(POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                    newResults.drainPermits();
+                }
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (Exception ex) {
+                log.error("Unexpected error while processing build results", ex);
+            }
+        }
+    }
+
+    /**
+     * Claim the next batch of stored results and process it.
+     *
+     * @return true if results were claimed, false if no results are waiting
+     */
+    boolean processNextBatch() {
+        final ZonedDateTime now = ZonedDateTime.now();
+        final List<Long> ids = pendingBuildResultRepository.findIdsOfUnclaimed(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return false;
+        }
+        final String claimToken = UUID.randomUUID().toString();
+        if (pendingBuildResultRepository.claim(ids, claimToken, now, now.plus(CLAIM_DURATION)) == 0) {
+            // another worker was faster, look for the next results
+            return true;
+        }
+        final List<PendingResult> batch = new ArrayList<>();
+        for (PendingBuildResult pendingBuildResult : pendingBuildResultRepository.findAllByClaimTokenOrderByIdAsc(claimToken)) {
+            try {
+                batch.add(new PendingResult(pendingBuildResult.getId(), pendingBuildResult.getPlanKey(), objectMapper.readValue(pendingBuildResult.getRequestBody(), Object.class),
+                        pendingBuildResult.getReceivedDate()));
+            }
+            catch (JsonProcessingException ex) {
+                failedResults.increment();
+                log.error("Stored build result for build plan {} cannot be read", pendingBuildResult.getPlanKey(), ex);
+                pendingBuildResultRepository.deleteIfClaimedBy(pendingBuildResult.getId(), claimToken);
+            }
+        }
+        processBatch(batch, claimToken);
+        return true;
+    }
+
+    /**
+     * Process a batch of claimed results and notify the participants afterwards. The batch is processed in one transaction, which also removes the stored results. If the
+     * transaction fails, the results are processed again one by one, each in its own transaction, so that a broken result does not prevent the other results of the batch from
+     * being saved. In this case the side effects of the results before the broken one (e.g. requests to the CI server) run twice. Results that fail on their own are removed
+     * as well, like a failed request of the CI server they are not processed again.
+     *
+     * @param batch the claimed results to process
+     * @param claimToken identifies the worker that claimed the results
+     */
+    void processBatch(List<PendingResult> batch, String claimToken) {
+        ProcessedResults processedResults;
+        try {
+            processedResults = transactionTemplate.execute(status -> processInTransaction(batch, claimToken));
+        }
+        catch (RuntimeException batchException) {
+            log.warn("The batch of {} build results could not be processed, the results are processed one by one: {}", batch.size(), batchException.getMessage());
+            processedResults = new ProcessedResults();
+            for (PendingResult pendingResult : batch) {
+                try {
+                    processedResults.add(transactionTemplate.execute(status -> processInTransaction(List.of(pendingResult), claimToken)));
+                }
+                catch (RuntimeException ex) {
+                    log.error("Build result for build plan {} could not be processed", pendingResult.planKey, ex);
+                    processedResults.failed++;
+                    pendingBuildResultRepository.deleteIfClaimedBy(pendingResult.id, claimToken);
+                }
+            }
+        }
+        failedResults.increment(processedResults.failed);
+
+        final Map<Long, Map<Long, NewResult>> newResultsPerExercise = new LinkedHashMap<>();
+        processedResults.newResults.forEach(newResult -> collect(newResultsPerExercise, newResult));
+
+        // only the latest result of each participation in the batch is sent, the client loads older results when needed
+        for (Map<Long, NewResult> newResultsOfExercise : newResultsPerExercise.values()) {
+            for (NewResult newResult : newResultsOfExercise.values()) {
+                notifyAboutResult(newResult);
+            }
+        }
+        batch.forEach(this::recordLatency);
+    }
+
+    /**
+     * Removes the stored results and processes them in the current transaction. Results whose claim expired are skipped, another worker processes them.
+     */
+    private ProcessedResults processInTransaction(List<PendingResult> pendingResults, String claimToken) {
+        final ProcessedResults processedResults = new ProcessedResults();
+        for (PendingResult pendingResult : pendingResults) {
+            if (pendingBuildResultRepository.deleteIfClaimedBy(pendingResult.id, claimToken) == 0) {
+                log.warn("The claim of the build result for build plan {} expired before it was processed, another worker processes it", pendingResult.planKey);
+                continue;
+            }
+            final Optional<NewResult> newResult = processPendingResult(pendingResult);
+            if (newResult.isPresent()) {
+                processedResults.newResults.add(newResult.get());
+            }
+            else {
+                processedResults.failed++;
+            }
+        }
+        return processedResults;
+    }
+
+    private void recordLatency(PendingResult pendingResult) {
+        ingestionLatency.record(Duration.between(pendingResult.receivedDate, ZonedDateTime.now()));
+    }
+
+    private Optional<NewResult> processPendingResult(PendingResult pendingResult) {
+        final Optional<ProgrammingExerciseParticipation> participation = getParticipationByBuildPlanId(pendingResult.planKey);
+        if (participation.isEmpty()) {
+            log.warn("Participation is missing for notifyResultNew (PlanKey: {}).", pendingResult.planKey);
+            return Optional.empty();
+        }
+        return processNewResult(participation.get(), pendingResult);
+    }
+
+    private Optional<NewResult> processNewResult(ProgrammingExerciseParticipation participation, PendingResult pendingResult) {
+        final Optional<Result> result = resultService.processNewProgrammingExerciseResult((Participation) participation, pendingResult.requestBody);
+        if (result.isEmpty()) {
+            return Optional.empty();
+        }
+        log.info("The new result for {} was saved successfully", pendingResult.planKey);
+        return Optional.of(new NewResult((Participation) participation, result.get()));
+    }
+
+    private void collect(Map<Long, Map<Long, NewResult>> newResultsPerExercise, NewResult newResult) {
+        final Long exerciseId = newResult.participation.getExercise() != null ? newResult.participation.getExercise().getId() : null;
+        // results of a batch are processed in the order they were received, so a later result of the same participation replaces the earlier one
+        newResultsPerExercise.computeIfAbsent(exerciseId, id -> new LinkedHashMap<>()).put(newResult.participation.getId(), newResult);
+    }
+
+    private void notifyAboutResult(NewResult newResult) {
+        try {
+            log.debug("Send result to client over websocket. Result: {}, Submission: {}, Participation: {}", newResult.result, newResult.result.getSubmission(),
+                    newResult.result.getParticipation());
+            // notify user via websocket
+            messagingService.broadcastNewResult(newResult.participation, newResult.result);
+            // handles new results and sends them to LTI consumers
+            if (newResult.participation instanceof ProgrammingExerciseStudentParticipation) {
+                ltiService.onNewResult((ProgrammingExerciseStudentParticipation) newResult.participation);
+            }
+        }
+        catch (RuntimeException ex) {
+            log.error("Could not notify about the new result of participation {}", newResult.participation.getId(), ex);
+        }
+    }
+
+    private Optional<ProgrammingExerciseParticipation> getParticipationByBuildPlanId(String planKey) {
+        // we have to support template, solution and student build plans here
+        if (planKey.contains(BuildPlanType.TEMPLATE.getName())) {
+            return participationService.findTemplateParticipationByBuildPlanId(planKey).map(participation -> participation);
+        }
+        else if (planKey.contains(BuildPlanType.SOLUTION.getName())) {
+            return participationService.findSolutionParticipationByBuildPlanId(planKey).map(participation -> participation);
+        }
+        // in the rare case of multiple participations, take the latest one.
+        return participationService.findByBuildPlanId(planKey).stream().max(Comparator.comparing(ProgrammingExerciseStudentParticipation::getInitializationDate))
+                .map(participation -> participation);
+    }
+
+    /**
+     * A build result received from the CI server that was not processed yet.
+     */
+    static final class PendingResult {
+
+        /**
+         * The id of the stored result, null if the result is processed in the request thread.
+         */
+        private final Long id;
+
+        private final String planKey;
+
+        private final Object requestBody;
+
+        private final ZonedDateTime receivedDate;
+
+        PendingResult(Long id, String planKey, Object requestBody, ZonedDateTime receivedDate) {
+            this.id = id;
+            this.planKey = planKey;
+            this.requestBody = requestBody;
+            this.receivedDate = receivedDate;
+        }
+    }
+
+    /**
+     * The new results of the processed results and the number of results that could not be processed.
+     */
+    private static final class ProcessedResults {
+
+        private final List<NewResult> newResults = new ArrayList<>();
+
+        private int failed;
+
+        private void add(ProcessedResults other) {
+            newResults.addAll(other.newResults);
+            failed += other.failed;
+        }
+    }
+
+    private static final class NewResult {
+
+        private final Participation participation;
+
+        private final Result result;
+
+        private NewResult(Participation participation, Result result) {
+            this.participation = participation;
+            this.result = result;
+        }
+    }
+}
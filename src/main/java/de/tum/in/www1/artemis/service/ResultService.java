@@ -62,10 +62,15 @@ public class ResultService {
 
     private final ComplaintRepository complaintRepository;
 
+    private final ExerciseAssessmentCountersService exerciseAssessmentCountersService;
+
+    private final TutorLeaderboardService tutorLeaderboardService;
+
     public ResultService(UserService userService, ResultRepository resultRepository, Optional<ContinuousIntegrationService> continuousIntegrationService, LtiService ltiService,
             SimpMessageSendingOperations messagingTemplate, ObjectMapper objectMapper, ProgrammingExerciseTestCaseService testCaseService,
             ProgrammingSubmissionService programmingSubmissionService, FeedbackRepository feedbackRepository, WebsocketMessagingService websocketMessagingService,
-            ComplaintResponseRepository complaintResponseRepository, SubmissionRepository submissionRepository, ComplaintRepository complaintRepository) {
+            ComplaintResponseRepository complaintResponseRepository, SubmissionRepository submissionRepository, ComplaintRepository complaintRepository,
+            ExerciseAssessmentCountersService exerciseAssessmentCountersService, TutorLeaderboardService tutorLeaderboardService) {
         this.userService = userService;
         this.resultRepository = resultRepository;
         this.continuousIntegrationService = continuousIntegrationService;
@@ -79,6 +84,8 @@ public class ResultService {
         this.complaintResponseRepository = complaintResponseRepository;
         this.submissionRepository = submissionRepository;
         this.complaintRepository = complaintRepository;
+        this.exerciseAssessmentCountersService = exerciseAssessmentCountersService;
+        this.tutorLeaderboardService = tutorLeaderboardService;
     }
 
     /**
@@ -173,6 +180,9 @@ public class ResultService {
             result = resultRepository.save(result);
             // workaround to prevent that result.submission suddenly turns into a proxy and cannot be used any more later after returning this method
 
+            // the new result changes the assessment counters of the exercise
+            exerciseAssessmentCountersService.invalidate(programmingExercise);
+
             // If the solution participation was updated, also trigger the template participation build.
             if (isSolutionParticipation) {
                 // This method will return without triggering the build if the submission is not of type TEST.
@@ -301,6 +311,8 @@ public class ResultService {
             }
 
             websocketMessagingService.broadcastNewResult(savedResult.getParticipation(), savedResult);
+            exerciseAssessmentCountersService.invalidate(savedResult.getParticipation().getExercise());
+            tutorLeaderboardService.invalidate(savedResult.getParticipation().getExercise());
         }
         return savedResult;
     }
@@ -30,11 +30,15 @@ public class SubmissionService {
 
     protected AuthorizationCheckService authCheckService;
 
-    public SubmissionService(SubmissionRepository submissionRepository, UserService userService, AuthorizationCheckService authCheckService, ResultRepository resultRepository) {
+    protected ExerciseAssessmentCountersService exerciseAssessmentCountersService;
+
+    public SubmissionService(SubmissionRepository submissionRepository, UserService userService, AuthorizationCheckService authCheckService, ResultRepository resultRepository,
+            ExerciseAssessmentCountersService exerciseAssessmentCountersService) {
         this.submissionRepository = submissionRepository;
         this.userService = userService;
         this.authCheckService = authCheckService;
         this.resultRepository = resultRepository;
+        this.exerciseAssessmentCountersService = exerciseAssessmentCountersService;
     }
 
     /**
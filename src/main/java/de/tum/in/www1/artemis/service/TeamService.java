@@ -59,6 +59,22 @@ public class TeamService {
         return teamRepository.findOneByExerciseIdAndUserId(exercise.getId(), user.getId());
     }
 
+    /**
+     * Finds the teams of a given user for multiple exercises with one query
+     *
+     * @param exercises Exercises for which to find the teams
+     * @param user Student for which to find the teams
+     * @return the ids of the teams of the student mapped by exercise id (exercises without team assignment of the student are missing)
+     */
+    public Map<Long, Long> findAssignedTeamIdsByExercisesAndUser(Collection<Exercise> exercises, User user) {
+        if (exercises.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> exerciseIds = exercises.stream().map(Exercise::getId).collect(Collectors.toSet());
+        return teamRepository.findExerciseIdsWithTeamIdsByExerciseIdsAndUserId(exerciseIds, user.getId()).stream()
+                .collect(Collectors.toMap(exerciseIdAndTeamId -> exerciseIdAndTeamId[0], exerciseIdAndTeamId -> exerciseIdAndTeamId[1], (first, second) -> first));
+    }
+
     /**
      * Returns whether the student is already assigned to a team for a given exercise
      *
@@ -2,14 +2,17 @@ package de.tum.in.www1.artemis.service;
 
 import static java.lang.Integer.compare;
 import static java.util.stream.Collectors.toList;
+import static org.apache.commons.codec.digest.DigestUtils.sha1Hex;
 
 import java.text.BreakIterator;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import de.tum.in.www1.artemis.domain.Feedback;
 import de.tum.in.www1.artemis.domain.Result;
@@ -28,6 +31,22 @@ public class TextBlockService {
 
     public static final Comparator<TextBlock> compareByStartIndexReversed = (TextBlock first, TextBlock second) -> compare(second.getStartIndex(), first.getStartIndex());
 
+    /**
+     * Maximum number of submissions for which the segmentation is kept in memory.
+     */
+    private static final int SEGMENTATION_CACHE_SIZE = 5000;
+
+    /**
+     * Least recently used cache of computed segmentations, keyed by submission id and the hash of the submission text.
+     */
+    private final Map<String, Segmentation> segmentationCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Segmentation> eldest) {
+            return size() > SEGMENTATION_CACHE_SIZE;
+        }
+    });
+
     /**
      * Splits TextSubmission for a given Result into TextBlocks and saves them in the TextSubmission
      * @param result the result, which correspond to the TextSubmission, that gets split
@@ -53,21 +72,49 @@ public class TextBlockService {
     /**
      * Break down a Text Submission into its TextBlocks.
      * A Text Block is defined (for now) as a Sentence. Delimitation is defined by java.text.BreakIterator or Linebreaks.
+     * The segmentation is cached per submission id and text hash, so that opening the same submission again does not split the text again.
      *
      * @param submission TextSubmission to split
      * @return List of TextBlocks
      */
-    @Transactional(readOnly = true)
     public List<TextBlock> splitSubmissionIntoBlocks(TextSubmission submission) {
         final String submissionText = submission.getText();
         if (submissionText == null)
             return new ArrayList<>();
         // Return empty list for missing submission text.
 
+        final String cacheKey = submission.getId() != null ? submission.getId() + ";" + sha1Hex(submissionText) : null;
+        Segmentation segmentation = cacheKey != null ? segmentationCache.get(cacheKey) : null;
+        if (segmentation == null) {
+            segmentation = segment(submissionText);
+            if (cacheKey != null) {
+                segmentationCache.put(cacheKey, segmentation);
+            }
+        }
+
+        final List<TextBlock> blocks = new ArrayList<>(segmentation.texts.length);
+        for (int i = 0; i < segmentation.texts.length; i++) {
+            final TextBlock textBlock = new TextBlock().text(segmentation.texts[i]).startIndex(segmentation.startIndices[i]).endIndex(segmentation.endIndices[i])
+                    .submission(submission);
+            textBlock.computeId();
+            blocks.add(textBlock);
+        }
+        return blocks;
+    }
+
+    /**
+     * Split the given text into sentences and lines.
+     *
+     * @param submissionText the text to split
+     * @return the text and the indices of all blocks
+     */
+    private Segmentation segment(String submissionText) {
         // Javas Sentence BreakIterator handles sentence splitting.
         BreakIterator breakIterator = BreakIterator.getSentenceInstance();
         breakIterator.setText(submissionText);
-        List<TextBlock> blocks = new ArrayList<>();
+        final List<String> texts = new ArrayList<>();
+        final List<Integer> startIndices = new ArrayList<>();
+        final List<Integer> endIndices = new ArrayList<>();
 
         int start = breakIterator.first();
 
@@ -85,13 +132,32 @@ public class TextBlockService {
                 if (startIndex == endIndex)
                     continue; // Do *not* define a text block for an empty line.
 
-                final TextBlock textBlock = new TextBlock().text(lineOrSentence).startIndex(startIndex).endIndex(endIndex).submission(submission);
-                textBlock.computeId();
-                blocks.add(textBlock);
+                texts.add(lineOrSentence);
+                startIndices.add(startIndex);
+                endIndices.add(endIndex);
             }
         }
 
-        return blocks;
+        return new Segmentation(texts.toArray(String[]::new), startIndices.stream().mapToInt(Integer::intValue).toArray(),
+                endIndices.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Immutable result of splitting a text into blocks, independent of the submission entity so that it can be cached.
+     */
+    private static final class Segmentation {
+
+        private final String[] texts;
+
+        private final int[] startIndices;
+
+        private final int[] endIndices;
+
+        private Segmentation(String[] texts, int[] startIndices, int[] endIndices) {
+            this.texts = texts;
+            this.startIndices = startIndices;
+            this.endIndices = endIndices;
+        }
     }
 
 }
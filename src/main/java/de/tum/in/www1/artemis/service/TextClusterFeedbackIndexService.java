@@ -0,0 +1,294 @@
+package de.tum.in.www1.artemis.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.validation.constraints.NotNull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import de.tum.in.www1.artemis.domain.Feedback;
+import de.tum.in.www1.artemis.domain.TextBlock;
+import de.tum.in.www1.artemis.domain.TextCluster;
+
+/**
+ * Keeps a per-cluster index of the closest assessed TextBlock for every TextBlock of a TextCluster.
+ * The index of a cluster is built on first access (deserializing the distance matrix once) and is updated incrementally whenever feedback for a submission is saved,
+ * so that feedback suggestions for a TextBlock become a constant-time lookup. The least recently used indexes are evicted once their distance matrices exceed a fixed size.
+ */
+@Service
+@Profile("automaticText")
+public class TextClusterFeedbackIndexService {
+
+    private final Logger log = LoggerFactory.getLogger(TextClusterFeedbackIndexService.class);
+
+    /**
+     * Maximum number of distances of all indexed clusters, i.e. 128 MB of distance matrices.
+     */
+    private static final long MAX_INDEXED_DISTANCES = 16L * 1024 * 1024;
+
+    private final FeedbackService feedbackService;
+
+    private long maxIndexedDistances = MAX_INDEXED_DISTANCES;
+
+    /**
+     * Least recently used indexes by cluster id.
+     */
+    private final Map<Long, ClusterFeedbackIndex> indexByClusterId = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true));
+
+    private final Map<Long, Set<Long>> clusterIdsBySubmissionId = new ConcurrentHashMap<>();
+
+    public TextClusterFeedbackIndexService(FeedbackService feedbackService) {
+        this.feedbackService = feedbackService;
+    }
+
+    /**
+     * Find the Feedback of the closest assessed TextBlock in the cluster of the given TextBlock.
+     * The cluster must be attached to the current persistence context if its index has not been built yet.
+     *
+     * @param block TextBlock for which we want to find similar Feedback
+     * @param cluster the TextCluster the block is part of
+     * @param distanceThreshold only Feedback of blocks closer than this distance is returned
+     * @return the Feedback of the closest assessed block, if any
+     */
+    public Optional<Feedback> findClosestFeedback(@NotNull TextBlock block, @NotNull TextCluster cluster, double distanceThreshold) {
+        return getOrCreateIndex(cluster).findClosestFeedback(block.getId(), distanceThreshold);
+    }
+
+    /**
+     * Update the index after the Feedback for a TextSubmission has been saved.
+     * Only clusters that are already indexed and contain blocks of the submission are affected, all other clusters are built from the database on first access.
+     *
+     * @param submissionId id of the TextSubmission the feedback belongs to
+     * @param feedbacks the complete list of Feedback currently stored for the submission
+     */
+    public void updateFeedbackForSubmission(@NotNull Long submissionId, @NotNull List<Feedback> feedbacks) {
+        final Set<Long> clusterIds = clusterIdsBySubmissionId.get(submissionId);
+        if (clusterIds == null || clusterIds.isEmpty()) {
+            return;
+        }
+
+        final Map<String, Feedback> feedbackByReference = new HashMap<>();
+        for (Feedback feedback : feedbacks) {
+            if (feedback.hasReference()) {
+                feedbackByReference.put(feedback.getReference(), feedback);
+            }
+        }
+
+        for (Long clusterId : clusterIds) {
+            final ClusterFeedbackIndex index = indexByClusterId.get(clusterId);
+            if (index != null) {
+                index.updateSubmissionFeedback(submissionId, feedbackByReference);
+            }
+        }
+    }
+
+    /**
+     * Update the index after the result of a TextSubmission has been deleted, e.g. because the assessment was canceled or the result or the submission was deleted.
+     * Submissions that are not part of an indexed cluster are ignored.
+     *
+     * @param submissionId id of the TextSubmission whose feedback no longer exists
+     */
+    public void removeFeedbackForSubmission(@NotNull Long submissionId) {
+        updateFeedbackForSubmission(submissionId, List.of());
+    }
+
+    /**
+     * Remove all indexed clusters of the given exercise, e.g. because the clusters have been recomputed.
+     *
+     * @param exerciseId id of the TextExercise
+     */
+    public void evictExercise(@NotNull Long exerciseId) {
+        synchronized (indexByClusterId) {
+            indexByClusterId.values().removeIf(index -> exerciseId.equals(index.exerciseId));
+        }
+        removeSubmissionsOfEvictedClusters();
+    }
+
+    /**
+     * Evict the least recently used indexes until the distance matrices of the remaining indexes fit into the limit. The most recently used index is always kept.
+     */
+    private void evictLeastRecentlyUsed() {
+        boolean evicted = false;
+        synchronized (indexByClusterId) {
+            long indexedDistances = indexByClusterId.values().stream().mapToLong(ClusterFeedbackIndex::numberOfDistances).sum();
+            final Iterator<ClusterFeedbackIndex> iterator = indexByClusterId.values().iterator();
+            while (indexedDistances > maxIndexedDistances && indexByClusterId.size() > 1) {
+                final ClusterFeedbackIndex eldest = iterator.next();
+                indexedDistances -= eldest.numberOfDistances();
+                iterator.remove();
+                evicted = true;
+            }
+        }
+        if (evicted) {
+            removeSubmissionsOfEvictedClusters();
+        }
+    }
+
+    private void removeSubmissionsOfEvictedClusters() {
+        clusterIdsBySubmissionId.values().forEach(clusterIds -> clusterIds.removeIf(clusterId -> !indexByClusterId.containsKey(clusterId)));
+        clusterIdsBySubmissionId.values().removeIf(Set::isEmpty);
+    }
+
+    private ClusterFeedbackIndex getOrCreateIndex(TextCluster cluster) {
+        final ClusterFeedbackIndex existingIndex = indexByClusterId.get(cluster.getId());
+        if (existingIndex != null) {
+            return existingIndex;
+        }
+
+        final long start = System.currentTimeMillis();
+        final List<TextBlock> blocks = new ArrayList<>(cluster.getBlocks());
+        final Map<String, Feedback> feedbackByReference = feedbackService.getFeedbackForTextExerciseInCluster(cluster);
+        final int size = blocks.size();
+        final String[] blockIds = new String[size];
+        final long[] submissionIds = new long[size];
+        final Feedback[] feedbacks = new Feedback[size];
+        for (int i = 0; i < size; i++) {
+            final TextBlock block = blocks.get(i);
+            blockIds[i] = block.getId();
+            submissionIds[i] = block.getSubmission() != null ? block.getSubmission().getId() : -1;
+            feedbacks[i] = feedbackByReference.get(block.getId());
+        }
+
+        final Long exerciseId = cluster.getExercise() != null ? cluster.getExercise().getId() : null;
+        final ClusterFeedbackIndex index = new ClusterFeedbackIndex(exerciseId, blockIds, submissionIds, cluster.getDistanceMatrix(), feedbacks);
+        final ClusterFeedbackIndex concurrentIndex = indexByClusterId.putIfAbsent(cluster.getId(), index);
+        if (concurrentIndex != null) {
+            return concurrentIndex;
+        }
+
+        for (long submissionId : submissionIds) {
+            clusterIdsBySubmissionId.computeIfAbsent(submissionId, id -> ConcurrentHashMap.newKeySet()).add(cluster.getId());
+        }
+        evictLeastRecentlyUsed();
+        log.debug("Built feedback index for TextCluster {} with {} blocks in {}ms", cluster.getId(), size, System.currentTimeMillis() - start);
+        return index;
+    }
+
+    /**
+     * Index of a single TextCluster. For each position in the cluster, {@code closestAssessed} holds the position of the closest other block with feedback, or -1.
+     */
+    static class ClusterFeedbackIndex {
+
+        private final Long exerciseId;
+
+        private final String[] blockIds;
+
+        private final long[] submissionIds;
+
+        private final double[][] distances;
+
+        private final Feedback[] feedbacks;
+
+        private final int[] closestAssessed;
+
+        private final Map<String, Integer> positionByBlockId;
+
+        ClusterFeedbackIndex(Long exerciseId, String[] blockIds, long[] submissionIds, double[][] distances, Feedback[] feedbacks) {
+            this.exerciseId = exerciseId;
+            this.blockIds = blockIds;
+            this.submissionIds = submissionIds;
+            this.distances = distances;
+            this.feedbacks = new Feedback[blockIds.length];
+            this.closestAssessed = new int[blockIds.length];
+            final Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < blockIds.length; i++) {
+                positions.put(blockIds[i], i);
+                this.feedbacks[i] = copyOf(feedbacks[i]);
+            }
+            this.positionByBlockId = positions;
+            rebuild();
+        }
+
+        long numberOfDistances() {
+            return (long) blockIds.length * blockIds.length;
+        }
+
+        synchronized Optional<Feedback> findClosestFeedback(String blockId, double distanceThreshold) {
+            final Integer position = positionByBlockId.get(blockId);
+            if (position == null) {
+                return Optional.empty();
+            }
+            final int closest = closestAssessed[position];
+            if (closest < 0 || distances[position][closest] >= distanceThreshold) {
+                return Optional.empty();
+            }
+            return Optional.of(feedbacks[closest]);
+        }
+
+        synchronized void updateSubmissionFeedback(long submissionId, Map<String, Feedback> feedbackByReference) {
+            boolean feedbackRemoved = false;
+            final List<Integer> newlyAssessed = new ArrayList<>();
+            for (int i = 0; i < blockIds.length; i++) {
+                if (submissionIds[i] != submissionId) {
+                    continue;
+                }
+                final Feedback feedback = feedbackByReference.get(blockIds[i]);
+                if (feedback == null) {
+                    feedbackRemoved |= feedbacks[i] != null;
+                }
+                else if (feedbacks[i] == null) {
+                    newlyAssessed.add(i);
+                }
+                feedbacks[i] = copyOf(feedback);
+            }
+
+            if (feedbackRemoved) {
+                rebuild();
+            }
+            else {
+                newlyAssessed.forEach(this::addAssessedPosition);
+            }
+        }
+
+        /**
+         * Recompute the closest assessed block for all positions. O(n^2), only needed initially or if feedback is removed.
+         */
+        private void rebuild() {
+            for (int i = 0; i < blockIds.length; i++) {
+                closestAssessed[i] = -1;
+            }
+            for (int i = 0; i < blockIds.length; i++) {
+                if (feedbacks[i] != null) {
+                    addAssessedPosition(i);
+                }
+            }
+        }
+
+        /**
+         * Make the given position a candidate for all other positions of the cluster. O(n).
+         */
+        private void addAssessedPosition(int assessed) {
+            for (int i = 0; i < blockIds.length; i++) {
+                if (i == assessed) {
+                    continue;
+                }
+                final int closest = closestAssessed[i];
+                if (closest < 0 || distances[i][assessed] < distances[i][closest]) {
+                    closestAssessed[i] = assessed;
+                }
+            }
+        }
+
+        /**
+         * Only keep the values needed for suggestions, so that the index does not hold on to detached entity graphs.
+         */
+        private static Feedback copyOf(Feedback feedback) {
+            if (feedback == null) {
+                return null;
+            }
+            return new Feedback().reference(feedback.getReference()).credits(feedback.getCredits()).detailText(feedback.getDetailText());
+        }
+    }
+}
@@ -49,12 +49,15 @@ public class TextClusteringService {
 
     private final TextSegmentationService textSegmentationService;
 
+    private final TextClusterFeedbackIndexService textClusterFeedbackIndexService;
+
     @Value("${artemis.automatic-text.embedding-chunk-size}")
     private int embeddingChunkSize;
 
     public TextClusteringService(TextBlockService textBlockService, TextSubmissionService textSubmissionService, TextClusterRepository textClusterRepository,
             TextBlockRepository textBlockRepository, TextSimilarityClusteringService textSimilarityClusteringService, TextEmbeddingService textEmbeddingService,
-            TextAssessmentQueueService textAssessmentQueueService, TextSegmentationService textSegmentationService) {
+            TextAssessmentQueueService textAssessmentQueueService, TextSegmentationService textSegmentationService,
+            TextClusterFeedbackIndexService textClusterFeedbackIndexService) {
         this.textBlockService = textBlockService;
         this.textSubmissionService = textSubmissionService;
         this.textClusterRepository = textClusterRepository;
@@ -63,6 +66,7 @@ public class TextClusteringService {
         this.textEmbeddingService = textEmbeddingService;
         this.textAssessmentQueueService = textAssessmentQueueService;
         this.textSegmentationService = textSegmentationService;
+        this.textClusterFeedbackIndexService = textClusterFeedbackIndexService;
     }
 
     private List<TextEmbedding> computeEmbeddings(List<TextBlock> blocks) {
@@ -135,6 +139,7 @@ public class TextClusteringService {
 
         // Store Clusters in Database
         textClusterRepository.saveAll(savedClusters);
+        textClusterFeedbackIndexService.evictExercise(exercise.getId());
 
         log.info("Found " + clusters.size() + " clusters for Text Exercise \"" + exercise.getTitle() + "\" (#" + exercise.getId() + ") in " + (System.currentTimeMillis() - start)
                 + "ms");
@@ -164,16 +169,12 @@ public class TextClusteringService {
 
         }
         else {
-
-            List<TextBlock> set = new ArrayList<>();
-
-            for (TextSubmission textSubmission : textSubmissions) {
+            // Splitting is CPU bound and independent per submission, therefore we split the submissions in parallel.
+            return textSubmissions.parallelStream().flatMap(textSubmission -> {
                 final List<TextBlock> blocks = textBlockService.splitSubmissionIntoBlocks(textSubmission);
                 textSubmission.setBlocks(blocks);
-                set.addAll(blocks);
-
-            }
-            return set;
+                return blocks.stream();
+            }).collect(toList());
         }
     }
 
@@ -50,8 +50,9 @@ public class TextSubmissionService extends SubmissionService {
 
     public TextSubmissionService(TextSubmissionRepository textSubmissionRepository, TextClusterRepository textClusterRepository, SubmissionRepository submissionRepository,
             StudentParticipationRepository studentParticipationRepository, ParticipationService participationService, ResultRepository resultRepository, UserService userService,
-            Optional<TextAssessmentQueueService> textAssessmentQueueService, AuthorizationCheckService authCheckService) {
-        super(submissionRepository, userService, authCheckService, resultRepository);
+            Optional<TextAssessmentQueueService> textAssessmentQueueService, AuthorizationCheckService authCheckService,
+            ExerciseAssessmentCountersService exerciseAssessmentCountersService) {
+        super(submissionRepository, userService, authCheckService, resultRepository, exerciseAssessmentCountersService);
         this.textSubmissionRepository = textSubmissionRepository;
         this.textClusterRepository = textClusterRepository;
         this.studentParticipationRepository = studentParticipationRepository;
@@ -86,6 +87,9 @@ public class TextSubmissionService extends SubmissionService {
         }
         else {
             textSubmission = save(textSubmission, participation);
+            if (textSubmission.isSubmitted()) {
+                exerciseAssessmentCountersService.invalidate(textExercise);
+            }
         }
         return textSubmission;
     }
@@ -1,11 +1,20 @@
 package de.tum.in.www1.artemis.service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import javax.validation.constraints.NotNull;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.cursors.LongObjectCursor;
 
 import de.tum.in.www1.artemis.domain.Course;
 import de.tum.in.www1.artemis.domain.Exercise;
@@ -14,9 +23,20 @@ import de.tum.in.www1.artemis.domain.leaderboard.tutor.*;
 import de.tum.in.www1.artemis.repository.*;
 import de.tum.in.www1.artemis.web.rest.dto.TutorLeaderboardDTO;
 
+/**
+ * Provides the tutor leaderboards of courses and exercises. The numbers of each tutor are kept in memory per exercise, the leaderboard of a course is the sum of the
+ * leaderboards of its exercises. Assessments, complaints and complaint responses mark the leaderboard of their exercise as outdated, so that only the outdated exercises are
+ * loaded again from the leaderboard views on the next request. The whole leaderboard of a course is reconciled with the views after the configured interval, this also
+ * includes changes that were not reported to this service (e.g. on another server instance).
+ */
 @Service
 public class TutorLeaderboardService {
 
+    private final Logger log = LoggerFactory.getLogger(TutorLeaderboardService.class);
+
+    @Value("${artemis.tutor-leaderboard.reconcile-interval-seconds:300}")
+    private long reconcileIntervalSeconds;
+
     private final TutorLeaderboardAssessmentViewRepository tutorLeaderboardAssessmentViewRepository;
 
     private final TutorLeaderboardComplaintsViewRepository tutorLeaderboardComplaintsViewRepository;
@@ -29,6 +49,12 @@ public class TutorLeaderboardService {
 
     private final UserService userService;
 
+    private final Map<Long, CourseLeaderboard> courseLeaderboards = new ConcurrentHashMap<>();
+
+    private final Map<Long, ExerciseLeaderboard> exerciseLeaderboards = new ConcurrentHashMap<>();
+
+    private final Set<Long> outdatedExerciseIds = ConcurrentHashMap.newKeySet();
+
     public TutorLeaderboardService(TutorLeaderboardAssessmentViewRepository tutorLeaderboardAssessmentViewRepository,
             TutorLeaderboardComplaintsViewRepository tutorLeaderboardComplaintsViewRepository,
             TutorLeaderboardMoreFeedbackRequestsViewRepository tutorLeaderboardMoreFeedbackRequestsViewRepository,
@@ -42,6 +68,42 @@ public class TutorLeaderboardService {
         this.userService = userService;
     }
 
+    /**
+     * Mark the leaderboard of the given exercise as outdated, e.g. because an assessment, complaint or complaint response of the exercise was saved. The leaderboard of the
+     * exercise is loaded again the next time the leaderboard of the exercise or its course is requested. Within a transaction, the leaderboard is marked again after the
+     * transaction completed: a concurrent request before the commit would load the old state and remove the mark.
+     *
+     * @param exercise the exercise whose leaderboard changed, may be null
+     */
+    public void invalidate(Exercise exercise) {
+        if (exercise == null || exercise.getId() == null) {
+            return;
+        }
+        final Long exerciseId = exercise.getId();
+        final Long courseId = exercise.getCourse() != null ? exercise.getCourse().getId() : null;
+        markOutdated(exerciseId, courseId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(int status) {
+                    markOutdated(exerciseId, courseId);
+                }
+            });
+        }
+    }
+
+    private void markOutdated(Long exerciseId, Long courseId) {
+        outdatedExerciseIds.add(exerciseId);
+        if (courseId != null) {
+            // the exercise might not have any leaderboard entries yet, then the course leaderboard does not know it
+            final CourseLeaderboard courseLeaderboard = courseLeaderboards.get(courseId);
+            if (courseLeaderboard != null) {
+                courseLeaderboard.exerciseIds.add(exerciseId);
+            }
+        }
+    }
+
     /**
      * Returns tutor leaderboards for the specified course.
      *
@@ -52,15 +114,26 @@ public class TutorLeaderboardService {
 
         List<User> tutors = userService.getTutors(course);
 
-        List<TutorLeaderboardAssessmentView> tutorLeaderboardAssessments = tutorLeaderboardAssessmentViewRepository.findAllByCourseId(course.getId());
-        List<TutorLeaderboardComplaintsView> tutorLeaderboardComplaints = tutorLeaderboardComplaintsViewRepository.findAllByCourseId(course.getId());
-        List<TutorLeaderboardMoreFeedbackRequestsView> tutorLeaderboardMoreFeedbackRequests = tutorLeaderboardMoreFeedbackRequestsViewRepository.findAllByCourseId(course.getId());
-        List<TutorLeaderboardComplaintResponsesView> tutorLeaderboardComplaintResponses = tutorLeaderboardComplaintResponsesViewRepository.findAllByCourseId(course.getId());
-        List<TutorLeaderboardAnsweredMoreFeedbackRequestsView> tutorLeaderboardAnsweredMoreFeedbackRequests = tutorLeaderboardAnsweredMoreFeedbackRequestsViewRepository
-                .findAllByCourseId(course.getId());
+        CourseLeaderboard courseLeaderboard = courseLeaderboards.get(course.getId());
+        if (courseLeaderboard == null || courseLeaderboard.loadedAt <= oldestValidLoadTime()) {
+            courseLeaderboard = reconcileCourse(course.getId(), courseLeaderboard);
+        }
+        else {
+            final List<Long> exerciseIdsToLoad = courseLeaderboard.exerciseIds.stream()
+                    .filter(exerciseId -> outdatedExerciseIds.contains(exerciseId) || !exerciseLeaderboards.containsKey(exerciseId)).collect(Collectors.toList());
+            if (!exerciseIdsToLoad.isEmpty()) {
+                loadExercises(exerciseIdsToLoad);
+            }
+        }
 
-        return aggregateTutorLeaderboardData(tutors, tutorLeaderboardAssessments, tutorLeaderboardComplaints, tutorLeaderboardMoreFeedbackRequests,
-                tutorLeaderboardComplaintResponses, tutorLeaderboardAnsweredMoreFeedbackRequests);
+        final LongObjectHashMap<TutorScores> scoresPerTutor = new LongObjectHashMap<>();
+        for (Long exerciseId : courseLeaderboard.exerciseIds) {
+            final ExerciseLeaderboard exerciseLeaderboard = exerciseLeaderboards.get(exerciseId);
+            if (exerciseLeaderboard != null) {
+                exerciseLeaderboard.addTo(scoresPerTutor);
+            }
+        }
+        return aggregateTutorLeaderboardData(tutors, scoresPerTutor);
     }
 
     /**
@@ -73,101 +146,223 @@ public class TutorLeaderboardService {
 
         List<User> tutors = userService.getTutors(exercise.getCourse());
 
-        List<TutorLeaderboardAssessmentView> tutorLeaderboardAssessments = tutorLeaderboardAssessmentViewRepository.findAllByLeaderboardId_ExerciseId(exercise.getId());
-        List<TutorLeaderboardComplaintsView> tutorLeaderboardComplaints = tutorLeaderboardComplaintsViewRepository.findAllByLeaderboardId_ExerciseId(exercise.getId());
-        List<TutorLeaderboardMoreFeedbackRequestsView> tutorLeaderboardMoreFeedbackRequests = tutorLeaderboardMoreFeedbackRequestsViewRepository
-                .findAllByLeaderboardId_ExerciseId(exercise.getId());
-        List<TutorLeaderboardComplaintResponsesView> tutorLeaderboardComplaintResponses = tutorLeaderboardComplaintResponsesViewRepository
-                .findAllByLeaderboardId_ExerciseId(exercise.getId());
-        List<TutorLeaderboardAnsweredMoreFeedbackRequestsView> tutorLeaderboardAnsweredMoreFeedbackRequests = tutorLeaderboardAnsweredMoreFeedbackRequestsViewRepository
-                .findAllByLeaderboardId_ExerciseId(exercise.getId());
-
-        return aggregateTutorLeaderboardData(tutors, tutorLeaderboardAssessments, tutorLeaderboardComplaints, tutorLeaderboardMoreFeedbackRequests,
-                tutorLeaderboardComplaintResponses, tutorLeaderboardAnsweredMoreFeedbackRequests);
+        ExerciseLeaderboard exerciseLeaderboard = exerciseLeaderboards.get(exercise.getId());
+        if (exerciseLeaderboard == null || outdatedExerciseIds.contains(exercise.getId()) || exerciseLeaderboard.loadedAt <= oldestValidLoadTime()) {
+            exerciseLeaderboard = loadExercises(List.of(exercise.getId())).get(exercise.getId());
+        }
+        return aggregateTutorLeaderboardData(tutors, exerciseLeaderboard.scoresPerTutor);
+    }
+
+    private long oldestValidLoadTime() {
+        return System.currentTimeMillis() - reconcileIntervalSeconds * 1000;
     }
 
-    @NotNull
-    private List<TutorLeaderboardDTO> aggregateTutorLeaderboardData(List<User> tutors, List<TutorLeaderboardAssessmentView> tutorLeaderboardAssessments,
+    /**
+     * Load the leaderboards of all exercises of the course from the leaderboard views. Exercises that no longer have entries in the views get an empty leaderboard.
+     */
+    private CourseLeaderboard reconcileCourse(long courseId, CourseLeaderboard previousCourseLeaderboard) {
+        final long start = System.currentTimeMillis();
+        final CourseLeaderboard courseLeaderboard = new CourseLeaderboard(start);
+        if (previousCourseLeaderboard != null) {
+            courseLeaderboard.exerciseIds.addAll(previousCourseLeaderboard.exerciseIds);
+        }
+        // changes during the loading mark the exercises as outdated again, so that they are not lost
+        outdatedExerciseIds.removeAll(courseLeaderboard.exerciseIds);
+        courseLeaderboards.put(courseId, courseLeaderboard);
+
+        final Map<Long, ExerciseLeaderboard> loadedLeaderboards = buildExerciseLeaderboards(tutorLeaderboardAssessmentViewRepository.findAllByCourseId(courseId),
+                tutorLeaderboardComplaintsViewRepository.findAllByCourseId(courseId), tutorLeaderboardMoreFeedbackRequestsViewRepository.findAllByCourseId(courseId),
+                tutorLeaderboardComplaintResponsesViewRepository.findAllByCourseId(courseId),
+                tutorLeaderboardAnsweredMoreFeedbackRequestsViewRepository.findAllByCourseId(courseId), start);
+        courseLeaderboard.exerciseIds.addAll(loadedLeaderboards.keySet());
+        for (Long exerciseId : courseLeaderboard.exerciseIds) {
+            exerciseLeaderboards.put(exerciseId, loadedLeaderboards.getOrDefault(exerciseId, new ExerciseLeaderboard(start)));
+        }
+        log.debug("Reconciling the tutor leaderboard of course {} took {}ms", courseId, System.currentTimeMillis() - start);
+        return courseLeaderboard;
+    }
+
+    /**
+     * Load the leaderboards of the given exercises from the leaderboard views, one query per view for all exercises together.
+     */
+    private Map<Long, ExerciseLeaderboard> loadExercises(Collection<Long> exerciseIds) {
+        final long start = System.currentTimeMillis();
+        // changes during the loading mark the exercises as outdated again, so that they are not lost
+        outdatedExerciseIds.removeAll(exerciseIds);
+
+        final Map<Long, ExerciseLeaderboard> loadedLeaderboards = buildExerciseLeaderboards(
+                tutorLeaderboardAssessmentViewRepository.findAllByLeaderboardId_ExerciseIdIn(exerciseIds),
+                tutorLeaderboardComplaintsViewRepository.findAllByLeaderboardId_ExerciseIdIn(exerciseIds),
+                tutorLeaderboardMoreFeedbackRequestsViewRepository.findAllByLeaderboardId_ExerciseIdIn(exerciseIds),
+                tutorLeaderboardComplaintResponsesViewRepository.findAllByLeaderboardId_ExerciseIdIn(exerciseIds),
+                tutorLeaderboardAnsweredMoreFeedbackRequestsViewRepository.findAllByLeaderboardId_ExerciseIdIn(exerciseIds), start);
+        for (Long exerciseId : exerciseIds) {
+            loadedLeaderboards.computeIfAbsent(exerciseId, id -> new ExerciseLeaderboard(start));
+        }
+        exerciseLeaderboards.putAll(loadedLeaderboards);
+        log.debug("Loading the tutor leaderboards of {} exercises took {}ms", exerciseIds.size(), System.currentTimeMillis() - start);
+        return loadedLeaderboards;
+    }
+
+    /**
+     * Sum up the rows of the leaderboard views per exercise and tutor. Every row is visited once.
+     */
+    private Map<Long, ExerciseLeaderboard> buildExerciseLeaderboards(List<TutorLeaderboardAssessmentView> tutorLeaderboardAssessments,
             List<TutorLeaderboardComplaintsView> tutorLeaderboardComplaints, List<TutorLeaderboardMoreFeedbackRequestsView> tutorLeaderboardMoreFeedbackRequests,
             List<TutorLeaderboardComplaintResponsesView> tutorLeaderboardComplaintResponses,
-            List<TutorLeaderboardAnsweredMoreFeedbackRequestsView> tutorLeaderboardAnsweredMoreFeedbackRequests) {
+            List<TutorLeaderboardAnsweredMoreFeedbackRequestsView> tutorLeaderboardAnsweredMoreFeedbackRequests, long loadedAt) {
 
-        List<TutorLeaderboardDTO> tutorLeaderBoardEntries = new ArrayList<>();
-        for (User tutor : tutors) {
+        final Map<Long, ExerciseLeaderboard> leaderboards = new HashMap<>();
 
-            long numberOfAssessments = 0L;
-            long numberOfAcceptedComplaints = 0L;
-            long numberOfTutorComplaints = 0L;
-            long numberOfNotAnsweredMoreFeedbackRequests = 0L;
-            long numberOfComplaintResponses = 0L;
-            long numberOfAnsweredMoreFeedbackRequests = 0L;
-            long numberOfTutorMoreFeedbackRequests = 0L;
-            Long points = 0L;
-
-            for (TutorLeaderboardAssessmentView assessmentsView : tutorLeaderboardAssessments) {
-                if (tutor.getId().equals(assessmentsView.getUserId())) {
-                    numberOfAssessments += assessmentsView.getAssessments();
-                    if (assessmentsView.getPoints() != null) {   // this can happen when max points is null, then we could simply count the assessments
-                        points += assessmentsView.getPoints();
-                    }
-                    else {
-                        points += assessmentsView.getAssessments();
-                    }
-                }
+        for (TutorLeaderboardAssessmentView assessmentsView : tutorLeaderboardAssessments) {
+            final TutorScores scores = scoresOf(leaderboards, assessmentsView.getExerciseId(), assessmentsView.getUserId(), loadedAt);
+            scores.numberOfAssessments += assessmentsView.getAssessments();
+            if (assessmentsView.getPoints() != null) {   // this can happen when max points is null, then we could simply count the assessments
+                scores.points += assessmentsView.getPoints();
+            }
+            else {
+                scores.points += assessmentsView.getAssessments();
             }
+        }
 
-            for (TutorLeaderboardComplaintsView complaintsView : tutorLeaderboardComplaints) {
-                if (tutor.getId().equals(complaintsView.getUserId())) {
-                    numberOfTutorComplaints += complaintsView.getAllComplaints();
-                    numberOfAcceptedComplaints += complaintsView.getAcceptedComplaints();
-                    // accepted complaints count 2x negatively
-                    if (complaintsView.getPoints() != null) {   // this can happen when max points is null, then we could simply count the accepted complaints
-                        points -= 2 * complaintsView.getPoints();
-                    }
-                    else {
-                        points -= 2 * complaintsView.getAcceptedComplaints();
-                    }
-                }
+        for (TutorLeaderboardComplaintsView complaintsView : tutorLeaderboardComplaints) {
+            final TutorScores scores = scoresOf(leaderboards, complaintsView.getExerciseId(), complaintsView.getUserId(), loadedAt);
+            scores.numberOfTutorComplaints += complaintsView.getAllComplaints();
+            scores.numberOfAcceptedComplaints += complaintsView.getAcceptedComplaints();
+            // accepted complaints count 2x negatively
+            if (complaintsView.getPoints() != null) {   // this can happen when max points is null, then we could simply count the accepted complaints
+                scores.points -= 2 * complaintsView.getPoints();
+            }
+            else {
+                scores.points -= 2 * complaintsView.getAcceptedComplaints();
             }
+        }
 
-            for (TutorLeaderboardMoreFeedbackRequestsView moreFeedbackRequestsView : tutorLeaderboardMoreFeedbackRequests) {
-                if (tutor.getId().equals(moreFeedbackRequestsView.getUserId())) {
-                    numberOfNotAnsweredMoreFeedbackRequests += moreFeedbackRequestsView.getNotAnsweredRequests();
-                    numberOfTutorMoreFeedbackRequests += moreFeedbackRequestsView.getAllRequests();
-                    // not answered requests count only 1x negatively
-                    if (moreFeedbackRequestsView.getPoints() != null) {   // this can happen when max points is null, then we could simply count the not answered
-                                                                          // requests
-                        points -= moreFeedbackRequestsView.getPoints();
-                    }
-                    else {
-                        points -= moreFeedbackRequestsView.getNotAnsweredRequests();
-                    }
-                }
+        for (TutorLeaderboardMoreFeedbackRequestsView moreFeedbackRequestsView : tutorLeaderboardMoreFeedbackRequests) {
+            final TutorScores scores = scoresOf(leaderboards, moreFeedbackRequestsView.getExerciseId(), moreFeedbackRequestsView.getUserId(), loadedAt);
+            scores.numberOfNotAnsweredMoreFeedbackRequests += moreFeedbackRequestsView.getNotAnsweredRequests();
+            scores.numberOfTutorMoreFeedbackRequests += moreFeedbackRequestsView.getAllRequests();
+            // not answered requests count only 1x negatively
+            if (moreFeedbackRequestsView.getPoints() != null) {   // this can happen when max points is null, then we could simply count the not answered requests
+                scores.points -= moreFeedbackRequestsView.getPoints();
             }
+            else {
+                scores.points -= moreFeedbackRequestsView.getNotAnsweredRequests();
+            }
+        }
 
-            for (TutorLeaderboardComplaintResponsesView complaintResponsesView : tutorLeaderboardComplaintResponses) {
-                if (tutor.getId().equals(complaintResponsesView.getUserId())) {
-                    numberOfComplaintResponses += complaintResponsesView.getComplaintResponses();
-                    // resolved complaints count 2x
-                    if (complaintResponsesView.getPoints() != null) {   // this can happen when max points is null, then we could simply count the complaint responses
-                        points += 2 * complaintResponsesView.getPoints();
-                    }
-                    else {
-                        points += 2 * complaintResponsesView.getComplaintResponses();
-                    }
-                }
+        for (TutorLeaderboardComplaintResponsesView complaintResponsesView : tutorLeaderboardComplaintResponses) {
+            final TutorScores scores = scoresOf(leaderboards, complaintResponsesView.getExerciseId(), complaintResponsesView.getUserId(), loadedAt);
+            scores.numberOfComplaintResponses += complaintResponsesView.getComplaintResponses();
+            // resolved complaints count 2x
+            if (complaintResponsesView.getPoints() != null) {   // this can happen when max points is null, then we could simply count the complaint responses
+                scores.points += 2 * complaintResponsesView.getPoints();
+            }
+            else {
+                scores.points += 2 * complaintResponsesView.getComplaintResponses();
             }
+        }
+
+        for (TutorLeaderboardAnsweredMoreFeedbackRequestsView moreFeedbackRequestsView : tutorLeaderboardAnsweredMoreFeedbackRequests) {
+            final TutorScores scores = scoresOf(leaderboards, moreFeedbackRequestsView.getExerciseId(), moreFeedbackRequestsView.getUserId(), loadedAt);
+            scores.numberOfAnsweredMoreFeedbackRequests += moreFeedbackRequestsView.getAnsweredRequests();
+            // answered requests doesn't count, because it only means that the tutor repaired the negative points
+        }
+
+        return leaderboards;
+    }
+
+    private static TutorScores scoresOf(Map<Long, ExerciseLeaderboard> leaderboards, long exerciseId, long userId, long loadedAt) {
+        final LongObjectHashMap<TutorScores> scoresPerTutor = leaderboards.computeIfAbsent(exerciseId, id -> new ExerciseLeaderboard(loadedAt)).scoresPerTutor;
+        TutorScores scores = scoresPerTutor.get(userId);
+        if (scores == null) {
+            scores = new TutorScores();
+            scoresPerTutor.put(userId, scores);
+        }
+        return scores;
+    }
+
+    @NotNull
+    private List<TutorLeaderboardDTO> aggregateTutorLeaderboardData(List<User> tutors, LongObjectHashMap<TutorScores> scoresPerTutor) {
+        List<TutorLeaderboardDTO> tutorLeaderBoardEntries = new ArrayList<>();
+        for (User tutor : tutors) {
+            TutorScores scores = scoresPerTutor.get(tutor.getId());
+            if (scores == null) {
+                scores = new TutorScores();
+            }
+            tutorLeaderBoardEntries.add(new TutorLeaderboardDTO(tutor.getId(), tutor.getName(), scores.numberOfAssessments, scores.numberOfAcceptedComplaints,
+                    scores.numberOfTutorComplaints, scores.numberOfNotAnsweredMoreFeedbackRequests, scores.numberOfComplaintResponses, scores.numberOfAnsweredMoreFeedbackRequests,
+                    scores.numberOfTutorMoreFeedbackRequests, scores.points));
+        }
+        return tutorLeaderBoardEntries;
+    }
+
+    /**
+     * The exercises of a course that have leaderboard entries and the time the leaderboard of the course was reconciled with the views.
+     */
+    private static final class CourseLeaderboard {
 
-            for (TutorLeaderboardAnsweredMoreFeedbackRequestsView moreFeedbackRequestsView : tutorLeaderboardAnsweredMoreFeedbackRequests) {
-                if (tutor.getId().equals(moreFeedbackRequestsView.getUserId())) {
-                    numberOfAnsweredMoreFeedbackRequests += moreFeedbackRequestsView.getAnsweredRequests();
-                    // answered requests doesn't count, because it only means that the tutor repaired the negative points
+        private final Set<Long> exerciseIds = ConcurrentHashMap.newKeySet();
+
+        private final long loadedAt;
+
+        private CourseLeaderboard(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * The numbers of the tutors in one exercise, mapped by tutor id. The leaderboard is not changed after it was loaded, a newer leaderboard replaces it.
+     */
+    private static final class ExerciseLeaderboard {
+
+        private final LongObjectHashMap<TutorScores> scoresPerTutor = new LongObjectHashMap<>();
+
+        private final long loadedAt;
+
+        private ExerciseLeaderboard(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        private void addTo(LongObjectHashMap<TutorScores> totalScoresPerTutor) {
+            for (LongObjectCursor<TutorScores> cursor : scoresPerTutor) {
+                TutorScores totalScores = totalScoresPerTutor.get(cursor.key);
+                if (totalScores == null) {
+                    totalScores = new TutorScores();
+                    totalScoresPerTutor.put(cursor.key, totalScores);
                 }
+                totalScores.add(cursor.value);
             }
+        }
+    }
+
+    private static final class TutorScores {
+
+        private long numberOfAssessments;
+
+        private long numberOfAcceptedComplaints;
+
+        private long numberOfTutorComplaints;
 
-            tutorLeaderBoardEntries.add(new TutorLeaderboardDTO(tutor.getId(), tutor.getName(), numberOfAssessments, numberOfAcceptedComplaints, numberOfTutorComplaints,
-                    numberOfNotAnsweredMoreFeedbackRequests, numberOfComplaintResponses, numberOfAnsweredMoreFeedbackRequests, numberOfTutorMoreFeedbackRequests, points));
+        private long numberOfNotAnsweredMoreFeedbackRequests;
+
+        private long numberOfComplaintResponses;
+
+        private long numberOfAnsweredMoreFeedbackRequests;
+
+        private long numberOfTutorMoreFeedbackRequests;
+
+        private long points;
+
+        private void add(TutorScores other) {
+            numberOfAssessments += other.numberOfAssessments;
+            numberOfAcceptedComplaints += other.numberOfAcceptedComplaints;
+            numberOfTutorComplaints += other.numberOfTutorComplaints;
+            numberOfNotAnsweredMoreFeedbackRequests += other.numberOfNotAnsweredMoreFeedbackRequests;
+            numberOfComplaintResponses += other.numberOfComplaintResponses;
+            numberOfAnsweredMoreFeedbackRequests += other.numberOfAnsweredMoreFeedbackRequests;
+            numberOfTutorMoreFeedbackRequests += other.numberOfTutorMoreFeedbackRequests;
+            points += other.points;
         }
-        return tutorLeaderBoardEntries;
     }
 }
@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
@@ -156,20 +157,21 @@ public class BambooService implements ContinuousIntegrationService {
             try {
                 ProgrammingExercise exercise = participation.getProgrammingExercise();
                 URL repositoryUrl = participation.getRepositoryUrlAsUrl();
-                Repository repo = gitService.getOrCheckoutRepository(repositoryUrl, true);
-                // we set user to null to make sure the Artemis user is used to create the setup commit, this is important to filter this commit later in
-                // notifyPush in ProgrammingSubmissionService
-                gitService.commitAndPush(repo, SETUP_COMMIT_MESSAGE, null);
-
-                if (exercise == null) {
-                    log.warn("Cannot access exercise in 'configureBuildPlan' to determine if deleting the repo after cloning make sense. Will decide to delete the repo");
-                    gitService.deleteLocalRepository(repo);
-                } else {
-                    //only delete the git repository, if the online editor is NOT allowed
-                    //this saves some performance on the server, when the student opens the online editor, because the repo does not need to be cloned again
-                    //Note: the null check is necessary, because otherwise we might get a null pointer exception
-                    if (exercise.isAllowOnlineEditor() == null || exercise.isAllowOnlineEditor() == Boolean.FALSE) {
+                try (Repository repo = gitService.getOrCheckoutRepository(repositoryUrl, true)) {
+                    // we set user to null to make sure the Artemis user is used to create the setup commit, this is important to filter this commit later in
+                    // notifyPush in ProgrammingSubmissionService
+                    gitService.commitAndPush(repo, SETUP_COMMIT_MESSAGE, null);
+
+                    if (exercise == null) {
+                        log.warn("Cannot access exercise in 'configureBuildPlan' to determine if deleting the repo after cloning make sense. Will decide to delete the repo");
                         gitService.deleteLocalRepository(repo);
+                    } else {
+                        //only delete the git repository, if the online editor is NOT allowed
+                        //this saves some performance on the server, when the student opens the online editor, because the repo does not need to be cloned again
+                        //Note: the null check is necessary, because otherwise we might get a null pointer exception
+                        if (exercise.isAllowOnlineEditor() == null || exercise.isAllowOnlineEditor() == Boolean.FALSE) {
+                            gitService.deleteLocalRepository(repo);
+                        }
                     }
                 }
             } catch (GitAPIException ex) {
@@ -430,11 +432,9 @@ public class BambooService implements ContinuousIntegrationService {
             // Filter the first build plan that was automatically executed when the build plan was created.
             if (isFirstBuildForThisPlan(buildResult)) return null;
 
-            List<ProgrammingSubmission> submissions = programmingSubmissionRepository.findByParticipationIdAndResultIsNullOrderBySubmissionDateDesc(participation.getId());
-            Optional<ProgrammingSubmission> latestMatchingPendingSubmission = submissions.stream().filter(submission -> {
-                String matchingCommitHashInBuildMap = getCommitHash(buildResult, submission.getType());
-                return matchingCommitHashInBuildMap != null && matchingCommitHashInBuildMap.equals(submission.getCommitHash());
-            }).findFirst();
+            // only the latest pending submission matching one of the commits of the build is loaded, not all pending submissions of the participation
+            Optional<ProgrammingSubmission> latestMatchingPendingSubmission = programmingSubmissionRepository.findPendingByParticipationIdAndCommitHash(participation.getId(),
+                    getCommitHash(buildResult, SubmissionType.MANUAL), getCommitHash(buildResult, SubmissionType.TEST), PageRequest.of(0, 1)).stream().findFirst();
 
             Result result = createResultFromBuildResult(buildResult, participation);
             ProgrammingExercise programmingExercise = participation.getProgrammingExercise();
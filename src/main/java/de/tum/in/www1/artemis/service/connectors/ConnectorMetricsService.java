@@ -0,0 +1,116 @@
+package de.tum.in.www1.artemis.service.connectors;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records latency and error metrics for requests to external systems (VCS, CI, user management, LTI consumers, remote Artemis services).
+ * All metrics are tagged with the connector name, the http method and a normalized endpoint, so that latency histograms can be inspected per endpoint.
+ */
+@Service
+public class ConnectorMetricsService {
+
+    static final String REQUEST_TIMER = "artemis.connector.requests";
+
+    static final String ERROR_COUNTER = "artemis.connector.errors";
+
+    /**
+     * Only the first path segments are used as endpoint tag to keep the number of time series bounded.
+     */
+    private static final int MAX_ENDPOINT_SEGMENTS = 8;
+
+    /**
+     * The static path segments of the REST APIs of the external systems. All other segments (project keys, plan keys, repository slugs, user names, ids) are replaced with a
+     * placeholder, because every value would create its own percentile histogram.
+     */
+    private static final Set<String> STATIC_ENDPOINT_SEGMENTS = Set.of("rest", "api", "latest", "1.0", "2", "2.0", "v4", "admin", "users", "user", "add-groups", "group",
+            "groups", "member", "search", "projects", "project", "repos", "repository", "repositories", "permissions", "branch-permissions", "restrictions", "webhooks", "hooks",
+            "branches", "commits", "changes", "browse", "settings", "plan", "queue", "result", "clone", "server", "status", "roles", "scm", "chain", "config",
+            "updateRepository.action", "job", "createItem", "doDelete", "config.xml", "build", "enable", "lastBuild", "testResults", "json", "crumbIssuer", "members", "variables",
+            "segment", "embed", "cluster");
+
+    private final MeterRegistry meterRegistry;
+
+    public ConnectorMetricsService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Creates an interceptor that records metrics for all requests of a RestTemplate.
+     *
+     * @param connector the name of the connector, e.g. bamboo or bitbucket
+     * @return the interceptor which should be added to the RestTemplate of the connector
+     */
+    public ClientHttpRequestInterceptor interceptorFor(String connector) {
+        return (request, body, execution) -> {
+            final long start = System.nanoTime();
+            try {
+                final var response = execution.execute(request, body);
+                recordRequest(connector, request.getMethodValue(), request.getURI(), response.getRawStatusCode(), System.nanoTime() - start, null);
+                return response;
+            }
+            catch (Exception ex) {
+                recordRequest(connector, request.getMethodValue(), request.getURI(), null, System.nanoTime() - start, ex);
+                throw ex;
+            }
+        };
+    }
+
+    /**
+     * Record a single request to an external system.
+     *
+     * @param connector the name of the connector, e.g. bamboo or lti
+     * @param method the http method of the request
+     * @param uri the requested uri
+     * @param status the http status of the response, or null if no response was received
+     * @param durationNanos the duration of the request in nanoseconds
+     * @param error the exception that occurred, or null if the request was completed
+     */
+    public void recordRequest(String connector, String method, URI uri, Integer status, long durationNanos, Throwable error) {
+        final String endpoint = normalizeEndpoint(uri);
+        final String outcome = error != null ? "IO_ERROR" : status >= 500 ? "SERVER_ERROR" : status >= 400 ? "CLIENT_ERROR" : "SUCCESS";
+        Timer.builder(REQUEST_TIMER).description("Latency of requests to external systems").tag("connector", connector).tag("method", method).tag("endpoint", endpoint)
+                .tag("outcome", outcome).publishPercentileHistogram().register(meterRegistry).record(durationNanos, TimeUnit.NANOSECONDS);
+
+        if (error != null || status >= 400) {
+            final String errorType = error != null ? error.getClass().getSimpleName() : String.valueOf(status);
+            Counter.builder(ERROR_COUNTER).description("Failed requests to external systems").tag("connector", connector).tag("method", method).tag("endpoint", endpoint)
+                    .tag("error", errorType).register(meterRegistry).increment();
+        }
+    }
+
+    /**
+     * Replaces all path segments that are not static segments of the REST APIs (e.g. ids, build plan keys, repository slugs) with a placeholder and cuts the path after a few
+     * segments, so that the number of endpoints per connector is bounded.
+     *
+     * @param uri the requested uri
+     * @return the normalized endpoint, e.g. bitbucket.example.com/rest/api/1.0/projects/{var}/repos/{var}/permissions
+     */
+    static String normalizeEndpoint(URI uri) {
+        if (uri == null) {
+            return "unknown";
+        }
+        final var endpoint = new StringBuilder(uri.getHost() != null ? uri.getHost() : "");
+        final String path = uri.getPath() != null ? uri.getPath() : "";
+        int segments = 0;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segments++ == MAX_ENDPOINT_SEGMENTS) {
+                endpoint.append("/**");
+                break;
+            }
+            endpoint.append('/').append(STATIC_ENDPOINT_SEGMENTS.contains(segment) ? segment : "{var}");
+        }
+        return endpoint.toString();
+    }
+}
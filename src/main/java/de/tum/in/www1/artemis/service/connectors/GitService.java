@@ -11,13 +11,23 @@ import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.HiddenFileFilter;
@@ -27,24 +37,36 @@ import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.JGitInternalException;
+import org.eclipse.jgit.dircache.DirCacheCheckout;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.file.WindowCacheStats;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import de.tum.in.www1.artemis.domain.*;
 import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseParticipation;
+import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
 import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
 import de.tum.in.www1.artemis.exception.GitException;
 import de.tum.in.www1.artemis.web.rest.errors.EntityNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Service
 public class GitService {
@@ -66,11 +88,82 @@ public class GitService {
     @Value("${artemis.git.email}")
     private String ARTEMIS_GIT_EMAIL;
 
-    private final Map<Path, Repository> cachedRepositories = new ConcurrentHashMap<>();
+    @Value("${artemis.git.repository-cache.max-size:500}")
+    private int repositoryCacheMaxSize;
 
-    private final Map<Path, Path> cloneInProgressOperations = new ConcurrentHashMap<>();
+    @Value("${artemis.git.repository-cache.idle-timeout-minutes:30}")
+    private long repositoryCacheIdleTimeoutMinutes;
+
+    @Value("${artemis.git.ref-cache.ttl-seconds:60}")
+    private long refCacheTtlSeconds;
+
+    @Value("${artemis.git.ref-resolution.parallelism:8}")
+    private int refResolutionParallelism;
+
+    @Value("${artemis.git.object-sharing.enabled:true}")
+    private boolean objectSharingEnabled;
+
+    @Value("${artemis.git.object-sharing.mirror-refresh-seconds:300}")
+    private long mirrorRefreshSeconds;
+
+    private static final int REF_CACHE_MAX_SIZE = 1000;
+
+    /**
+     * Folder (below the repo clone path) of the bare mirrors of template repositories, see {@link #cloneSharingObjects(URL, Path, URL)}.
+     */
+    private static final String MIRROR_FOLDER = ".mirrors";
+
+    /**
+     * Opened JGit repositories, so that continuous retrievals do not have to open the repository again. The cache is bounded in size and idle time, see
+     * {@link #evictIdleRepositories()}.
+     */
+    private final Map<Path, CachedRepository> cachedRepositories = new ConcurrentHashMap<>();
+
+    /**
+     * Clones which are currently in progress. Concurrent requests for the same repository wait for the running clone instead of cloning the repository again.
+     */
+    private final Map<Path, CompletableFuture<Void>> cloneInProgressOperations = new ConcurrentHashMap<>();
+
+    /**
+     * Pulls which are currently in progress or waiting for the previous pull of the same repository, see {@link #pullCoalesced(Repository)}.
+     */
+    private final Map<Path, PullOperations> pullOperations = new HashMap<>();
+
+    /**
+     * Time of the last fetch by local path of the bare mirror. The entries are also used to serialize the creation and fetches of each mirror.
+     */
+    private final Map<Path, MirrorState> mirrors = new ConcurrentHashMap<>();
+
+    /**
+     * Recently resolved last commit hashes by remote repository url, so that bulk operations do not query the same remote repository (e.g. the template repository of an
+     * exercise) for every student repository again, see {@link #getCachedLastCommitHash(URL)}. The entries expire after a short time and on pushes into the repository.
+     */
+    private final Map<String, CachedRef> cachedRefs = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedRef> eldest) {
+            return size() > REF_CACHE_MAX_SIZE;
+        }
+    });
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter remoteRefRequests;
+
+    private final Counter savedRemoteRefRequests;
+
+    private ExecutorService refResolutionExecutor;
+
+    public GitService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("artemis.git.repositories.open", cachedRepositories, Map::size).description("Local git repositories that are cached and kept open by the server")
+                .register(meterRegistry);
+        Gauge.builder("artemis.git.pack.files.open", () -> WindowCacheStats.getStats().getOpenFileCount()).description("Pack files of local git repositories that are open")
+                .register(meterRegistry);
+        remoteRefRequests = Counter.builder("artemis.git.ls-remote.requests").description("Queries of the refs of remote repositories").register(meterRegistry);
+        savedRemoteRefRequests = Counter.builder("artemis.git.ls-remote.saved").description("Queries of the refs of remote repositories that were served from the cache")
+                .register(meterRegistry);
 
-    public GitService() {
         log.info("Default Charset=" + Charset.defaultCharset());
         log.info("file.encoding=" + System.getProperty("file.encoding"));
         log.info("sun.jnu.encoding=" + System.getProperty("sun.jnu.encoding"));
@@ -78,12 +171,30 @@ public class GitService {
         log.info("Default Charset in Use=" + new OutputStreamWriter(new ByteArrayOutputStream()).getEncoding());
     }
 
+    /**
+     * Create the threads that resolve the refs of remote repositories in bulk operations, see {@link #getLastCommitHashes(Collection)}.
+     */
+    @PostConstruct
+    public void init() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        refResolutionExecutor = Executors.newFixedThreadPool(refResolutionParallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "git-ref-resolution-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refResolutionExecutor.shutdownNow();
+    }
+
     /**
      * Get the local repository for a given participation. If the local repo does not exist yet, it will be checked out.
      * Saves the local repo in the default path.
      *
      * @param participation Participation the remote repository belongs to.
-     * @return the repository if it could be checked out
+     * @return the repository if it could be checked out, which the caller must close when it is done with it.
      * @throws InterruptedException if the repository could not be checked out.
      * @throws GitAPIException if the repository could not be checked out.
      */
@@ -93,17 +204,19 @@ public class GitService {
 
     /**
      * Get the local repository for a given participation. If the local repo does not exist yet, it will be checked out.
-     * Saves the local repo in the default path.
+     * Only clones in the default path share the objects of the template repository. Clones in other paths (e.g. for downloads and exports) are zipped and must therefore
+     * contain all of their objects.
      *
      * @param participation Participation the remote repository belongs to.
      * @param targetPath path where the repo is located on disk
-     * @return the repository if it could be checked out
+     * @return the repository if it could be checked out, which the caller must close when it is done with it.
      * @throws InterruptedException if the repository could not be checked out.
      * @throws GitAPIException if the repository could not be checked out.
      */
     public Repository getOrCheckoutRepository(ProgrammingExerciseParticipation participation, String targetPath) throws InterruptedException, GitAPIException {
         URL repoUrl = participation.getRepositoryUrlAsUrl();
-        Repository repository = getOrCheckoutRepository(repoUrl, true, targetPath);
+        URL templateRepoUrl = isDefaultClonePath(targetPath) ? templateRepositoryUrlForObjectSharing(participation) : null;
+        Repository repository = templateRepoUrl != null ? getOrCheckoutRepository(repoUrl, templateRepoUrl, true, targetPath) : getOrCheckoutRepository(repoUrl, true, targetPath);
         repository.setParticipation(participation);
         return repository;
     }
@@ -114,7 +227,7 @@ public class GitService {
      *
      * @param repoUrl   The remote repository.
      * @param pullOnGet Pull from the remote on the checked out repository, if it does not need to be cloned.
-     * @return the repository if it could be checked out.
+     * @return the repository if it could be checked out, which the caller must close when it is done with it.
      * @throws InterruptedException if the repository could not be checked out.
      * @throws GitAPIException if the repository could not be checked out.
      */
@@ -124,65 +237,417 @@ public class GitService {
 
     /**
      * Get the local repository for a given remote repository URL. If the local repo does not exist yet, it will be checked out.
+     * Concurrent calls for the same repository share one clone and concurrent pulls of the same repository are coalesced.
      *
      * @param repoUrl   The remote repository.
      * @param pullOnGet Pull from the remote on the checked out repository, if it does not need to be cloned.
      * @param targetPath path where the repo is located on disk
-     * @return the repository if it could be checked out.
+     * @return the repository if it could be checked out, which the caller must close when it is done with it.
      * @throws InterruptedException if the repository could not be checked out.
      * @throws GitAPIException if the repository could not be checked out.
      */
     public Repository getOrCheckoutRepository(URL repoUrl, boolean pullOnGet, String targetPath) throws InterruptedException, GitAPIException {
+        return getOrCheckoutRepository(repoUrl, null, pullOnGet, targetPath);
+    }
+
+    /**
+     * Get the local repository for a given remote repository URL. If the local repo does not exist yet, it will be checked out.
+     *
+     * @param repoUrl   The remote repository.
+     * @param templateRepoUrl The template repository the remote repository was copied from. If set, a new clone shares the objects of the template repository.
+     * @param pullOnGet Pull from the remote on the checked out repository, if it does not need to be cloned.
+     * @param targetPath path where the repo is located on disk
+     * @return the repository if it could be checked out, which the caller must close when it is done with it.
+     * @throws InterruptedException if the repository could not be checked out.
+     * @throws GitAPIException if the repository could not be checked out.
+     */
+    private Repository getOrCheckoutRepository(URL repoUrl, @Nullable URL templateRepoUrl, boolean pullOnGet, String targetPath) throws InterruptedException, GitAPIException {
 
         Path localPath = new java.io.File(targetPath + folderNameForRepositoryUrl(repoUrl)).toPath();
 
+        // If the repository is being cloned right now, wait until the clone is finished instead of cloning it again.
+        CompletableFuture<Void> cloneInProgress = cloneInProgressOperations.get(localPath);
+        if (cloneInProgress != null) {
+            awaitClone(cloneInProgress);
+        }
+
         // First try to just retrieve the git repository from our server, as it might already be checked out.
         Repository repository = getRepositoryByLocalPath(localPath);
         if (repository != null) {
             if (pullOnGet) {
-                pull(repository);
+                pullCheckedOutRepository(repository);
             }
             return repository;
         }
         // If the git repository can't be found on our server, clone it from the remote.
-        else {
-            int numberOfAttempts = 5;
-            // Make sure that multiple clone operations for the same repository cannot happen at the same time.
-            while (cloneInProgressOperations.containsKey(localPath)) {
-                log.warn("Clone is already in progress. This will lead to an error. Wait for a second");
-                Thread.sleep(1000);
-                if (numberOfAttempts == 0) {
-                    throw new GitException("Cannot clone the same repository multiple times");
+        // Make sure that multiple clone operations for the same repository cannot happen at the same time: only one caller clones, all others wait for its clone.
+        CompletableFuture<Void> clone = new CompletableFuture<>();
+        cloneInProgress = cloneInProgressOperations.putIfAbsent(localPath, clone);
+        if (cloneInProgress != null) {
+            awaitClone(cloneInProgress);
+            repository = getRepositoryByLocalPath(localPath);
+            if (repository != null && pullOnGet) {
+                // the clone might have been started before this call, so we pull nevertheless
+                pullCheckedOutRepository(repository);
+            }
+            return repository;
+        }
+        try {
+            // Another clone could have finished between the check above and registering this clone
+            if (!Files.exists(localPath)) {
+                log.debug("Cloning from " + repoUrl + " to " + localPath);
+                if (templateRepoUrl == null || !cloneSharingObjects(repoUrl, localPath, templateRepoUrl)) {
+                    Git result = Git.cloneRepository().setURI(repoUrl.toString()).setCredentialsProvider(new UsernamePasswordCredentialsProvider(GIT_USER, GIT_PASSWORD))
+                            .setDirectory(localPath.toFile()).call();
+                    result.close();
+                }
+            }
+            clone.complete(null);
+        }
+        catch (GitAPIException | RuntimeException e) {
+            log.error("Exception during clone " + e);
+            // cleanup the folder to avoid problems in the future
+            localPath.toFile().delete();
+            GitException gitException = new GitException(e);
+            clone.completeExceptionally(gitException);
+            throw gitException;
+        }
+        finally {
+            // make sure that cloneInProgress is released, waiting callers have already been notified by completing the future
+            cloneInProgressOperations.remove(localPath, clone);
+        }
+        return getRepositoryByLocalPath(localPath);
+    }
+
+    private boolean isDefaultClonePath(String targetPath) {
+        return Paths.get(targetPath).toAbsolutePath().normalize().equals(Paths.get(REPO_CLONE_PATH).toAbsolutePath().normalize());
+    }
+
+    /**
+     * Student repositories are copies of the template repository, so almost all of their objects are contained in the template repository.
+     *
+     * @param participation the participation of the repository that should be cloned
+     * @return the url of the template repository if the clone should share its objects, otherwise null
+     */
+    private URL templateRepositoryUrlForObjectSharing(ProgrammingExerciseParticipation participation) {
+        if (!objectSharingEnabled || !(participation instanceof ProgrammingExerciseStudentParticipation)) {
+            return null;
+        }
+        // do not load the exercise and its template participation only for this optimization
+        final ProgrammingExercise exercise = participation.getProgrammingExercise();
+        if (exercise == null || !Hibernate.isInitialized(exercise) || exercise.getTemplateRepositoryUrl() == null) {
+            return null;
+        }
+        return exercise.getTemplateRepositoryUrlAsUrl();
+    }
+
+    /**
+     * Clones the repository like git clone --reference: the new clone uses a local bare mirror of the template repository as alternate object store, so that only the
+     * objects which are not contained in the template repository (i.e. the commits of the student) are fetched and stored in the clone.
+     * Automatic garbage collection is disabled in the config of the mirrors, so objects the clones rely on are not removed when the template repository is changed.
+     *
+     * @param repoUrl the remote repository to clone
+     * @param localPath the path of the new clone
+     * @param templateRepoUrl the template repository the remote repository was copied from
+     * @return true if the repository was cloned, false if the repository should be cloned without sharing objects instead (e.g. because it has no master branch)
+     */
+    private boolean cloneSharingObjects(URL repoUrl, Path localPath, URL templateRepoUrl) {
+        final Ref remoteMaster;
+        try {
+            final Path mirrorPath = getOrFetchMirror(templateRepoUrl);
+            Git.init().setDirectory(localPath.toFile()).call().close();
+            final Path alternates = localPath.resolve(".git/objects/info/alternates");
+            Files.createDirectories(alternates.getParent());
+            Files.writeString(alternates, mirrorPath.resolve("objects").toAbsolutePath().toString() + "\n");
+
+            // open the repository again, so that the alternate object store is used
+            try (Git git = Git.open(localPath.toFile())) {
+                final StoredConfig config = git.getRepository().getConfig();
+                config.setString("remote", "origin", "url", repoUrl.toString());
+                config.setString("remote", "origin", "fetch", "+refs/heads/*:refs/remotes/origin/*");
+                config.save();
+                // the refs of the mirror are announced as known to the remote, so only the missing objects are transferred
+                git.fetch().setRemote("origin").setCredentialsProvider(new UsernamePasswordCredentialsProvider(GIT_USER, GIT_PASSWORD)).call();
+                remoteMaster = git.getRepository().exactRef("refs/remotes/origin/master");
+                if (remoteMaster != null) {
+                    checkoutUnbornMaster(git.getRepository(), remoteMaster.getObjectId());
+                }
+            }
+        }
+        catch (GitAPIException | IOException | RuntimeException ex) {
+            log.warn("Could not clone " + repoUrl + " sharing the objects of " + templateRepoUrl + ", cloning it without sharing objects instead: " + ex.getMessage());
+            deleteIncompleteClone(localPath);
+            return false;
+        }
+        if (remoteMaster == null) {
+            // git clone checks out the default branch of the remote, which we cannot determine from the fetched refs
+            log.warn("The repository " + repoUrl + " has no master branch, cloning it without sharing objects instead");
+            deleteIncompleteClone(localPath);
+            return false;
+        }
+        return true;
+    }
+
+    private void deleteIncompleteClone(Path localPath) {
+        try {
+            FileUtils.deleteDirectory(localPath.toFile());
+        }
+        catch (IOException ex) {
+            log.error("Could not delete the incomplete clone at " + localPath, ex);
+        }
+    }
+
+    /**
+     * Create the master branch tracking origin/master and check it out, like git clone does. The checkout command cannot be used, as HEAD is not born yet.
+     */
+    private void checkoutUnbornMaster(org.eclipse.jgit.lib.Repository repository, ObjectId masterCommitId) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            final RevCommit masterCommit = revWalk.parseCommit(masterCommitId);
+            final RefUpdate masterUpdate = repository.updateRef("refs/heads/master");
+            masterUpdate.setNewObjectId(masterCommit);
+            masterUpdate.forceUpdate();
+            final DirCacheCheckout checkout = new DirCacheCheckout(repository, repository.lockDirCache(), masterCommit.getTree());
+            checkout.checkout();
+        }
+        final StoredConfig config = repository.getConfig();
+        config.setString("branch", "master", "remote", "origin");
+        config.setString("branch", "master", "merge", "refs/heads/master");
+        config.save();
+    }
+
+    /**
+     * Get the local bare mirror of the template repository, clone it if it does not exist yet and fetch it if it was not fetched recently.
+     * A slightly outdated mirror only means that the clones fetch more objects themselves.
+     *
+     * @param templateRepoUrl the template repository
+     * @return the path of the mirror
+     * @throws GitAPIException if the mirror could not be cloned or fetched
+     * @throws IOException if the mirror could not be opened
+     */
+    private Path getOrFetchMirror(URL templateRepoUrl) throws GitAPIException, IOException {
+        final Path mirrorPath = Paths.get(REPO_CLONE_PATH, MIRROR_FOLDER, folderNameForRepositoryUrl(templateRepoUrl) + ".git");
+        final MirrorState mirror = mirrors.computeIfAbsent(mirrorPath, path -> new MirrorState());
+        synchronized (mirror) {
+            if (!Files.exists(mirrorPath)) {
+                log.debug("Creating mirror of " + templateRepoUrl + " at " + mirrorPath);
+                try (Git git = Git.cloneRepository().setURI(templateRepoUrl.toString()).setCredentialsProvider(new UsernamePasswordCredentialsProvider(GIT_USER, GIT_PASSWORD))
+                        .setBare(true).setDirectory(mirrorPath.toFile()).call()) {
+                    // the clones rely on the objects of the mirror, so neither git nor JGit must remove objects that are no longer referenced by the template repository
+                    final StoredConfig config = git.getRepository().getConfig();
+                    config.setInt("gc", null, "auto", 0);
+                    config.setString("gc", null, "pruneExpire", "never");
+                    config.save();
                 }
-                else {
-                    numberOfAttempts--;
+                mirror.lastFetch = System.currentTimeMillis();
+            }
+            else if (System.currentTimeMillis() - mirror.lastFetch > TimeUnit.SECONDS.toMillis(mirrorRefreshSeconds)) {
+                try (Git git = Git.open(mirrorPath.toFile())) {
+                    git.fetch().setRemote("origin").setRefSpecs(new RefSpec("+refs/heads/*:refs/heads/*"))
+                            .setCredentialsProvider(new UsernamePasswordCredentialsProvider(GIT_USER, GIT_PASSWORD)).call();
                 }
+                mirror.lastFetch = System.currentTimeMillis();
+            }
+        }
+        return mirrorPath;
+    }
+
+    /**
+     * Deletes the local mirror of a template repository, e.g. because the programming exercise is deleted. The local clones that still share its objects (they are located
+     * next to the clone of the template repository) get their own copy of the objects first, so that they can still be used.
+     *
+     * @param templateRepoUrl the template repository
+     */
+    public void deleteMirror(URL templateRepoUrl) {
+        final Path mirrorPath = Paths.get(REPO_CLONE_PATH, MIRROR_FOLDER, folderNameForRepositoryUrl(templateRepoUrl) + ".git");
+        final MirrorState mirror = mirrors.computeIfAbsent(mirrorPath, path -> new MirrorState());
+        synchronized (mirror) {
+            if (!Files.exists(mirrorPath)) {
+                return;
             }
-            // Clone repository.
             try {
-                log.debug("Cloning from " + repoUrl + " to " + localPath);
-                cloneInProgressOperations.put(localPath, localPath);
-                Git result = Git.cloneRepository().setURI(repoUrl.toString()).setCredentialsProvider(new UsernamePasswordCredentialsProvider(GIT_USER, GIT_PASSWORD))
-                        .setDirectory(localPath.toFile()).call();
-                result.close();
+                final Path clonesFolder = Paths.get(REPO_CLONE_PATH, folderNameForRepositoryUrl(templateRepoUrl)).getParent();
+                if (clonesFolder != null && Files.isDirectory(clonesFolder)) {
+                    dissociateClones(clonesFolder, mirrorPath.resolve("objects").toAbsolutePath());
+                }
+                FileUtils.deleteDirectory(mirrorPath.toFile());
+                mirror.lastFetch = 0;
+            }
+            catch (IOException ex) {
+                log.error("Could not delete mirror at " + mirrorPath, ex);
+            }
+        }
+    }
+
+    /**
+     * Copies the objects of the mirror into all clones in the folder that use the mirror as alternate object store and removes the alternate, like git repack -a -d followed
+     * by removing the alternates file. The pack files of the mirror are immutable, so they are hard linked if possible.
+     *
+     * @param clonesFolder the folder that contains the clones
+     * @param mirrorObjects the object store of the mirror
+     * @throws IOException if the objects could not be copied, the mirror must not be deleted then
+     */
+    private void dissociateClones(Path clonesFolder, Path mirrorObjects) throws IOException {
+        final List<Path> clones;
+        try (Stream<Path> folders = Files.list(clonesFolder)) {
+            clones = folders.filter(folder -> Files.isRegularFile(folder.resolve(".git/objects/info/alternates"))).collect(Collectors.toList());
+        }
+        for (Path clone : clones) {
+            final Path alternates = clone.resolve(".git/objects/info/alternates");
+            if (!Files.readString(alternates).trim().equals(mirrorObjects.toString())) {
+                continue;
+            }
+            final Path cloneObjects = clone.resolve(".git/objects");
+            try (Stream<Path> objects = Files.walk(mirrorObjects)) {
+                for (Path object : objects.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    final Path relativePath = mirrorObjects.relativize(object);
+                    final Path target = cloneObjects.resolve(relativePath);
+                    if (relativePath.startsWith("info") || Files.exists(target)) {
+                        continue;
+                    }
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.createLink(target, object);
+                    }
+                    catch (IOException | UnsupportedOperationException ex) {
+                        Files.copy(object, target);
+                    }
+                }
+            }
+            Files.delete(alternates);
+            // the cached repository still uses the alternate object store
+            evictRepository(clone, "dissociated");
+            log.debug("Copied the objects of the mirror " + mirrorObjects + " into " + clone);
+        }
+    }
+
+    /**
+     * Wait for a clone that was started by another caller.
+     *
+     * @param clone the future of the clone, completes when the clone has finished
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    private void awaitClone(CompletableFuture<Void> clone) throws InterruptedException {
+        log.debug("Clone is already in progress, wait for it to finish");
+        try {
+            clone.get();
+        }
+        catch (ExecutionException ex) {
+            throw new GitException("The clone of the repository failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Pulls into a repository that was checked out for a caller. If the pull fails, the repository is not handed out, so the reference of the caller is released.
+     *
+     * @param repository the checked out repository.
+     * @throws InterruptedException if the pull was interrupted.
+     * @throws GitAPIException if the pull failed.
+     */
+    private void pullCheckedOutRepository(Repository repository) throws InterruptedException, GitAPIException {
+        try {
+            pullCoalesced(repository);
+        }
+        catch (InterruptedException | GitAPIException | RuntimeException ex) {
+            repository.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Pulls the repository, coalescing concurrent pulls of the same repository. Every caller gets the result of a pull that started after the call, but all callers that
+     * arrive while a pull is running share one follow-up pull. This avoids that e.g. many editor tabs of the same repository pull one after the other.
+     *
+     * @param repository the repository to pull
+     * @throws InterruptedException if the thread was interrupted while waiting for the pull
+     * @throws GitAPIException if the pull failed.
+     */
+    private void pullCoalesced(Repository repository) throws InterruptedException, GitAPIException {
+        final Path localPath = repository.getLocalPath();
+        final PullOperations operations;
+        final CompletableFuture<Void> pull;
+        final CompletableFuture<Void> previousPull;
+        final boolean joinedPendingPull;
+        // the bookkeeping of all repositories is guarded by one lock, the pulls themselves run outside of it
+        synchronized (pullOperations) {
+            operations = pullOperations.computeIfAbsent(localPath, path -> new PullOperations());
+            joinedPendingPull = operations.pending != null;
+            if (joinedPendingPull) {
+                // join the pull that has not started yet
+                pull = operations.pending;
+                previousPull = null;
+            }
+            else {
+                pull = new CompletableFuture<>();
+                previousPull = operations.latest;
+                operations.pending = pull;
+                operations.latest = pull;
+            }
+        }
+        if (joinedPendingPull) {
+            awaitPull(pull);
+            return;
+        }
+        try {
+            if (previousPull != null) {
+                // only one pull of the same repository runs at a time, the result of the previous pull does not matter here
+                try {
+                    previousPull.get();
+                }
+                catch (ExecutionException ex) {
+                    log.debug("The previous pull of {} failed: {}", localPath, ex.getCause().getMessage());
+                }
             }
-            catch (GitAPIException | RuntimeException e) {
-                log.error("Exception during clone " + e);
-                // cleanup the folder to avoid problems in the future
-                localPath.toFile().delete();
-                throw new GitException(e);
+            synchronized (pullOperations) {
+                // from now on, callers have to wait for the next pull, as this pull might miss their changes
+                operations.pending = null;
+            }
+            pull(repository);
+            pull.complete(null);
+        }
+        catch (InterruptedException | GitAPIException | RuntimeException ex) {
+            synchronized (pullOperations) {
+                if (operations.pending == pull) {
+                    operations.pending = null;
+                }
+            }
+            pull.completeExceptionally(ex);
+            throw ex;
+        }
+        finally {
+            synchronized (pullOperations) {
+                if (operations.latest == pull) {
+                    pullOperations.remove(localPath, operations);
+                }
             }
-            finally {
-                // make sure that cloneInProgress is released
-                cloneInProgressOperations.remove(localPath);
+        }
+    }
+
+    /**
+     * Wait for a pull that was started by another caller.
+     *
+     * @param pull the future of the pull, completes when the pull has finished
+     * @throws InterruptedException if the thread was interrupted while waiting
+     * @throws GitAPIException if the pull failed.
+     */
+    private void awaitPull(CompletableFuture<Void> pull) throws InterruptedException, GitAPIException {
+        try {
+            pull.get();
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof GitAPIException) {
+                throw (GitAPIException) ex.getCause();
             }
-            return getRepositoryByLocalPath(localPath);
+            throw new GitException("The pull of the repository failed", ex.getCause());
         }
     }
 
     /**
      * Get a git repository that is checked out on the server. Throws immediately an exception if the localPath does not exist. Will first try to retrieve a cached repository from
-     * cachedRepositories. Side effect: This method caches retrieved repositories in a HashMap, so continuous retrievals can be avoided (reduces load).
+     * cachedRepositories. Side effect: This method caches retrieved repositories, so continuous retrievals can be avoided (reduces load).
+     *
+     * Every retrieval is counted as a reference to the repository. Callers must release their reference with {@link Repository#close()} when they are done with the repository,
+     * preferably in a try-with-resources block. The underlying files are only closed when the repository was evicted from the cache (because it was idle, the cache is full or
+     * the repository was deleted) and all references are released.
      *
      * @param localPath to git repo on server.
      * @return the git repository in the localPath or null if it does not exist on the server.
@@ -191,13 +656,13 @@ public class GitService {
         // Check if there is a folder with the provided path of the git repository.
         if (!Files.exists(localPath)) {
             // In this case we should remove the repository if cached, because it can't exist anymore.
-            cachedRepositories.remove(localPath);
+            evictRepository(localPath, "deleted");
             return null;
         }
         // Check if the repository is already cached in the server's session.
-        Repository cachedRepository = cachedRepositories.get(localPath);
-        if (cachedRepository != null) {
-            return cachedRepository;
+        CachedRepository cachedRepository = cachedRepositories.get(localPath);
+        if (cachedRepository != null && cachedRepository.checkout()) {
+            return cachedRepository.repository;
         }
         // Else try to retrieve the git repository from our server. It could e.g. be the case that the folder is there, but there is no .git folder in it!
         try {
@@ -212,14 +677,70 @@ public class GitService {
             repository.getConfig().setString("gc", null, "auto", "0");
             // Cache the JGit repository object for later use
             // Avoids the expensive re-opening of local repositories
-            cachedRepositories.put(localPath, repository);
-            return repository;
+            CachedRepository newCachedRepository = new CachedRepository(repository);
+            cachedRepository = cachedRepositories.merge(localPath, newCachedRepository, (existing, opened) -> existing.isEvicted() ? opened : existing);
+            if (cachedRepository != newCachedRepository) {
+                // The repository was opened concurrently, so we close our instance and use the cached one
+                newCachedRepository.evict();
+            }
+            if (!cachedRepository.checkout()) {
+                // The repository was evicted in the meantime
+                return getRepositoryByLocalPath(localPath);
+            }
+            if (cachedRepositories.size() > repositoryCacheMaxSize) {
+                evictLeastRecentlyUsedRepositories();
+            }
+            return cachedRepository.repository;
         }
         catch (IOException ex) {
             return null;
         }
     }
 
+    /**
+     * Closes the cached repositories which have not been used for a while. Runs every minute.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleRepositories() {
+        final long idleSince = System.nanoTime() - TimeUnit.MINUTES.toNanos(repositoryCacheIdleTimeoutMinutes);
+        cachedRepositories.forEach((localPath, cachedRepository) -> {
+            if (cachedRepository.lastAccess - idleSince < 0) {
+                evictRepository(localPath, cachedRepository, "idle");
+            }
+        });
+    }
+
+    /**
+     * Closes the least recently used repositories until the cache does not exceed its maximum size anymore.
+     */
+    private synchronized void evictLeastRecentlyUsedRepositories() {
+        final int numberOfRepositoriesToEvict = cachedRepositories.size() - repositoryCacheMaxSize;
+        if (numberOfRepositoriesToEvict <= 0) {
+            return;
+        }
+        // take a snapshot of the access times, as they can change while sorting
+        final Map<CachedRepository, Long> lastAccessByRepository = new HashMap<>();
+        cachedRepositories.values().forEach(cachedRepository -> lastAccessByRepository.put(cachedRepository, cachedRepository.lastAccess));
+        final List<Map.Entry<Path, CachedRepository>> leastRecentlyUsed = cachedRepositories.entrySet().stream().filter(entry -> lastAccessByRepository.containsKey(entry.getValue()))
+                .sorted(Comparator.comparingLong(entry -> lastAccessByRepository.get(entry.getValue()))).limit(numberOfRepositoriesToEvict).collect(Collectors.toList());
+        leastRecentlyUsed.forEach(entry -> evictRepository(entry.getKey(), entry.getValue(), "size"));
+    }
+
+    private void evictRepository(Path localPath, String cause) {
+        final CachedRepository cachedRepository = cachedRepositories.get(localPath);
+        if (cachedRepository != null) {
+            evictRepository(localPath, cachedRepository, cause);
+        }
+    }
+
+    private void evictRepository(Path localPath, CachedRepository cachedRepository, String cause) {
+        if (cachedRepositories.remove(localPath, cachedRepository)) {
+            cachedRepository.evict();
+            Counter.builder("artemis.git.repositories.evictions").description("Local git repositories that were closed by the server").tag("cause", cause)
+                    .register(meterRegistry).increment();
+        }
+    }
+
     /**
      * Commits with the given message into the repository.
      *
@@ -383,6 +904,7 @@ public class GitService {
         }
         // Get refs of repo without cloning it locally
         Collection<Ref> refs;
+        remoteRefRequests.increment();
         try {
             refs = Git.lsRemoteRepository().setRemote(repoUrl.toString()).setCredentialsProvider(new UsernamePasswordCredentialsProvider(GIT_USER, GIT_PASSWORD)).call();
         }
@@ -398,6 +920,107 @@ public class GitService {
         return null;
     }
 
+    /**
+     * Get the last commit hash from master like {@link #getLastCommitHash(URL)}, but reuse a hash that was resolved a short time ago.
+     * Concurrent calls for the same repository share one query of the remote repository.
+     * Only use this in bulk operations that need the same repository many times (e.g. the template repository for every student repository), as the hash can be stale
+     * for a short time if the repository was changed without a push notification.
+     *
+     * @param repoUrl to get the latest hash from.
+     * @return the latestHash of the given repo.
+     * @throws EntityNotFoundException if retrieving the latestHash from the git repo failed.
+     */
+    public ObjectId getCachedLastCommitHash(URL repoUrl) throws EntityNotFoundException {
+        if (repoUrl == null) {
+            return null;
+        }
+        final String key = repoUrl.toString();
+        final long now = System.currentTimeMillis();
+        final CompletableFuture<ObjectId> lookup = new CompletableFuture<>();
+        final CachedRef cachedRef;
+        synchronized (cachedRefs) {
+            final CachedRef existingRef = cachedRefs.get(key);
+            if (existingRef != null && existingRef.expiresAt > now) {
+                cachedRef = existingRef;
+            }
+            else {
+                cachedRef = new CachedRef(lookup, now + TimeUnit.SECONDS.toMillis(refCacheTtlSeconds));
+                cachedRefs.put(key, cachedRef);
+            }
+        }
+        if (cachedRef.lastCommitHash != lookup) {
+            savedRemoteRefRequests.increment();
+            return awaitRef(cachedRef.lastCommitHash, repoUrl);
+        }
+        try {
+            lookup.complete(getLastCommitHash(repoUrl));
+        }
+        catch (RuntimeException ex) {
+            // failed queries are not cached, but the callers waiting for this query fail as well
+            cachedRefs.remove(key, cachedRef);
+            lookup.completeExceptionally(ex);
+            throw ex;
+        }
+        return lookup.join();
+    }
+
+    /**
+     * Get the last commit hashes from master of many repositories at once, e.g. to create submissions for all participations of an exercise.
+     * Every distinct repository is only queried once, the queries run in parallel (limited by artemis.git.ref-resolution.parallelism) and the resolved hashes are cached
+     * for subsequent calls of {@link #getCachedLastCommitHash(URL)}.
+     *
+     * @param repoUrls the remote repositories, may contain duplicates
+     * @return the latest hash by the string representation of the repository url. Repositories for which no hash could be retrieved are not contained.
+     */
+    public Map<String, ObjectId> getLastCommitHashes(Collection<URL> repoUrls) {
+        // URL#equals resolves the host names, so the repositories are identified by their string representation
+        final Map<String, URL> distinctRepoUrls = new LinkedHashMap<>();
+        repoUrls.stream().filter(Objects::nonNull).forEach(repoUrl -> distinctRepoUrls.putIfAbsent(repoUrl.toString(), repoUrl));
+        savedRemoteRefRequests.increment(repoUrls.stream().filter(Objects::nonNull).count() - distinctRepoUrls.size());
+
+        final Map<String, CompletableFuture<ObjectId>> lookups = new LinkedHashMap<>();
+        distinctRepoUrls.forEach((key, repoUrl) -> lookups.put(key, CompletableFuture.supplyAsync(() -> getLastCommitHash(repoUrl), refResolutionExecutor)));
+
+        final Map<String, ObjectId> lastCommitHashes = new HashMap<>();
+        lookups.forEach((key, lookup) -> {
+            try {
+                final ObjectId lastCommitHash = lookup.join();
+                if (lastCommitHash != null) {
+                    lastCommitHashes.put(key, lastCommitHash);
+                    final long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(refCacheTtlSeconds);
+                    cachedRefs.put(key, new CachedRef(CompletableFuture.completedFuture(lastCommitHash), expiresAt));
+                }
+            }
+            catch (CompletionException ex) {
+                log.warn("Could not retrieve the last commit hash for repoUrl {}: {}", key, ex.getCause().getMessage());
+            }
+        });
+        return lastCommitHashes;
+    }
+
+    /**
+     * Remove the cached last commit hash of the repository, e.g. because a new commit was pushed into it.
+     *
+     * @param repoUrl the remote repository
+     */
+    public void invalidateCachedLastCommitHash(URL repoUrl) {
+        if (repoUrl != null) {
+            cachedRefs.remove(repoUrl.toString());
+        }
+    }
+
+    private ObjectId awaitRef(CompletableFuture<ObjectId> lastCommitHash, URL repoUrl) throws EntityNotFoundException {
+        try {
+            return lastCommitHash.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof EntityNotFoundException) {
+                throw (EntityNotFoundException) ex.getCause();
+            }
+            throw new EntityNotFoundException("Could not retrieve the last commit hash for repoUrl " + repoUrl + " due to the following exception: " + ex.getCause());
+        }
+    }
+
     /**
      * Stager Task #3: Filter late submissions Filter all commits after exercise due date
      *
@@ -452,8 +1075,8 @@ public class GitService {
     public void combineAllStudentCommits(Repository repository, ProgrammingExercise programmingExercise) {
         try {
             Git studentGit = new Git(repository);
-            // Get last commit hash from template repo
-            ObjectId latestHash = getLastCommitHash(programmingExercise.getTemplateRepositoryUrlAsUrl());
+            // Get last commit hash from template repo, it is the same for all student repositories of the exercise
+            ObjectId latestHash = getCachedLastCommitHash(programmingExercise.getTemplateRepositoryUrlAsUrl());
 
             if (latestHash == null) {
                 // Template Repository is somehow empty. Should never happen
@@ -476,7 +1099,8 @@ public class GitService {
 
             // if repo is not closed, it causes weird IO issues when trying to delete the repo again
             // java.io.IOException: Unable to delete file: ...\.git\objects\pack\...
-            repository.close();
+            // Evicting only releases the reference of the cache, the repository is closed as soon as the caller released its reference as well
+            evictRepository(repository.getLocalPath(), "closed");
         }
         catch (EntityNotFoundException | GitAPIException | JGitInternalException ex) {
             log.warn("Cannot reset the repo " + repository.getLocalPath() + " due to the following exception: " + ex.getMessage());
@@ -607,8 +1231,7 @@ public class GitService {
      */
     public void deleteLocalRepository(Repository repo) throws IOException {
         Path repoPath = repo.getLocalPath();
-        cachedRepositories.remove(repoPath);
-        repo.close();
+        evictRepository(repoPath, "deleted");
         FileUtils.deleteDirectory(repoPath.toFile());
         repo.setContent(null);
         log.debug("Deleted Repository at " + repoPath);
@@ -633,7 +1256,7 @@ public class GitService {
      */
     public void deleteLocalRepository(ProgrammingExerciseParticipation participation, String targetPath) throws IOException {
         Path repoPath = new java.io.File(targetPath + folderNameForRepositoryUrl(participation.getRepositoryUrlAsUrl())).toPath();
-        cachedRepositories.remove(repoPath);
+        evictRepository(repoPath, "deleted");
         if (Files.exists(repoPath)) {
             FileUtils.deleteDirectory(repoPath.toFile());
             log.debug("Deleted Repository at " + repoPath);
@@ -659,7 +1282,7 @@ public class GitService {
      */
     public void deleteLocalRepository(URL repoUrl, String targetPath) {
         Path repoPath = new java.io.File(targetPath + folderNameForRepositoryUrl(repoUrl)).toPath();
-        cachedRepositories.remove(repoPath);
+        evictRepository(repoPath, "deleted");
         if (Files.exists(repoPath)) {
             try {
                 FileUtils.deleteDirectory(repoPath.toFile());
@@ -740,4 +1363,76 @@ public class GitService {
         Path localPath = new java.io.File(REPO_CLONE_PATH + folderNameForRepositoryUrl(repoUrl)).toPath();
         return Files.exists(localPath);
     }
+
+    private static final class MirrorState {
+
+        private long lastFetch;
+    }
+
+    private static final class CachedRef {
+
+        private final CompletableFuture<ObjectId> lastCommitHash;
+
+        private final long expiresAt;
+
+        private CachedRef(CompletableFuture<ObjectId> lastCommitHash, long expiresAt) {
+            this.lastCommitHash = lastCommitHash;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * The pulls of one repository: the latest pull, which might be running, and the pending pull, which waits for the running pull and can still be joined by other callers.
+     */
+    private static final class PullOperations {
+
+        private CompletableFuture<Void> latest;
+
+        private CompletableFuture<Void> pending;
+    }
+
+    /**
+     * A repository in the cache. The cache holds one reference to the repository, which is released when the repository is evicted.
+     */
+    private static final class CachedRepository {
+
+        private final Repository repository;
+
+        private boolean evicted = false;
+
+        private volatile long lastAccess = System.nanoTime();
+
+        private CachedRepository(Repository repository) {
+            this.repository = repository;
+        }
+
+        /**
+         * Adds a reference for a caller to the repository, which the caller releases with {@link Repository#close()}.
+         *
+         * @return false if the repository has already been evicted and must not be handed out anymore.
+         */
+        private synchronized boolean checkout() {
+            if (evicted) {
+                return false;
+            }
+            repository.incrementOpen();
+            lastAccess = System.nanoTime();
+            return true;
+        }
+
+        private synchronized boolean isEvicted() {
+            return evicted;
+        }
+
+        /**
+         * Releases the reference of the cache. The file handles of the repository are closed by JGit as soon as the callers that still use the repository have released it.
+         */
+        private synchronized void evict() {
+            if (evicted) {
+                return;
+            }
+            evicted = true;
+            repository.close();
+        }
+    }
 }
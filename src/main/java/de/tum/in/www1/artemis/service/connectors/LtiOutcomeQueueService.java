@@ -0,0 +1,292 @@
+package de.tum.in.www1.artemis.service.connectors;
+
+import static java.time.ZonedDateTime.now;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.BasicResponseHandler;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.imsglobal.pox.IMSPOXRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.tum.in.www1.artemis.domain.LtiOutcomeReport;
+import de.tum.in.www1.artemis.domain.LtiOutcomeUrl;
+import de.tum.in.www1.artemis.domain.Result;
+import de.tum.in.www1.artemis.repository.LtiOutcomeReportRepository;
+import de.tum.in.www1.artemis.repository.LtiOutcomeUrlRepository;
+import de.tum.in.www1.artemis.repository.ResultRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Durable outbound queue for reporting scores to LTI consumers (grade passback).
+ * New results only enqueue (or coalesce into) one report per participation, the reports are sent asynchronously with bounded concurrency and retried with exponential backoff.
+ * The score is read when the report is sent, so that only the latest score of a participation is reported.
+ */
+@Service
+public class LtiOutcomeQueueService {
+
+    private final Logger log = LoggerFactory.getLogger(LtiOutcomeQueueService.class);
+
+    /**
+     * Reports are delayed a bit, so that the transaction saving the new result is committed and further results of the same participation (e.g. during a build storm) are
+     * coalesced into one report.
+     */
+    private static final Duration COALESCING_DELAY = Duration.ofSeconds(5);
+
+    private static final Duration MIN_RETRY_DELAY = Duration.ofSeconds(30);
+
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+
+    /**
+     * A run of the queue claims the reports it delivers for this time. If the server instance crashes during the delivery, another run delivers the reports after the claim has
+     * expired.
+     */
+    private static final Duration CLAIM_DURATION = Duration.ofMinutes(10);
+
+    @Value("${artemis.lti.oauth-key}")
+    private String OAUTH_KEY;
+
+    @Value("${artemis.lti.oauth-secret}")
+    private String OAUTH_SECRET;
+
+    @Value("${artemis.lti.outcome-report.concurrency:4}")
+    private int concurrency;
+
+    @Value("${artemis.lti.outcome-report.batch-size:200}")
+    private int batchSize;
+
+    @Value("${artemis.lti.outcome-report.max-attempts:10}")
+    private int maxAttempts;
+
+    private final LtiOutcomeReportRepository ltiOutcomeReportRepository;
+
+    private final LtiOutcomeUrlRepository ltiOutcomeUrlRepository;
+
+    private final ResultRepository resultRepository;
+
+    private final CloseableHttpClient pooledHttpClient;
+
+    private final ConnectorMetricsService connectorMetricsService;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    private Timer deliveryLatency;
+
+    private Counter failedDeliveries;
+
+    private Counter droppedReports;
+
+    private ExecutorService executor;
+
+    public LtiOutcomeQueueService(LtiOutcomeReportRepository ltiOutcomeReportRepository, LtiOutcomeUrlRepository ltiOutcomeUrlRepository, ResultRepository resultRepository,
+            CloseableHttpClient pooledHttpClient, ConnectorMetricsService connectorMetricsService, MeterRegistry meterRegistry) {
+        this.ltiOutcomeReportRepository = ltiOutcomeReportRepository;
+        this.ltiOutcomeUrlRepository = ltiOutcomeUrlRepository;
+        this.resultRepository = resultRepository;
+        this.pooledHttpClient = pooledHttpClient;
+        this.connectorMetricsService = connectorMetricsService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Create the delivery threads and register the queue metrics.
+     */
+    @PostConstruct
+    public void init() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final Thread thread = new Thread(runnable, "lti-outcome-report-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("artemis.lti.outcome.queue.depth", queueDepth, AtomicLong::get).description("Pending LTI score reports").register(meterRegistry);
+        deliveryLatency = Timer.builder("artemis.lti.outcome.delivery.latency").description("Time between a new result and the delivery of the score to the LTI consumer")
+                .publishPercentileHistogram().register(meterRegistry);
+        failedDeliveries = Counter.builder("artemis.lti.outcome.delivery.failures").description("Failed attempts to deliver LTI score reports").register(meterRegistry);
+        droppedReports = Counter.builder("artemis.lti.outcome.dropped").description("LTI score reports dropped after too many failed attempts").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Enqueue a score report for the given participation. If a report is already pending for the participation, the new result is coalesced into it.
+     * This runs in its own transaction, so that a concurrent insert for the same participation does not roll back the transaction of the caller.
+     *
+     * @param participationId the id of the participation with a new result
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void enqueue(Long participationId) {
+        final ZonedDateTime now = now();
+        if (ltiOutcomeReportRepository.coalesce(participationId, now, now.plus(COALESCING_DELAY)) == 0) {
+            ltiOutcomeReportRepository.save(new LtiOutcomeReport(participationId, now, now.plus(COALESCING_DELAY)));
+        }
+    }
+
+    /**
+     * Deliver all due reports. The next run starts two seconds after the previous run has finished, so runs on the same server instance never overlap. The queue runs on every
+     * server instance, therefore the due reports are claimed first: a report is only delivered by the run that claimed it.
+     */
+    @Scheduled(fixedDelay = 2000)
+    public void processQueue() {
+        queueDepth.set(ltiOutcomeReportRepository.count());
+        final ZonedDateTime now = now();
+        final List<Long> dueReportIds = ltiOutcomeReportRepository.findIdsOfDueReports(now, PageRequest.of(0, batchSize));
+        if (dueReportIds.isEmpty()) {
+            return;
+        }
+        final String claimToken = UUID.randomUUID().toString();
+        if (ltiOutcomeReportRepository.claim(dueReportIds, claimToken, now, now.plus(CLAIM_DURATION)) == 0) {
+            // another server instance claimed the reports in the meantime
+            return;
+        }
+        final List<LtiOutcomeReport> claimedReports = ltiOutcomeReportRepository.findAllByClaimTokenOrderByNextAttemptDateAsc(claimToken);
+
+        final List<Future<?>> deliveries = new ArrayList<>(claimedReports.size());
+        for (LtiOutcomeReport report : claimedReports) {
+            deliveries.add(executor.submit(() -> deliver(report, claimToken)));
+        }
+        for (Future<?> delivery : deliveries) {
+            try {
+                delivery.get();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (ExecutionException ex) {
+                log.error("Unexpected error while delivering LTI score report", ex);
+            }
+        }
+        queueDepth.set(ltiOutcomeReportRepository.count());
+    }
+
+    private void deliver(LtiOutcomeReport report, String claimToken) {
+        try {
+            sendLatestScore(report.getParticipationId());
+            deliveryLatency.record(Duration.between(report.getEnqueuedDate(), now()));
+            if (ltiOutcomeReportRepository.deleteIfNotEnqueuedAgain(report.getId(), report.getEnqueuedDate()) == 0) {
+                // a newer result was coalesced into the report, it is sent again when it is due
+                ltiOutcomeReportRepository.release(report.getId(), claimToken);
+            }
+        }
+        catch (Exception ex) {
+            failedDeliveries.increment();
+            final int attempts = report.getAttempts() + 1;
+            if (attempts >= maxAttempts) {
+                log.error("Reporting the score of participation {} to the LTI consumer failed {} times, the report will be dropped", report.getParticipationId(), attempts, ex);
+                if (ltiOutcomeReportRepository.deleteIfNotEnqueuedAgain(report.getId(), report.getEnqueuedDate()) == 0) {
+                    ltiOutcomeReportRepository.release(report.getId(), claimToken);
+                }
+                droppedReports.increment();
+                return;
+            }
+            final Duration retryDelay = retryDelay(attempts);
+            log.warn("Reporting the score of participation {} to the LTI consumer failed (attempt {}), retrying in {}s: {}", report.getParticipationId(), attempts,
+                    retryDelay.toSeconds(), ex.getMessage());
+            if (ltiOutcomeReportRepository.scheduleRetry(report.getId(), report.getEnqueuedDate(), attempts, now().plus(retryDelay)) == 0) {
+                ltiOutcomeReportRepository.release(report.getId(), claimToken);
+            }
+        }
+    }
+
+    /**
+     * The delay before the next attempt doubles with every failed attempt, starting with 30 seconds, up to one hour.
+     *
+     * @param attempts the number of failed attempts so far (at least 1)
+     * @return the delay before the next attempt
+     */
+    static Duration retryDelay(int attempts) {
+        final Duration retryDelay = MIN_RETRY_DELAY.multipliedBy(1L << Math.min(attempts - 1, 16));
+        return retryDelay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : retryDelay;
+    }
+
+    /**
+     * Send the latest score of the participation to the LTI consumers of all its students.
+     *
+     * @param participationId the id of the participation
+     * @throws Exception if the report could not be delivered to at least one of the LTI consumers
+     */
+    private void sendLatestScore(Long participationId) throws Exception {
+        final List<LtiOutcomeUrl> ltiOutcomeUrls = ltiOutcomeUrlRepository.findAllByParticipationId(participationId);
+        if (ltiOutcomeUrls.isEmpty()) {
+            return;
+        }
+
+        String score = "0.00";
+
+        // Get the latest result
+        Optional<Result> latestResult = resultRepository.findFirstByParticipationIdOrderByCompletionDateDesc(participationId);
+
+        if (latestResult.isPresent() && latestResult.get().getScore() != null) {
+            // LTI scores needs to be formatted as String between "0.00" and "1.00"
+            score = String.format(Locale.ROOT, "%.2f", latestResult.get().getScore().floatValue() / 100);
+        }
+
+        Exception failure = null;
+        for (LtiOutcomeUrl ltiOutcomeUrl : ltiOutcomeUrls) {
+            try {
+                sendScore(participationId, ltiOutcomeUrl, score);
+            }
+            catch (Exception ex) {
+                // try to deliver the score to the other LTI consumers nevertheless, the report is retried as a whole (which is fine as the report is idempotent)
+                failure = ex;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void sendScore(Long participationId, LtiOutcomeUrl ltiOutcomeUrl, String score) throws Exception {
+        log.info("Reporting score {} for participation {} to LTI consumer with outcome URL {} using the source id {}", score, participationId, ltiOutcomeUrl.getUrl(),
+                ltiOutcomeUrl.getSourcedId());
+        final HttpPost request = IMSPOXRequest.buildReplaceResult(ltiOutcomeUrl.getUrl(), OAUTH_KEY, OAUTH_SECRET, ltiOutcomeUrl.getSourcedId(), score, null, false);
+        final long start = System.nanoTime();
+        try {
+            // The response handler consumes the response and releases the connection back to the shared pool. It throws an HttpResponseException for error codes.
+            String responseString = pooledHttpClient.execute(request, new BasicResponseHandler());
+            connectorMetricsService.recordRequest("lti", request.getMethod(), request.getURI(), 200, System.nanoTime() - start, null);
+            log.info("Response from LTI consumer: {}", responseString);
+        }
+        catch (HttpResponseException ex) {
+            connectorMetricsService.recordRequest("lti", request.getMethod(), request.getURI(), ex.getStatusCode(), System.nanoTime() - start, null);
+            throw ex;
+        }
+        catch (Exception ex) {
+            connectorMetricsService.recordRequest("lti", request.getMethod(), request.getURI(), null, System.nanoTime() - start, ex);
+            throw ex;
+        }
+    }
+}
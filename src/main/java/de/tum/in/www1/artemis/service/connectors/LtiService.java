@@ -8,21 +8,15 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.HttpResponseException;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.BasicResponseHandler;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.imsglobal.lti.launch.LtiOauthVerifier;
 import org.imsglobal.lti.launch.LtiVerificationException;
 import org.imsglobal.lti.launch.LtiVerificationResult;
 import org.imsglobal.lti.launch.LtiVerifier;
-import org.imsglobal.pox.IMSPOXRequest;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -38,7 +32,6 @@ import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentPar
 import de.tum.in.www1.artemis.exception.ArtemisAuthenticationException;
 import de.tum.in.www1.artemis.repository.LtiOutcomeUrlRepository;
 import de.tum.in.www1.artemis.repository.LtiUserIdRepository;
-import de.tum.in.www1.artemis.repository.ResultRepository;
 import de.tum.in.www1.artemis.repository.UserRepository;
 import de.tum.in.www1.artemis.security.ArtemisAuthenticationProvider;
 import de.tum.in.www1.artemis.security.AuthoritiesConstants;
@@ -80,8 +73,6 @@ public class LtiService {
 
     private final LtiOutcomeUrlRepository ltiOutcomeUrlRepository;
 
-    private final ResultRepository resultRepository;
-
     private final ArtemisAuthenticationProvider artemisAuthenticationProvider;
 
     private final LtiUserIdRepository ltiUserIdRepository;
@@ -90,17 +81,20 @@ public class LtiService {
     // TODO Although this works, this is a bad design practice and we should move all response related code to the controller
     private final HttpServletResponse response;
 
+    private final LtiOutcomeQueueService ltiOutcomeQueueService;
+
     public final Map<String, Pair<LtiLaunchRequestDTO, Exercise>> launchRequestForSession = new HashMap<>();
 
-    public LtiService(UserService userService, UserRepository userRepository, LtiOutcomeUrlRepository ltiOutcomeUrlRepository, ResultRepository resultRepository,
-            ArtemisAuthenticationProvider artemisAuthenticationProvider, LtiUserIdRepository ltiUserIdRepository, HttpServletResponse response) {
+    public LtiService(UserService userService, UserRepository userRepository, LtiOutcomeUrlRepository ltiOutcomeUrlRepository,
+            ArtemisAuthenticationProvider artemisAuthenticationProvider, LtiUserIdRepository ltiUserIdRepository, HttpServletResponse response,
+            LtiOutcomeQueueService ltiOutcomeQueueService) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.ltiOutcomeUrlRepository = ltiOutcomeUrlRepository;
-        this.resultRepository = resultRepository;
         this.artemisAuthenticationProvider = artemisAuthenticationProvider;
         this.ltiUserIdRepository = ltiUserIdRepository;
         this.response = response;
+        this.ltiOutcomeQueueService = ltiOutcomeQueueService;
     }
 
     /**
@@ -382,42 +376,23 @@ public class LtiService {
     }
 
     /**
-     * This method is pinged on new programming exercise results. It sends an message to the LTI consumer with the new score.
+     * This method is pinged on new programming exercise results. It enqueues a report of the new score for the LTI consumers, which is sent asynchronously by the
+     * {@link LtiOutcomeQueueService}, so that the processing of new results does not wait for the LTI consumers.
      *
      * @param participation The programming exercise participation for which a new build result is available
      */
     public void onNewResult(ProgrammingExerciseStudentParticipation participation) {
-        // Get the LTI outcome URL
-        participation.getStudents().forEach(student -> {
-            ltiOutcomeUrlRepository.findByUserAndExercise(student, participation.getExercise()).ifPresent(ltiOutcomeUrl -> {
-
-                String score = "0.00";
-
-                // Get the latest result
-                Optional<Result> latestResult = resultRepository.findFirstByParticipationIdOrderByCompletionDateDesc(participation.getId());
-
-                if (latestResult.isPresent() && latestResult.get().getScore() != null) {
-                    // LTI scores needs to be formatted as String between "0.00" and "1.00"
-                    score = String.format(Locale.ROOT, "%.2f", latestResult.get().getScore().floatValue() / 100);
-                }
-
-                try {
-                    log.info("Reporting score {} for participation {} to LTI consumer with outcome URL {} using the source id {}", score, participation, ltiOutcomeUrl.getUrl(),
-                            ltiOutcomeUrl.getSourcedId());
-                    HttpPost request = IMSPOXRequest.buildReplaceResult(ltiOutcomeUrl.getUrl(), OAUTH_KEY, OAUTH_SECRET, ltiOutcomeUrl.getSourcedId(), score, null, false);
-                    HttpClient client = HttpClientBuilder.create().build();
-                    HttpResponse response = client.execute(request);
-                    String responseString = new BasicResponseHandler().handleResponse(response);
-                    log.info("Response from LTI consumer: {}", responseString);
-                    if (response.getStatusLine().getStatusCode() >= 400) {
-                        throw new HttpResponseException(response.getStatusLine().getStatusCode(), response.getStatusLine().getReasonPhrase());
-                    }
-                }
-                catch (Exception e) {
-                    log.error("Reporting to LTI consumer failed: {}", e, e);
-                }
-            });
-        });
+        // Only participations of students that started the exercise via LTI have to be reported
+        if (!ltiOutcomeUrlRepository.existsByParticipationId(participation.getId())) {
+            return;
+        }
+        try {
+            ltiOutcomeQueueService.enqueue(participation.getId());
+        }
+        catch (DataIntegrityViolationException ex) {
+            // a report for the participation was enqueued concurrently, the new result is reported with it, because the score is determined when sending the report
+            log.debug("LTI score report for participation {} is already enqueued", participation.getId());
+        }
     }
 
     /**
@@ -21,12 +21,13 @@ class RemoteArtemisServiceConnector<RequestType, ResponseType> {
 
     private final Logger log;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
 
     private final Class<ResponseType> genericResponseType;
 
-    RemoteArtemisServiceConnector(Logger log, Class<ResponseType> genericResponseType) {
+    RemoteArtemisServiceConnector(Logger log, RestTemplate restTemplate, Class<ResponseType> genericResponseType) {
         this.log = log;
+        this.restTemplate = restTemplate;
         this.genericResponseType = genericResponseType;
     }
 
@@ -6,9 +6,11 @@ import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
 
 import de.tum.in.www1.artemis.domain.TextBlock;
 import de.tum.in.www1.artemis.domain.TextEmbedding;
@@ -42,7 +44,11 @@ public class TextEmbeddingService {
     @Value("${artemis.automatic-text.secret}")
     private String API_SECRET;
 
-    private RemoteArtemisServiceConnector<Request, Response> connector = new RemoteArtemisServiceConnector<>(log, Response.class);
+    private final RemoteArtemisServiceConnector<Request, Response> connector;
+
+    public TextEmbeddingService(@Qualifier("remoteArtemisServiceRestTemplate") RestTemplate restTemplate) {
+        connector = new RemoteArtemisServiceConnector<>(log, restTemplate, Response.class);
+    }
 
     public List<TextEmbedding> embedTextBlocks(List<TextBlock> blocks) throws NetworkingError {
         return embedTextBlocks(blocks, 1);
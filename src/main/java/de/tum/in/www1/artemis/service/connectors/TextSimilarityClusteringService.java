@@ -6,9 +6,11 @@ import java.util.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
 
 import de.tum.in.www1.artemis.domain.TextCluster;
 import de.tum.in.www1.artemis.domain.TextEmbedding;
@@ -43,7 +45,11 @@ public class TextSimilarityClusteringService {
     @Value("${artemis.automatic-text.secret}")
     private String API_SECRET;
 
-    private RemoteArtemisServiceConnector<Request, Response> connector = new RemoteArtemisServiceConnector<>(log, Response.class);
+    private final RemoteArtemisServiceConnector<Request, Response> connector;
+
+    public TextSimilarityClusteringService(@Qualifier("remoteArtemisServiceRestTemplate") RestTemplate restTemplate) {
+        connector = new RemoteArtemisServiceConnector<>(log, restTemplate, Response.class);
+    }
 
     public Map<Integer, TextCluster> clusterTextBlocks(List<TextEmbedding> embeddings) throws NetworkingError {
         return clusterTextBlocks(embeddings, 1);
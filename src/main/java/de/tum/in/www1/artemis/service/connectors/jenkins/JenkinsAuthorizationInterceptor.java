@@ -11,6 +11,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Component;
@@ -34,6 +35,12 @@ public class JenkinsAuthorizationInterceptor implements ClientHttpRequestInterce
     @Value("${jenkins.use-crumb:#{true}}")
     private boolean useCrumb;
 
+    private final RestTemplate crumbRestTemplate;
+
+    public JenkinsAuthorizationInterceptor(ClientHttpRequestFactory pooledClientHttpRequestFactory) {
+        this.crumbRestTemplate = new RestTemplate(pooledClientHttpRequestFactory);
+    }
+
     @NotNull
     @Override
     public ClientHttpResponse intercept(HttpRequest request, @NotNull byte[] body, ClientHttpRequestExecution execution) throws IOException {
@@ -50,7 +57,7 @@ public class JenkinsAuthorizationInterceptor implements ClientHttpRequestInterce
         headers.setBasicAuth(username, password);
         final var entity = new HttpEntity<>(headers);
 
-        final var response = new RestTemplate().exchange(jenkinsURL.toString() + "/crumbIssuer/api/json", HttpMethod.GET, entity, JsonNode.class);
+        final var response = crumbRestTemplate.exchange(jenkinsURL.toString() + "/crumbIssuer/api/json", HttpMethod.GET, entity, JsonNode.class);
         final var sessionId = response.getHeaders().get("Set-Cookie").get(0);
         headersToAuthenticate.add("Jenkins-Crumb", response.getBody().get("crumb").asText());
         headersToAuthenticate.add("Cookie", sessionId);
@@ -26,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.*;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
@@ -204,11 +205,8 @@ public class JenkinsService implements ContinuousIntegrationService {
     @Override
     public Result onBuildCompletedNew(ProgrammingExerciseParticipation participation, Object requestBody) {
         final var report = TestResultsDTO.convert(requestBody);
-        final var latestPendingSubmission = programmingSubmissionRepository.findByParticipationIdAndResultIsNullOrderBySubmissionDateDesc(participation.getId()).stream()
-                .filter(submission -> {
-                    final var commitHash = getCommitHash(report, submission.getType());
-                    return commitHash.isPresent() && submission.getCommitHash().equals(commitHash.get());
-                }).findFirst();
+        final var latestPendingSubmission = programmingSubmissionRepository.findPendingByParticipationIdAndCommitHash(participation.getId(),
+                getCommitHash(report, SubmissionType.MANUAL).orElse(null), getCommitHash(report, SubmissionType.TEST).orElse(null), PageRequest.of(0, 1)).stream().findFirst();
         final var result = createResultFromBuildResult(report, (Participation) participation);
         final ProgrammingSubmission submission;
         submission = latestPendingSubmission.orElseGet(() -> createFallbackSubmission(participation, report));
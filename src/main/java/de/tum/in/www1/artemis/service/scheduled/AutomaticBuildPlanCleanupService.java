@@ -1,23 +1,32 @@
 package de.tum.in.www1.artemis.service.scheduled;
 
-import static de.tum.in.www1.artemis.config.Constants.EXTERNAL_SYSTEM_REQUEST_BATCH_SIZE;
-import static de.tum.in.www1.artemis.config.Constants.EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS;
 import static java.time.ZonedDateTime.now;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
-import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import de.tum.in.www1.artemis.domain.Result;
+import de.tum.in.www1.artemis.domain.BuildPlanCleanupRun;
 import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
+import de.tum.in.www1.artemis.repository.BuildPlanCleanupRunRepository;
 import de.tum.in.www1.artemis.repository.ProgrammingExerciseStudentParticipationRepository;
 import de.tum.in.www1.artemis.service.ParticipationService;
+import de.tum.in.www1.artemis.service.util.TokenBucket;
 import io.github.jhipster.config.JHipsterConstants;
 
 @Service
@@ -25,17 +34,108 @@ public class AutomaticBuildPlanCleanupService {
 
     private static final Logger log = LoggerFactory.getLogger(AutomaticBuildPlanCleanupService.class);
 
+    /**
+     * Limit to 2000 deletions per night
+     */
+    private static final int MAX_CLEANUPS_PER_RUN = 2000;
+
+    /**
+     * An interrupted run is only resumed on startup if it was started less than 12 hours ago, otherwise the next nightly run takes over.
+     */
+    private static final long RESUME_INTERRUPTED_RUN_HOURS = 12;
+
+    @Value("${artemis.continuous-integration.build-plan-cleanup.page-size:100}")
+    private int pageSize;
+
+    @Value("${artemis.continuous-integration.build-plan-cleanup.concurrency:4}")
+    private int concurrency;
+
+    @Value("${artemis.continuous-integration.build-plan-cleanup.rate-per-second:10}")
+    private double ratePerSecond;
+
     private final Environment env;
 
     private final ProgrammingExerciseStudentParticipationRepository programmingExerciseStudentParticipationRepository;
 
+    private final BuildPlanCleanupRunRepository buildPlanCleanupRunRepository;
+
     private final ParticipationService participationService;
 
+    private final Executor taskExecutor;
+
+    /**
+     * Prevents that a resumed run and the nightly run clean up the build plans of this server at the same time.
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private ExecutorService executor;
+
+    private TokenBucket rateLimiter;
+
     public AutomaticBuildPlanCleanupService(Environment env, ProgrammingExerciseStudentParticipationRepository programmingExerciseStudentParticipationRepository,
-            ParticipationService participationService) {
+            BuildPlanCleanupRunRepository buildPlanCleanupRunRepository, ParticipationService participationService, @Qualifier("taskExecutor") Executor taskExecutor) {
         this.env = env;
         this.programmingExerciseStudentParticipationRepository = programmingExerciseStudentParticipationRepository;
+        this.buildPlanCleanupRunRepository = buildPlanCleanupRunRepository;
         this.participationService = participationService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Create the threads that delete the build plans.
+     */
+    @PostConstruct
+    public void init() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final Thread thread = new Thread(runnable, "build-plan-cleanup-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        rateLimiter = new TokenBucket(ratePerSecond, concurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Resume a run that was interrupted (e.g. because the server was restarted during the run) in the background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void applicationReady() {
+        if (!isProductionServer()) {
+            return;
+        }
+        resumeInterruptedRun();
+    }
+
+    /**
+     * Every server of a cluster finds the interrupted run on startup. Only the server that closes the interrupted run continues it in a new run, all others leave it alone.
+     */
+    void resumeInterruptedRun() {
+        buildPlanCleanupRunRepository.findFirstByEndDateIsNullOrderByStartDateDesc().ifPresent(run -> {
+            if (!run.getStartDate().plusHours(RESUME_INTERRUPTED_RUN_HOURS).isAfter(now())) {
+                finish(run);
+                return;
+            }
+            if (buildPlanCleanupRunRepository.finishIfRunning(run.getId(), now()) == 0) {
+                log.debug("The interrupted build plan cleanup {} is resumed by another server", run);
+                return;
+            }
+            final BuildPlanCleanupRun resumedRun = new BuildPlanCleanupRun(run.getStartDate());
+            resumedRun.setLastParticipationId(run.getLastParticipationId());
+            resumedRun.setCleanedBuildPlans(run.getCleanedBuildPlans());
+            resumedRun.setFailedBuildPlans(run.getFailedBuildPlans());
+            log.info("Resume interrupted build plan cleanup {}", run);
+            final BuildPlanCleanupRun savedRun = buildPlanCleanupRunRepository.save(resumedRun);
+            taskExecutor.execute(() -> {
+                if (!runExclusively(() -> cleanupBuildPlans(savedRun))) {
+                    finish(savedRun);
+                }
+            });
+        });
     }
 
     /**
@@ -43,118 +143,125 @@ public class AutomaticBuildPlanCleanupService {
      */
     @Scheduled(cron = "0 0 3 * * *") // execute this every night at 3:00:00 am
     public void cleanupBuildPlans() {
-        Collection<String> activeProfiles = Arrays.asList(env.getActiveProfiles());
-        if (!activeProfiles.contains(JHipsterConstants.SPRING_PROFILE_PRODUCTION)) {
-            // only execute this on production server, i.e. when the prod profile is active
-            // NOTE: if you want to test this locally, please comment it out, but do not commit the changes
+        if (!isProductionServer()) {
             return;
         }
+        runExclusively(() -> {
+            // an interrupted run that was not resumed is superseded by the new run, which processes all participations again
+            buildPlanCleanupRunRepository.findFirstByEndDateIsNullOrderByStartDateDesc().ifPresent(this::finish);
+            cleanupBuildPlans(buildPlanCleanupRunRepository.save(new BuildPlanCleanupRun(now())));
+        });
+    }
 
-        long start = System.currentTimeMillis();
-        log.info("Find build plans for potential cleanup");
-
-        long countAfter1DayAfterBuildAndTestStudentSubmissionsAfterDueDate = 0;
-        long countNoResultAfter7Days = 0;
-        long countSuccessfulLatestResultAfter3Days = 0;
-        long countUnsuccessfulLatestResultAfter7Days = 0;
-
-        List<ProgrammingExerciseStudentParticipation> allParticipationsWithBuildPlanId = programmingExerciseStudentParticipationRepository.findAllWithBuildPlanId();
-        Set<ProgrammingExerciseStudentParticipation> participationsWithBuildPlanToDelete = new HashSet<>();
+    /**
+     * Executes the cleanup unless another cleanup is still running on this server.
+     *
+     * @param cleanup the cleanup to execute
+     * @return false if the cleanup was skipped
+     */
+    private boolean runExclusively(Runnable cleanup) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Skip the build plan cleanup, because another build plan cleanup is still running");
+            return false;
+        }
+        try {
+            cleanup.run();
+            return true;
+        }
+        finally {
+            running.set(false);
+        }
+    }
 
-        for (ProgrammingExerciseStudentParticipation participation : allParticipationsWithBuildPlanId) {
+    /**
+     * Scans the participations with build plans that can be cleaned up page by page (the cleanup conditions are evaluated in the database) and deletes their build plans in
+     * parallel. The progress is stored after each page, so that the run can be resumed after the last completed page.
+     *
+     * @param run the run to execute or resume
+     */
+    void cleanupBuildPlans(BuildPlanCleanupRun run) {
+        long start = System.currentTimeMillis();
+        log.info("Find build plans for cleanup, starting after participation {}", run.getLastParticipationId());
 
-            if (participation.getBuildPlanId() == null) {
-                // already cleaned up
-                continue;
+        while (run.getCleanedBuildPlans() + run.getFailedBuildPlans() < MAX_CLEANUPS_PER_RUN) {
+            final int limit = Math.min(pageSize, MAX_CLEANUPS_PER_RUN - run.getCleanedBuildPlans() - run.getFailedBuildPlans());
+            final List<ProgrammingExerciseStudentParticipation> participations = programmingExerciseStudentParticipationRepository
+                    .findNextWithBuildPlanToCleanup(run.getLastParticipationId(), now(), PageRequest.of(0, limit));
+            if (participations.isEmpty()) {
+                break;
             }
-            if (participation.getParticipant() == null) {
-                // we only want to clean up build plans of students or teams (NOT template or solution build plans)
-                continue;
+            final int cleaned = cleanupPage(participations);
+            if (Thread.currentThread().isInterrupted()) {
+                // the server is shutting down, the run will be resumed after the restart with this page (cleaned build plans are not found again)
+                return;
             }
+            run.setCleanedBuildPlans(run.getCleanedBuildPlans() + cleaned);
+            run.setFailedBuildPlans(run.getFailedBuildPlans() + participations.size() - cleaned);
+            run.setLastParticipationId(participations.get(participations.size() - 1).getId());
+            buildPlanCleanupRunRepository.save(run);
+        }
 
-            if (participation.getProgrammingExercise() != null && Hibernate.isInitialized(participation.getProgrammingExercise())) {
-                var programmingExercise = participation.getProgrammingExercise();
+        finish(run);
+        log.info(run.getCleanedBuildPlans() + " build plans have been cleaned and " + run.getFailedBuildPlans() + " build plans could not be cleaned in "
+                + (System.currentTimeMillis() - start) + " ms execution time");
+    }
 
-                if (programmingExercise.getBuildAndTestStudentSubmissionsAfterDueDate() != null) {
-                    if (programmingExercise.getBuildAndTestStudentSubmissionsAfterDueDate().isAfter(now())) {
-                        // we don't clean up plans that will definitely be executed in the future
-                        continue;
+    /**
+     * Delete the build plans of one page in parallel and wait until all of them are deleted.
+     *
+     * @param participations the participations with build plans to clean up
+     * @return the number of cleaned build plans
+     */
+    private int cleanupPage(List<ProgrammingExerciseStudentParticipation> participations) {
+        final AtomicInteger cleaned = new AtomicInteger();
+        final List<Future<?>> cleanups = new ArrayList<>(participations.size());
+        for (ProgrammingExerciseStudentParticipation participation : participations) {
+            try {
+                cleanups.add(executor.submit(() -> {
+                    try {
+                        rateLimiter.acquire();
+                        log.debug("Cleanup build plan {} of participation {}", participation.getBuildPlanId(), participation.getId());
+                        participationService.cleanupBuildPlan(participation);
+                        cleaned.incrementAndGet();
                     }
-
-                    // 1st case: delete the build plan 1 day after the build and test student submissions after due date, because then no builds should be executed any more
-                    // and the students repos will be locked anyways.
-                    if (programmingExercise.getBuildAndTestStudentSubmissionsAfterDueDate().plusDays(1).isBefore(now())) {
-                        participationsWithBuildPlanToDelete.add(participation);
-                        countAfter1DayAfterBuildAndTestStudentSubmissionsAfterDueDate++;
-                        continue;
+                    catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
                     }
-                }
-
-                if (programmingExercise.isPublishBuildPlanUrl() == Boolean.TRUE) {
-                    // this was an exercise where students needed to configure the build plan, therefore we should not clean it up
-                    continue;
-                }
-            }
-
-            Result result = participation.findLatestResult();
-            // 2nd case: delete the build plan 7 days after the participation was initialized in case there is no result
-            if (result == null) {
-                if (participation.getInitializationDate() != null && participation.getInitializationDate().plusDays(7).isBefore(now())) {
-                    participationsWithBuildPlanToDelete.add(participation);
-                    countNoResultAfter7Days++;
-                }
-            }
-            else {
-                // 3rd case: delete the build plan after 3 days in case the latest result is successful
-                if (result.isSuccessful()) {
-                    if (result.getCompletionDate() != null && result.getCompletionDate().plusDays(3).isBefore(now())) {
-                        participationsWithBuildPlanToDelete.add(participation);
-                        countSuccessfulLatestResultAfter3Days++;
-                    }
-                }
-                // 4th case: delete the build plan after 7 days in case the latest result is NOT successful
-                else {
-                    if (result.getCompletionDate() != null && result.getCompletionDate().plusDays(7).isBefore(now())) {
-                        participationsWithBuildPlanToDelete.add(participation);
-                        countUnsuccessfulLatestResultAfter7Days++;
+                    catch (Exception ex) {
+                        log.error("Could not cleanup build plan in participation " + participation.getId(), ex);
                     }
-                }
+                }));
             }
-        }
-
-        log.info("Found " + allParticipationsWithBuildPlanId.size() + " participations with build plans in " + (System.currentTimeMillis() - start) + " ms execution time");
-        log.info("Found " + participationsWithBuildPlanToDelete.size() + " old build plans to delete");
-        log.info("  Found " + countAfter1DayAfterBuildAndTestStudentSubmissionsAfterDueDate + " build plans at least 1 day older than 'build and test submissions after due date");
-        log.info("  Found " + countNoResultAfter7Days + " build plans without results 7 days after initialization");
-        log.info("  Found " + countSuccessfulLatestResultAfter3Days + " build plans with successful latest result is older than 3 days");
-        log.info("  Found " + countUnsuccessfulLatestResultAfter7Days + " build plans with unsuccessful latest result is older than 7 days");
-
-        // Limit to 2000 deletions per night
-        List<ProgrammingExerciseStudentParticipation> actualParticipationsToClean = participationsWithBuildPlanToDelete.stream().limit(2000).collect(Collectors.toList());
-        List<String> buildPlanIds = actualParticipationsToClean.stream().map(ProgrammingExerciseStudentParticipation::getBuildPlanId).collect(Collectors.toList());
-        log.info("Build plans to cleanup: " + buildPlanIds);
-
-        int index = 0;
-        for (ProgrammingExerciseStudentParticipation participation : actualParticipationsToClean) {
-            if (index > 0 && index % EXTERNAL_SYSTEM_REQUEST_BATCH_SIZE == 0) {
-                try {
-                    log.info("Sleep for {}s during cleanupBuildPlans", EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS / 1000);
-                    Thread.sleep(EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS);
-                }
-                catch (InterruptedException ex) {
-                    log.error("Exception encountered when pausing before cleaning up build plans", ex);
-                }
+            catch (RejectedExecutionException ex) {
+                // the server is shutting down
+                Thread.currentThread().interrupt();
+                break;
             }
-
+        }
+        for (Future<?> cleanup : cleanups) {
             try {
-                participationService.cleanupBuildPlan(participation);
+                cleanup.get();
             }
-            catch (Exception ex) {
-                log.error("Could not cleanup build plan in participation " + participation.getId(), ex);
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch (ExecutionException ex) {
+                log.error("Unexpected error while cleaning up build plans", ex);
             }
-
-            index++;
         }
-        log.info(actualParticipationsToClean.size() + " build plans have been cleaned");
+        return cleaned.get();
+    }
+
+    private void finish(BuildPlanCleanupRun run) {
+        run.setEndDate(now());
+        buildPlanCleanupRunRepository.save(run);
+    }
+
+    private boolean isProductionServer() {
+        Collection<String> activeProfiles = Arrays.asList(env.getActiveProfiles());
+        // only execute this on production server, i.e. when the prod profile is active
+        // NOTE: if you want to test this locally, please comment it out, but do not commit the changes
+        return activeProfiles.contains(JHipsterConstants.SPRING_PROFILE_PRODUCTION);
     }
 }
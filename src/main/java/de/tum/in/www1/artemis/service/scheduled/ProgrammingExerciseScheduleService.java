@@ -1,8 +1,5 @@
 package de.tum.in.www1.artemis.service.scheduled;
 
-import static de.tum.in.www1.artemis.config.Constants.EXTERNAL_SYSTEM_REQUEST_BATCH_SIZE;
-import static de.tum.in.www1.artemis.config.Constants.EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS;
-
 import java.time.ZonedDateTime;
 import java.util.*;
 
@@ -18,11 +15,11 @@ import de.tum.in.www1.artemis.config.Constants;
 import de.tum.in.www1.artemis.domain.ProgrammingExercise;
 import de.tum.in.www1.artemis.domain.enumeration.ExerciseLifecycle;
 import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
-import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
 import de.tum.in.www1.artemis.repository.ProgrammingExerciseRepository;
+import de.tum.in.www1.artemis.repository.ProgrammingExerciseStudentParticipationRepository;
 import de.tum.in.www1.artemis.security.SecurityUtils;
 import de.tum.in.www1.artemis.service.*;
-import de.tum.in.www1.artemis.service.connectors.VersionControlService;
+import de.tum.in.www1.artemis.service.RepositoryLockService.RepositoryLockResult;
 import de.tum.in.www1.artemis.web.rest.errors.EntityNotFoundException;
 import io.github.jhipster.config.JHipsterConstants;
 
@@ -41,15 +38,19 @@ public class ProgrammingExerciseScheduleService implements IExerciseScheduleServ
 
     private final GroupNotificationService groupNotificationService;
 
-    private final Optional<VersionControlService> versionControlService;
+    private final ProgrammingExerciseStudentParticipationRepository studentParticipationRepository;
+
+    private final RepositoryLockService repositoryLockService;
 
     public ProgrammingExerciseScheduleService(ScheduleService scheduleService, ProgrammingExerciseRepository programmingExerciseRepository, Environment env,
-            ProgrammingSubmissionService programmingSubmissionService, GroupNotificationService groupNotificationService, Optional<VersionControlService> versionControlService) {
+            ProgrammingSubmissionService programmingSubmissionService, GroupNotificationService groupNotificationService,
+            ProgrammingExerciseStudentParticipationRepository studentParticipationRepository, RepositoryLockService repositoryLockService) {
         this.scheduleService = scheduleService;
         this.programmingExerciseRepository = programmingExerciseRepository;
         this.programmingSubmissionService = programmingSubmissionService;
         this.groupNotificationService = groupNotificationService;
-        this.versionControlService = versionControlService;
+        this.studentParticipationRepository = studentParticipationRepository;
+        this.repositoryLockService = repositoryLockService;
         this.env = env;
     }
 
@@ -113,21 +114,23 @@ public class ProgrammingExerciseScheduleService implements IExerciseScheduleServ
         return () -> {
             SecurityUtils.setAuthorizationObject();
             try {
-                List<ProgrammingExerciseStudentParticipation> failedLockOperations = removeWritePermissionsFromAllStudentRepositories(programmingExerciseId);
+                RepositoryLockResult lockResult = removeWritePermissionsFromAllStudentRepositories(programmingExerciseId);
 
                 // We sent a notification to the instructor about the success of the repository locking operation.
-                long numberOfFailedLockOperations = failedLockOperations.size();
+                long numberOfFailedLockOperations = lockResult.getFailedParticipations().size();
                 Optional<ProgrammingExercise> programmingExercise = programmingExerciseRepository.findWithTemplateParticipationAndSolutionParticipationById(programmingExerciseId);
                 if (programmingExercise.isEmpty()) {
                     throw new EntityNotFoundException("programming exercise not found with id " + programmingExerciseId);
                 }
+                String lockLatency = String.format(Locale.ROOT, Constants.PROGRAMMING_EXERCISE_LOCK_LATENCY_NOTIFICATION, lockResult.getLockedRepositories(),
+                        lockResult.getLatency().toMillis() / 1000.0);
                 if (numberOfFailedLockOperations > 0) {
                     groupNotificationService.notifyInstructorGroupAboutExerciseUpdate(programmingExercise.get(),
-                            Constants.PROGRAMMING_EXERCISE_FAILED_LOCK_OPERATIONS_NOTIFICATION + failedLockOperations.size());
+                            Constants.PROGRAMMING_EXERCISE_FAILED_LOCK_OPERATIONS_NOTIFICATION + numberOfFailedLockOperations + ". " + lockLatency);
                 }
                 else {
                     groupNotificationService.notifyInstructorGroupAboutExerciseUpdate(programmingExercise.get(),
-                            Constants.PROGRAMMING_EXERCISE_SUCCESSFUL_LOCK_OPERATION_NOTIFICATION);
+                            Constants.PROGRAMMING_EXERCISE_SUCCESSFUL_LOCK_OPERATION_NOTIFICATION + " " + lockLatency);
                 }
             }
             catch (EntityNotFoundException ex) {
@@ -140,46 +143,20 @@ public class ProgrammingExerciseScheduleService implements IExerciseScheduleServ
      * Remove the write permissions for all students for their programming exercise repository.
      * They will still be able to read the code, but won't be able to change it.
      *
-     * Requests are executed in batches so that the VCS is not overloaded with requests.
+     * The requests are sent in parallel, but rate limited so that the VCS is not overloaded with requests (see {@link RepositoryLockService}).
      *
      * @param programmingExerciseId     ProgrammingExercise id.
-     * @return a list of participations for which the locking operation has failed. If everything went as expected, this should be an empty list.
+     * @return the participations for which the locking operation has failed (if everything went as expected, this should be an empty list) and the lock latency.
      * @throws EntityNotFoundException  if the programming exercise can't be found.
      */
-    public List<ProgrammingExerciseStudentParticipation> removeWritePermissionsFromAllStudentRepositories(Long programmingExerciseId) throws EntityNotFoundException {
+    public RepositoryLockResult removeWritePermissionsFromAllStudentRepositories(Long programmingExerciseId) throws EntityNotFoundException {
         log.info("Invoking scheduled task 'remove write permissions from all student repositories' for programming exercise with id " + programmingExerciseId + ".");
 
-        Optional<ProgrammingExercise> programmingExercise = programmingExerciseRepository.findWithEagerStudentParticipationsById(programmingExerciseId);
+        Optional<ProgrammingExercise> programmingExercise = programmingExerciseRepository.findById(programmingExerciseId);
         if (programmingExercise.isEmpty()) {
             throw new EntityNotFoundException("programming exercise not found with id " + programmingExerciseId);
         }
-        List<ProgrammingExerciseStudentParticipation> failedLockOperations = new LinkedList<>();
-
-        int index = 0;
-        for (StudentParticipation studentParticipation : programmingExercise.get().getStudentParticipations()) {
-            // Execute requests in batches instead all at once.
-            if (index > 0 && index % EXTERNAL_SYSTEM_REQUEST_BATCH_SIZE == 0) {
-                try {
-                    log.info("Sleep for {}s during removeWritePermissionsFromAllStudentRepositories", EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS / 1000);
-                    Thread.sleep(EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS);
-                }
-                catch (InterruptedException ex) {
-                    log.error("Exception encountered when pausing before locking the student repositories for exercise " + programmingExerciseId, ex);
-                }
-            }
-
-            ProgrammingExerciseStudentParticipation programmingExerciseStudentParticipation = (ProgrammingExerciseStudentParticipation) studentParticipation;
-            try {
-                versionControlService.get().setRepositoryPermissionsToReadOnly(programmingExerciseStudentParticipation.getRepositoryUrlAsUrl(),
-                        programmingExercise.get().getProjectKey(), programmingExerciseStudentParticipation.getStudents());
-            }
-            catch (Exception e) {
-                log.error("Removing write permissions failed for programming exercise with id " + programmingExerciseId + " for student repository with participation id "
-                        + studentParticipation.getId() + ": " + e.getMessage());
-                failedLockOperations.add(programmingExerciseStudentParticipation);
-            }
-            index++;
-        }
-        return failedLockOperations;
+        List<ProgrammingExerciseStudentParticipation> participations = studentParticipationRepository.findAllWithStudentsByExerciseId(programmingExerciseId);
+        return repositoryLockService.lockStudentRepositories(programmingExercise.get(), participations);
     }
 }
@@ -0,0 +1,50 @@
+package de.tum.in.www1.artemis.service.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter for requests to external systems: the bucket holds up to burst tokens and is refilled with the given rate, every request takes one token.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+
+    private final double tokensPerNano;
+
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    /**
+     * @param ratePerSecond the number of requests per second in the long run
+     * @param burst the number of requests that can be made at once after a pause
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Take one token, wait until a token is available if the bucket is empty.
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            final long waitNanos;
+            synchronized (this) {
+                final long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+                lastRefillNanos = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -20,9 +20,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.boot.actuate.audit.AuditEventRepository;
 import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import de.tum.in.www1.artemis.config.Constants;
 import de.tum.in.www1.artemis.domain.*;
@@ -102,12 +107,20 @@ public class CourseResource {
 
     private final Environment env;
 
+    private final ExerciseAssessmentCountersService exerciseAssessmentCountersService;
+
+    private final CourseDashboardCacheService courseDashboardCacheService;
+
+    private final CourseScoreMatrixService courseScoreMatrixService;
+
     public CourseResource(UserService userService, CourseService courseService, ParticipationService participationService, CourseRepository courseRepository,
             ExerciseService exerciseService, AuthorizationCheckService authCheckService, TutorParticipationService tutorParticipationService, Environment env,
             ArtemisAuthenticationProvider artemisAuthenticationProvider, ComplaintRepository complaintRepository, ComplaintResponseRepository complaintResponseRepository,
             LectureService lectureService, NotificationService notificationService, SubmissionService submissionService, ResultService resultService,
             ComplaintService complaintService, TutorLeaderboardService tutorLeaderboardService, ExampleSubmissionRepository exampleSubmissionRepository,
-            ProgrammingExerciseService programmingExerciseService, AuditEventRepository auditEventRepository, Optional<VcsUserManagementService> vcsUserManagementService) {
+            ProgrammingExerciseService programmingExerciseService, AuditEventRepository auditEventRepository, Optional<VcsUserManagementService> vcsUserManagementService,
+            ExerciseAssessmentCountersService exerciseAssessmentCountersService, CourseDashboardCacheService courseDashboardCacheService,
+            CourseScoreMatrixService courseScoreMatrixService) {
         this.userService = userService;
         this.courseService = courseService;
         this.participationService = participationService;
@@ -129,6 +142,9 @@ public class CourseResource {
         this.vcsUserManagementService = vcsUserManagementService;
         this.auditEventRepository = auditEventRepository;
         this.env = env;
+        this.exerciseAssessmentCountersService = exerciseAssessmentCountersService;
+        this.courseDashboardCacheService = courseDashboardCacheService;
+        this.courseScoreMatrixService = courseScoreMatrixService;
     }
 
     /**
@@ -411,15 +427,27 @@ public class CourseResource {
     /**
      * GET /courses/for-dashboard
      *
-     * @return the list of courses (the user has access to) including all exercises with participation and result for the user
+     * @param ifNoneMatch the ETag of the dashboard the client already has, if any
+     * @return the list of courses (the user has access to) including all exercises with participation and result for the user, or 304 (Not Modified) if the client already
+     *         has the current dashboard
      */
     @GetMapping("/courses/for-dashboard")
     @PreAuthorize("hasAnyRole('USER', 'TA', 'INSTRUCTOR', 'ADMIN')")
-    public List<Course> getAllCoursesForDashboard() {
-        long start = System.currentTimeMillis();
+    public ResponseEntity<byte[]> getAllCoursesForDashboard(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("REST request to get all Courses the user has access to with exercises, participations and results");
-        log.debug("/courses/for-dashboard.start");
         User user = userService.getUserWithGroupsAndAuthorities();
+        CourseDashboardCacheService.CachedDashboard dashboard = courseDashboardCacheService.getDashboard(user, () -> loadCoursesForDashboard(user));
+        // the dashboard contains personal data, so it must only be cached by the browser and always be revalidated
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (dashboard.isNotModified(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(dashboard.getETag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(dashboard.getETag()).cacheControl(cacheControl).body(dashboard.getJson());
+    }
+
+    private List<Course> loadCoursesForDashboard(User user) {
+        long start = System.currentTimeMillis();
+        log.debug("/courses/for-dashboard.start");
 
         // get all courses with exercises for this user
         List<Course> courses = courseService.findAllActiveWithExercisesAndLecturesForUser(user);
@@ -444,14 +472,15 @@ public class CourseResource {
         List<StudentParticipation> teamParticipations = participationService.findByStudentIdAndTeamExercisesWithEagerSubmissionsResult(user.getId(), activeTeamExercises);
         log.debug("          /courses/for-dashboard.findByStudentIdAndTeamExercisesWithEagerSubmissionsResult in " + (System.currentTimeMillis() - start) + "ms");
 
-        // 3rd: merge both into one list for further processing
-        List<StudentParticipation> participations = Stream.concat(individualParticipations.stream(), teamParticipations.stream()).collect(Collectors.toList());
+        // 3rd: merge both and index them by exercise, so that each exercise only looks at its own participations
+        Map<Long, List<StudentParticipation>> participationsPerExercise = Stream.concat(individualParticipations.stream(), teamParticipations.stream())
+                .collect(Collectors.groupingBy(participation -> participation.getExercise().getId()));
 
         for (Course course : courses) {
             boolean isStudent = !authCheckService.isAtLeastTeachingAssistantInCourse(course, user);
             for (Exercise exercise : course.getExercises()) {
                 // add participation with submission and result to each exercise
-                exercise.filterForCourseDashboard(participations, user.getLogin(), isStudent);
+                exercise.filterForCourseDashboard(participationsPerExercise.getOrDefault(exercise.getId(), List.of()), user.getLogin(), isStudent);
                 // remove sensitive information from the exercise for students
                 if (isStudent) {
                     exercise.filterSensitiveInformation();
@@ -484,26 +513,22 @@ public class CourseResource {
         course.setExercises(interestingExercises);
 
         List<TutorParticipation> tutorParticipations = tutorParticipationService.findAllByCourseAndTutor(course, user);
+        Map<Long, ExerciseAssessmentCounters> counters = exerciseAssessmentCountersService.getCounters(interestingExercises);
+        Set<Long> exerciseIds = interestingExercises.stream().map(Exercise::getId).collect(Collectors.toSet());
+        // Do not provide example submissions without any assessment
+        Map<Long, Set<ExampleSubmission>> exampleSubmissions = exerciseIds.isEmpty() ? Map.of()
+                : exampleSubmissionRepository.findAllWithResultByExerciseIdIn(exerciseIds).stream()
+                        .collect(Collectors.groupingBy(exampleSubmission -> exampleSubmission.getExercise().getId(), Collectors.toSet()));
 
         for (Exercise exercise : interestingExercises) {
-            long numberOfSubmissions;
-            if (exercise instanceof ProgrammingExercise) {
-                numberOfSubmissions = programmingExerciseService.countSubmissionsByExerciseIdSubmitted(exercise.getId());
-            }
-            else {
-                numberOfSubmissions = submissionService.countSubmissionsForExercise(exercise.getId());
-            }
-            final long numberOfAssessments = resultService.countNumberOfFinishedAssessmentsForExercise(exercise.getId());
-
-            exerciseService.calculateNrOfOpenComplaints(exercise);
-
-            exercise.setNumberOfParticipations(numberOfSubmissions);
-            exercise.setNumberOfAssessments(numberOfAssessments);
-
-            List<ExampleSubmission> exampleSubmissions = this.exampleSubmissionRepository.findAllByExerciseId(exercise.getId());
-            // Do not provide example submissions without any assessment
-            exampleSubmissions.removeIf(exampleSubmission -> exampleSubmission.getSubmission() == null || exampleSubmission.getSubmission().getResult() == null);
-            exercise.setExampleSubmissions(new HashSet<>(exampleSubmissions));
+            ExerciseAssessmentCounters exerciseCounters = counters.get(exercise.getId());
+            exercise.setNumberOfParticipations(exerciseCounters.getNumberOfSubmissions());
+            exercise.setNumberOfAssessments(exerciseCounters.getNumberOfAssessments());
+            exercise.setNumberOfComplaints(exerciseCounters.getNumberOfComplaints());
+            exercise.setNumberOfOpenComplaints(exerciseCounters.getNumberOfOpenComplaints());
+            exercise.setNumberOfMoreFeedbackRequests(exerciseCounters.getNumberOfMoreFeedbackRequests());
+            exercise.setNumberOfOpenMoreFeedbackRequests(exerciseCounters.getNumberOfOpenMoreFeedbackRequests());
+            exercise.setExampleSubmissions(new HashSet<>(exampleSubmissions.getOrDefault(exercise.getId(), Set.of())));
 
             TutorParticipation tutorParticipation = tutorParticipations.stream().filter(participation -> participation.getAssessedExercise().getId().equals(exercise.getId()))
                     .findFirst().orElseGet(() -> {
@@ -613,28 +638,41 @@ public class CourseResource {
         Set<Exercise> interestingExercises = course.getInterestingExercisesForAssessmentDashboards();
         course.setExercises(interestingExercises);
 
+        Map<Long, ExerciseAssessmentCounters> counters = exerciseAssessmentCountersService.getCounters(interestingExercises);
         for (Exercise exercise : interestingExercises) {
-            long numberOfSubmissions;
-            if (exercise instanceof ProgrammingExercise) {
-                numberOfSubmissions = programmingExerciseService.countSubmissionsByExerciseIdSubmitted(exercise.getId());
-            }
-            else {
-                numberOfSubmissions = submissionService.countSubmissionsForExercise(exercise.getId());
-            }
-            final long numberOfAssessments = resultService.countNumberOfFinishedAssessmentsForExercise(exercise.getId());
-            final long numberOfMoreFeedbackRequests = complaintService.countMoreFeedbackRequestsByExerciseId(exercise.getId());
-            final long numberOfComplaints = complaintService.countComplaintsByExerciseId(exercise.getId());
-
-            exercise.setNumberOfParticipations(numberOfSubmissions);
-            exercise.setNumberOfAssessments(numberOfAssessments);
-            exercise.setNumberOfComplaints(numberOfComplaints);
-            exercise.setNumberOfMoreFeedbackRequests(numberOfMoreFeedbackRequests);
+            ExerciseAssessmentCounters exerciseCounters = counters.get(exercise.getId());
+            exercise.setNumberOfParticipations(exerciseCounters.getNumberOfSubmissions());
+            exercise.setNumberOfAssessments(exerciseCounters.getNumberOfAssessments());
+            exercise.setNumberOfComplaints(exerciseCounters.getNumberOfComplaints());
+            exercise.setNumberOfMoreFeedbackRequests(exerciseCounters.getNumberOfMoreFeedbackRequests());
         }
         long end = System.currentTimeMillis();
         log.info("Finished /courses/" + courseId + "/with-exercises-and-relevant-participations call in " + (end - start) + "ms");
         return ResponseUtil.wrapOrNotFound(Optional.of(course));
     }
 
+    /**
+     * GET /courses/:courseId/scores : get the scores of all students of the course as CSV, one row per student and one column per exercise with the score of the latest rated
+     * result in percent
+     *
+     * @param courseId the id of the course
+     * @return the ResponseEntity with status 200 (OK) and the scores as CSV in body
+     * @throws AccessForbiddenException if the current user doesn't have the permission to access the course
+     */
+    @GetMapping(value = "/courses/{courseId}/scores", produces = "text/csv")
+    @PreAuthorize("hasAnyRole('INSTRUCTOR', 'ADMIN')")
+    public ResponseEntity<StreamingResponseBody> getCourseScores(@PathVariable Long courseId) throws AccessForbiddenException {
+        log.debug("REST request to get the scores of Course : {}", courseId);
+        Course course = courseService.findOne(courseId);
+        User user = userService.getUserWithGroupsAndAuthorities();
+        if (!authCheckService.isAtLeastInstructorInCourse(course, user)) {
+            throw new AccessForbiddenException("You are not allowed to access this resource");
+        }
+        CourseScoreMatrixService.ScoreMatrixSnapshot scores = courseScoreMatrixService.getScoreMatrix(courseId).snapshot();
+        return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + course.getShortName() + "-scores.csv\"")
+                .contentType(MediaType.parseMediaType("text/csv")).body(scores::writeCsv);
+    }
+
     /**
      * GET /courses/:courseId/stats-for-instructor-dashboard
      * <p>
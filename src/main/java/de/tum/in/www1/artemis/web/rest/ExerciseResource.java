@@ -15,12 +15,9 @@ import org.springframework.web.bind.annotation.*;
 
 import de.tum.in.www1.artemis.domain.*;
 import de.tum.in.www1.artemis.domain.enumeration.AssessmentType;
-import de.tum.in.www1.artemis.domain.enumeration.ComplaintType;
 import de.tum.in.www1.artemis.domain.enumeration.TutorParticipationStatus;
 import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
 import de.tum.in.www1.artemis.domain.participation.TutorParticipation;
-import de.tum.in.www1.artemis.repository.ComplaintRepository;
-import de.tum.in.www1.artemis.repository.ComplaintResponseRepository;
 import de.tum.in.www1.artemis.repository.ExampleSubmissionRepository;
 import de.tum.in.www1.artemis.service.*;
 import de.tum.in.www1.artemis.service.feature.Feature;
@@ -57,37 +54,28 @@ public class ExerciseResource {
 
     private final ExampleSubmissionRepository exampleSubmissionRepository;
 
-    private final ComplaintRepository complaintRepository;
-
-    private final SubmissionService submissionService;
-
-    private final ComplaintResponseRepository complaintResponseRepository;
-
-    private final ResultService resultService;
-
     private final TutorLeaderboardService tutorLeaderboardService;
 
     private final ProgrammingExerciseService programmingExerciseService;
 
     private final GradingCriterionService gradingCriterionService;
 
+    private final ExerciseAssessmentCountersService exerciseAssessmentCountersService;
+
     public ExerciseResource(ExerciseService exerciseService, ParticipationService participationService, UserService userService, AuthorizationCheckService authCheckService,
-            TutorParticipationService tutorParticipationService, ExampleSubmissionRepository exampleSubmissionRepository, ComplaintRepository complaintRepository,
-            SubmissionService submissionService, ResultService resultService, TutorLeaderboardService tutorLeaderboardService,
-            ComplaintResponseRepository complaintResponseRepository, ProgrammingExerciseService programmingExerciseService, GradingCriterionService gradingCriterionService) {
+            TutorParticipationService tutorParticipationService, ExampleSubmissionRepository exampleSubmissionRepository, TutorLeaderboardService tutorLeaderboardService,
+            ProgrammingExerciseService programmingExerciseService, GradingCriterionService gradingCriterionService,
+            ExerciseAssessmentCountersService exerciseAssessmentCountersService) {
         this.exerciseService = exerciseService;
         this.participationService = participationService;
         this.userService = userService;
         this.authCheckService = authCheckService;
         this.tutorParticipationService = tutorParticipationService;
         this.exampleSubmissionRepository = exampleSubmissionRepository;
-        this.complaintRepository = complaintRepository;
-        this.submissionService = submissionService;
-        this.complaintResponseRepository = complaintResponseRepository;
-        this.resultService = resultService;
         this.tutorLeaderboardService = tutorLeaderboardService;
         this.programmingExerciseService = programmingExerciseService;
         this.gradingCriterionService = gradingCriterionService;
+        this.exerciseAssessmentCountersService = exerciseAssessmentCountersService;
     }
 
     /**
@@ -137,10 +125,8 @@ public class ExerciseResource {
             return badRequest();
         }
 
-        // TODO CZ: load results of submissions eagerly to prevent additional database calls
-        List<ExampleSubmission> exampleSubmissions = this.exampleSubmissionRepository.findAllByExerciseId(exerciseId);
         // Do not provide example submissions without any assessment
-        exampleSubmissions.removeIf(exampleSubmission -> exampleSubmission.getSubmission().getResult() == null);
+        List<ExampleSubmission> exampleSubmissions = this.exampleSubmissionRepository.findAllWithResultByExerciseIdIn(List.of(exerciseId));
         exercise.setExampleSubmissions(new HashSet<>(exampleSubmissions));
 
         List<GradingCriterion> gradingCriteria = gradingCriterionService.findByExerciseIdWithEagerGradingCriteria(exerciseId);
@@ -184,40 +170,16 @@ public class ExerciseResource {
      * @return a object node with the stats
      */
     private StatsForInstructorDashboardDTO populateCommonStatistics(Exercise exercise) {
-        final Long exerciseId = exercise.getId();
         StatsForInstructorDashboardDTO stats = new StatsForInstructorDashboardDTO();
 
-        long numberOfSubmissions;
-
-        if (exercise instanceof ProgrammingExercise) {
-            numberOfSubmissions = programmingExerciseService.countSubmissionsByExerciseIdSubmitted(exerciseId);
-        }
-        else {
-            numberOfSubmissions = submissionService.countSubmissionsForExercise(exerciseId);
-        }
-        stats.setNumberOfSubmissions(numberOfSubmissions);
-
-        final long numberOfAssessments = resultService.countNumberOfFinishedAssessmentsForExercise(exerciseId);
-        stats.setNumberOfAssessments(numberOfAssessments);
-
-        final long numberOfAutomaticAssistedAssessments = resultService.countNumberOfAutomaticAssistedAssessmentsForExercise(exerciseId);
-        stats.setNumberOfAutomaticAssistedAssessments(numberOfAutomaticAssistedAssessments);
-
-        final long numberOfMoreFeedbackRequests = complaintRepository.countByResult_Participation_Exercise_IdAndComplaintType(exerciseId, ComplaintType.MORE_FEEDBACK);
-        stats.setNumberOfMoreFeedbackRequests(numberOfMoreFeedbackRequests);
-
-        final long numberOfComplaints = complaintRepository.countByResult_Participation_Exercise_IdAndComplaintType(exerciseId, ComplaintType.COMPLAINT);
-        stats.setNumberOfComplaints(numberOfComplaints);
-
-        long numberOfComplaintResponses = complaintResponseRepository.countByComplaint_Result_Participation_Exercise_Id_AndComplaint_ComplaintType(exerciseId,
-                ComplaintType.COMPLAINT);
-
-        stats.setNumberOfOpenComplaints(numberOfComplaints - numberOfComplaintResponses);
-
-        long numberOfMoreFeedbackComplaintResponses = complaintResponseRepository.countByComplaint_Result_Participation_Exercise_Id_AndComplaint_ComplaintType(exerciseId,
-                ComplaintType.MORE_FEEDBACK);
-
-        stats.setNumberOfOpenMoreFeedbackRequests(numberOfMoreFeedbackRequests - numberOfMoreFeedbackComplaintResponses);
+        final ExerciseAssessmentCounters counters = exerciseAssessmentCountersService.getCounters(exercise);
+        stats.setNumberOfSubmissions(counters.getNumberOfSubmissions());
+        stats.setNumberOfAssessments(counters.getNumberOfAssessments());
+        stats.setNumberOfAutomaticAssistedAssessments(counters.getNumberOfAutomaticAssistedAssessments());
+        stats.setNumberOfMoreFeedbackRequests(counters.getNumberOfMoreFeedbackRequests());
+        stats.setNumberOfComplaints(counters.getNumberOfComplaints());
+        stats.setNumberOfOpenComplaints(counters.getNumberOfOpenComplaints());
+        stats.setNumberOfOpenMoreFeedbackRequests(counters.getNumberOfOpenMoreFeedbackRequests());
 
         List<TutorLeaderboardDTO> leaderboardEntries = tutorLeaderboardService.getExerciseLeaderboard(exercise);
         stats.setTutorLeaderboardEntries(leaderboardEntries);
@@ -242,11 +204,8 @@ public class ExerciseResource {
         }
 
         StatsForInstructorDashboardDTO stats = populateCommonStatistics(exercise);
-        long numberOfOpenComplaints = complaintRepository.countByResult_Participation_Exercise_IdAndComplaintType(exerciseId, ComplaintType.COMPLAINT);
-        stats.setNumberOfOpenComplaints(numberOfOpenComplaints);
-
-        long numberOfOpenMoreFeedbackRequests = complaintRepository.countByResult_Participation_Exercise_Course_IdAndComplaintType(exerciseId, ComplaintType.MORE_FEEDBACK);
-        stats.setNumberOfOpenMoreFeedbackRequests(numberOfOpenMoreFeedbackRequests);
+        stats.setNumberOfOpenComplaints(stats.getNumberOfComplaints());
+        stats.setNumberOfOpenMoreFeedbackRequests(stats.getNumberOfMoreFeedbackRequests());
 
         return ResponseEntity.ok(stats);
     }
@@ -17,6 +17,7 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.ResourcePatternUtils;
@@ -36,7 +37,7 @@ import de.tum.in.www1.artemis.repository.FileUploadExerciseRepository;
 import de.tum.in.www1.artemis.repository.FileUploadSubmissionRepository;
 import de.tum.in.www1.artemis.repository.LectureRepository;
 import de.tum.in.www1.artemis.security.jwt.TokenProvider;
-import de.tum.in.www1.artemis.service.FileService;
+import de.tum.in.www1.artemis.service.FileCacheService;
 
 /**
  * REST controller for managing Course.
@@ -47,7 +48,7 @@ public class FileResource {
 
     private final Logger log = LoggerFactory.getLogger(FileResource.class);
 
-    private final FileService fileService;
+    private final FileCacheService fileCacheService;
 
     private final ResourceLoader resourceLoader;
 
@@ -70,9 +71,9 @@ public class FileResource {
         this.allowedFileExtensions.remove(fileExtension);
     }
 
-    public FileResource(FileService fileService, ResourceLoader resourceLoader, LectureRepository lectureRepository, TokenProvider tokenProvider,
+    public FileResource(FileCacheService fileCacheService, ResourceLoader resourceLoader, LectureRepository lectureRepository, TokenProvider tokenProvider,
             FileUploadSubmissionRepository fileUploadSubmissionRepository, FileUploadExerciseRepository fileUploadExerciseRepository) {
-        this.fileService = fileService;
+        this.fileCacheService = fileCacheService;
         this.resourceLoader = resourceLoader;
         this.lectureRepository = lectureRepository;
         this.tokenProvider = tokenProvider;
@@ -156,7 +157,7 @@ public class FileResource {
      */
     @GetMapping("/files/temp/{filename:.+}")
     @PreAuthorize("hasAnyRole('ADMIN', 'INSTRUCTOR', 'TA')")
-    public ResponseEntity<byte[]> getTempFile(@PathVariable String filename) {
+    public ResponseEntity<Resource> getTempFile(@PathVariable String filename) {
         log.debug("REST request to get file : {}", filename);
         return responseEntityForFilePath(Constants.TEMP_FILEPATH + filename);
     }
@@ -196,7 +197,7 @@ public class FileResource {
      */
     @GetMapping("/files/drag-and-drop/backgrounds/{questionId}/{filename:.+}")
     @PreAuthorize("hasAnyRole('USER', 'TA', 'INSTRUCTOR', 'ADMIN')")
-    public ResponseEntity<byte[]> getDragAndDropBackgroundFile(@PathVariable Long questionId, @PathVariable String filename) {
+    public ResponseEntity<Resource> getDragAndDropBackgroundFile(@PathVariable Long questionId, @PathVariable String filename) {
         log.debug("REST request to get file : {}", filename);
         return responseEntityForFilePath(Constants.DRAG_AND_DROP_BACKGROUND_FILEPATH + filename);
     }
@@ -210,7 +211,7 @@ public class FileResource {
      */
     @GetMapping("/files/drag-and-drop/drag-items/{dragItemId}/{filename:.+}")
     @PreAuthorize("hasAnyRole('USER', 'TA', 'INSTRUCTOR', 'ADMIN')")
-    public ResponseEntity<byte[]> getDragItemFile(@PathVariable Long dragItemId, @PathVariable String filename) {
+    public ResponseEntity<Resource> getDragItemFile(@PathVariable Long dragItemId, @PathVariable String filename) {
         log.debug("REST request to get file : {}", filename);
         return responseEntityForFilePath(Constants.DRAG_ITEM_FILEPATH + filename);
     }
@@ -226,7 +227,7 @@ public class FileResource {
      */
     @GetMapping("/files/file-upload-exercises/{exerciseId}/submissions/{submissionId}/{filename:.+}")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<byte[]> getFileUploadSubmission(@PathVariable Long exerciseId, @PathVariable Long submissionId, @PathVariable String filename,
+    public ResponseEntity<Resource> getFileUploadSubmission(@PathVariable Long exerciseId, @PathVariable Long submissionId, @PathVariable String filename,
             @RequestParam("access_token") String temporaryAccessToken) {
         log.debug("REST request to get file : {}", filename);
         Optional<FileUploadSubmission> optionalSubmission = fileUploadSubmissionRepository.findById(submissionId);
@@ -237,7 +238,7 @@ public class FileResource {
         if (!validateTemporaryAccessToken(temporaryAccessToken, filename)) {
             // NOTE: this is a special case, because we like to show this error message directly in the browser (without the angular client being active)
             String errorMessage = "You don't have the access rights for this file! Please login to Artemis and download the file in the corresponding exercise";
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorMessage.getBytes());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ByteArrayResource(errorMessage.getBytes()));
         }
         return buildFileResponse(FileUploadSubmission.buildFilePath(optionalFileUploadExercise.get().getId(), optionalSubmission.get().getId()), filename);
     }
@@ -251,7 +252,7 @@ public class FileResource {
      */
     @GetMapping("/files/course/icons/{courseId}/{filename:.+}")
     @PreAuthorize("hasAnyRole('USER', 'TA', 'INSTRUCTOR', 'ADMIN')")
-    public ResponseEntity<byte[]> getCourseIcon(@PathVariable Long courseId, @PathVariable String filename) {
+    public ResponseEntity<Resource> getCourseIcon(@PathVariable Long courseId, @PathVariable String filename) {
         log.debug("REST request to get file : {}", filename);
         return responseEntityForFilePath(Constants.COURSE_ICON_FILEPATH + filename);
     }
@@ -283,7 +284,7 @@ public class FileResource {
      */
     @GetMapping("files/attachments/lecture/{lectureId}/{filename:.+}")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<byte[]> getLectureAttachment(@PathVariable Long lectureId, @PathVariable String filename, @RequestParam("access_token") String temporaryAccessToken) {
+    public ResponseEntity<Resource> getLectureAttachment(@PathVariable Long lectureId, @PathVariable String filename, @RequestParam("access_token") String temporaryAccessToken) {
         log.debug("REST request to get file : {}", filename);
         Optional<Lecture> optionalLecture = lectureRepository.findById(lectureId);
         if (optionalLecture.isEmpty()) {
@@ -292,7 +293,7 @@ public class FileResource {
         if (!validateTemporaryAccessToken(temporaryAccessToken, filename)) {
             // NOTE: this is a special case, because we like to show this error message directly in the browser (without the angular client being active)
             String errorMessage = "You don't have the access rights for this file! Please login to Artemis and download the attachment in the corresponding lecture";
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorMessage.getBytes());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ByteArrayResource(errorMessage.getBytes()));
         }
         return buildFileResponse(Constants.LECTURE_ATTACHMENT_FILEPATH + optionalLecture.get().getId(), filename);
     }
@@ -318,9 +319,9 @@ public class FileResource {
      * @param filename the name of the file
      * @return response entity
      */
-    private ResponseEntity<byte[]> buildFileResponse(String path, String filename) {
+    private ResponseEntity<Resource> buildFileResponse(String path, String filename) {
         try {
-            var file = fileService.getFileForPath(path + '/' + filename);
+            var file = fileCacheService.getFile(path + '/' + filename);
             if (file == null) {
                 return ResponseEntity.notFound().build();
             }
@@ -337,7 +338,7 @@ public class FileResource {
                 MimetypesFileTypeMap fileTypeMap = new MimetypesFileTypeMap();
                 mimeType = fileTypeMap.getContentType(filename);
             }
-            return ResponseEntity.ok().headers(headers).contentType(MediaType.parseMediaType(mimeType)).header("filename", filename).body(file);
+            return fileResponse(file).headers(headers).contentType(MediaType.parseMediaType(mimeType)).header("filename", filename).body(file);
         }
         catch (IOException ex) {
             log.error("Download of file: " + filename + "on path: " + path + " let to the following exception", ex);
@@ -351,13 +352,13 @@ public class FileResource {
      * @param path the path for the file to read
      * @return ResponseEntity with status 200 and the file as byte stream, status 404 if the file doesn't exist, or status 500 if there is an error while reading the file
      */
-    private ResponseEntity<byte[]> responseEntityForFilePath(String path) {
+    private ResponseEntity<Resource> responseEntityForFilePath(String path) {
         try {
-            var file = fileService.getFileForPath(path);
+            var file = fileCacheService.getFile(path);
             if (file == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(file);
+            return fileResponse(file).body(file);
         }
         catch (IOException e) {
             e.printStackTrace();
@@ -365,4 +366,19 @@ public class FileResource {
         }
     }
 
+    /**
+     * Starts an ok response for the file with an ETag (based on the modification time and the size) and the modification time of the file. Spring answers requests with a
+     * matching If-None-Match or If-Modified-Since header with 304 (Not Modified) and requests with a Range header with 206 (Partial Content), so clients neither download
+     * unchanged files again nor the whole file when they only need a part of it (e.g. the pdf viewer of the browser).
+     *
+     * @param file the file that is returned
+     * @return the response builder with the caching headers
+     * @throws IOException if the size or the modification time of the file can't be determined
+     */
+    private ResponseEntity.BodyBuilder fileResponse(Resource file) throws IOException {
+        long lastModified = file.lastModified();
+        String eTag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(file.contentLength()) + "\"";
+        // the files are protected, so shared caches must not store them and browsers have to revalidate them
+        return ResponseEntity.ok().eTag(eTag).lastModified(lastModified).cacheControl(CacheControl.noCache().cachePrivate());
+    }
 }
@@ -1,7 +1,5 @@
 package de.tum.in.www1.artemis.web.rest;
 
-import static de.tum.in.www1.artemis.config.Constants.EXTERNAL_SYSTEM_REQUEST_BATCH_SIZE;
-import static de.tum.in.www1.artemis.config.Constants.EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS;
 import static de.tum.in.www1.artemis.web.rest.util.ResponseUtil.*;
 
 import java.time.ZonedDateTime;
@@ -268,22 +266,7 @@ public class ProgrammingSubmissionResource {
                 programmingExercise.getId());
         List<ProgrammingExerciseParticipation> participations = new LinkedList<>(
                 programmingExerciseParticipationService.findByExerciseAndParticipationIds(exerciseId, participationIds));
-
-        var index = 0;
-        for (var participation : participations) {
-            // Execute requests in batches instead all at once.
-            if (index > 0 && index % EXTERNAL_SYSTEM_REQUEST_BATCH_SIZE == 0) {
-                try {
-                    log.info("Sleep for {}s during triggerBuild", EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS / 1000);
-                    Thread.sleep(EXTERNAL_SYSTEM_REQUEST_BATCH_WAIT_TIME_MS);
-                }
-                catch (InterruptedException ex) {
-                    log.error("Exception encountered when pausing before executing successive build for participation " + participation.getId(), ex);
-                }
-            }
-            programmingSubmissionService.triggerBuildAndNotifyUser(participation);
-            index++;
-        }
+        programmingSubmissionService.triggerInstructorBuildForParticipations(exerciseId, participations);
 
         return ResponseEntity.ok().build();
     }
@@ -15,15 +15,16 @@ import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import de.tum.in.www1.artemis.config.Constants;
 import de.tum.in.www1.artemis.domain.*;
 import de.tum.in.www1.artemis.domain.enumeration.AssessmentType;
-import de.tum.in.www1.artemis.domain.enumeration.BuildPlanType;
 import de.tum.in.www1.artemis.domain.enumeration.SubmissionType;
 import de.tum.in.www1.artemis.domain.participation.*;
 import de.tum.in.www1.artemis.domain.quiz.QuizExercise;
@@ -31,7 +32,7 @@ import de.tum.in.www1.artemis.repository.ResultRepository;
 import de.tum.in.www1.artemis.security.SecurityUtils;
 import de.tum.in.www1.artemis.service.*;
 import de.tum.in.www1.artemis.service.connectors.ContinuousIntegrationService;
-import de.tum.in.www1.artemis.service.connectors.LtiService;
+import de.tum.in.www1.artemis.web.rest.dto.ExerciseResultDTO;
 import de.tum.in.www1.artemis.web.rest.errors.AccessForbiddenException;
 import de.tum.in.www1.artemis.web.rest.errors.BadRequestAlertException;
 import de.tum.in.www1.artemis.web.rest.util.HeaderUtil;
@@ -70,18 +71,18 @@ public class ResultResource {
 
     private final ProgrammingExerciseParticipationService programmingExerciseParticipationService;
 
-    private final WebsocketMessagingService messagingService;
-
-    private final LtiService ltiService;
+    private final ResultIngestionQueueService resultIngestionQueueService;
 
     private final ProgrammingSubmissionService programmingSubmissionService;
 
     private final AssessmentService assessmentService;
 
+    private final Optional<TextClusterFeedbackIndexService> textClusterFeedbackIndexService;
+
     public ResultResource(ProgrammingExerciseParticipationService programmingExerciseParticipationService, ParticipationService participationService, ResultService resultService,
-            ExerciseService exerciseService, AuthorizationCheckService authCheckService, Optional<ContinuousIntegrationService> continuousIntegrationService, LtiService ltiService,
-            ResultRepository resultRepository, WebsocketMessagingService messagingService, ProgrammingSubmissionService programmingSubmissionService, UserService userService,
-            AssessmentService assessmentService) {
+            ExerciseService exerciseService, AuthorizationCheckService authCheckService, Optional<ContinuousIntegrationService> continuousIntegrationService,
+            ResultRepository resultRepository, ResultIngestionQueueService resultIngestionQueueService, ProgrammingSubmissionService programmingSubmissionService,
+            UserService userService, AssessmentService assessmentService, Optional<TextClusterFeedbackIndexService> textClusterFeedbackIndexService) {
         this.resultRepository = resultRepository;
         this.participationService = participationService;
         this.resultService = resultService;
@@ -89,11 +90,11 @@ public class ResultResource {
         this.authCheckService = authCheckService;
         this.continuousIntegrationService = continuousIntegrationService;
         this.programmingExerciseParticipationService = programmingExerciseParticipationService;
-        this.messagingService = messagingService;
-        this.ltiService = ltiService;
+        this.resultIngestionQueueService = resultIngestionQueueService;
         this.programmingSubmissionService = programmingSubmissionService;
         this.assessmentService = assessmentService;
         this.userService = userService;
+        this.textClusterFeedbackIndexService = textClusterFeedbackIndexService;
     }
 
     /**
@@ -250,82 +251,14 @@ public class ResultResource {
         }
         log.info("Artemis received a new result for build plan {}", planKey);
 
-        // Try to retrieve the participation with the build plan key.
-        Optional<ProgrammingExerciseParticipation> optionalParticipation = getParticipationWithResults(planKey);
-        if (optionalParticipation.isEmpty()) {
-            log.warn("Participation is missing for notifyResultNew (PlanKey: {}).", planKey);
+        // The result is stored and processed by the ingestion queue, so that the CI server does not have to wait for it when many builds finish at the same time.
+        // The CI server only gets a successful response once the result is stored.
+        if (!resultIngestionQueueService.submit(planKey, requestBody)) {
             return notFound();
         }
-
-        ProgrammingExerciseParticipation participation = optionalParticipation.get();
-        Optional<Result> result;
-        // Process the new result from the build result.
-        result = resultService.processNewProgrammingExerciseResult((Participation) participation, requestBody);
-
-        // Only notify the user about the new result if the result was created successfully.
-        if (result.isPresent()) {
-            log.debug("Send result to client over websocket. Result: {}, Submission: {}, Participation: {}", result.get(), result.get().getSubmission(),
-                    result.get().getParticipation());
-            // notify user via websocket
-            messagingService.broadcastNewResult((Participation) participation, result.get());
-
-            // TODO: can we avoid to invoke this code for non LTI students? (to improve performance)
-            // if (participation.isLti()) {
-            // }
-            // handles new results and sends them to LTI consumers
-            if (participation instanceof ProgrammingExerciseStudentParticipation) {
-                ltiService.onNewResult((ProgrammingExerciseStudentParticipation) participation);
-            }
-            log.info("The new result for {} was saved successfully", planKey);
-        }
         return ResponseEntity.ok().build();
     }
 
-    private Optional<ProgrammingExerciseParticipation> getParticipationWithResults(String planKey) {
-        // we have to support template, solution and student build plans here
-        if (planKey.contains(BuildPlanType.TEMPLATE.getName())) {
-            Optional<TemplateProgrammingExerciseParticipation> templateParticipation = participationService.findTemplateParticipationByBuildPlanId(planKey);
-            // we have to convert the optional type here to make Java happy
-            if (templateParticipation.isPresent()) {
-                return Optional.of(templateParticipation.get());
-            }
-            else {
-                return Optional.empty();
-            }
-        }
-        else if (planKey.contains(BuildPlanType.SOLUTION.getName())) {
-            Optional<SolutionProgrammingExerciseParticipation> solutionParticipation = participationService.findSolutionParticipationByBuildPlanId(planKey);
-            // we have to convert the optional type here to make Java happy
-            if (solutionParticipation.isPresent()) {
-                return Optional.of(solutionParticipation.get());
-            }
-            else {
-                return Optional.empty();
-            }
-        }
-        List<ProgrammingExerciseStudentParticipation> participations = participationService.findByBuildPlanIdWithEagerResults(planKey);
-        Optional<ProgrammingExerciseStudentParticipation> participation = Optional.empty();
-        if (participations.size() > 0) {
-            participation = Optional.of(participations.get(0));
-            if (participations.size() > 1) {
-                // in the rare case of multiple participations, take the latest one.
-                for (ProgrammingExerciseStudentParticipation otherParticipation : participations) {
-                    if (otherParticipation.getInitializationDate().isAfter(participation.get().getInitializationDate())) {
-                        participation = Optional.of(otherParticipation);
-                    }
-                }
-            }
-        }
-
-        // we have to convert the optional type here to make Java happy
-        if (participation.isPresent()) {
-            return Optional.of(participation.get());
-        }
-        else {
-            return Optional.empty();
-        }
-    }
-
     /**
      * GET /exercises/:exerciseId/results : get the successful results for an exercise, ordered ascending by build completion date.
      *
@@ -382,6 +315,44 @@ public class ResultResource {
         return ResponseEntity.ok().body(results);
     }
 
+    /**
+     * GET /exercises/:exerciseId/results/latest-rated : get one page of the latest rated results of the participations in the exercise, ordered by participation id. In contrast
+     * to {@link #getResultsForExercise(Long, boolean)} the database only returns the relevant result of each participation as flat DTO, so that large exercises can be loaded
+     * page by page. If the page is full, the Link header contains the URL of the next page.
+     *
+     * @param exerciseId the id of the exercise for which to retrieve the results
+     * @param afterParticipationId the id of the last participation of the previous page, 0 for the first page
+     * @param size the maximum number of results of the page (1 to 2000)
+     * @param onlySubmitted defines if only results of submitted submissions are returned
+     * @return the ResponseEntity with status 200 (OK) and the results of the page in body
+     */
+    @GetMapping(value = "exercises/{exerciseId}/results/latest-rated")
+    @PreAuthorize("hasAnyRole('TA', 'INSTRUCTOR', 'ADMIN')")
+    public ResponseEntity<List<ExerciseResultDTO>> getLatestRatedResultsForExercise(@PathVariable Long exerciseId, @RequestParam(defaultValue = "0") long afterParticipationId,
+            @RequestParam(defaultValue = "500") int size, @RequestParam(defaultValue = "true") boolean onlySubmitted) {
+        long start = System.currentTimeMillis();
+        log.debug("REST request to get the latest rated results for Exercise {} after participation {}", exerciseId, afterParticipationId);
+        if (size < 1 || size > 2000) {
+            return badRequest();
+        }
+
+        Exercise exercise = exerciseService.findOne(exerciseId);
+        if (!authCheckService.isAtLeastTeachingAssistantInCourse(exercise.getCourse(), null)) {
+            return forbidden();
+        }
+
+        List<ExerciseResultDTO> results = participationService.findLatestRatedResultsByExercise(exercise, afterParticipationId, size, onlySubmitted);
+        log.info("getLatestRatedResultsForExercise took " + (System.currentTimeMillis() - start) + "ms for " + results.size() + " results.");
+
+        HttpHeaders headers = new HttpHeaders();
+        if (results.size() == size) {
+            long lastParticipationId = results.get(results.size() - 1).getParticipationId();
+            String nextPage = ServletUriComponentsBuilder.fromCurrentRequest().replaceQueryParam("afterParticipationId", lastParticipationId).toUriString();
+            headers.add(HttpHeaders.LINK, "<" + nextPage + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(results);
+    }
+
     /**
      * GET /results/:id : get the "id" result.
      *
@@ -481,6 +452,10 @@ public class ResultResource {
                 return forbidden();
             }
             resultRepository.deleteById(resultId);
+            if (result.get().getSubmission() != null) {
+                Long submissionId = result.get().getSubmission().getId();
+                textClusterFeedbackIndexService.ifPresent(indexService -> indexService.removeFeedbackForSubmission(submissionId));
+            }
             return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, resultId.toString())).build();
         }
         return ResponseEntity.notFound().build();
@@ -15,6 +15,7 @@ import de.tum.in.www1.artemis.repository.SubmissionRepository;
 import de.tum.in.www1.artemis.service.AuthorizationCheckService;
 import de.tum.in.www1.artemis.service.ParticipationService;
 import de.tum.in.www1.artemis.service.ResultService;
+import de.tum.in.www1.artemis.service.TextClusterFeedbackIndexService;
 import de.tum.in.www1.artemis.service.UserService;
 import de.tum.in.www1.artemis.web.rest.errors.AccessForbiddenException;
 import de.tum.in.www1.artemis.web.rest.util.HeaderUtil;
@@ -43,13 +44,16 @@ public class SubmissionResource {
 
     private final UserService userService;
 
+    private final Optional<TextClusterFeedbackIndexService> textClusterFeedbackIndexService;
+
     public SubmissionResource(SubmissionRepository submissionRepository, ResultService resultService, ParticipationService participationService,
-            AuthorizationCheckService authCheckService, UserService userService) {
+            AuthorizationCheckService authCheckService, UserService userService, Optional<TextClusterFeedbackIndexService> textClusterFeedbackIndexService) {
         this.submissionRepository = submissionRepository;
         this.resultService = resultService;
         this.participationService = participationService;
         this.authCheckService = authCheckService;
         this.userService = userService;
+        this.textClusterFeedbackIndexService = textClusterFeedbackIndexService;
     }
 
     /**
@@ -77,6 +81,7 @@ public class SubmissionResource {
             resultService.deleteResultWithComplaint(result.getId());
         }
         submissionRepository.deleteById(id);
+        textClusterFeedbackIndexService.ifPresent(indexService -> indexService.removeFeedbackForSubmission(id));
 
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString())).build();
     }
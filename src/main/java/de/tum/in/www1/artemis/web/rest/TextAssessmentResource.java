@@ -66,10 +66,13 @@ public class TextAssessmentResource extends AssessmentResource {
 
     private final GradingCriterionService gradingCriterionService;
 
+    private final Optional<TextClusterFeedbackIndexService> textClusterFeedbackIndexService;
+
     public TextAssessmentResource(AuthorizationCheckService authCheckService, ResultService resultService, TextAssessmentService textAssessmentService,
             TextBlockService textBlockService, TextBlockRepository textBlockRepository, TextExerciseService textExerciseService, TextSubmissionRepository textSubmissionRepository,
             UserService userService, TextSubmissionService textSubmissionService, WebsocketMessagingService messagingService, ExerciseService exerciseService,
-            Optional<AutomaticTextFeedbackService> automaticTextFeedbackService, ResultRepository resultRepository, GradingCriterionService gradingCriterionService) {
+            Optional<AutomaticTextFeedbackService> automaticTextFeedbackService, ResultRepository resultRepository, GradingCriterionService gradingCriterionService,
+            Optional<TextClusterFeedbackIndexService> textClusterFeedbackIndexService) {
         super(authCheckService, userService, exerciseService, textSubmissionService, textAssessmentService, resultRepository);
 
         this.resultService = resultService;
@@ -82,6 +85,7 @@ public class TextAssessmentResource extends AssessmentResource {
         this.messagingService = messagingService;
         this.automaticTextFeedbackService = automaticTextFeedbackService;
         this.gradingCriterionService = gradingCriterionService;
+        this.textClusterFeedbackIndexService = textClusterFeedbackIndexService;
     }
 
     /**
@@ -111,6 +115,7 @@ public class TextAssessmentResource extends AssessmentResource {
 
         saveTextBlocks(textAssessment.getTextBlocks(), optionalTextSubmission.get());
         Result result = textAssessmentService.saveAssessment(resultId, textAssessment.getFeedbacks(), textExercise);
+        updateFeedbackIndex(optionalTextSubmission.get(), result);
 
         if (result.getParticipation() != null && result.getParticipation() instanceof StudentParticipation
                 && !authCheckService.isAtLeastInstructorForExercise(textExercise, user)) {
@@ -147,6 +152,7 @@ public class TextAssessmentResource extends AssessmentResource {
 
         saveTextBlocks(textAssessment.getTextBlocks(), optionalTextSubmission.get());
         Result result = textAssessmentService.submitAssessment(resultId, textExercise, textAssessment.getFeedbacks());
+        updateFeedbackIndex(optionalTextSubmission.get(), result);
         StudentParticipation studentParticipation = (StudentParticipation) result.getParticipation();
         if (studentParticipation.getExercise().getAssessmentDueDate() == null || studentParticipation.getExercise().getAssessmentDueDate().isBefore(ZonedDateTime.now())) {
             // TODO: we should send a result object here that includes the feedback (this might already be the case)
@@ -180,6 +186,7 @@ public class TextAssessmentResource extends AssessmentResource {
         checkAuthorization(textExercise, user);
         saveTextBlocks(assessmentUpdate.getTextBlocks(), textSubmission);
         Result result = textAssessmentService.updateAssessmentAfterComplaint(textSubmission.getResult(), textExercise, assessmentUpdate);
+        updateFeedbackIndex(textSubmission, result);
 
         if (result.getParticipation() != null && result.getParticipation() instanceof StudentParticipation && !authCheckService.isAtLeastInstructorForExercise(textExercise)) {
             ((StudentParticipation) result.getParticipation()).setParticipant(null);
@@ -199,7 +206,11 @@ public class TextAssessmentResource extends AssessmentResource {
     @PutMapping("/exercise/{exerciseId}/submission/{submissionId}/cancel-assessment")
     @PreAuthorize("hasAnyRole('TA', 'INSTRUCTOR', 'ADMIN')")
     public ResponseEntity<Void> cancelAssessment(@PathVariable Long exerciseId, @PathVariable Long submissionId) {
-        return super.cancelAssessment(submissionId);
+        ResponseEntity<Void> response = super.cancelAssessment(submissionId);
+        if (response.getStatusCode().is2xxSuccessful()) {
+            textClusterFeedbackIndexService.ifPresent(indexService -> indexService.removeFeedbackForSubmission(submissionId));
+        }
+        return response;
     }
 
     /**
@@ -401,4 +412,13 @@ public class TextAssessmentResource extends AssessmentResource {
             textBlockRepository.saveAll(textBlocks);
         }
     }
+
+    /**
+     * Keep the feedback suggestion index in sync with the feedback that was just stored for the submission (only if automatic assessment is active).
+     * @param textSubmission the submission that was assessed
+     * @param result the saved result including its feedback
+     */
+    private void updateFeedbackIndex(TextSubmission textSubmission, Result result) {
+        textClusterFeedbackIndexService.ifPresent(indexService -> indexService.updateFeedbackForSubmission(textSubmission.getId(), result.getFeedbacks()));
+    }
 }
@@ -0,0 +1,46 @@
+package de.tum.in.www1.artemis.web.rest.dto;
+
+/**
+ * Progress of a build run (e.g. triggering the builds of all participations of an exercise), which is sent to the client over websocket.
+ */
+public class BuildRunProgressDTO {
+
+    private int queuedBuilds;
+
+    private int sentBuilds;
+
+    private int failedBuilds;
+
+    public BuildRunProgressDTO() {
+    }
+
+    public BuildRunProgressDTO(int queuedBuilds, int sentBuilds, int failedBuilds) {
+        this.queuedBuilds = queuedBuilds;
+        this.sentBuilds = sentBuilds;
+        this.failedBuilds = failedBuilds;
+    }
+
+    public int getQueuedBuilds() {
+        return queuedBuilds;
+    }
+
+    public void setQueuedBuilds(int queuedBuilds) {
+        this.queuedBuilds = queuedBuilds;
+    }
+
+    public int getSentBuilds() {
+        return sentBuilds;
+    }
+
+    public void setSentBuilds(int sentBuilds) {
+        this.sentBuilds = sentBuilds;
+    }
+
+    public int getFailedBuilds() {
+        return failedBuilds;
+    }
+
+    public void setFailedBuilds(int failedBuilds) {
+        this.failedBuilds = failedBuilds;
+    }
+}
@@ -0,0 +1,236 @@
+package de.tum.in.www1.artemis.web.rest.dto;
+
+import java.time.ZonedDateTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import de.tum.in.www1.artemis.domain.enumeration.AssessmentType;
+import de.tum.in.www1.artemis.domain.enumeration.SubmissionType;
+
+/**
+ * The latest rated result of a participation in an exercise, flattened with the participant and the submission of the result. It only contains the columns the result
+ * overview of the exercise shows, so that it can be selected directly by the database instead of loading the participations with all submissions and results.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ExerciseResultDTO {
+
+    private Long participationId;
+
+    private String participantIdentifier;
+
+    private String participantName;
+
+    private Long submissionId;
+
+    private ZonedDateTime submissionDate;
+
+    private SubmissionType submissionType;
+
+    private Boolean submitted;
+
+    private Integer submissionCount;
+
+    private Long resultId;
+
+    private ZonedDateTime completionDate;
+
+    private Boolean successful;
+
+    private Long score;
+
+    private String resultString;
+
+    private Boolean rated;
+
+    private Boolean hasFeedback;
+
+    private AssessmentType assessmentType;
+
+    private String assessorLogin;
+
+    private String assessorName;
+
+    public ExerciseResultDTO() {
+        // needed for Jackson
+    }
+
+    /**
+     * Used by the JPQL constructor expression in StudentParticipationRepository. The participant is either a student or a team, the assessor is null for automatic results.
+     */
+    public ExerciseResultDTO(Long participationId, String studentLogin, String studentFirstName, String studentLastName, String teamShortName, String teamName,
+            Long submissionId, ZonedDateTime submissionDate, SubmissionType submissionType, Boolean submitted, Long resultId, ZonedDateTime completionDate, Boolean successful,
+            Long score, String resultString, Boolean rated, Boolean hasFeedback, AssessmentType assessmentType, String assessorLogin, String assessorFirstName,
+            String assessorLastName) {
+        this.participationId = participationId;
+        this.participantIdentifier = studentLogin != null ? studentLogin : teamShortName;
+        this.participantName = studentLogin != null ? fullName(studentFirstName, studentLastName) : teamName;
+        this.submissionId = submissionId;
+        this.submissionDate = submissionDate;
+        this.submissionType = submissionType;
+        this.submitted = submitted;
+        this.resultId = resultId;
+        this.completionDate = completionDate;
+        this.successful = successful;
+        this.score = score;
+        this.resultString = resultString;
+        this.rated = rated;
+        this.hasFeedback = hasFeedback;
+        this.assessmentType = assessmentType;
+        this.assessorLogin = assessorLogin;
+        this.assessorName = assessorLogin != null ? fullName(assessorFirstName, assessorLastName) : null;
+    }
+
+    /**
+     * Same as User.getName()
+     */
+    private static String fullName(String firstName, String lastName) {
+        if (lastName != null && !lastName.equals("")) {
+            return firstName + " " + lastName;
+        }
+        return firstName;
+    }
+
+    public Long getParticipationId() {
+        return participationId;
+    }
+
+    public void setParticipationId(Long participationId) {
+        this.participationId = participationId;
+    }
+
+    public String getParticipantIdentifier() {
+        return participantIdentifier;
+    }
+
+    public void setParticipantIdentifier(String participantIdentifier) {
+        this.participantIdentifier = participantIdentifier;
+    }
+
+    public String getParticipantName() {
+        return participantName;
+    }
+
+    public void setParticipantName(String participantName) {
+        this.participantName = participantName;
+    }
+
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(Long submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public ZonedDateTime getSubmissionDate() {
+        return submissionDate;
+    }
+
+    public void setSubmissionDate(ZonedDateTime submissionDate) {
+        this.submissionDate = submissionDate;
+    }
+
+    public SubmissionType getSubmissionType() {
+        return submissionType;
+    }
+
+    public void setSubmissionType(SubmissionType submissionType) {
+        this.submissionType = submissionType;
+    }
+
+    public Boolean getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(Boolean submitted) {
+        this.submitted = submitted;
+    }
+
+    public Integer getSubmissionCount() {
+        return submissionCount;
+    }
+
+    public void setSubmissionCount(Integer submissionCount) {
+        this.submissionCount = submissionCount;
+    }
+
+    public Long getResultId() {
+        return resultId;
+    }
+
+    public void setResultId(Long resultId) {
+        this.resultId = resultId;
+    }
+
+    public ZonedDateTime getCompletionDate() {
+        return completionDate;
+    }
+
+    public void setCompletionDate(ZonedDateTime completionDate) {
+        this.completionDate = completionDate;
+    }
+
+    public Boolean getSuccessful() {
+        return successful;
+    }
+
+    public void setSuccessful(Boolean successful) {
+        this.successful = successful;
+    }
+
+    public Long getScore() {
+        return score;
+    }
+
+    public void setScore(Long score) {
+        this.score = score;
+    }
+
+    public String getResultString() {
+        return resultString;
+    }
+
+    public void setResultString(String resultString) {
+        this.resultString = resultString;
+    }
+
+    public Boolean getRated() {
+        return rated;
+    }
+
+    public void setRated(Boolean rated) {
+        this.rated = rated;
+    }
+
+    public Boolean getHasFeedback() {
+        return hasFeedback;
+    }
+
+    public void setHasFeedback(Boolean hasFeedback) {
+        this.hasFeedback = hasFeedback;
+    }
+
+    public AssessmentType getAssessmentType() {
+        return assessmentType;
+    }
+
+    public void setAssessmentType(AssessmentType assessmentType) {
+        this.assessmentType = assessmentType;
+    }
+
+    public String getAssessorLogin() {
+        return assessorLogin;
+    }
+
+    public void setAssessorLogin(String assessorLogin) {
+        this.assessorLogin = assessorLogin;
+    }
+
+    public String getAssessorName() {
+        return assessorName;
+    }
+
+    public void setAssessorName(String assessorName) {
+        this.assessorName = assessorName;
+    }
+}
@@ -0,0 +1,117 @@
+package de.tum.in.www1.artemis.web.rest.dto;
+
+import java.time.ZonedDateTime;
+
+import de.tum.in.www1.artemis.domain.Result;
+import de.tum.in.www1.artemis.domain.enumeration.AssessmentType;
+
+/**
+ * The relevant result of a student participation, i.e. the latest rated result with completion date and score. It is selected per participation by the database, see
+ * StudentParticipationRepository.streamRelevantResultsByCourseId.
+ */
+public class RelevantResultDTO {
+
+    private final long participationId;
+
+    private final long exerciseId;
+
+    private final Long studentId;
+
+    private final Long teamId;
+
+    private final long resultId;
+
+    private final ZonedDateTime completionDate;
+
+    private final long score;
+
+    private final Boolean successful;
+
+    private final String resultString;
+
+    private final Boolean rated;
+
+    private final AssessmentType assessmentType;
+
+    private final Boolean hasFeedback;
+
+    public RelevantResultDTO(long participationId, long exerciseId, Long studentId, Long teamId, long resultId, ZonedDateTime completionDate, long score, Boolean successful,
+            String resultString, Boolean rated, AssessmentType assessmentType, Boolean hasFeedback) {
+        this.participationId = participationId;
+        this.exerciseId = exerciseId;
+        this.studentId = studentId;
+        this.teamId = teamId;
+        this.resultId = resultId;
+        this.completionDate = completionDate;
+        this.score = score;
+        this.successful = successful;
+        this.resultString = resultString;
+        this.rated = rated;
+        this.assessmentType = assessmentType;
+        this.hasFeedback = hasFeedback;
+    }
+
+    public long getParticipationId() {
+        return participationId;
+    }
+
+    public long getExerciseId() {
+        return exerciseId;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public Long getTeamId() {
+        return teamId;
+    }
+
+    public long getResultId() {
+        return resultId;
+    }
+
+    public ZonedDateTime getCompletionDate() {
+        return completionDate;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public Boolean getSuccessful() {
+        return successful;
+    }
+
+    public String getResultString() {
+        return resultString;
+    }
+
+    public Boolean getRated() {
+        return rated;
+    }
+
+    public AssessmentType getAssessmentType() {
+        return assessmentType;
+    }
+
+    public Boolean getHasFeedback() {
+        return hasFeedback;
+    }
+
+    /**
+     * @return a (not persisted) result with the selected columns, e.g. to attach it to the participation
+     */
+    public Result toResult() {
+        Result result = new Result();
+        result.setId(resultId);
+        result.setCompletionDate(completionDate);
+        result.setScore(score);
+        result.setSuccessful(successful);
+        result.setResultString(resultString);
+        result.setRated(rated);
+        result.setAssessmentType(assessmentType);
+        result.setHasFeedback(hasFeedback);
+        return result;
+    }
+}
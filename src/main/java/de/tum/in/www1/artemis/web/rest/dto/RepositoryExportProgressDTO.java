@@ -0,0 +1,46 @@
+package de.tum.in.www1.artemis.web.rest.dto;
+
+/**
+ * Progress of an export of student repositories, which is sent to the client over websocket.
+ */
+public class RepositoryExportProgressDTO {
+
+    private int exportedRepositories;
+
+    private int failedRepositories;
+
+    private int totalRepositories;
+
+    public RepositoryExportProgressDTO() {
+    }
+
+    public RepositoryExportProgressDTO(int exportedRepositories, int failedRepositories, int totalRepositories) {
+        this.exportedRepositories = exportedRepositories;
+        this.failedRepositories = failedRepositories;
+        this.totalRepositories = totalRepositories;
+    }
+
+    public int getExportedRepositories() {
+        return exportedRepositories;
+    }
+
+    public void setExportedRepositories(int exportedRepositories) {
+        this.exportedRepositories = exportedRepositories;
+    }
+
+    public int getFailedRepositories() {
+        return failedRepositories;
+    }
+
+    public void setFailedRepositories(int failedRepositories) {
+        this.failedRepositories = failedRepositories;
+    }
+
+    public int getTotalRepositories() {
+        return totalRepositories;
+    }
+
+    public void setTotalRepositories(int totalRepositories) {
+        this.totalRepositories = totalRepositories;
+    }
+}
@@ -99,9 +99,10 @@ public abstract class RepositoryResource {
         log.debug("REST request to files for domainId : {}", domainId);
 
         return executeAndCheckForExceptions(() -> {
-            Repository repository = getRepository(domainId, RepositoryActionType.READ, true);
-            Map<String, FileType> fileList = repositoryService.getFiles(repository);
-            return new ResponseEntity<>(fileList, HttpStatus.OK);
+            try (Repository repository = getRepository(domainId, RepositoryActionType.READ, true)) {
+                Map<String, FileType> fileList = repositoryService.getFiles(repository);
+                return new ResponseEntity<>(fileList, HttpStatus.OK);
+            }
         });
     }
 
@@ -116,11 +117,12 @@ public abstract class RepositoryResource {
         log.debug("REST request to file {} for domainId : {}", filename, domainId);
 
         return executeAndCheckForExceptions(() -> {
-            Repository repository = getRepository(domainId, RepositoryActionType.READ, true);
-            byte[] out = repositoryService.getFile(repository, filename);
-            HttpHeaders responseHeaders = new HttpHeaders();
-            responseHeaders.setContentType(MediaType.TEXT_PLAIN);
-            return new ResponseEntity<>(out, responseHeaders, HttpStatus.OK);
+            try (Repository repository = getRepository(domainId, RepositoryActionType.READ, true)) {
+                byte[] out = repositoryService.getFile(repository, filename);
+                HttpHeaders responseHeaders = new HttpHeaders();
+                responseHeaders.setContentType(MediaType.TEXT_PLAIN);
+                return new ResponseEntity<>(out, responseHeaders, HttpStatus.OK);
+            }
         });
     }
 
@@ -136,10 +138,11 @@ public abstract class RepositoryResource {
         log.debug("REST request to create file {} for domainId : {}", filename, domainId);
 
         return executeAndCheckForExceptions(() -> {
-            Repository repository = getRepository(domainId, RepositoryActionType.WRITE, true);
-            InputStream inputStream = request.getInputStream();
-            repositoryService.createFile(repository, filename, inputStream);
-            return new ResponseEntity<>(HttpStatus.OK);
+            try (Repository repository = getRepository(domainId, RepositoryActionType.WRITE, true)) {
+                InputStream inputStream = request.getInputStream();
+                repositoryService.createFile(repository, filename, inputStream);
+                return new ResponseEntity<>(HttpStatus.OK);
+            }
         });
     }
 
@@ -155,10 +158,11 @@ public abstract class RepositoryResource {
         log.debug("REST request to create file {} for domainId : {}", folderName, domainId);
 
         return executeAndCheckForExceptions(() -> {
-            Repository repository = getRepository(domainId, RepositoryActionType.WRITE, true);
-            InputStream inputStream = request.getInputStream();
-            repositoryService.createFolder(repository, folderName, inputStream);
-            return new ResponseEntity<>(HttpStatus.OK);
+            try (Repository repository = getRepository(domainId, RepositoryActionType.WRITE, true)) {
+                InputStream inputStream = request.getInputStream();
+                repositoryService.createFolder(repository, folderName, inputStream);
+                return new ResponseEntity<>(HttpStatus.OK);
+            }
         });
     }
 
@@ -173,9 +177,10 @@ public abstract class RepositoryResource {
         log.debug("REST request to rename file {} to {} for domainId : {}", fileMove.getCurrentFilePath(), fileMove.getNewFilename(), domainId);
 
         return executeAndCheckForExceptions(() -> {
-            Repository repository = getRepository(domainId, RepositoryActionType.WRITE, true);
-            repositoryService.renameFile(repository, fileMove);
-            return new ResponseEntity<>(HttpStatus.OK);
+            try (Repository repository = getRepository(domainId, RepositoryActionType.WRITE, true)) {
+                repositoryService.renameFile(repository, fileMove);
+                return new ResponseEntity<>(HttpStatus.OK);
+            }
         });
     }
 
@@ -190,9 +195,10 @@ public abstract class RepositoryResource {
         log.debug("REST request to delete file {} for domainId : {}", filename, domainId);
 
         return executeAndCheckForExceptions(() -> {
-            Repository repository = getRepository(domainId, RepositoryActionType.WRITE, true);
-            repositoryService.deleteFile(repository, filename);
-            return new ResponseEntity<>(HttpStatus.OK);
+            try (Repository repository = getRepository(domainId, RepositoryActionType.WRITE, true)) {
+                repositoryService.deleteFile(repository, filename);
+                return new ResponseEntity<>(HttpStatus.OK);
+            }
         });
     }
 
@@ -206,9 +212,10 @@ public abstract class RepositoryResource {
         log.debug("REST request to commit Repository for domainId : {}", domainId);
 
         return executeAndCheckForExceptions(() -> {
-            Repository repository = getRepository(domainId, RepositoryActionType.READ, true);
-            repositoryService.pullChanges(repository);
-            return new ResponseEntity<>(HttpStatus.OK);
+            try (Repository repository = getRepository(domainId, RepositoryActionType.READ, true)) {
+                repositoryService.pullChanges(repository);
+                return new ResponseEntity<>(HttpStatus.OK);
+            }
         });
     }
 
@@ -223,9 +230,10 @@ public abstract class RepositoryResource {
         log.debug("REST request to commit Repository for domainId : {}", domainId);
 
         return executeAndCheckForExceptions(() -> {
-            Repository repository = getRepository(domainId, RepositoryActionType.WRITE, true);
-            repositoryService.commitChanges(repository, user);
-            return new ResponseEntity<>(HttpStatus.OK);
+            try (Repository repository = getRepository(domainId, RepositoryActionType.WRITE, true)) {
+                repositoryService.commitChanges(repository, user);
+                return new ResponseEntity<>(HttpStatus.OK);
+            }
         });
     }
 
@@ -237,9 +245,10 @@ public abstract class RepositoryResource {
      */
     public ResponseEntity<Void> resetToLastCommit(Long domainId) {
         return executeAndCheckForExceptions(() -> {
-            Repository repository = getRepository(domainId, RepositoryActionType.WRITE, false);
-            gitService.resetToOriginMaster(repository);
-            return new ResponseEntity<>(HttpStatus.OK);
+            try (Repository repository = getRepository(domainId, RepositoryActionType.WRITE, false)) {
+                gitService.resetToOriginMaster(repository);
+                return new ResponseEntity<>(HttpStatus.OK);
+            }
         });
     }
 
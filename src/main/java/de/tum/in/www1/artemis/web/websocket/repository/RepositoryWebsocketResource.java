@@ -127,8 +127,13 @@ public class RepositoryWebsocketResource {
             messagingTemplate.convertAndSendToUser(principal.getName(), topic, error);
             return;
         }
-        Map<String, String> fileSaveResult = saveFileSubmissions(submissions, repository);
-        messagingTemplate.convertAndSendToUser(principal.getName(), topic, fileSaveResult);
+        try {
+            Map<String, String> fileSaveResult = saveFileSubmissions(submissions, repository);
+            messagingTemplate.convertAndSendToUser(principal.getName(), topic, fileSaveResult);
+        }
+        finally {
+            repository.close();
+        }
     }
 
     /**
@@ -168,8 +173,13 @@ public class RepositoryWebsocketResource {
             messagingTemplate.convertAndSendToUser(principal.getName(), topic, error);
             return;
         }
-        Map<String, String> fileSaveResult = saveFileSubmissions(submissions, repository);
-        messagingTemplate.convertAndSendToUser(principal.getName(), topic, fileSaveResult);
+        try {
+            Map<String, String> fileSaveResult = saveFileSubmissions(submissions, repository);
+            messagingTemplate.convertAndSendToUser(principal.getName(), topic, fileSaveResult);
+        }
+        finally {
+            repository.close();
+        }
     }
 
     /**
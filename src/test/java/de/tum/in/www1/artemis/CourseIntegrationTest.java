@@ -17,10 +17,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import de.tum.in.www1.artemis.config.Constants;
 import de.tum.in.www1.artemis.connector.jira.JiraRequestMockProvider;
 import de.tum.in.www1.artemis.domain.*;
+import de.tum.in.www1.artemis.domain.enumeration.Language;
 import de.tum.in.www1.artemis.domain.enumeration.TutorParticipationStatus;
 import de.tum.in.www1.artemis.domain.leaderboard.tutor.*;
 import de.tum.in.www1.artemis.domain.modeling.ModelingExercise;
@@ -28,11 +30,13 @@ import de.tum.in.www1.artemis.domain.modeling.ModelingSubmission;
 import de.tum.in.www1.artemis.domain.participation.Participation;
 import de.tum.in.www1.artemis.domain.participation.TutorParticipation;
 import de.tum.in.www1.artemis.repository.*;
+import de.tum.in.www1.artemis.service.CourseDashboardCacheService;
 import de.tum.in.www1.artemis.service.UserService;
 import de.tum.in.www1.artemis.util.DatabaseUtilService;
 import de.tum.in.www1.artemis.util.ModelFactory;
 import de.tum.in.www1.artemis.util.RequestUtilService;
 import de.tum.in.www1.artemis.web.rest.dto.StatsForInstructorDashboardDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 
 public class CourseIntegrationTest extends AbstractSpringIntegrationBambooBitbucketJiraTest {
 
@@ -75,6 +79,24 @@ public class CourseIntegrationTest extends AbstractSpringIntegrationBambooBitbuc
     @Autowired
     TutorLeaderboardAnsweredMoreFeedbackRequestsViewRepository tutorLeaderboardAnsweredMoreFeedbackRequestsViewRepo;
 
+    @Autowired
+    ExerciseRepository exerciseRepo;
+
+    @Autowired
+    ResultRepository resultRepo;
+
+    @Autowired
+    LectureRepository lectureRepo;
+
+    @Autowired
+    AttachmentRepository attachmentRepo;
+
+    @Autowired
+    CourseDashboardCacheService courseDashboardCacheService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     private final int numberOfStudents = 4;
 
     private final int numberOfTutors = 5;
@@ -309,6 +331,80 @@ public class CourseIntegrationTest extends AbstractSpringIntegrationBambooBitbuc
         }
     }
 
+    @Test
+    @WithMockUser(username = "student1", roles = "USER")
+    public void testGetAllCoursesForDashboardWithCacheReflectsChangedResultsExercisesAndAttachments() throws Exception {
+        Course course = database.addCourseWithOneTextExercise();
+        TextExercise textExercise = (TextExercise) exerciseRepo.findAll().get(0);
+        // manual results are only shown on the dashboard after the assessment due date
+        textExercise.setAssessmentDueDate(ZonedDateTime.now().minusHours(2));
+        textExercise = exerciseRepo.save(textExercise);
+        Submission submission = database.addSubmission(textExercise, ModelFactory.generateTextSubmission("text", Language.ENGLISH, true), "student1");
+        Result result = resultRepo.save(new Result().participation(submission.getParticipation()).submission(submission).resultString("first result").rated(true).score(50L)
+                .completionDate(ZonedDateTime.now().minusHours(1)));
+        Lecture lecture = lectureRepo.save(ModelFactory.generateLecture(ZonedDateTime.now().minusDays(1), ZonedDateTime.now().plusDays(1), course));
+        Attachment attachment = attachmentRepo.save(ModelFactory.generateAttachment(ZonedDateTime.now().minusDays(1), lecture));
+
+        ReflectionTestUtils.setField(courseDashboardCacheService, "enabled", true);
+        try {
+            double hitsBefore = meterRegistry.get("artemis.dashboard.cache.requests").tag("result", "hit").counter().count();
+            String dashboard = request.get("/api/courses/for-dashboard", HttpStatus.OK, String.class);
+            assertThat(dashboard).contains("first result", textExercise.getTitle(), "TestAttachement");
+            assertThat(request.get("/api/courses/for-dashboard", HttpStatus.OK, String.class)).isEqualTo(dashboard);
+            assertThat(meterRegistry.get("artemis.dashboard.cache.requests").tag("result", "hit").counter().count()).as("second request is served from the cache")
+                    .isEqualTo(hitsBefore + 1);
+
+            result.setResultString("updated result");
+            resultRepo.save(result);
+            assertThat(request.get("/api/courses/for-dashboard", HttpStatus.OK, String.class)).contains("updated result").doesNotContain("first result");
+
+            textExercise.setTitle("Updated exercise title");
+            exerciseRepo.save(textExercise);
+            assertThat(request.get("/api/courses/for-dashboard", HttpStatus.OK, String.class)).contains("Updated exercise title");
+
+            attachment.setName("Updated attachment");
+            attachmentRepo.save(attachment);
+            assertThat(request.get("/api/courses/for-dashboard", HttpStatus.OK, String.class)).contains("Updated attachment").doesNotContain("TestAttachement");
+        }
+        finally {
+            ReflectionTestUtils.setField(courseDashboardCacheService, "enabled", false);
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "instructor1", roles = "INSTRUCTOR")
+    public void testGetCourseScores() throws Exception {
+        Course course = database.addCourseWithOneTextExercise();
+        TextExercise textExercise = (TextExercise) exerciseRepo.findAll().get(0);
+        textExercise.setTitle("=Text exercise");
+        exerciseRepo.save(textExercise);
+        Submission submission = database.addSubmission(textExercise, ModelFactory.generateTextSubmission("text", Language.ENGLISH, true), "student1");
+        resultRepo.save(new Result().participation(submission.getParticipation()).submission(submission).rated(true).score(80L).completionDate(ZonedDateTime.now().minusHours(1)));
+
+        String csv = request.getStreamed("/api/courses/" + course.getId() + "/scores", HttpStatus.OK);
+
+        List<String> lines = List.of(csv.split("\r\n"));
+        // the title is neutralised, so that spreadsheet applications do not evaluate it as formula
+        assertThat(lines.get(0)).isEqualTo("Login,Name,Registration Number,'=Text exercise");
+        assertThat(lines).as("one row per student of the course").hasSize(numberOfStudents + 1);
+        assertThat(lines).filteredOn(line -> line.startsWith("student1,")).hasSize(1).allMatch(line -> line.endsWith(",80"));
+        assertThat(lines).filteredOn(line -> line.startsWith("student2,")).hasSize(1).allMatch(line -> line.endsWith(","));
+    }
+
+    @Test
+    @WithMockUser(username = "instructor2", roles = "INSTRUCTOR")
+    public void testGetCourseScores_asInstructorOfAnotherCourse_forbidden() throws Exception {
+        Course course = database.addCourseWithOneTextExercise();
+        request.getStreamed("/api/courses/" + course.getId() + "/scores", HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    @WithMockUser(username = "tutor1", roles = "TA")
+    public void testGetCourseScores_asTutor_forbidden() throws Exception {
+        Course course = database.addCourseWithOneTextExercise();
+        request.getStreamed("/api/courses/" + course.getId() + "/scores", HttpStatus.FORBIDDEN);
+    }
+
     @Test
     @WithMockUser(username = "tutor1", roles = "TA")
     public void testGetCoursesWithoutActiveExercises() throws Exception {
@@ -8,7 +8,10 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 
@@ -112,6 +115,39 @@ public class FileIntegrationTest extends AbstractSpringIntegrationBambooBitbucke
         assertThat(receivedIcon).isEqualTo("some data");
     }
 
+    @Test
+    @WithMockUser(value = "instructor1", roles = "INSTRUCTOR")
+    public void testGetFile_answersConditionalRequestsWithNotModified() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "file.png", "application/json", "some data".getBytes());
+        JsonNode response = request.postWithMultipartFile("/api/fileUpload?keepFileName=false", file.getOriginalFilename(), "file", file, JsonNode.class, HttpStatus.CREATED);
+        String responsePath = response.get("path").asText();
+
+        MockHttpServletResponse firstResponse = request.getWithHeaders(responsePath, HttpStatus.OK, new HttpHeaders());
+        String eTag = firstResponse.getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotEmpty();
+        assertThat(firstResponse.getHeader(HttpHeaders.LAST_MODIFIED)).isNotEmpty();
+        assertThat(firstResponse.getContentAsString()).isEqualTo("some data");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        MockHttpServletResponse secondResponse = request.getWithHeaders(responsePath, HttpStatus.NOT_MODIFIED, headers);
+        assertThat(secondResponse.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    @WithMockUser(value = "instructor1", roles = "INSTRUCTOR")
+    public void testGetFile_answersRangeRequestsWithPartialContent() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "file.png", "application/json", "some data".getBytes());
+        JsonNode response = request.postWithMultipartFile("/api/fileUpload?keepFileName=false", file.getOriginalFilename(), "file", file, JsonNode.class, HttpStatus.CREATED);
+        String responsePath = response.get("path").asText();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setRange(HttpRange.parseRanges("bytes=5-8"));
+        MockHttpServletResponse partialResponse = request.getWithHeaders(responsePath, HttpStatus.PARTIAL_CONTENT, headers);
+        assertThat(partialResponse.getContentAsString()).isEqualTo("data");
+        assertThat(partialResponse.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 5-8/9");
+    }
+
     @Test
     @WithMockUser(value = "instructor1", roles = "INSTRUCTOR")
     public void testGetDragAndDropBackgroundFile() throws Exception {
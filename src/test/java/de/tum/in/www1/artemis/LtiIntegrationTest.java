@@ -6,25 +6,30 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import java.net.URI;
+import java.time.ZonedDateTime;
 import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithMockUser;
 
+import de.tum.in.www1.artemis.domain.LtiOutcomeReport;
 import de.tum.in.www1.artemis.domain.LtiOutcomeUrl;
 import de.tum.in.www1.artemis.domain.LtiUserId;
 import de.tum.in.www1.artemis.domain.ProgrammingExercise;
 import de.tum.in.www1.artemis.exception.ArtemisAuthenticationException;
+import de.tum.in.www1.artemis.repository.LtiOutcomeReportRepository;
 import de.tum.in.www1.artemis.repository.LtiOutcomeUrlRepository;
 import de.tum.in.www1.artemis.repository.LtiUserIdRepository;
 import de.tum.in.www1.artemis.repository.ProgrammingExerciseRepository;
+import de.tum.in.www1.artemis.service.connectors.LtiOutcomeQueueService;
 import de.tum.in.www1.artemis.util.DatabaseUtilService;
 import de.tum.in.www1.artemis.util.RequestUtilService;
 import de.tum.in.www1.artemis.web.rest.dto.ExerciseLtiConfigurationDTO;
@@ -46,6 +51,12 @@ public class LtiIntegrationTest extends AbstractSpringIntegrationBambooBitbucket
     @Autowired
     LtiUserIdRepository ltiUserIdRepository;
 
+    @Autowired
+    LtiOutcomeReportRepository ltiOutcomeReportRepository;
+
+    @Autowired
+    LtiOutcomeQueueService ltiOutcomeQueueService;
+
     private ProgrammingExercise programmingExercise;
 
     private String requestBody = "custom_component_display_name=Exercise" + "&lti_version=LTI-1p0" + "&oauth_nonce=171298047571430710991572204884"
@@ -73,6 +84,7 @@ public class LtiIntegrationTest extends AbstractSpringIntegrationBambooBitbucket
 
     @AfterEach
     void tearDown() {
+        ltiOutcomeReportRepository.deleteAll();
         database.resetDatabase();
     }
 
@@ -178,6 +190,45 @@ public class LtiIntegrationTest extends AbstractSpringIntegrationBambooBitbucket
         assertThat(ltiOutcomeUrlRepository.findAll()).isEmpty();
     }
 
+    @Test
+    void enqueueOutcomeReport_coalescesReportsOfParticipation() {
+        ltiOutcomeQueueService.enqueue(42L);
+        LtiOutcomeReport firstReport = ltiOutcomeReportRepository.findAll().get(0);
+
+        ltiOutcomeQueueService.enqueue(42L);
+        ltiOutcomeQueueService.enqueue(42L);
+        ltiOutcomeQueueService.enqueue(43L);
+
+        List<LtiOutcomeReport> reports = ltiOutcomeReportRepository.findAll();
+        assertThat(reports).as("only one report is pending per participation").hasSize(2);
+        LtiOutcomeReport coalescedReport = reports.stream().filter(report -> report.getParticipationId() == 42L).findFirst().get();
+        assertThat(coalescedReport.getId()).isEqualTo(firstReport.getId());
+        assertThat(coalescedReport.getAttempts()).isEqualTo(0);
+        assertThat(coalescedReport.getEnqueuedDate()).isAfterOrEqualTo(firstReport.getEnqueuedDate());
+    }
+
+    @Test
+    void claimOutcomeReports_claimsEachReportForOneRunOnly() {
+        ltiOutcomeQueueService.enqueue(42L);
+        ltiOutcomeQueueService.enqueue(43L);
+        ZonedDateTime now = ZonedDateTime.now().plusMinutes(1);
+        List<Long> dueReportIds = ltiOutcomeReportRepository.findIdsOfDueReports(now, PageRequest.of(0, 10));
+        assertThat(dueReportIds).hasSize(2);
+
+        // two server instances try to claim the same due reports
+        assertThat(ltiOutcomeReportRepository.claim(dueReportIds, "first-run", now, now.plusMinutes(10))).isEqualTo(2);
+        assertThat(ltiOutcomeReportRepository.claim(dueReportIds, "second-run", now, now.plusMinutes(10))).isEqualTo(0);
+        assertThat(ltiOutcomeReportRepository.findAllByClaimTokenOrderByNextAttemptDateAsc("first-run")).hasSize(2);
+        assertThat(ltiOutcomeReportRepository.findAllByClaimTokenOrderByNextAttemptDateAsc("second-run")).isEmpty();
+        assertThat(ltiOutcomeReportRepository.findIdsOfDueReports(now, PageRequest.of(0, 10))).as("claimed reports are not due").isEmpty();
+
+        // released and expired claims can be claimed again
+        assertThat(ltiOutcomeReportRepository.release(dueReportIds.get(0), "first-run")).isEqualTo(1);
+        assertThat(ltiOutcomeReportRepository.findIdsOfDueReports(now, PageRequest.of(0, 10))).containsExactly(dueReportIds.get(0));
+        ZonedDateTime afterExpiry = now.plusMinutes(11);
+        assertThat(ltiOutcomeReportRepository.claim(dueReportIds, "second-run", afterExpiry, afterExpiry.plusMinutes(10))).isEqualTo(2);
+    }
+
     @Test
     @WithMockUser(value = "student1", roles = "USER")
     void createLtiUserId() throws Exception {
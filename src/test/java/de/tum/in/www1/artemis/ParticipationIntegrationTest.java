@@ -6,17 +6,22 @@ import static org.mockito.Mockito.*;
 
 import java.net.URI;
 import java.time.ZonedDateTime;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.util.LinkedMultiValueMap;
 
 import de.tum.in.www1.artemis.domain.*;
+import de.tum.in.www1.artemis.domain.enumeration.AssessmentType;
 import de.tum.in.www1.artemis.domain.enumeration.ExerciseMode;
 import de.tum.in.www1.artemis.domain.enumeration.InitializationState;
 import de.tum.in.www1.artemis.domain.enumeration.Language;
@@ -28,13 +33,17 @@ import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
 import de.tum.in.www1.artemis.domain.quiz.QuizExercise;
 import de.tum.in.www1.artemis.domain.quiz.QuizSubmission;
 import de.tum.in.www1.artemis.repository.*;
+import de.tum.in.www1.artemis.service.ParticipationService;
 import de.tum.in.www1.artemis.service.feature.Feature;
 import de.tum.in.www1.artemis.util.DatabaseUtilService;
 import de.tum.in.www1.artemis.util.ModelFactory;
+import de.tum.in.www1.artemis.util.QueryCountInspector;
 import de.tum.in.www1.artemis.util.RequestUtilService;
 
 public class ParticipationIntegrationTest extends AbstractSpringIntegrationBambooBitbucketJiraTest {
 
+    private final Logger log = LoggerFactory.getLogger(ParticipationIntegrationTest.class);
+
     @Autowired
     CourseRepository courseRepo;
 
@@ -59,6 +68,9 @@ public class ParticipationIntegrationTest extends AbstractSpringIntegrationBambo
     @Autowired
     DatabaseUtilService database;
 
+    @Autowired
+    ParticipationService participationService;
+
     private Course course;
 
     private ModelingExercise modelingExercise;
@@ -388,6 +400,120 @@ public class ParticipationIntegrationTest extends AbstractSpringIntegrationBambo
         });
     }
 
+    /**
+     * Compares the relevant results selected by the database with the former implementation that loaded all rated results of the course and selected the latest one in Java,
+     * and logs the time of both.
+     */
+    @Test
+    public void findByCourseIdWithRelevantResult_selectsTheSameResultsAsLoadingAllRatedResults() {
+        var now = ZonedDateTime.now();
+        List<Exercise> exercises = List.of(modelingExercise, textExercise, programmingExercise);
+        int numberOfStudents = 30;
+        for (int i = 1; i <= numberOfStudents; i++) {
+            String login = "benchmark-student" + i;
+            userRepo.save(ModelFactory.generateActivatedUser(login));
+            for (Exercise exercise : exercises) {
+                StudentParticipation participation = database.addParticipationForExercise(exercise, login);
+                if (i == 1) {
+                    // no result at all, the participation is included without result
+                    continue;
+                }
+                if (i == 2) {
+                    // only unrated results, the participation is not included
+                    resultRepository.save(new Result().participation(participation).rated(false).score(50L).completionDate(now));
+                    continue;
+                }
+                for (int attempt = 1; attempt <= 3; attempt++) {
+                    resultRepository.save(new Result().participation(participation).rated(true).score((long) attempt * 10 + i).completionDate(now.minusMinutes(10 - attempt)));
+                }
+                // newer results that are not relevant: unrated, without score or without completion date
+                resultRepository.save(new Result().participation(participation).rated(false).score(100L).completionDate(now));
+                resultRepository.save(new Result().participation(participation).rated(true).completionDate(now));
+                resultRepository.save(new Result().participation(participation).rated(true).score(100L));
+            }
+        }
+
+        Map<Long, Set<Long>> formerRelevantResults = measure("loading all rated results", () -> relevantResultIds(findByCourseIdWithRelevantResultInJava(course.getId())));
+        Map<Long, Set<Long>> relevantResults = measure("selecting the relevant results in the database",
+                () -> relevantResultIds(participationService.findByCourseIdWithRelevantResult(course.getId())));
+
+        assertThat(relevantResults).hasSize(exercises.size() * (numberOfStudents - 1));
+        assertThat(relevantResults).isEqualTo(formerRelevantResults);
+        assertThat(relevantResults.values()).filteredOn(Set::isEmpty).hasSize(exercises.size());
+    }
+
+    @Test
+    @WithMockUser(username = "student1")
+    public void getExerciseDetails_loadsSubmissionsAndResultsWithoutAdditionalQueriesPerSubmission() throws Exception {
+        StudentParticipation participation = database.addParticipationForExercise(textExercise, "student1");
+        database.addResultToSubmission(database.addSubmission(participation, ModelFactory.generateTextSubmission("first", Language.ENGLISH, true), "student1"),
+                AssessmentType.MANUAL, null);
+        String url = "/api/exercises/" + textExercise.getId() + "/details";
+        // the first request fills the caches, e.g. of the user
+        request.get(url, HttpStatus.OK, Exercise.class);
+        long queryCountWithOneSubmission = QueryCountInspector.countQueries(() -> request.get(url, HttpStatus.OK, Exercise.class));
+
+        for (int i = 0; i < 4; i++) {
+            database.addResultToSubmission(database.addSubmission(participation, ModelFactory.generateTextSubmission("next", Language.ENGLISH, true), "student1"),
+                    AssessmentType.MANUAL, null);
+        }
+        request.get(url, HttpStatus.OK, Exercise.class);
+        Exercise exercise = QueryCountInspector.assertQueryCountAtMost(queryCountWithOneSubmission, () -> request.get(url, HttpStatus.OK, Exercise.class));
+
+        StudentParticipation participationWithDetails = exercise.getStudentParticipations().iterator().next();
+        assertThat(participationWithDetails.getSubmissions()).hasSize(5);
+        assertThat(participationWithDetails.getResults()).hasSize(5);
+    }
+
+    @Test
+    public void findWithEagerSubmissionsAndResultsById_fetchesAllCollectionsOfTheParticipation() {
+        StudentParticipation participation = database.addParticipationForExercise(textExercise, "student1");
+        for (int i = 0; i < 3; i++) {
+            Submission submission = database.addSubmission(participation, ModelFactory.generateTextSubmission("text" + i, Language.ENGLISH, true), "student1");
+            database.addFeedbacksToResult(database.addResultToSubmission(submission));
+        }
+
+        // loaded outside of a transaction, so every collection that was not fetched would throw a LazyInitializationException
+        StudentParticipation participationWithDetails = participationService.findOneStudentParticipationWithEagerSubmissionsResultsExerciseAndCourse(participation.getId());
+
+        assertThat(participationWithDetails.getExercise().getCourse().getId()).isEqualTo(course.getId());
+        assertThat(participationWithDetails.getResults()).hasSize(3);
+        assertThat(participationWithDetails.getSubmissions()).hasSize(3);
+        for (Submission submission : participationWithDetails.getSubmissions()) {
+            assertThat(submission.getResult()).isNotNull();
+            assertThat(submission.getResult().getFeedbacks()).hasSize(2);
+        }
+    }
+
+    private <T> T measure(String name, Supplier<T> query) {
+        T value = query.get();
+        long start = System.nanoTime();
+        int runs = 10;
+        for (int run = 0; run < runs; run++) {
+            value = query.get();
+        }
+        log.info("findByCourseIdWithRelevantResult {} took {}ms on average", name, (System.nanoTime() - start) / runs / 1_000_000.0);
+        return value;
+    }
+
+    private static Map<Long, Set<Long>> relevantResultIds(List<StudentParticipation> participations) {
+        return participations.stream()
+                .collect(Collectors.toMap(Participation::getId, participation -> participation.getResults().stream().map(Result::getId).collect(Collectors.toSet())));
+    }
+
+    /**
+     * The former implementation of ParticipationService.findByCourseIdWithRelevantResult.
+     */
+    private List<StudentParticipation> findByCourseIdWithRelevantResultInJava(Long courseId) {
+        List<StudentParticipation> participations = participationRepo.findByCourseIdWithEagerRatedResults(courseId);
+        return participations.stream().filter(participation -> participation.getParticipant() != null).peek(participation -> {
+            Optional<Result> relevantResult = participation.getResults().stream()
+                    .filter(result -> result.isRated() != Boolean.FALSE && result.getCompletionDate() != null && result.getScore() != null)
+                    .max(Comparator.comparing(Result::getCompletionDate));
+            participation.setResults(relevantResult.map(Set::of).orElse(Set.of()));
+        }).collect(Collectors.toList());
+    }
+
     @Test
     @WithMockUser(username = "instructor3", roles = "INSTRUCTOR")
     public void getAllParticipationsForCourse_noInstructorInCourse() throws Exception {
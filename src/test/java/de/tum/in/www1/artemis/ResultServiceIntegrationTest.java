@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.doReturn;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -21,6 +22,7 @@ import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import de.tum.in.www1.artemis.config.Constants;
 import de.tum.in.www1.artemis.domain.*;
@@ -35,12 +37,14 @@ import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
 import de.tum.in.www1.artemis.domain.quiz.QuizExercise;
 import de.tum.in.www1.artemis.domain.quiz.QuizSubmission;
 import de.tum.in.www1.artemis.repository.*;
+import de.tum.in.www1.artemis.service.ExerciseAssessmentCountersService;
 import de.tum.in.www1.artemis.service.ProgrammingExerciseTestCaseService;
 import de.tum.in.www1.artemis.service.ResultService;
 import de.tum.in.www1.artemis.util.DatabaseUtilService;
 import de.tum.in.www1.artemis.util.ModelFactory;
 import de.tum.in.www1.artemis.util.RequestUtilService;
 import de.tum.in.www1.artemis.util.TestConstants;
+import de.tum.in.www1.artemis.web.rest.dto.ExerciseResultDTO;
 
 public class ResultServiceIntegrationTest extends AbstractSpringIntegrationBambooBitbucketJiraTest {
 
@@ -83,6 +87,12 @@ public class ResultServiceIntegrationTest extends AbstractSpringIntegrationBambo
     @Autowired
     SubmissionRepository submissionRepository;
 
+    @Autowired
+    ExerciseAssessmentCountersService exerciseAssessmentCountersService;
+
+    @Autowired
+    ExerciseAssessmentCountersRepository exerciseAssessmentCountersRepository;
+
     private Course course;
 
     private ProgrammingExercise programmingExercise;
@@ -274,6 +284,26 @@ public class ResultServiceIntegrationTest extends AbstractSpringIntegrationBambo
         assertThat(response.getFeedbacks().size()).isEqualTo(result.getFeedbacks().size());
     }
 
+    @Test
+    @WithMockUser(value = "tutor1", roles = "TA")
+    public void createManualProgrammingExerciseResult_updatesTheStoredAssessmentCounters() throws Exception {
+        // the test configuration counts the counters on every read, here the stored counters are used until the exercise is invalidated
+        ReflectionTestUtils.setField(exerciseAssessmentCountersService, "countersMaxAgeSeconds", 3600L);
+        try {
+            var participation = setParticipationForProgrammingExercise(AssessmentType.SEMI_AUTOMATIC);
+            result.setParticipation(participation);
+            assertThat(exerciseAssessmentCountersService.getCounters(programmingExercise).getNumberOfAssessments()).isEqualTo(0L);
+
+            request.postWithResponseBody("/api/participations/" + participation.getId() + "/manual-results", result, Result.class);
+
+            assertThat(exerciseAssessmentCountersService.getCounters(programmingExercise).getNumberOfAssessments()).isEqualTo(1L);
+        }
+        finally {
+            ReflectionTestUtils.setField(exerciseAssessmentCountersService, "countersMaxAgeSeconds", 0L);
+            exerciseAssessmentCountersRepository.deleteAll();
+        }
+    }
+
     @Test
     @WithMockUser(value = "tutor1", roles = "TA")
     public void createManualProgrammingExerciseResult_manualResultsNotAllowed() throws Exception {
@@ -483,6 +513,87 @@ public class ResultServiceIntegrationTest extends AbstractSpringIntegrationBambo
         // TODO: check additional values
     }
 
+    @Test
+    @WithMockUser(value = "instructor1", roles = "INSTRUCTOR")
+    public void testGetLatestRatedResultsForTextExercisePageByPage() throws Exception {
+        var now = ZonedDateTime.now();
+        TextExercise textExercise = ModelFactory.generateTextExercise(now.minusDays(1), now.minusHours(2), now.minusHours(1), course);
+        course.addExercises(textExercise);
+        textExerciseRepository.save(textExercise);
+
+        for (int i = 1; i <= 10; i++) {
+            TextSubmission textSubmission = new TextSubmission();
+            textSubmission.text("Text");
+            textSubmission.submitted(true);
+            textSubmission.submissionDate(now.minusHours(3));
+            database.addSubmission(textExercise, textSubmission, "student" + i);
+            if (i % 3 == 0) {
+                database.addResultToSubmission(textSubmission, AssessmentType.MANUAL, database.getUserByLogin("instructor1"), 10L, true);
+            }
+            else if (i % 4 == 0) {
+                database.addResultToSubmission(textSubmission, AssessmentType.SEMI_AUTOMATIC, database.getUserByLogin("instructor1"), 20L, true);
+            }
+        }
+        // a newer rated result of student3 replaces the older one
+        TextSubmission newerSubmission = new TextSubmission();
+        newerSubmission.text("Newer text");
+        newerSubmission.submitted(true);
+        newerSubmission.submissionDate(now.minusHours(2));
+        database.addSubmission(textExercise, newerSubmission, "student3");
+        database.addResultToSubmission(newerSubmission, AssessmentType.MANUAL, database.getUserByLogin("instructor1"), 99L, true);
+
+        String path = "/api/exercises/" + textExercise.getId() + "/results/latest-rated?size=3";
+        List<ExerciseResultDTO> firstPage = request.getList(path, HttpStatus.OK, ExerciseResultDTO.class);
+        assertThat(firstPage).hasSize(3);
+        long lastParticipationId = firstPage.get(2).getParticipationId();
+        List<ExerciseResultDTO> secondPage = request.getList(path + "&afterParticipationId=" + lastParticipationId, HttpStatus.OK, ExerciseResultDTO.class);
+        assertThat(secondPage).hasSize(2);
+        assertThat(secondPage).allMatch(result -> result.getParticipationId() > lastParticipationId);
+
+        List<ExerciseResultDTO> results = new ArrayList<>(firstPage);
+        results.addAll(secondPage);
+        assertThat(results).extracting(ExerciseResultDTO::getParticipantIdentifier).containsExactlyInAnyOrder("student3", "student4", "student6", "student8", "student9");
+        ExerciseResultDTO resultOfStudent3 = results.stream().filter(result -> "student3".equals(result.getParticipantIdentifier())).findFirst().get();
+        assertThat(resultOfStudent3.getScore()).isEqualTo(99L);
+        assertThat(resultOfStudent3.getSubmissionCount()).isEqualTo(2);
+        assertThat(resultOfStudent3.getAssessorLogin()).isEqualTo("instructor1");
+    }
+
+    @Test
+    @WithMockUser(value = "instructor1", roles = "INSTRUCTOR")
+    public void testGetLatestRatedResultsFallsBackToTheLatestSubmittedResult() throws Exception {
+        var now = ZonedDateTime.now();
+        TextExercise textExercise = ModelFactory.generateTextExercise(now.minusDays(1), now.minusHours(2), now.minusHours(1), course);
+        course.addExercises(textExercise);
+        textExerciseRepository.save(textExercise);
+
+        TextSubmission submittedSubmission = new TextSubmission();
+        submittedSubmission.text("Text");
+        submittedSubmission.submitted(true);
+        submittedSubmission.submissionDate(now.minusHours(3));
+        database.addSubmission(textExercise, submittedSubmission, "student1");
+        Result submittedResult = database.addResultToSubmission(submittedSubmission, AssessmentType.MANUAL, database.getUserByLogin("instructor1"), 10L, true);
+        submittedResult.setCompletionDate(now.minusHours(2));
+        resultRepository.save(submittedResult);
+        // the newest rated result belongs to a submission that is not submitted
+        TextSubmission notSubmittedSubmission = new TextSubmission();
+        notSubmittedSubmission.text("Newer text");
+        notSubmittedSubmission.submitted(false);
+        database.addSubmission(textExercise, notSubmittedSubmission, "student1");
+        Result notSubmittedResult = database.addResultToSubmission(notSubmittedSubmission, AssessmentType.MANUAL, database.getUserByLogin("instructor1"), 50L, true);
+        notSubmittedResult.setCompletionDate(now.minusHours(1));
+        resultRepository.save(notSubmittedResult);
+
+        String path = "/api/exercises/" + textExercise.getId() + "/results/latest-rated";
+        List<ExerciseResultDTO> submittedResults = request.getList(path, HttpStatus.OK, ExerciseResultDTO.class);
+        assertThat(submittedResults).hasSize(1);
+        assertThat(submittedResults.get(0).getScore()).isEqualTo(10L);
+
+        List<ExerciseResultDTO> allResults = request.getList(path + "?onlySubmitted=false", HttpStatus.OK, ExerciseResultDTO.class);
+        assertThat(allResults).hasSize(1);
+        assertThat(allResults.get(0).getScore()).isEqualTo(50L);
+    }
+
     @Test
     @WithMockUser(value = "tutor1", roles = "TA")
     public void getResult() throws Exception {
@@ -0,0 +1,164 @@
+package de.tum.in.www1.artemis.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.cache.spi.entry.CollectionCacheEntry;
+import org.hibernate.cache.spi.entry.StandardCacheEntryImpl;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import org.hibernate.type.Type;
+import org.hibernate.type.ZonedDateTimeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import de.tum.in.www1.artemis.domain.Course;
+import de.tum.in.www1.artemis.domain.Lecture;
+import de.tum.in.www1.artemis.domain.participation.Participation;
+import de.tum.in.www1.artemis.domain.quiz.QuizQuestion;
+import io.github.jhipster.config.JHipsterProperties;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CacheConfigurationTest {
+
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void init() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getCache().getEhcache().setMaxEntries(100);
+        jHipsterProperties.getCache().getEhcache().setTimeToLiveSeconds(3600);
+
+        CacheRegionConfiguration.Region course = new CacheRegionConfiguration.Region();
+        course.setMaxEntries(2000L);
+        course.setTimeToLive(Duration.ofHours(6));
+        CacheRegionConfiguration.Region results = new CacheRegionConfiguration.Region();
+        results.setHeapSize(DataSize.ofMegabytes(4));
+        results.setOffHeapSize(DataSize.ofMegabytes(16));
+        CacheRegionConfiguration.Region quizQuestion = new CacheRegionConfiguration.Region();
+        quizQuestion.setMaxEntries(1L);
+        quizQuestion.setOffHeapSize(DataSize.ofMegabytes(8));
+        CacheRegionConfiguration cacheRegionConfiguration = new CacheRegionConfiguration();
+        cacheRegionConfiguration.setRegions(Map.of("Course", course, "participation.Participation.results", results, "quiz.QuizQuestion", quizQuestion));
+
+        cacheManager = Caching.getCachingProvider(EhcacheCachingProvider.class.getName()).getCacheManager(URI.create("urn:artemis:cache-configuration-test"),
+                getClass().getClassLoader());
+        new CacheConfiguration(jHipsterProperties, cacheRegionConfiguration).cacheManagerCustomizer().customize(cacheManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    public void cacheManagerCustomizer_sizesEachRegionFromItsConfiguration() {
+        ResourcePools coursePools = resourcePools(Course.class.getName());
+        assertThat(coursePools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(2000);
+
+        ResourcePools resultPools = resourcePools(Participation.class.getName() + ".results");
+        assertThat(resultPools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(4 * 1024 * 1024);
+        assertThat(resultPools.getPoolForResource(ResourceType.Core.HEAP).getUnit()).isEqualTo(MemoryUnit.B);
+        assertThat(resultPools.getPoolForResource(ResourceType.Core.OFFHEAP).getSize()).isEqualTo(16);
+
+        // regions without configuration use the defaults
+        ResourcePools lecturePools = resourcePools(Lecture.class.getName());
+        assertThat(lecturePools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(100);
+        assertThat(lecturePools.getPoolForResource(ResourceType.Core.OFFHEAP)).isNull();
+    }
+
+    @Test
+    public void cacheManagerCustomizer_storesHibernateCacheEntriesInTheOffHeapTier() {
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+
+        // the results of a participation as Hibernate caches them: the ids of the results, keyed by the participation and the collection role
+        String resultsRole = Participation.class.getName() + ".results";
+        CollectionPersister resultsPersister = mock(CollectionPersister.class);
+        when(resultsPersister.getRole()).thenReturn(resultsRole);
+        when(resultsPersister.getKeyType()).thenReturn(LongType.INSTANCE);
+        PersistentCollection results = mock(PersistentCollection.class);
+        when(results.disassemble(resultsPersister)).thenReturn(new Serializable[] { 3L, 5L, 8L });
+        Object resultsKey = DefaultCacheKeysFactory.staticCreateCollectionKey(1L, resultsPersister, sessionFactory, null);
+        CollectionCacheEntry resultsEntry = new CollectionCacheEntry(results, resultsPersister);
+
+        Cache<Object, Object> resultsCache = cacheManager.getCache(resultsRole);
+        resultsCache.put(resultsKey, resultsEntry);
+        Object cachedResults = resultsCache.get(DefaultCacheKeysFactory.staticCreateCollectionKey(1L, resultsPersister, sessionFactory, null));
+
+        assertThat(cachedResults).isInstanceOf(CollectionCacheEntry.class).isNotSameAs(resultsEntry);
+        assertThat((Object[]) ((CollectionCacheEntry) cachedResults).getState()).containsExactly(3L, 5L, 8L);
+
+        // quiz questions as Hibernate caches them: the disassembled state of the entity, more questions than fit on the heap
+        EntityPersister questionPersister = mock(EntityPersister.class);
+        when(questionPersister.getRootEntityName()).thenReturn(QuizQuestion.class.getName());
+        when(questionPersister.getEntityName()).thenReturn(QuizQuestion.class.getName());
+        when(questionPersister.getIdentifierType()).thenReturn(LongType.INSTANCE);
+        when(questionPersister.getPropertyTypes()).thenReturn(new Type[] { StringType.INSTANCE, IntegerType.INSTANCE, ZonedDateTimeType.INSTANCE });
+        when(questionPersister.isLazyPropertiesCacheable()).thenReturn(true);
+        SharedSessionContractImplementor session = mock(SharedSessionContractImplementor.class);
+        ZonedDateTime now = ZonedDateTime.now();
+
+        Cache<Object, Object> questionCache = cacheManager.getCache(QuizQuestion.class.getName());
+        for (long id = 1; id <= 3; id++) {
+            Object[] state = { "Question " + id, (int) id, now };
+            questionCache.put(DefaultCacheKeysFactory.staticCreateEntityKey(id, questionPersister, sessionFactory, null),
+                    new StandardCacheEntryImpl(state, questionPersister, null, session, null));
+        }
+
+        for (long id = 1; id <= 3; id++) {
+            Object cachedQuestion = questionCache.get(DefaultCacheKeysFactory.staticCreateEntityKey(id, questionPersister, sessionFactory, null));
+            assertThat(cachedQuestion).isInstanceOf(StandardCacheEntryImpl.class);
+            assertThat(((StandardCacheEntryImpl) cachedQuestion).getSubclass()).isEqualTo(QuizQuestion.class.getName());
+            assertThat(((StandardCacheEntryImpl) cachedQuestion).getDisassembledState()).containsExactly("Question " + id, (int) id, now);
+        }
+    }
+
+    @Test
+    public void cacheManagerCustomizer_enablesTheStatisticsForTheCacheMetrics() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Cache<Object, Object> courseCache = cacheManager.getCache(Course.class.getName());
+        // the same binder the cache metrics of Spring Boot use for JCache caches
+        JCacheMetrics.monitor(meterRegistry, courseCache);
+
+        courseCache.put(1L, "course");
+        courseCache.get(1L);
+        courseCache.get(1L);
+        courseCache.get(2L);
+
+        assertThat(meterRegistry.get("cache.gets").tags("cache", Course.class.getName(), "result", "hit").functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tags("cache", Course.class.getName(), "result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.puts").tags("cache", Course.class.getName()).functionCounter().count()).isEqualTo(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResourcePools resourcePools(String cacheName) {
+        Eh107Configuration<Object, Object> configuration = cacheManager.getCache(cacheName).getConfiguration(Eh107Configuration.class);
+        return configuration.unwrap(CacheRuntimeConfiguration.class).getResourcePools();
+    }
+}
@@ -0,0 +1,90 @@
+package de.tum.in.www1.artemis.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class HttpClientConfigurationTest {
+
+    private HttpServer server;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpClient pooledHttpClient;
+
+    private RestTemplate restTemplate;
+
+    private final List<String> receivedCookies = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void init() throws IOException {
+        // like e.g. JIRA, the server starts a session for the user of the basic authentication
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            receivedCookies.add(String.valueOf(exchange.getRequestHeaders().getFirst(HttpHeaders.COOKIE)));
+            final String authorization = exchange.getRequestHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            exchange.getResponseHeaders().add(HttpHeaders.SET_COOKIE, "JSESSIONID=" + Math.abs(authorization.hashCode()) + "; Path=/");
+            final byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        });
+        server.start();
+
+        HttpClientConfiguration httpClientConfiguration = new HttpClientConfiguration();
+        ReflectionTestUtils.setField(httpClientConfiguration, "maxConnections", 10);
+        ReflectionTestUtils.setField(httpClientConfiguration, "maxConnectionsPerRoute", 10);
+        ReflectionTestUtils.setField(httpClientConfiguration, "connectTimeout", 10000);
+        ReflectionTestUtils.setField(httpClientConfiguration, "connectionRequestTimeout", 10000);
+        ReflectionTestUtils.setField(httpClientConfiguration, "keepAlive", 30000L);
+        connectionManager = httpClientConfiguration.pooledHttpClientConnectionManager(new SimpleMeterRegistry());
+        pooledHttpClient = httpClientConfiguration.pooledHttpClient(connectionManager);
+        restTemplate = new RestTemplate(httpClientConfiguration.pooledClientHttpRequestFactory(pooledHttpClient));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        pooledHttpClient.close();
+        connectionManager.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    public void pooledHttpClient_doesNotShareSessionCookiesBetweenRequestsWithDifferentCredentials() {
+        final String url = "http://localhost:" + server.getAddress().getPort() + "/rest/auth/1/session";
+
+        restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(basicAuthentication("admin", "admin-password")), String.class);
+        restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(basicAuthentication("student1", "wrong-password")), String.class);
+        restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(basicAuthentication("student1", "wrong-password")), String.class);
+
+        // the server never receives the session cookie it set for an earlier request
+        assertThat(receivedCookies).containsExactly("null", "null", "null");
+    }
+
+    private HttpHeaders basicAuthentication(String username, String password) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBasicAuth(username, password);
+        return headers;
+    }
+}
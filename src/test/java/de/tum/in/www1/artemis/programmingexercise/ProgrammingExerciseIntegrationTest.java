@@ -6,7 +6,10 @@ import static de.tum.in.www1.artemis.web.rest.ProgrammingExerciseResource.Endpoi
 import static de.tum.in.www1.artemis.web.rest.ProgrammingExerciseResource.ErrorKeys.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 
 import java.io.File;
 import java.io.IOException;
@@ -19,6 +22,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jgit.api.Git;
@@ -52,6 +57,7 @@ import de.tum.in.www1.artemis.web.rest.ProgrammingExerciseResource.Endpoints;
 import de.tum.in.www1.artemis.web.rest.ProgrammingExerciseTestCaseResource;
 import de.tum.in.www1.artemis.web.rest.dto.ProgrammingExerciseTestCaseDTO;
 import de.tum.in.www1.artemis.web.rest.dto.RepositoryExportOptionsDTO;
+import de.tum.in.www1.artemis.web.rest.dto.RepositoryExportProgressDTO;
 import de.tum.in.www1.artemis.web.websocket.dto.ProgrammingExerciseTestCaseStateDTO;
 
 class ProgrammingExerciseIntegrationTest extends AbstractSpringIntegrationBambooBitbucketJiraTest {
@@ -201,7 +207,12 @@ class ProgrammingExerciseIntegrationTest extends AbstractSpringIntegrationBamboo
                 String.join(",", participationIds));
         downloadedFile = request.postWithResponseBodyFile(path, getOptions(), HttpStatus.OK);
         assertThat(downloadedFile.exists());
-        // TODO: unzip the files and add some checks
+        // The files of all repositories are contained in one archive, in one folder per repository
+        try (ZipFile zipFile = new ZipFile(downloadedFile)) {
+            assertThat(zipFile.stream().map(ZipEntry::getName)).isNotEmpty().allMatch(name -> name.contains("/"));
+        }
+        verify(websocketMessagingService, atLeastOnce()).sendMessage(eq("/topic/programming-exercises/" + programmingExercise.getId() + "/export-repos-progress"),
+                any(RepositoryExportProgressDTO.class));
     }
 
     @Test
@@ -216,6 +227,24 @@ class ProgrammingExerciseIntegrationTest extends AbstractSpringIntegrationBamboo
         // TODO: unzip the files and add some checks
     }
 
+    @Test
+    @WithMockUser(username = "instructor1", roles = "INSTRUCTOR")
+    void textExportSubmissionsByStudentLogins_failingRepositoryDoesNotAbortTheExport() throws Exception {
+        var repository = gitService.getRepositoryByLocalPath(localRepoFile.toPath());
+        doReturn(repository).when(gitService).getOrCheckoutRepository(any(URL.class), anyBoolean(), anyString());
+        // an unexpected error in the repository of student2 only fails this repository
+        doThrow(new IllegalStateException("Unexpected error")).when(gitService).getOrCheckoutRepository(argThat(url -> url != null && url.toString().contains("student2")),
+                anyBoolean(), anyString());
+        final var path = Endpoints.ROOT
+                + Endpoints.EXPORT_SUBMISSIONS_BY_PARTICIPANTS.replace("{exerciseId}", "" + programmingExercise.getId()).replace("{participantIdentifiers}", "student1,student2");
+        downloadedFile = request.postWithResponseBodyFile(path, getOptions(), HttpStatus.OK);
+        try (ZipFile zipFile = new ZipFile(downloadedFile)) {
+            assertThat(zipFile.stream().map(ZipEntry::getName)).isNotEmpty().allMatch(name -> name.contains("student1/")).noneMatch(name -> name.contains("student2"));
+        }
+        verify(websocketMessagingService, atLeastOnce()).sendMessage(eq("/topic/programming-exercises/" + programmingExercise.getId() + "/export-repos-progress"),
+                argThat((RepositoryExportProgressDTO progress) -> progress.getFailedRepositories() == 1));
+    }
+
     private RepositoryExportOptionsDTO getOptions() {
         final var repositoryExportOptions = new RepositoryExportOptionsDTO();
         repositoryExportOptions.setFilterLateSubmissions(true);
@@ -204,6 +204,24 @@ public class ProgrammingExerciseTestCaseServiceTest extends AbstractSpringIntegr
         assertThat(result.isSuccessful()).isFalse();
     }
 
+    @Test
+    public void shouldUseUpdatedTestCasesAfterTestCasesHaveChanged() {
+        List<Feedback> feedbacks = new ArrayList<>();
+        feedbacks.add(new Feedback().text("test1").positive(true).type(FeedbackType.AUTOMATIC));
+        feedbacks.add(new Feedback().text("test2").positive(true).type(FeedbackType.AUTOMATIC));
+        feedbacks.add(new Feedback().text("test3").positive(false).type(FeedbackType.AUTOMATIC));
+        testCaseService.updateResultFromTestCases(result.feedbacks(new ArrayList<>(feedbacks)), programmingExercise, false);
+        assertThat(result.getResultString()).isEqualTo("1 of 2 passed");
+
+        // test2 is part of the build again and test3 is not, the cached test cases of the exercise must not be used anymore.
+        testCaseService.generateTestCasesFromFeedbacks(feedbacks.subList(0, 2), programmingExercise);
+
+        Result newResult = new Result().feedbacks(new ArrayList<>(feedbacks.subList(0, 2)));
+        testCaseService.updateResultFromTestCases(newResult, programmingExercise, false);
+        assertThat(newResult.getResultString()).isEqualTo("2 of 2 passed");
+        assertThat(newResult.getScore()).isEqualTo(100L);
+    }
+
     @Test
     public void shouldRemoveTestsWithAfterDueDateFlagIfDueDateHasNotPassed() {
         // Set programming exercise due date in future.
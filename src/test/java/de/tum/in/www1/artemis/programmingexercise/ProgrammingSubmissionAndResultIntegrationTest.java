@@ -4,6 +4,7 @@ import static de.tum.in.www1.artemis.config.Constants.*;
 import static de.tum.in.www1.artemis.constants.ProgrammingSubmissionConstants.*;
 import static de.tum.in.www1.artemis.util.TestConstants.COMMIT_HASH_OBJECT_ID;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Mockito.doReturn;
 
 import java.net.URL;
@@ -22,11 +23,14 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import de.tum.in.www1.artemis.AbstractSpringIntegrationBambooBitbucketJiraTest;
 import de.tum.in.www1.artemis.connector.bamboo.BambooRequestMockProvider;
@@ -39,6 +43,7 @@ import de.tum.in.www1.artemis.domain.participation.Participation;
 import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseParticipation;
 import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
 import de.tum.in.www1.artemis.repository.*;
+import de.tum.in.www1.artemis.service.ResultIngestionQueueService;
 import de.tum.in.www1.artemis.util.DatabaseUtilService;
 import de.tum.in.www1.artemis.util.RequestUtilService;
 import de.tum.in.www1.artemis.web.rest.ProgrammingSubmissionResource;
@@ -46,6 +51,8 @@ import de.tum.in.www1.artemis.web.rest.ResultResource;
 
 class ProgrammingSubmissionAndResultIntegrationTest extends AbstractSpringIntegrationBambooBitbucketJiraTest {
 
+    private final Logger log = LoggerFactory.getLogger(ProgrammingSubmissionAndResultIntegrationTest.class);
+
     private enum IntegrationTestParticipationType {
         STUDENT, TEMPLATE, SOLUTION
     }
@@ -92,6 +99,12 @@ class ProgrammingSubmissionAndResultIntegrationTest extends AbstractSpringIntegr
     @Autowired
     private BambooRequestMockProvider bambooRequestMockProvider;
 
+    @Autowired
+    private ResultIngestionQueueService resultIngestionQueueService;
+
+    @Autowired
+    private PendingBuildResultRepository pendingBuildResultRepository;
+
     private Long exerciseId;
 
     private Long templateParticipationId;
@@ -457,6 +470,77 @@ class ProgrammingSubmissionAndResultIntegrationTest extends AbstractSpringIntegr
         }
     }
 
+    /**
+     * Participations can have hundreds of pending submissions (e.g. during build storms after the due date). The submission matching the commit of the push and of the build
+     * result is looked up with a single indexed query instead of loading all submissions of the participation.
+     */
+    @Test
+    void shouldLinkResultToMatchingSubmissionOfParticipationWithManySubmissions() throws Exception {
+        final int numberOfSubmissions = 300;
+        Long participationId = getParticipationIdByType(IntegrationTestParticipationType.STUDENT, 0);
+        Participation participation = participationRepository.findById(participationId).get();
+        List<ProgrammingSubmission> pendingSubmissions = new ArrayList<>();
+        for (int i = 0; i < numberOfSubmissions; i++) {
+            ProgrammingSubmission pendingSubmission = new ProgrammingSubmission();
+            pendingSubmission.setType(SubmissionType.MANUAL);
+            pendingSubmission.setSubmitted(true);
+            pendingSubmission.setSubmissionDate(ZonedDateTime.now().minusMinutes(numberOfSubmissions - i));
+            pendingSubmission.setCommitHash(String.format("%040x", i));
+            pendingSubmission.setParticipation(participation);
+            pendingSubmissions.add(pendingSubmission);
+        }
+        submissionRepository.saveAll(pendingSubmissions);
+
+        long start = System.nanoTime();
+        Object pushRequest = new JSONParser().parse(BITBUCKET_REQUEST);
+        request.postWithoutLocation("/api" + PROGRAMMING_SUBMISSION_RESOURCE_PATH + participationId, pushRequest, HttpStatus.OK, new HttpHeaders());
+        final long pushDuration = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        postResult(IntegrationTestParticipationType.STUDENT, 0, HttpStatus.OK, false);
+        final long resultDuration = System.nanoTime() - start;
+        log.info("Push notification took {}ms and build result notification took {}ms for a participation with {} pending submissions", pushDuration / 1_000_000,
+                resultDuration / 1_000_000, numberOfSubmissions);
+
+        assertThat(submissionRepository.findAll()).hasSize(numberOfSubmissions + 1);
+        ProgrammingSubmission submission = submissionRepository.findFirstByParticipationIdAndCommitHash(participationId, "9b3a9bd71a0d80e5bbc42204c319ed3d1d4f0d6d");
+        List<Result> results = resultRepository.findByParticipationIdOrderByCompletionDateDesc(participationId);
+        assertThat(results).hasSize(1);
+        assertThat(submission.getResult().getId()).isEqualTo(results.get(0).getId());
+    }
+
+    /**
+     * With the ingestion queue enabled, the CI server gets its response as soon as the build result is stored. The result is created by the workers afterwards, also if they
+     * only start after the result was stored (e.g. after a restart of the server).
+     */
+    @Test
+    void shouldStoreNewBuildResultBeforeRespondingAndProcessItInTheQueue() throws Exception {
+        Long participationId = getParticipationIdByType(IntegrationTestParticipationType.STUDENT, 0);
+        ProgrammingSubmission submission = postSubmission(participationId, HttpStatus.OK);
+        // the workers are not started yet
+        ReflectionTestUtils.setField(resultIngestionQueueService, "enabled", true);
+        try {
+            postResult(IntegrationTestParticipationType.STUDENT, 0, HttpStatus.OK, false);
+
+            assertThat(pendingBuildResultRepository.count()).isEqualTo(1);
+            assertThat(resultRepository.findByParticipationIdOrderByCompletionDateDesc(participationId)).isEmpty();
+
+            resultIngestionQueueService.init();
+            // the stored result is removed in the transaction that saves the new result
+            await().until(() -> pendingBuildResultRepository.count() == 0);
+
+            List<Result> results = resultRepository.findByParticipationIdOrderByCompletionDateDesc(participationId);
+            assertThat(results).hasSize(1);
+            submission = submissionRepository.findWithEagerResultById(submission.getId()).get();
+            assertThat(submission.getResult().getId()).isEqualTo(results.get(0).getId());
+        }
+        finally {
+            resultIngestionQueueService.shutdown();
+            ReflectionTestUtils.setField(resultIngestionQueueService, "enabled", false);
+            pendingBuildResultRepository.deleteAll();
+        }
+    }
+
     /**
      * This is the simulated request from the VCS to Artemis on a new commit.
      */
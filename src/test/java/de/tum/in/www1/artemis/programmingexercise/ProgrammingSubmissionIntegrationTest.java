@@ -162,6 +162,8 @@ public class ProgrammingSubmissionIntegrationTest extends AbstractSpringIntegrat
         request.postWithoutLocation("/api/programming-exercises/" + exercise.getId() + "/trigger-instructor-build-all", null, HttpStatus.OK, new HttpHeaders());
 
         await().until(() -> submissionRepository.count() == 3);
+        // the exercise is marked as built when all builds have been triggered
+        await().until(() -> !programmingExerciseRepository.findById(exercise.getId()).get().getTestCasesChanged());
 
         List<ProgrammingSubmission> submissions = submissionRepository.findAll();
 
@@ -0,0 +1,133 @@
+package de.tum.in.www1.artemis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.tum.in.www1.artemis.web.rest.dto.BuildRunProgressDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BuildTriggerQueueServiceTest {
+
+    private static final int CONCURRENCY = 3;
+
+    private WebsocketMessagingService websocketMessagingService;
+
+    private BuildTriggerQueueService buildTriggerQueueService;
+
+    @BeforeEach
+    public void init() {
+        websocketMessagingService = mock(WebsocketMessagingService.class);
+        buildTriggerQueueService = new BuildTriggerQueueService(websocketMessagingService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(buildTriggerQueueService, "concurrency", CONCURRENCY);
+        ReflectionTestUtils.setField(buildTriggerQueueService, "ratePerSecond", 100.0);
+        ReflectionTestUtils.setField(buildTriggerQueueService, "burst", 10);
+        ReflectionTestUtils.setField(buildTriggerQueueService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(buildTriggerQueueService, "retryDelayMillis", 10L);
+        buildTriggerQueueService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        buildTriggerQueueService.shutdown();
+    }
+
+    @Test
+    public void triggersAreRateLimitedAndBounded() throws Exception {
+        final List<Integer> items = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Integer> triggered = new CopyOnWriteArrayList<>();
+
+        final long start = System.nanoTime();
+        final BuildRunProgressDTO progress = buildTriggerQueueService.triggerBuilds(1L, items, item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            triggered.add(item);
+            running.decrementAndGet();
+        }, (item, ex) -> {
+        }).get(10, TimeUnit.SECONDS);
+        final long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(triggered).containsExactlyInAnyOrderElementsOf(items);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(CONCURRENCY);
+        // 10 triggers can use the burst, the other 40 triggers are limited to 100 per second
+        assertThat(durationMillis).isGreaterThanOrEqualTo(350);
+        assertThat(progress.getSentBuilds()).isEqualTo(50);
+        assertThat(progress.getQueuedBuilds()).isZero();
+        verify(websocketMessagingService, atLeast(2)).sendMessage(eq("/topic/programming-exercises/1/all-builds-triggered/progress"), any(BuildRunProgressDTO.class));
+    }
+
+    @Test
+    public void failedTriggersAreRetriedAndReported() throws Exception {
+        final Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        final List<Integer> failedItems = new CopyOnWriteArrayList<>();
+
+        final BuildRunProgressDTO progress = buildTriggerQueueService.triggerBuilds(2L, List.of(1, 2, 3), item -> {
+            final int attempt = attempts.computeIfAbsent(item, key -> new AtomicInteger()).incrementAndGet();
+            // item 2 succeeds in the second attempt, item 3 never succeeds
+            if (item == 3 || (item == 2 && attempt == 1)) {
+                throw new IllegalStateException("CI server not available");
+            }
+        }, (item, ex) -> failedItems.add(item)).get(10, TimeUnit.SECONDS);
+
+        assertThat(attempts.get(1).get()).isEqualTo(1);
+        assertThat(attempts.get(2).get()).isEqualTo(2);
+        assertThat(attempts.get(3).get()).isEqualTo(3);
+        assertThat(failedItems).containsExactly(3);
+        assertThat(progress.getSentBuilds()).isEqualTo(2);
+        assertThat(progress.getFailedBuilds()).isEqualTo(1);
+    }
+
+    @Test
+    public void triggerThreadsDoNotKeepTheAuthenticationOfTheSystem() throws Exception {
+        final BuildTriggerQueueService singleThreadedService = new BuildTriggerQueueService(websocketMessagingService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(singleThreadedService, "concurrency", 1);
+        ReflectionTestUtils.setField(singleThreadedService, "ratePerSecond", 100.0);
+        ReflectionTestUtils.setField(singleThreadedService, "burst", 10);
+        ReflectionTestUtils.setField(singleThreadedService, "maxAttempts", 1);
+        singleThreadedService.init();
+        try {
+            final List<Authentication> authentications = new CopyOnWriteArrayList<>();
+            singleThreadedService.triggerBuilds(4L, List.of(1), item -> authentications.add(SecurityContextHolder.getContext().getAuthentication()), (item, ex) -> {
+            }).get(10, TimeUnit.SECONDS);
+
+            final ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(singleThreadedService, "executor");
+            final Authentication authenticationAfterTrigger = executor.submit(() -> SecurityContextHolder.getContext().getAuthentication()).get(10, TimeUnit.SECONDS);
+
+            assertThat(authentications).hasSize(1).doesNotContainNull();
+            assertThat(authenticationAfterTrigger).isNull();
+        }
+        finally {
+            singleThreadedService.shutdown();
+        }
+    }
+
+    @Test
+    public void emptyRunCompletesImmediately() throws Exception {
+        final BuildRunProgressDTO progress = buildTriggerQueueService.triggerBuilds(3L, List.<Integer>of(), item -> {
+        }, (item, ex) -> {
+        }).get(1, TimeUnit.SECONDS);
+
+        assertThat(progress.getSentBuilds()).isZero();
+        assertThat(progress.getFailedBuilds()).isZero();
+    }
+}
@@ -0,0 +1,197 @@
+package de.tum.in.www1.artemis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.tum.in.www1.artemis.domain.Attachment;
+import de.tum.in.www1.artemis.domain.Course;
+import de.tum.in.www1.artemis.domain.Lecture;
+import de.tum.in.www1.artemis.domain.User;
+import de.tum.in.www1.artemis.repository.AttachmentRepository;
+import de.tum.in.www1.artemis.repository.CourseRepository;
+import de.tum.in.www1.artemis.repository.ExerciseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CourseDashboardCacheServiceTest {
+
+    private CourseDashboardCacheService courseDashboardCacheService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EventListenerRegistry eventListenerRegistry;
+
+    private AtomicInteger numberOfLoads;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        final SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+        eventListenerRegistry = mock(EventListenerRegistry.class);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class)).thenReturn(eventListenerRegistry);
+        courseDashboardCacheService = new CourseDashboardCacheService(entityManagerFactory, new ObjectMapper().findAndRegisterModules(), meterRegistry,
+                mock(CourseRepository.class), mock(ExerciseRepository.class), mock(AttachmentRepository.class));
+        ReflectionTestUtils.setField(courseDashboardCacheService, "maxSizeMb", 1L);
+        ReflectionTestUtils.setField(courseDashboardCacheService, "maxAgeSeconds", 600L);
+        // registers the metrics and the Hibernate listeners, which ignore all changes while the cache is disabled
+        courseDashboardCacheService.init();
+        ReflectionTestUtils.setField(courseDashboardCacheService, "enabled", true);
+        numberOfLoads = new AtomicInteger();
+    }
+
+    @Test
+    public void getDashboard_servesTheSecondRequestFromTheCache() {
+        final User user = user(1L);
+
+        final CourseDashboardCacheService.CachedDashboard first = courseDashboardCacheService.getDashboard(user, loader(1L, "Course"));
+        final CourseDashboardCacheService.CachedDashboard second = courseDashboardCacheService.getDashboard(user, loader(1L, "Course"));
+
+        assertThat(numberOfLoads.get()).isEqualTo(1);
+        assertThat(second).isSameAs(first);
+        assertThat(meterRegistry.get("artemis.dashboard.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("artemis.dashboard.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("artemis.dashboard.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void invalidate_removesOnlyTheDependentDashboards() {
+        final User firstUser = user(1L);
+        final User secondUser = user(2L);
+        courseDashboardCacheService.getDashboard(firstUser, loader(1L, "Course"));
+        courseDashboardCacheService.getDashboard(secondUser, loader(2L, "Other course"));
+
+        courseDashboardCacheService.invalidate(Set.of("course-1"));
+        courseDashboardCacheService.getDashboard(firstUser, loader(1L, "Course"));
+        courseDashboardCacheService.getDashboard(secondUser, loader(2L, "Other course"));
+
+        assertThat(numberOfLoads.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("artemis.dashboard.cache.entries").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    public void getDashboard_doesNotCacheADashboardThatChangedWhileItWasLoaded() {
+        final User user = user(1L);
+        final Supplier<List<Course>> loaderWithConcurrentChange = () -> {
+            courseDashboardCacheService.invalidate(Set.of("course-1"));
+            return loader(1L, "Course").get();
+        };
+
+        courseDashboardCacheService.getDashboard(user, loaderWithConcurrentChange);
+        courseDashboardCacheService.getDashboard(user, loader(1L, "Course"));
+
+        assertThat(numberOfLoads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void getDashboard_evictsTheLeastRecentlyUsedDashboardsAboveTheMemoryBudget() {
+        // three dashboards of 400 KB do not fit into the budget of 1 MB
+        final String longTitle = "x".repeat(400 * 1024);
+        for (long userId = 1; userId <= 3; userId++) {
+            courseDashboardCacheService.getDashboard(user(userId), loader(userId, longTitle));
+        }
+
+        assertThat(meterRegistry.get("artemis.dashboard.cache.entries").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("artemis.dashboard.cache.size").gauge().value()).isLessThanOrEqualTo(1024 * 1024);
+        courseDashboardCacheService.getDashboard(user(3L), loader(3L, longTitle));
+        assertThat(numberOfLoads.get()).isEqualTo(3);
+        courseDashboardCacheService.getDashboard(user(1L), loader(1L, longTitle));
+        assertThat(numberOfLoads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void listener_invalidatesTheDashboardsShowingTheLectureOfAChangedAttachmentWithoutLoadingTheLecture() {
+        ArgumentCaptor<PostInsertEventListener> listener = ArgumentCaptor.forClass(PostInsertEventListener.class);
+        verify(eventListenerRegistry).appendListeners(eq(EventType.POST_INSERT), listener.capture());
+        courseDashboardCacheService.getDashboard(user(1L), loaderWithLecture(1L, 5L));
+        courseDashboardCacheService.getDashboard(user(2L), loaderWithLecture(2L, 6L));
+
+        // the lecture of the attachment is a lazy proxy, only its id may be read during the flush
+        final Lecture lecture = mock(Lecture.class, withSettings().extraInterfaces(HibernateProxy.class));
+        final LazyInitializer lazyInitializer = mock(LazyInitializer.class);
+        when(((HibernateProxy) lecture).getHibernateLazyInitializer()).thenReturn(lazyInitializer);
+        when(lazyInitializer.getIdentifier()).thenReturn(5L);
+        final Attachment attachment = new Attachment();
+        attachment.setLecture(lecture);
+        listener.getValue().onPostInsert(new PostInsertEvent(attachment, 1L, new Object[0], null, null));
+
+        verify(lecture, never()).getCourse();
+        courseDashboardCacheService.getDashboard(user(1L), loaderWithLecture(1L, 5L));
+        courseDashboardCacheService.getDashboard(user(2L), loaderWithLecture(2L, 6L));
+        assertThat(numberOfLoads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void listener_ignoresChangesWhileTheCacheIsDisabled() {
+        ArgumentCaptor<PostInsertEventListener> listener = ArgumentCaptor.forClass(PostInsertEventListener.class);
+        verify(eventListenerRegistry).appendListeners(eq(EventType.POST_INSERT), listener.capture());
+        courseDashboardCacheService.getDashboard(user(1L), loader(1L, "Course 1"));
+        final Course course = new Course();
+        course.setId(1L);
+
+        ReflectionTestUtils.setField(courseDashboardCacheService, "enabled", false);
+        listener.getValue().onPostInsert(new PostInsertEvent(course, 1L, new Object[0], null, null));
+        ReflectionTestUtils.setField(courseDashboardCacheService, "enabled", true);
+
+        courseDashboardCacheService.getDashboard(user(1L), loader(1L, "Course 1"));
+        assertThat(numberOfLoads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void isNotModified_comparesTheETag() {
+        final CourseDashboardCacheService.CachedDashboard dashboard = courseDashboardCacheService.getDashboard(user(1L), loader(1L, "Course"));
+
+        assertThat(dashboard.isNotModified(null)).isFalse();
+        assertThat(dashboard.isNotModified("\"outdated\"")).isFalse();
+        assertThat(dashboard.isNotModified(dashboard.getETag())).isTrue();
+        assertThat(dashboard.isNotModified("\"outdated\", W/" + dashboard.getETag())).isTrue();
+    }
+
+    private Supplier<List<Course>> loader(long courseId, String title) {
+        return () -> {
+            numberOfLoads.incrementAndGet();
+            final Course course = new Course();
+            course.setId(courseId);
+            course.setTitle(title);
+            return List.of(course);
+        };
+    }
+
+    private Supplier<List<Course>> loaderWithLecture(long courseId, long lectureId) {
+        return () -> {
+            final Course course = loader(courseId, "Course").get().get(0);
+            final Lecture lecture = new Lecture();
+            lecture.setId(lectureId);
+            course.addLectures(lecture);
+            return List.of(course);
+        };
+    }
+
+    private static User user(long id) {
+        final User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,258 @@
+package de.tum.in.www1.artemis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import de.tum.in.www1.artemis.domain.*;
+import de.tum.in.www1.artemis.domain.participation.Participant;
+import de.tum.in.www1.artemis.domain.participation.StudentParticipation;
+import de.tum.in.www1.artemis.repository.CourseRepository;
+import de.tum.in.www1.artemis.repository.TeamRepository;
+import de.tum.in.www1.artemis.repository.UserRepository;
+import de.tum.in.www1.artemis.web.rest.dto.RelevantResultDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CourseScoreMatrixServiceTest {
+
+    private static final long COURSE_ID = 1L;
+
+    private static final ZonedDateTime NOW = ZonedDateTime.now();
+
+    private ParticipationService participationService;
+
+    private CourseScoreMatrixService courseScoreMatrixService;
+
+    private PostInsertEventListener insertListener;
+
+    private PostDeleteEventListener deleteListener;
+
+    private Course course;
+
+    private TextExercise textExercise;
+
+    private TextExercise teamExercise;
+
+    private User student1;
+
+    private User student2;
+
+    private User unregisteredStudent;
+
+    private List<RelevantResultDTO> relevantResults;
+
+    @BeforeEach
+    public void init() {
+        course = new Course();
+        course.setId(COURSE_ID);
+        course.setStudentGroupName("students");
+        textExercise = exercise(10L, "Text, essay", NOW.minusDays(2));
+        teamExercise = exercise(11L, "Team \"project\"", NOW.minusDays(1));
+        course.setExercises(Set.of(teamExercise, textExercise));
+        student1 = user(1L, "student1", "Ada", "Lovelace");
+        student2 = user(2L, "student2", "Alan", "Turing");
+        unregisteredStudent = user(3L, "student3", "Grace", "Hopper");
+
+        participationService = mock(ParticipationService.class);
+        final CourseRepository courseRepository = mock(CourseRepository.class);
+        final UserRepository userRepository = mock(UserRepository.class);
+        final TeamRepository teamRepository = mock(TeamRepository.class);
+        when(courseRepository.findWithEagerExercisesById(COURSE_ID)).thenReturn(course);
+        when(userRepository.findAllInGroup("students")).thenReturn(List.of(student2, student1));
+        when(userRepository.findAllById(Set.of(3L))).thenReturn(List.of(unregisteredStudent));
+        when(teamRepository.findTeamIdsWithStudentIdsByCourseId(COURSE_ID)).thenReturn(List.of(new long[] { 100L, 1L }, new long[] { 100L, 2L }));
+        relevantResults = List.of(new RelevantResultDTO(20L, 10L, 1L, null, 200L, NOW.minusHours(5), 80L, false, "8 of 10 points", true, null, true),
+                new RelevantResultDTO(21L, 10L, 3L, null, 201L, NOW.minusHours(5), 40L, false, "4 of 10 points", true, null, true),
+                new RelevantResultDTO(22L, 11L, null, 100L, 202L, NOW.minusHours(5), 100L, true, "10 of 10 points", true, null, true));
+        doAnswer(invocation -> {
+            final Consumer<RelevantResultDTO> consumer = invocation.getArgument(1);
+            relevantResults.forEach(consumer);
+            return null;
+        }).when(participationService).forEachRelevantResultInCourse(eq(COURSE_ID), any());
+
+        final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        final SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+        final EventListenerRegistry eventListenerRegistry = mock(EventListenerRegistry.class);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class)).thenReturn(eventListenerRegistry);
+
+        courseScoreMatrixService = new CourseScoreMatrixService(entityManagerFactory, participationService, courseRepository, userRepository, teamRepository,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(courseScoreMatrixService, "maxAgeSeconds", 600L);
+        ReflectionTestUtils.setField(courseScoreMatrixService, "maxCourses", 20);
+        courseScoreMatrixService.init();
+
+        final ArgumentCaptor<PostInsertEventListener> insertListenerCaptor = ArgumentCaptor.forClass(PostInsertEventListener.class);
+        verify(eventListenerRegistry).appendListeners(eq(EventType.POST_INSERT), insertListenerCaptor.capture());
+        insertListener = insertListenerCaptor.getValue();
+        final ArgumentCaptor<PostDeleteEventListener> deleteListenerCaptor = ArgumentCaptor.forClass(PostDeleteEventListener.class);
+        verify(eventListenerRegistry).appendListeners(eq(EventType.POST_DELETE), deleteListenerCaptor.capture());
+        deleteListener = deleteListenerCaptor.getValue();
+    }
+
+    @Test
+    public void getScoreMatrix_containsTheRelevantResultOfEachStudent() throws Exception {
+        final CourseScoreMatrixService.ScoreMatrix matrix = courseScoreMatrixService.getScoreMatrix(COURSE_ID);
+
+        assertThat(matrix.getNumberOfStudents()).isEqualTo(3);
+        assertThat(matrix.getNumberOfExercises()).isEqualTo(2);
+        assertThat(matrix.getScore(1L, 10L)).isEqualTo(OptionalInt.of(80));
+        assertThat(matrix.getScore(2L, 10L)).isEmpty();
+        // the unregistered student still has a result
+        assertThat(matrix.getScore(3L, 10L)).isEqualTo(OptionalInt.of(40));
+        // the team result counts for all team members
+        assertThat(matrix.getScore(1L, 11L)).isEqualTo(OptionalInt.of(100));
+        assertThat(matrix.getScore(2L, 11L)).isEqualTo(OptionalInt.of(100));
+
+        final ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        matrix.snapshot().writeCsv(csv);
+        assertThat(csv.toString(StandardCharsets.UTF_8)).isEqualTo("Login,Name,Registration Number,\"Text, essay\",\"Team \"\"project\"\"\"\r\n" + "student1,Ada Lovelace,,80,100\r\n"
+                + "student2,Alan Turing,,,100\r\n" + "student3,Grace Hopper,,40,\r\n");
+    }
+
+    @Test
+    public void getScoreMatrix_isOnlyBuiltOnce() {
+        courseScoreMatrixService.getScoreMatrix(COURSE_ID);
+        courseScoreMatrixService.getScoreMatrix(COURSE_ID);
+
+        verify(participationService, times(1)).forEachRelevantResultInCourse(eq(COURSE_ID), any());
+    }
+
+    @Test
+    public void newResults_updateTheMatrixWithoutBuildingItAgain() {
+        final CourseScoreMatrixService.ScoreMatrix matrix = courseScoreMatrixService.getScoreMatrix(COURSE_ID);
+
+        insertListener.onPostInsert(insertEvent(result(300L, participation(20L, textExercise, student1), 90L, NOW)));
+        // an older result does not replace the latest one
+        insertListener.onPostInsert(insertEvent(result(301L, participation(20L, textExercise, student1), 10L, NOW.minusDays(1))));
+        // a new participation of a registered student
+        insertListener.onPostInsert(insertEvent(result(302L, participation(23L, textExercise, student2), 60L, NOW)));
+
+        assertThat(courseScoreMatrixService.getScoreMatrix(COURSE_ID)).isSameAs(matrix);
+        assertThat(matrix.getScore(1L, 10L)).isEqualTo(OptionalInt.of(90));
+        assertThat(matrix.getScore(2L, 10L)).isEqualTo(OptionalInt.of(60));
+        verify(participationService, times(1)).forEachRelevantResultInCourse(eq(COURSE_ID), any());
+    }
+
+    @Test
+    public void deletingTheRelevantResult_buildsTheMatrixAgain() {
+        final CourseScoreMatrixService.ScoreMatrix matrix = courseScoreMatrixService.getScoreMatrix(COURSE_ID);
+        // deleting another result does not change the matrix
+        deleteListener.onPostDelete(new PostDeleteEvent(result(299L, participation(20L, textExercise, student1), 10L, NOW.minusDays(1)), 299L, null, null, null));
+        assertThat(courseScoreMatrixService.getScoreMatrix(COURSE_ID)).isSameAs(matrix);
+
+        relevantResults = List.of(relevantResults.get(1), relevantResults.get(2));
+        deleteListener.onPostDelete(new PostDeleteEvent(result(200L, participation(20L, textExercise, student1), 80L, NOW.minusHours(5)), 200L, null, null, null));
+
+        final CourseScoreMatrixService.ScoreMatrix rebuiltMatrix = courseScoreMatrixService.getScoreMatrix(COURSE_ID);
+        assertThat(rebuiltMatrix).isNotSameAs(matrix);
+        assertThat(rebuiltMatrix.getScore(1L, 10L)).isEmpty();
+        verify(participationService, times(2)).forEachRelevantResultInCourse(eq(COURSE_ID), any());
+    }
+
+    @Test
+    public void teamResults_updateTheScoresOfAllTeamMembers() {
+        final CourseScoreMatrixService.ScoreMatrix matrix = courseScoreMatrixService.getScoreMatrix(COURSE_ID);
+        // the students of the team are not loaded, the matrix knows the members of the team
+        final Team team = new Team();
+        team.setId(100L);
+
+        insertListener.onPostInsert(insertEvent(result(303L, participation(22L, teamExercise, team), 50L, NOW)));
+
+        assertThat(courseScoreMatrixService.getScoreMatrix(COURSE_ID)).isSameAs(matrix);
+        assertThat(matrix.getScore(1L, 11L)).isEqualTo(OptionalInt.of(50));
+        assertThat(matrix.getScore(2L, 11L)).isEqualTo(OptionalInt.of(50));
+    }
+
+    @Test
+    public void changesInATransaction_areOnlyAppliedAfterTheCommit() {
+        final CourseScoreMatrixService.ScoreMatrix matrix = courseScoreMatrixService.getScoreMatrix(COURSE_ID);
+        final TextExercise newExercise = exercise(12L, "New exercise", NOW.plusDays(1));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            insertListener.onPostInsert(insertEvent(result(304L, participation(20L, textExercise, student1), 90L, NOW)));
+            insertListener.onPostInsert(new PostInsertEvent(newExercise, 12L, null, null, null));
+
+            assertThat(courseScoreMatrixService.getScoreMatrix(COURSE_ID)).isSameAs(matrix);
+            assertThat(matrix.getScore(1L, 10L)).isEqualTo(OptionalInt.of(80));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(matrix.getScore(1L, 10L)).isEqualTo(OptionalInt.of(90));
+        assertThat(courseScoreMatrixService.getScoreMatrix(COURSE_ID)).isNotSameAs(matrix);
+        verify(participationService, times(2)).forEachRelevantResultInCourse(eq(COURSE_ID), any());
+    }
+
+    @Test
+    public void writeCsv_neutralisesValuesThatStartLikeAFormula() throws Exception {
+        textExercise.setTitle("=HYPERLINK(\"https://example.com\", \"Text\")");
+        teamExercise.setTitle("-1+1");
+        student2.setFirstName("@Alan");
+        student2.setRegistrationNumber("+49");
+
+        final ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        courseScoreMatrixService.getScoreMatrix(COURSE_ID).snapshot().writeCsv(csv);
+
+        assertThat(csv.toString(StandardCharsets.UTF_8)).isEqualTo("Login,Name,Registration Number,\"'=HYPERLINK(\"\"https://example.com\"\", \"\"Text\"\")\",'-1+1\r\n"
+                + "student1,Ada Lovelace,,80,100\r\n" + "student2,'@Alan Turing,'+49,,100\r\n" + "student3,Grace Hopper,,40,\r\n");
+    }
+
+    private TextExercise exercise(long id, String title, ZonedDateTime dueDate) {
+        final TextExercise exercise = new TextExercise();
+        exercise.setId(id);
+        exercise.setTitle(title);
+        exercise.setDueDate(dueDate);
+        exercise.setCourse(course);
+        return exercise;
+    }
+
+    private static User user(long id, String login, String firstName, String lastName) {
+        final User user = new User();
+        user.setId(id);
+        user.setLogin(login);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        return user;
+    }
+
+    private static StudentParticipation participation(long id, Exercise exercise, Participant participant) {
+        final StudentParticipation participation = new StudentParticipation();
+        participation.setId(id);
+        participation.setExercise(exercise);
+        participation.setParticipant(participant);
+        return participation;
+    }
+
+    private static Result result(long id, StudentParticipation participation, long score, ZonedDateTime completionDate) {
+        final Result result = new Result().participation(participation).rated(true).score(score).completionDate(completionDate);
+        result.setId(id);
+        return result;
+    }
+
+    private static PostInsertEvent insertEvent(Result result) {
+        return new PostInsertEvent(result, result.getId(), null, null, null);
+    }
+}
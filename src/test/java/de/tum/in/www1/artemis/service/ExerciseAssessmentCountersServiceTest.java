@@ -0,0 +1,136 @@
+package de.tum.in.www1.artemis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import de.tum.in.www1.artemis.domain.ExerciseAssessmentCounters;
+import de.tum.in.www1.artemis.domain.ProgrammingExercise;
+import de.tum.in.www1.artemis.domain.TextExercise;
+import de.tum.in.www1.artemis.domain.enumeration.ComplaintType;
+import de.tum.in.www1.artemis.repository.*;
+
+public class ExerciseAssessmentCountersServiceTest {
+
+    private ExerciseAssessmentCountersRepository exerciseAssessmentCountersRepository;
+
+    private SubmissionRepository submissionRepository;
+
+    private ProgrammingExerciseRepository programmingExerciseRepository;
+
+    private ResultRepository resultRepository;
+
+    private ComplaintRepository complaintRepository;
+
+    private ComplaintResponseRepository complaintResponseRepository;
+
+    private ExerciseAssessmentCountersService countersService;
+
+    private TextExercise textExercise;
+
+    private ProgrammingExercise programmingExercise;
+
+    @BeforeEach
+    public void init() {
+        exerciseAssessmentCountersRepository = mock(ExerciseAssessmentCountersRepository.class);
+        submissionRepository = mock(SubmissionRepository.class);
+        programmingExerciseRepository = mock(ProgrammingExerciseRepository.class);
+        resultRepository = mock(ResultRepository.class);
+        complaintRepository = mock(ComplaintRepository.class);
+        complaintResponseRepository = mock(ComplaintResponseRepository.class);
+        countersService = new ExerciseAssessmentCountersService(exerciseAssessmentCountersRepository, submissionRepository, programmingExerciseRepository, resultRepository,
+                complaintRepository, complaintResponseRepository);
+        ReflectionTestUtils.setField(countersService, "countersMaxAgeSeconds", 60L);
+
+        textExercise = new TextExercise();
+        textExercise.setId(1L);
+        programmingExercise = new ProgrammingExercise();
+        programmingExercise.setId(2L);
+    }
+
+    @Test
+    public void getCounters_countsMissingCountersOfAllExercisesTogether() {
+        when(exerciseAssessmentCountersRepository.findAllByExerciseIdIn(anyCollection())).thenReturn(List.of());
+        when(submissionRepository.countByExerciseIdsSubmittedBeforeDueDate(Set.of(1L))).thenReturn(List.<long[]> of(new long[] { 1L, 10L }));
+        when(programmingExerciseRepository.countSubmissionsByExerciseIdsSubmitted(Set.of(2L))).thenReturn(List.<long[]> of(new long[] { 2L, 20L }));
+        when(resultRepository.countNumberOfFinishedAssessmentsForExercises(anyCollection())).thenReturn(List.of(new long[] { 1L, 5L }, new long[] { 2L, 7L }));
+        when(complaintRepository.countByExerciseIdsAndComplaintType(anyCollection(), eq(ComplaintType.COMPLAINT))).thenReturn(List.<long[]> of(new long[] { 1L, 3L }));
+        when(complaintResponseRepository.countByExerciseIdsAndComplaintType(anyCollection(), eq(ComplaintType.COMPLAINT))).thenReturn(List.<long[]> of(new long[] { 1L, 1L }));
+
+        final Map<Long, ExerciseAssessmentCounters> counters = countersService.getCounters(List.of(textExercise, programmingExercise));
+
+        assertThat(counters.get(1L).getNumberOfSubmissions()).isEqualTo(10L);
+        assertThat(counters.get(1L).getNumberOfAssessments()).isEqualTo(5L);
+        assertThat(counters.get(1L).getNumberOfOpenComplaints()).isEqualTo(2L);
+        assertThat(counters.get(2L).getNumberOfSubmissions()).isEqualTo(20L);
+        assertThat(counters.get(2L).getNumberOfAssessments()).isEqualTo(7L);
+        assertThat(counters.get(2L).getNumberOfComplaints()).isEqualTo(0L);
+        verify(exerciseAssessmentCountersRepository, times(1)).findAllByExerciseIdIn(anyCollection());
+        verify(resultRepository, times(1)).countNumberOfFinishedAssessmentsForExercises(anyCollection());
+        verify(exerciseAssessmentCountersRepository).saveAll(any());
+    }
+
+    @Test
+    public void getCounters_usesStoredCountersUntilTheExerciseIsInvalidated() {
+        final ExerciseAssessmentCounters storedCounters = new ExerciseAssessmentCounters(1L, ZonedDateTime.now());
+        storedCounters.setNumberOfSubmissions(42L);
+        when(exerciseAssessmentCountersRepository.findAllByExerciseIdIn(anyCollection())).thenReturn(List.of(storedCounters));
+
+        assertThat(countersService.getCounters(textExercise).getNumberOfSubmissions()).isEqualTo(42L);
+        verifyNoInteractions(submissionRepository, resultRepository, complaintRepository, complaintResponseRepository);
+
+        countersService.invalidate(textExercise);
+        assertThat(countersService.getCounters(textExercise).getNumberOfSubmissions()).isEqualTo(0L);
+        verify(submissionRepository).countByExerciseIdsSubmittedBeforeDueDate(Set.of(1L));
+
+        // the exercise is only counted again after the next change
+        countersService.getCounters(textExercise);
+        verify(submissionRepository, times(1)).countByExerciseIdsSubmittedBeforeDueDate(any());
+    }
+
+    @Test
+    public void getCounters_countsCountersAgainThatAreOlderThanTheMaximumAge() {
+        when(exerciseAssessmentCountersRepository.findAllByExerciseIdIn(anyCollection()))
+                .thenReturn(List.of(new ExerciseAssessmentCounters(1L, ZonedDateTime.now().minusMinutes(5))));
+
+        countersService.getCounters(textExercise);
+
+        verify(submissionRepository).countByExerciseIdsSubmittedBeforeDueDate(Set.of(1L));
+        verify(programmingExerciseRepository, never()).countSubmissionsByExerciseIdsSubmitted(any());
+    }
+
+    @Test
+    public void invalidate_marksTheExerciseAgainAfterTheTransactionCompleted() {
+        final ExerciseAssessmentCounters storedCounters = new ExerciseAssessmentCounters(1L, ZonedDateTime.now());
+        when(exerciseAssessmentCountersRepository.findAllByExerciseIdIn(anyCollection())).thenReturn(List.of(storedCounters));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            countersService.invalidate(textExercise);
+            // a concurrent read before the commit counts the old state and removes the mark
+            countersService.getCounters(textExercise);
+            verify(submissionRepository, times(1)).countByExerciseIdsSubmittedBeforeDueDate(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // the committed change is counted with the next read
+        countersService.getCounters(textExercise);
+        verify(submissionRepository, times(2)).countByExerciseIdsSubmittedBeforeDueDate(any());
+    }
+}
@@ -0,0 +1,124 @@
+package de.tum.in.www1.artemis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class FileCacheServiceTest {
+
+    @TempDir
+    Path folder;
+
+    private FileCacheService fileCacheService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        fileCacheService = new FileCacheService(meterRegistry);
+        ReflectionTestUtils.setField(fileCacheService, "maxSizeMb", 1L);
+        ReflectionTestUtils.setField(fileCacheService, "maxFileSizeKb", 600L);
+        fileCacheService.init();
+    }
+
+    @Test
+    public void getFile_servesTheSecondRequestFromTheCache() throws IOException {
+        Path file = Files.writeString(folder.resolve("icon.svg"), "<svg></svg>");
+
+        Resource first = fileCacheService.getFile(file.toString());
+        Resource second = fileCacheService.getFile(file.toString());
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getFilename()).isEqualTo("icon.svg");
+        assertThat(second.contentLength()).isEqualTo(11);
+        assertThat(second.lastModified()).isEqualTo(Files.getLastModifiedTime(file).toMillis());
+        assertThat(read(second)).isEqualTo("<svg></svg>");
+        // every stream reads the whole content, independent of the other streams
+        assertThat(read(second)).isEqualTo("<svg></svg>");
+        assertThat(meterRegistry.get("artemis.file.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("artemis.file.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("artemis.file.cache.entries").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("artemis.file.cache.size").gauge().value()).isEqualTo(11);
+    }
+
+    @Test
+    public void getFile_readsChangedFilesAgain() throws IOException {
+        Path file = Files.writeString(folder.resolve("icon.svg"), "<svg></svg>");
+        Resource first = fileCacheService.getFile(file.toString());
+
+        Files.writeString(file, "<svg>changed</svg>");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(first.lastModified() + 1000));
+        Resource second = fileCacheService.getFile(file.toString());
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(read(second)).isEqualTo("<svg>changed</svg>");
+        assertThat(fileCacheService.getNumberOfEntries()).isEqualTo(1);
+        assertThat(fileCacheService.getSizeInBytes()).isEqualTo(18);
+    }
+
+    @Test
+    public void getFile_returnsNullForMissingFiles() throws IOException {
+        assertThat(fileCacheService.getFile(folder.resolve("missing.png").toString())).isNull();
+        assertThat(fileCacheService.getFile(folder.toString())).isNull();
+    }
+
+    @Test
+    public void getFile_streamsLargeFilesWithoutCachingThem() throws IOException {
+        Path file = Files.write(folder.resolve("slides.pdf"), new byte[700 * 1024]);
+
+        Resource resource = fileCacheService.getFile(file.toString());
+
+        assertThat(resource).isInstanceOf(FileSystemResource.class);
+        assertThat(resource.contentLength()).isEqualTo(700 * 1024);
+        assertThat(fileCacheService.getNumberOfEntries()).isEqualTo(0);
+        assertThat(meterRegistry.get("artemis.file.cache.requests").tag("result", "uncached").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void getFile_removesTheLeastRecentlyUsedFilesWhenTheCacheIsFull() throws IOException {
+        Path first = Files.write(folder.resolve("first.png"), new byte[400 * 1024]);
+        Path second = Files.write(folder.resolve("second.png"), new byte[400 * 1024]);
+        Path third = Files.write(folder.resolve("third.png"), new byte[400 * 1024]);
+
+        Resource cachedFirst = fileCacheService.getFile(first.toString());
+        fileCacheService.getFile(second.toString());
+        // use the first file again, so that the second file is the least recently used one
+        fileCacheService.getFile(first.toString());
+        fileCacheService.getFile(third.toString());
+
+        assertThat(fileCacheService.getNumberOfEntries()).isEqualTo(2);
+        assertThat(fileCacheService.getSizeInBytes()).isEqualTo(800 * 1024);
+        assertThat(fileCacheService.getFile(first.toString())).isSameAs(cachedFirst);
+    }
+
+    @Test
+    public void evict_removesTheFile() throws IOException {
+        Path file = Files.writeString(folder.resolve("icon.svg"), "<svg></svg>");
+        fileCacheService.getFile(file.toString());
+
+        fileCacheService.evict(folder.resolve("./icon.svg").toString());
+
+        assertThat(fileCacheService.getNumberOfEntries()).isEqualTo(0);
+        assertThat(fileCacheService.getSizeInBytes()).isEqualTo(0);
+    }
+
+    private static String read(Resource resource) throws IOException {
+        try (InputStream inputStream = resource.getInputStream()) {
+            return new String(inputStream.readAllBytes());
+        }
+    }
+}
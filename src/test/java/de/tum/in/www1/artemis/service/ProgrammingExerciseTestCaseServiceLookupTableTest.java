@@ -0,0 +1,123 @@
+package de.tum.in.www1.artemis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.tum.in.www1.artemis.domain.Feedback;
+import de.tum.in.www1.artemis.domain.ProgrammingExercise;
+import de.tum.in.www1.artemis.domain.ProgrammingExerciseTestCase;
+import de.tum.in.www1.artemis.domain.Result;
+import de.tum.in.www1.artemis.domain.enumeration.FeedbackType;
+import de.tum.in.www1.artemis.repository.ProgrammingExerciseTestCaseRepository;
+
+public class ProgrammingExerciseTestCaseServiceLookupTableTest {
+
+    private static final int NUMBER_OF_TEST_CASES = 500;
+
+    private static final int NUMBER_OF_RESULTS = 50;
+
+    private ProgrammingExerciseTestCaseRepository testCaseRepository;
+
+    private ProgrammingExerciseTestCaseService testCaseService;
+
+    private ProgrammingExercise programmingExercise;
+
+    private Set<ProgrammingExerciseTestCase> testCases;
+
+    private Random random;
+
+    @BeforeEach
+    public void init() {
+        random = new Random(42);
+        programmingExercise = new ProgrammingExercise();
+        programmingExercise.setId(1L);
+        testCases = new HashSet<>();
+        for (int i = 0; i < NUMBER_OF_TEST_CASES; i++) {
+            testCases.add(new ProgrammingExerciseTestCase().testName("test" + i).weight(1 + random.nextInt(5)).afterDueDate(i % 10 == 0).active(true).exercise(programmingExercise));
+        }
+        testCaseRepository = mock(ProgrammingExerciseTestCaseRepository.class);
+        when(testCaseRepository.findByExerciseIdAndActive(programmingExercise.getId(), true)).thenReturn(testCases);
+        testCaseService = new ProgrammingExerciseTestCaseService(testCaseRepository, null, null);
+    }
+
+    @Test
+    public void updateResultFromTestCases_loadsTestCasesOnlyOnce() {
+        for (int i = 0; i < 3; i++) {
+            testCaseService.updateResultFromTestCases(createResult(), programmingExercise, false);
+        }
+        verify(testCaseRepository, times(1)).findByExerciseIdAndActive(programmingExercise.getId(), true);
+    }
+
+    /**
+     * Compares the processing of build results with hundreds of test cases in the lookup table with the nested scans over feedbacks and test cases used before.
+     */
+    @Test
+    public void updateResultFromTestCases_matchesNestedScans() {
+        final List<Result> results = new ArrayList<>();
+        final List<Result> expectedResults = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_RESULTS; i++) {
+            final Result result = createResult();
+            results.add(result);
+            expectedResults.add(new Result().feedbacks(result.getFeedbacks().stream().map(this::copy).collect(Collectors.toList())));
+        }
+
+        for (Result result : expectedResults) {
+            updateResultWithNestedScans(result);
+        }
+        for (Result result : results) {
+            testCaseService.updateResultFromTestCases(result, programmingExercise, false);
+        }
+
+        for (int i = 0; i < NUMBER_OF_RESULTS; i++) {
+            assertThat(results.get(i).getScore()).isEqualTo(expectedResults.get(i).getScore());
+            assertThat(results.get(i).getResultString()).isEqualTo(expectedResults.get(i).getResultString());
+            assertThat(results.get(i).getFeedbacks()).hasSameSizeAs(expectedResults.get(i).getFeedbacks());
+        }
+        // all results are processed with the same lookup table
+        verify(testCaseRepository, times(1)).findByExerciseIdAndActive(programmingExercise.getId(), true);
+    }
+
+    /**
+     * Creates a result in which most of the tests were executed and about half of the executed tests passed.
+     */
+    private Result createResult() {
+        final List<Feedback> feedbacks = new ArrayList<>();
+        for (ProgrammingExerciseTestCase testCase : testCases) {
+            if (random.nextDouble() < 0.9) {
+                feedbacks.add(new Feedback().text(testCase.getTestName()).positive(random.nextBoolean()).type(FeedbackType.AUTOMATIC));
+            }
+        }
+        return new Result().feedbacks(feedbacks);
+    }
+
+    private Feedback copy(Feedback feedback) {
+        return new Feedback().text(feedback.getText()).positive(feedback.isPositive()).type(feedback.getType());
+    }
+
+    /**
+     * The previous implementation of the score calculation, which scans all feedbacks for every test case.
+     */
+    private void updateResultWithNestedScans(Result result) {
+        final Set<ProgrammingExerciseTestCase> successfulTestCases = testCases.stream()
+                .filter(testCase -> result.getFeedbacks().stream().anyMatch(feedback -> feedback.getText().equals(testCase.getTestName()) && feedback.isPositive()))
+                .collect(Collectors.toSet());
+        result.addFeedbacks(testCases.stream().filter(testCase -> result.getFeedbacks().stream().noneMatch(feedback -> feedback.getText().equals(testCase.getTestName())))
+                .map(testCase -> new Feedback().type(FeedbackType.AUTOMATIC).text(testCase.getTestName()).detailText("Test was not executed.")).collect(Collectors.toList()));
+        if (successfulTestCases.size() > 0) {
+            final long successfulTestScore = successfulTestCases.stream().mapToLong(ProgrammingExerciseTestCase::getWeight).sum();
+            final long maxTestScore = testCases.stream().mapToLong(ProgrammingExerciseTestCase::getWeight).sum();
+            result.setScore(maxTestScore > 0 ? (long) ((float) successfulTestScore / maxTestScore * 100.) : 0L);
+        }
+        result.setResultString(successfulTestCases.size() + " of " + testCases.size() + " passed");
+    }
+}
@@ -0,0 +1,149 @@
+package de.tum.in.www1.artemis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.net.URL;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.tum.in.www1.artemis.domain.ProgrammingExercise;
+import de.tum.in.www1.artemis.domain.User;
+import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
+import de.tum.in.www1.artemis.exception.VersionControlException;
+import de.tum.in.www1.artemis.repository.ProgrammingExerciseStudentParticipationRepository;
+import de.tum.in.www1.artemis.service.RepositoryLockService.RepositoryLockResult;
+import de.tum.in.www1.artemis.service.connectors.VersionControlService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RepositoryLockServiceTest {
+
+    private static final int CONCURRENCY = 4;
+
+    private VersionControlService versionControlService;
+
+    private ProgrammingExerciseStudentParticipationRepository studentParticipationRepository;
+
+    private RepositoryLockService repositoryLockService;
+
+    private ProgrammingExercise programmingExercise;
+
+    @BeforeEach
+    public void init() {
+        versionControlService = mock(VersionControlService.class);
+        studentParticipationRepository = mock(ProgrammingExerciseStudentParticipationRepository.class);
+        repositoryLockService = new RepositoryLockService(Optional.of(versionControlService), studentParticipationRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(repositoryLockService, "concurrency", CONCURRENCY);
+        ReflectionTestUtils.setField(repositoryLockService, "ratePerSecond", 1000.0);
+        ReflectionTestUtils.setField(repositoryLockService, "burst", 100);
+        ReflectionTestUtils.setField(repositoryLockService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(repositoryLockService, "retryDelayMillis", 10L);
+        repositoryLockService.init();
+
+        programmingExercise = new ProgrammingExercise();
+        programmingExercise.setId(1L);
+        programmingExercise.setProjectKey("PROJ");
+        programmingExercise.setDueDate(ZonedDateTime.now().minusSeconds(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        repositoryLockService.shutdown();
+    }
+
+    @Test
+    public void locksAllRepositoriesInParallel() throws Exception {
+        final List<ProgrammingExerciseStudentParticipation> participations = createParticipations(40);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            running.decrementAndGet();
+            return null;
+        }).when(versionControlService).setRepositoryPermissionsToReadOnly(any(), eq("PROJ"), any());
+
+        final RepositoryLockResult result = repositoryLockService.lockStudentRepositories(programmingExercise, participations);
+
+        assertThat(result.getFailedParticipations()).isEmpty();
+        assertThat(result.getLockedRepositories()).isEqualTo(40);
+        assertThat(result.getLatency().toMillis()).isGreaterThanOrEqualTo(1000);
+        assertThat(maxRunning.get()).isGreaterThan(1).isLessThanOrEqualTo(CONCURRENCY);
+        assertThat(participations).allSatisfy(participation -> assertThat(participation.getRepositoryLockedDate()).isNotNull());
+        verify(studentParticipationRepository, times(40)).updateRepositoryLockedDate(any(), any());
+    }
+
+    @Test
+    public void failedLocksAreRetriedAndReported() throws Exception {
+        final List<ProgrammingExerciseStudentParticipation> participations = createParticipations(3);
+        final URL flakyRepository = participations.get(0).getRepositoryUrlAsUrl();
+        final URL brokenRepository = participations.get(1).getRepositoryUrlAsUrl();
+        doThrow(new VersionControlException("Timeout")).doNothing().when(versionControlService).setRepositoryPermissionsToReadOnly(eq(flakyRepository), any(), any());
+        doThrow(new VersionControlException("Not found")).when(versionControlService).setRepositoryPermissionsToReadOnly(eq(brokenRepository), any(), any());
+
+        final RepositoryLockResult result = repositoryLockService.lockStudentRepositories(programmingExercise, participations);
+
+        assertThat(result.getFailedParticipations()).containsExactly(participations.get(1));
+        assertThat(result.getLockedRepositories()).isEqualTo(2);
+        verify(versionControlService, times(2)).setRepositoryPermissionsToReadOnly(eq(flakyRepository), any(), any());
+        verify(versionControlService, times(3)).setRepositoryPermissionsToReadOnly(eq(brokenRepository), any(), any());
+        verify(studentParticipationRepository, never()).updateRepositoryLockedDate(eq(participations.get(1).getId()), any());
+        assertThat(participations.get(1).getRepositoryLockedDate()).isNull();
+    }
+
+    @Test
+    public void onlyCompletedLocksAreCountedIfTheCallerIsInterrupted() throws Exception {
+        final List<ProgrammingExerciseStudentParticipation> participations = createParticipations(3);
+        final CountDownLatch firstLockDone = new CountDownLatch(1);
+        final CountDownLatch releaseOtherLocks = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (!invocation.getArgument(0).toString().equals(participations.get(0).getRepositoryUrl())) {
+                releaseOtherLocks.await();
+            }
+            return null;
+        }).when(versionControlService).setRepositoryPermissionsToReadOnly(any(), eq("PROJ"), any());
+        doAnswer(invocation -> {
+            firstLockDone.countDown();
+            return null;
+        }).when(studentParticipationRepository).updateRepositoryLockedDate(eq(participations.get(0).getId()), any());
+
+        final AtomicReference<RepositoryLockResult> result = new AtomicReference<>();
+        final Thread lockingThread = new Thread(() -> result.set(repositoryLockService.lockStudentRepositories(programmingExercise, participations)));
+        lockingThread.start();
+        assertThat(firstLockDone.await(10, TimeUnit.SECONDS)).isTrue();
+        lockingThread.interrupt();
+        lockingThread.join(10000);
+        releaseOtherLocks.countDown();
+
+        // the two locks that were still running are neither counted as locked nor as failed
+        assertThat(result.get().getLockedRepositories()).isLessThanOrEqualTo(1);
+        assertThat(result.get().getFailedParticipations()).isEmpty();
+    }
+
+    private List<ProgrammingExerciseStudentParticipation> createParticipations(int count) {
+        return IntStream.range(0, count).mapToObj(index -> {
+            final User student = new User();
+            student.setId((long) index);
+            student.setLogin("student" + index);
+            final ProgrammingExerciseStudentParticipation participation = new ProgrammingExerciseStudentParticipation();
+            participation.setId((long) index);
+            participation.setParticipant(student);
+            participation.setRepositoryUrl("https://bitbucket.example.com/scm/proj/proj-student" + index + ".git");
+            return participation;
+        }).collect(Collectors.toList());
+    }
+}
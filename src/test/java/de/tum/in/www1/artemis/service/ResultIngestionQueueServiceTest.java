@@ -0,0 +1,225 @@
+package de.tum.in.www1.artemis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.tum.in.www1.artemis.domain.PendingBuildResult;
+import de.tum.in.www1.artemis.domain.ProgrammingExercise;
+import de.tum.in.www1.artemis.domain.Result;
+import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
+import de.tum.in.www1.artemis.repository.PendingBuildResultRepository;
+import de.tum.in.www1.artemis.service.ResultIngestionQueueService.PendingResult;
+import de.tum.in.www1.artemis.service.connectors.LtiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ResultIngestionQueueServiceTest {
+
+    private static final String CLAIM_TOKEN = "claim-token";
+
+    private ParticipationService participationService;
+
+    private ResultService resultService;
+
+    private WebsocketMessagingService messagingService;
+
+    private PendingBuildResultRepository pendingBuildResultRepository;
+
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ResultIngestionQueueService resultIngestionQueueService;
+
+    private ProgrammingExercise programmingExercise;
+
+    @BeforeEach
+    public void init() {
+        participationService = mock(ParticipationService.class);
+        resultService = mock(ResultService.class);
+        messagingService = mock(WebsocketMessagingService.class);
+        pendingBuildResultRepository = mock(PendingBuildResultRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        resultIngestionQueueService = new ResultIngestionQueueService(participationService, resultService, messagingService, mock(LtiService.class),
+                pendingBuildResultRepository, new ObjectMapper(), transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(resultIngestionQueueService, "enabled", false);
+        ReflectionTestUtils.setField(resultIngestionQueueService, "concurrency", 2);
+        ReflectionTestUtils.setField(resultIngestionQueueService, "batchSize", 10);
+        resultIngestionQueueService.init();
+
+        programmingExercise = new ProgrammingExercise();
+        programmingExercise.setId(1L);
+        when(resultService.processNewProgrammingExerciseResult(any(), any())).thenAnswer(invocation -> Optional.of(new Result()));
+        when(pendingBuildResultRepository.deleteIfClaimedBy(anyLong(), eq(CLAIM_TOKEN))).thenReturn(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        resultIngestionQueueService.shutdown();
+    }
+
+    @Test
+    public void processBatch_savesTheBatchInOneTransactionAndNotifiesLatestResultPerParticipation() {
+        final ProgrammingExerciseStudentParticipation first = createParticipation(1L);
+        final ProgrammingExerciseStudentParticipation second = createParticipation(2L);
+        final Result latestResultOfFirst = new Result();
+        when(resultService.processNewProgrammingExerciseResult(eq(first), eq("third"))).thenReturn(Optional.of(latestResultOfFirst));
+
+        resultIngestionQueueService.processBatch(List.of(pendingResult(1L, "PROJ-STUDENT1", "first"), pendingResult(2L, "PROJ-STUDENT2", "second"),
+                pendingResult(3L, "PROJ-STUDENT1", "third")), CLAIM_TOKEN);
+
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(resultService, times(3)).processNewProgrammingExerciseResult(any(), any());
+        // the stored results are removed in the transaction that processes them
+        verify(pendingBuildResultRepository).deleteIfClaimedBy(1L, CLAIM_TOKEN);
+        verify(pendingBuildResultRepository).deleteIfClaimedBy(2L, CLAIM_TOKEN);
+        verify(pendingBuildResultRepository).deleteIfClaimedBy(3L, CLAIM_TOKEN);
+        verify(messagingService, times(2)).broadcastNewResult(any(), any());
+        verify(messagingService).broadcastNewResult(first, latestResultOfFirst);
+        verify(messagingService).broadcastNewResult(eq(second), any());
+        assertThat(meterRegistry.get("artemis.ci.results.latency").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    public void processBatch_processesTheResultsOneByOneIfTheBatchFails() {
+        final ProgrammingExerciseStudentParticipation first = createParticipation(1L);
+        final ProgrammingExerciseStudentParticipation second = createParticipation(2L);
+        final ProgrammingExerciseStudentParticipation third = createParticipation(3L);
+        when(resultService.processNewProgrammingExerciseResult(eq(second), any())).thenThrow(new IllegalStateException("Broken result"));
+
+        resultIngestionQueueService.processBatch(List.of(pendingResult(1L, "PROJ-STUDENT1", "first"), pendingResult(2L, "PROJ-STUDENT2", "second"),
+                pendingResult(3L, "PROJ-STUDENT3", "third")), CLAIM_TOKEN);
+
+        // the failed batch is rolled back, afterwards every result is processed in its own transaction
+        verify(transactionManager, times(4)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(resultService, times(2)).processNewProgrammingExerciseResult(eq(first), any());
+        verify(resultService, times(2)).processNewProgrammingExerciseResult(eq(second), any());
+        verify(resultService, times(1)).processNewProgrammingExerciseResult(eq(third), any());
+        // the failed result is removed after its transaction was rolled back
+        verify(pendingBuildResultRepository, times(3)).deleteIfClaimedBy(2L, CLAIM_TOKEN);
+        verify(messagingService, times(2)).broadcastNewResult(any(), any());
+        verify(messagingService).broadcastNewResult(eq(first), any());
+        verify(messagingService).broadcastNewResult(eq(third), any());
+        assertThat(meterRegistry.get("artemis.ci.results.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void processBatch_processesTheResultsOneByOneIfTheCommitOfTheBatchFails() {
+        final ProgrammingExerciseStudentParticipation first = createParticipation(1L);
+        final ProgrammingExerciseStudentParticipation second = createParticipation(2L);
+        doThrow(new TransactionSystemException("Deadlock")).doNothing().when(transactionManager).commit(any());
+
+        resultIngestionQueueService.processBatch(List.of(pendingResult(1L, "PROJ-STUDENT1", "first"), pendingResult(2L, "PROJ-STUDENT2", "second")), CLAIM_TOKEN);
+
+        verify(transactionManager, times(3)).commit(any());
+        verify(messagingService).broadcastNewResult(eq(first), any());
+        verify(messagingService).broadcastNewResult(eq(second), any());
+        assertThat(meterRegistry.get("artemis.ci.results.failures").counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void processBatch_skipsResultsWhoseClaimExpired() {
+        createParticipation(1L);
+        when(pendingBuildResultRepository.deleteIfClaimedBy(1L, CLAIM_TOKEN)).thenReturn(0);
+
+        resultIngestionQueueService.processBatch(List.of(pendingResult(1L, "PROJ-STUDENT1", "first")), CLAIM_TOKEN);
+
+        verifyNoInteractions(resultService);
+        verifyNoInteractions(messagingService);
+    }
+
+    @Test
+    public void processNextBatch_processesTheClaimedResults() {
+        final ProgrammingExerciseStudentParticipation participation = createParticipation(1L);
+        final PendingBuildResult stored = new PendingBuildResult("PROJ-STUDENT1", "{\"plan\":{\"key\":\"PROJ-STUDENT1\"}}", ZonedDateTime.now());
+        stored.setId(1L);
+        when(pendingBuildResultRepository.findIdsOfUnclaimed(any(), any())).thenReturn(List.of(1L));
+        when(pendingBuildResultRepository.claim(eq(List.of(1L)), anyString(), any(), any())).thenReturn(1);
+        when(pendingBuildResultRepository.findAllByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of(stored));
+        when(pendingBuildResultRepository.deleteIfClaimedBy(eq(1L), anyString())).thenReturn(1);
+
+        assertThat(resultIngestionQueueService.processNextBatch()).isTrue();
+
+        ArgumentCaptor<String> claimToken = ArgumentCaptor.forClass(String.class);
+        verify(pendingBuildResultRepository).claim(eq(List.of(1L)), claimToken.capture(), any(), any());
+        verify(pendingBuildResultRepository).deleteIfClaimedBy(1L, claimToken.getValue());
+        verify(resultService).processNewProgrammingExerciseResult(participation, Map.of("plan", Map.of("key", "PROJ-STUDENT1")));
+        verify(messagingService).broadcastNewResult(eq(participation), any());
+    }
+
+    @Test
+    public void processNextBatch_returnsFalseIfNoResultsAreStored() {
+        assertThat(resultIngestionQueueService.processNextBatch()).isFalse();
+
+        verify(pendingBuildResultRepository, never()).claim(any(), anyString(), any(), any());
+    }
+
+    @Test
+    public void submit_storesTheResultBeforeResponding() {
+        ReflectionTestUtils.setField(resultIngestionQueueService, "enabled", true);
+        createParticipation(1L);
+
+        assertThat(resultIngestionQueueService.submit("PROJ-STUDENT1", Map.of("plan", Map.of("key", "PROJ-STUDENT1")))).isTrue();
+
+        ArgumentCaptor<PendingBuildResult> stored = ArgumentCaptor.forClass(PendingBuildResult.class);
+        verify(pendingBuildResultRepository).save(stored.capture());
+        assertThat(stored.getValue().getPlanKey()).isEqualTo("PROJ-STUDENT1");
+        assertThat(stored.getValue().getRequestBody()).isEqualTo("{\"plan\":{\"key\":\"PROJ-STUDENT1\"}}");
+        // the result is only processed by the workers
+        verifyNoInteractions(resultService);
+    }
+
+    @Test
+    public void submit_doesNotStoreResultsOfUnknownBuildPlans() {
+        ReflectionTestUtils.setField(resultIngestionQueueService, "enabled", true);
+
+        assertThat(resultIngestionQueueService.submit("PROJ-UNKNOWN", Map.of("plan", Map.of("key", "PROJ-UNKNOWN")))).isFalse();
+
+        verify(pendingBuildResultRepository, never()).save(any());
+    }
+
+    @Test
+    public void submit_processesResultsInTheRequestThreadIfTheQueueIsDisabled() {
+        final ProgrammingExerciseStudentParticipation participation = createParticipation(1L);
+
+        assertThat(resultIngestionQueueService.submit("PROJ-STUDENT1", "result")).isTrue();
+        assertThat(resultIngestionQueueService.submit("PROJ-UNKNOWN", "result")).isFalse();
+
+        verify(messagingService).broadcastNewResult(eq(participation), any());
+        verify(pendingBuildResultRepository, never()).save(any());
+        verifyNoInteractions(transactionManager);
+    }
+
+    private PendingResult pendingResult(long id, String planKey, Object requestBody) {
+        return new PendingResult(id, planKey, requestBody, ZonedDateTime.now());
+    }
+
+    private ProgrammingExerciseStudentParticipation createParticipation(long id) {
+        final ProgrammingExerciseStudentParticipation participation = new ProgrammingExerciseStudentParticipation();
+        participation.setId(id);
+        participation.setExercise(programmingExercise);
+        participation.setBuildPlanId("PROJ-STUDENT" + id);
+        participation.setInitializationDate(ZonedDateTime.now());
+        when(participationService.findByBuildPlanId("PROJ-STUDENT" + id)).thenReturn(List.of(participation));
+        return participation;
+    }
+}
@@ -80,4 +80,28 @@ public class TextBlockServiceTest {
             assertThat(textBlocks.get(i).getText(), is(equalTo(sections[i])));
         }
     }
+
+    @Test
+    public void splitSubmissionIntoBlocksUsesCachedSegmentationForSameText() {
+        final TextSubmission submission = new TextSubmission(1L).text("Hello World. This is a Test.");
+        final List<TextBlock> firstBlocks = textBlockService.splitSubmissionIntoBlocks(submission);
+        final List<TextBlock> secondBlocks = textBlockService.splitSubmissionIntoBlocks(submission);
+
+        assertThat(secondBlocks, hasSize(2));
+        assertThat(secondBlocks, is(equalTo(firstBlocks)));
+        assertThat(secondBlocks.get(0), is(not(sameInstance(firstBlocks.get(0)))));
+        assertThat(secondBlocks.get(1).getSubmission(), is(sameInstance(submission)));
+    }
+
+    @Test
+    public void splitSubmissionIntoBlocksRecomputesSegmentationForChangedText() {
+        final TextSubmission submission = new TextSubmission(1L).text("Hello World. This is a Test.");
+        textBlockService.splitSubmissionIntoBlocks(submission);
+
+        submission.setText("Hello World. This is a Test. And another one.");
+        final List<TextBlock> textBlocks = textBlockService.splitSubmissionIntoBlocks(submission);
+
+        assertThat(textBlocks, hasSize(3));
+        assertThat(textBlocks.get(2).getText(), is(equalTo("And another one.")));
+    }
 }
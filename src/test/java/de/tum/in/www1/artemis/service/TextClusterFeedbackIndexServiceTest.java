@@ -0,0 +1,192 @@
+package de.tum.in.www1.artemis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.tum.in.www1.artemis.domain.Feedback;
+import de.tum.in.www1.artemis.domain.TextBlock;
+import de.tum.in.www1.artemis.domain.TextCluster;
+import de.tum.in.www1.artemis.domain.TextSubmission;
+
+public class TextClusterFeedbackIndexServiceTest {
+
+    private static final int CLUSTER_SIZE = 400;
+
+    private static final double DISTANCE_THRESHOLD = 1;
+
+    private Random random;
+
+    private List<TextBlock> blocks;
+
+    private TextCluster cluster;
+
+    private long[] submissionIds;
+
+    @BeforeEach
+    public void init() {
+        random = new Random(42);
+        blocks = new ArrayList<>();
+        submissionIds = new long[CLUSTER_SIZE];
+        for (int i = 0; i < CLUSTER_SIZE; i++) {
+            final TextBlock block = new TextBlock().text("Block " + i).startIndex(0).endIndex(7).submission(new TextSubmission((long) (i / 4)));
+            block.computeId();
+            blocks.add(block);
+            submissionIds[i] = i / 4;
+        }
+        final double[][] distances = new double[CLUSTER_SIZE][CLUSTER_SIZE];
+        for (int i = 0; i < CLUSTER_SIZE; i++) {
+            for (int j = i + 1; j < CLUSTER_SIZE; j++) {
+                distances[i][j] = distances[j][i] = random.nextDouble() * 1.2;
+            }
+        }
+        cluster = new TextCluster().blocks(blocks).distanceMatrix(distances);
+        cluster.setId(1L);
+    }
+
+    @Test
+    public void findClosestFeedback_matchesLinearScan() {
+        final Map<String, Feedback> feedbackByReference = assessRandomBlocks(0.2);
+        final TextClusterFeedbackIndexService.ClusterFeedbackIndex index = createIndex(feedbackByReference);
+
+        for (TextBlock block : blocks) {
+            assertSameSuggestion(index.findClosestFeedback(block.getId(), DISTANCE_THRESHOLD), linearScan(block, feedbackByReference));
+        }
+    }
+
+    @Test
+    public void updateSubmissionFeedback_addsAndRemovesAssessedBlocks() {
+        final Map<String, Feedback> feedbackByReference = assessRandomBlocks(0.1);
+        final TextClusterFeedbackIndexService.ClusterFeedbackIndex index = createIndex(feedbackByReference);
+
+        // assess all blocks of submission 3 and remove the feedback of submission 5
+        final Map<String, Feedback> submission3Feedback = new HashMap<>();
+        final Map<String, Feedback> submission5Feedback = new HashMap<>();
+        for (int i = 0; i < CLUSTER_SIZE; i++) {
+            final String blockId = blocks.get(i).getId();
+            if (submissionIds[i] == 3) {
+                final Feedback feedback = new Feedback().reference(blockId).credits((double) i).detailText("Updated " + i);
+                submission3Feedback.put(blockId, feedback);
+                feedbackByReference.put(blockId, feedback);
+            }
+            else if (submissionIds[i] == 5) {
+                feedbackByReference.remove(blockId);
+            }
+        }
+        index.updateSubmissionFeedback(3, submission3Feedback);
+        index.updateSubmissionFeedback(5, submission5Feedback);
+
+        for (TextBlock block : blocks) {
+            assertSameSuggestion(index.findClosestFeedback(block.getId(), DISTANCE_THRESHOLD), linearScan(block, feedbackByReference));
+        }
+    }
+
+    @Test
+    public void findClosestFeedback_buildsTheIndexOfAClusterOnlyOnce() {
+        final Map<String, Feedback> feedbackByReference = assessRandomBlocks(0.3);
+        final FeedbackService feedbackService = mock(FeedbackService.class);
+        when(feedbackService.getFeedbackForTextExerciseInCluster(cluster)).thenReturn(feedbackByReference);
+        final TextClusterFeedbackIndexService indexService = new TextClusterFeedbackIndexService(feedbackService);
+
+        for (TextBlock block : blocks) {
+            assertSameSuggestion(indexService.findClosestFeedback(block, cluster, DISTANCE_THRESHOLD), linearScan(block, feedbackByReference));
+        }
+
+        // the feedback of the cluster is only loaded (and the distance matrix only deserialized) for the first suggestion
+        verify(feedbackService, times(1)).getFeedbackForTextExerciseInCluster(cluster);
+    }
+
+    @Test
+    public void findClosestFeedback_evictsTheLeastRecentlyUsedIndexIfTheDistanceMatricesExceedTheLimit() {
+        final Map<String, Feedback> feedbackByReference = assessRandomBlocks(0.3);
+        final TextCluster otherCluster = new TextCluster().blocks(blocks).distanceMatrix(cluster.getDistanceMatrix());
+        otherCluster.setId(2L);
+        final FeedbackService feedbackService = mock(FeedbackService.class);
+        when(feedbackService.getFeedbackForTextExerciseInCluster(cluster)).thenReturn(feedbackByReference);
+        when(feedbackService.getFeedbackForTextExerciseInCluster(otherCluster)).thenReturn(feedbackByReference);
+        final TextClusterFeedbackIndexService indexService = new TextClusterFeedbackIndexService(feedbackService);
+        // the distance matrices of both clusters do not fit at the same time
+        ReflectionTestUtils.setField(indexService, "maxIndexedDistances", (long) CLUSTER_SIZE * CLUSTER_SIZE * 3 / 2);
+
+        indexService.findClosestFeedback(blocks.get(0), cluster, DISTANCE_THRESHOLD);
+        indexService.findClosestFeedback(blocks.get(0), otherCluster, DISTANCE_THRESHOLD);
+        indexService.findClosestFeedback(blocks.get(1), otherCluster, DISTANCE_THRESHOLD);
+        final Optional<Feedback> suggestion = indexService.findClosestFeedback(blocks.get(0), cluster, DISTANCE_THRESHOLD);
+
+        assertSameSuggestion(suggestion, linearScan(blocks.get(0), feedbackByReference));
+        verify(feedbackService, times(2)).getFeedbackForTextExerciseInCluster(cluster);
+        verify(feedbackService, times(1)).getFeedbackForTextExerciseInCluster(otherCluster);
+    }
+
+    @Test
+    public void removeFeedbackForSubmission_removesTheFeedbackOfDeletedResults() {
+        final Map<String, Feedback> feedbackByReference = new HashMap<>();
+        for (int i = 0; i < CLUSTER_SIZE; i++) {
+            final String blockId = blocks.get(i).getId();
+            feedbackByReference.put(blockId, new Feedback().reference(blockId).credits((double) i).detailText("Feedback " + i));
+        }
+        final FeedbackService feedbackService = mock(FeedbackService.class);
+        when(feedbackService.getFeedbackForTextExerciseInCluster(cluster)).thenReturn(new HashMap<>(feedbackByReference));
+        final TextClusterFeedbackIndexService indexService = new TextClusterFeedbackIndexService(feedbackService);
+        indexService.findClosestFeedback(blocks.get(0), cluster, DISTANCE_THRESHOLD);
+
+        // e.g. the assessment of submission 7 was canceled or its result was deleted
+        indexService.removeFeedbackForSubmission(7L);
+        for (int i = 0; i < CLUSTER_SIZE; i++) {
+            if (submissionIds[i] == 7) {
+                feedbackByReference.remove(blocks.get(i).getId());
+            }
+        }
+
+        for (TextBlock block : blocks) {
+            final Optional<Feedback> suggestion = indexService.findClosestFeedback(block, cluster, DISTANCE_THRESHOLD);
+            assertSameSuggestion(suggestion, linearScan(block, feedbackByReference));
+            // blocks 28 to 31 belong to submission 7
+            suggestion.ifPresent(feedback -> assertThat(feedback.getDetailText()).isNotIn("Feedback 28", "Feedback 29", "Feedback 30", "Feedback 31"));
+        }
+        // submissions that are not part of an indexed cluster are ignored
+        indexService.removeFeedbackForSubmission(1000L);
+        verify(feedbackService, times(1)).getFeedbackForTextExerciseInCluster(cluster);
+    }
+
+    private Map<String, Feedback> assessRandomBlocks(double share) {
+        final Map<String, Feedback> feedbackByReference = new HashMap<>();
+        for (TextBlock block : blocks) {
+            if (random.nextDouble() < share) {
+                feedbackByReference.put(block.getId(), new Feedback().reference(block.getId()).credits(random.nextDouble()).detailText("Feedback for " + block.getText()));
+            }
+        }
+        return feedbackByReference;
+    }
+
+    private TextClusterFeedbackIndexService.ClusterFeedbackIndex createIndex(Map<String, Feedback> feedbackByReference) {
+        final String[] blockIds = blocks.stream().map(TextBlock::getId).toArray(String[]::new);
+        final Feedback[] feedbacks = blocks.stream().map(block -> feedbackByReference.get(block.getId())).toArray(Feedback[]::new);
+        return new TextClusterFeedbackIndexService.ClusterFeedbackIndex(1L, blockIds, submissionIds, cluster.getDistanceMatrix(), feedbacks);
+    }
+
+    private Optional<Feedback> linearScan(TextBlock block, Map<String, Feedback> feedbackByReference) {
+        return blocks.stream().filter(element -> !element.equals(block)).filter(element -> feedbackByReference.containsKey(element.getId()))
+                .min((first, second) -> Double.compare(cluster.distanceBetweenBlocks(block, first), cluster.distanceBetweenBlocks(block, second)))
+                .filter(element -> cluster.distanceBetweenBlocks(block, element) < DISTANCE_THRESHOLD).map(element -> feedbackByReference.get(element.getId()));
+    }
+
+    private void assertSameSuggestion(Optional<Feedback> actual, Optional<Feedback> expected) {
+        assertThat(actual.isPresent()).isEqualTo(expected.isPresent());
+        if (expected.isPresent()) {
+            assertThat(actual.get().getReference()).isEqualTo(expected.get().getReference());
+            assertThat(actual.get().getCredits()).isEqualTo(expected.get().getCredits());
+            assertThat(actual.get().getDetailText()).isEqualTo(expected.get().getDetailText());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package de.tum.in.www1.artemis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import de.tum.in.www1.artemis.domain.Course;
+import de.tum.in.www1.artemis.domain.TextExercise;
+import de.tum.in.www1.artemis.domain.User;
+import de.tum.in.www1.artemis.domain.leaderboard.tutor.*;
+import de.tum.in.www1.artemis.repository.*;
+import de.tum.in.www1.artemis.web.rest.dto.TutorLeaderboardDTO;
+
+public class TutorLeaderboardServiceTest {
+
+    private static final long COURSE_ID = 1L;
+
+    private static final int NUMBER_OF_TUTORS = 100;
+
+    private static final int NUMBER_OF_EXERCISES = 50;
+
+    // 100 tutors * 50 exercises * 10 assessments = 50000 results
+    private static final long ASSESSMENTS_PER_TUTOR_AND_EXERCISE = 10;
+
+    private TutorLeaderboardAssessmentViewRepository assessmentViewRepository;
+
+    private TutorLeaderboardComplaintsViewRepository complaintsViewRepository;
+
+    private TutorLeaderboardMoreFeedbackRequestsViewRepository moreFeedbackRequestsViewRepository;
+
+    private TutorLeaderboardComplaintResponsesViewRepository complaintResponsesViewRepository;
+
+    private TutorLeaderboardAnsweredMoreFeedbackRequestsViewRepository answeredMoreFeedbackRequestsViewRepository;
+
+    private TutorLeaderboardService tutorLeaderboardService;
+
+    private Course course;
+
+    @BeforeEach
+    public void init() {
+        assessmentViewRepository = mock(TutorLeaderboardAssessmentViewRepository.class);
+        complaintsViewRepository = mock(TutorLeaderboardComplaintsViewRepository.class);
+        moreFeedbackRequestsViewRepository = mock(TutorLeaderboardMoreFeedbackRequestsViewRepository.class);
+        complaintResponsesViewRepository = mock(TutorLeaderboardComplaintResponsesViewRepository.class);
+        answeredMoreFeedbackRequestsViewRepository = mock(TutorLeaderboardAnsweredMoreFeedbackRequestsViewRepository.class);
+        final UserService userService = mock(UserService.class);
+        tutorLeaderboardService = new TutorLeaderboardService(assessmentViewRepository, complaintsViewRepository, moreFeedbackRequestsViewRepository,
+                complaintResponsesViewRepository, answeredMoreFeedbackRequestsViewRepository, userService);
+        ReflectionTestUtils.setField(tutorLeaderboardService, "reconcileIntervalSeconds", 300L);
+
+        course = new Course();
+        course.setId(COURSE_ID);
+        final List<User> tutors = LongStream.rangeClosed(1, NUMBER_OF_TUTORS).mapToObj(id -> {
+            final User tutor = new User();
+            tutor.setId(id);
+            return tutor;
+        }).collect(Collectors.toList());
+        when(userService.getTutors(course)).thenReturn(tutors);
+
+        final List<TutorLeaderboardAssessmentView> assessments = new ArrayList<>();
+        for (long exerciseId = 1; exerciseId <= NUMBER_OF_EXERCISES; exerciseId++) {
+            for (long tutorId = 1; tutorId <= NUMBER_OF_TUTORS; tutorId++) {
+                assessments.add(new TutorLeaderboardAssessmentView(new LeaderboardId(tutorId, exerciseId), ASSESSMENTS_PER_TUTOR_AND_EXERCISE, 20L, COURSE_ID, "Tutor"));
+            }
+        }
+        when(assessmentViewRepository.findAllByCourseId(COURSE_ID)).thenReturn(assessments);
+        // one accepted complaint for tutor 1 in exercise 1, the max score is unknown, so the accepted complaint counts
+        when(complaintsViewRepository.findAllByCourseId(COURSE_ID))
+                .thenReturn(List.of(new TutorLeaderboardComplaintsView(new LeaderboardId(1L, 1L), 2L, 1L, null, COURSE_ID, "Tutor")));
+    }
+
+    @Test
+    public void getCourseLeaderboard_sumsTheExercisesPerTutor() {
+        final List<TutorLeaderboardDTO> leaderboard = tutorLeaderboardService.getCourseLeaderboard(course);
+
+        assertThat(leaderboard).hasSize(NUMBER_OF_TUTORS);
+        final TutorLeaderboardDTO firstTutor = leaderboard.get(0);
+        assertThat(firstTutor.getNumberOfAssessments()).isEqualTo(NUMBER_OF_EXERCISES * ASSESSMENTS_PER_TUTOR_AND_EXERCISE);
+        assertThat(firstTutor.getNumberOfTutorComplaints()).isEqualTo(2L);
+        assertThat(firstTutor.getNumberOfAcceptedComplaints()).isEqualTo(1L);
+        assertThat(firstTutor.getPoints()).isEqualTo(NUMBER_OF_EXERCISES * 20L - 2L);
+        assertThat(leaderboard.get(NUMBER_OF_TUTORS - 1).getPoints()).isEqualTo(NUMBER_OF_EXERCISES * 20L);
+    }
+
+    @Test
+    public void getCourseLeaderboard_onlyLoadsInvalidatedExercisesAgain() {
+        tutorLeaderboardService.getCourseLeaderboard(course);
+        tutorLeaderboardService.getCourseLeaderboard(course);
+        verify(assessmentViewRepository, times(1)).findAllByCourseId(COURSE_ID);
+        verify(assessmentViewRepository, never()).findAllByLeaderboardId_ExerciseIdIn(anyCollection());
+
+        final TextExercise exercise = new TextExercise();
+        exercise.setId(1L);
+        exercise.setCourse(course);
+        when(assessmentViewRepository.findAllByLeaderboardId_ExerciseIdIn(List.of(1L)))
+                .thenReturn(List.of(new TutorLeaderboardAssessmentView(new LeaderboardId(1L, 1L), ASSESSMENTS_PER_TUTOR_AND_EXERCISE + 1, 22L, COURSE_ID, "Tutor")));
+        tutorLeaderboardService.invalidate(exercise);
+
+        final List<TutorLeaderboardDTO> leaderboard = tutorLeaderboardService.getCourseLeaderboard(course);
+
+        verify(assessmentViewRepository, times(1)).findAllByCourseId(COURSE_ID);
+        verify(assessmentViewRepository).findAllByLeaderboardId_ExerciseIdIn(List.of(1L));
+        assertThat(leaderboard.get(0).getNumberOfAssessments()).isEqualTo(NUMBER_OF_EXERCISES * ASSESSMENTS_PER_TUTOR_AND_EXERCISE + 1);
+        // the complaint of exercise 1 is no longer returned by the mocked complaints view
+        assertThat(leaderboard.get(0).getNumberOfTutorComplaints()).isEqualTo(0L);
+        assertThat(leaderboard.get(1).getNumberOfAssessments()).isEqualTo((NUMBER_OF_EXERCISES - 1) * ASSESSMENTS_PER_TUTOR_AND_EXERCISE);
+    }
+
+    @Test
+    public void getCourseLeaderboard_reconcilesTheCourseAfterTheInterval() {
+        ReflectionTestUtils.setField(tutorLeaderboardService, "reconcileIntervalSeconds", 0L);
+
+        tutorLeaderboardService.getCourseLeaderboard(course);
+        tutorLeaderboardService.getCourseLeaderboard(course);
+
+        verify(assessmentViewRepository, times(2)).findAllByCourseId(COURSE_ID);
+        verify(assessmentViewRepository, never()).findAllByLeaderboardId_ExerciseId(anyLong());
+    }
+
+    @Test
+    public void invalidate_marksTheExerciseAgainAfterTheTransactionCompleted() {
+        tutorLeaderboardService.getCourseLeaderboard(course);
+        final TextExercise exercise = new TextExercise();
+        exercise.setId(1L);
+        exercise.setCourse(course);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tutorLeaderboardService.invalidate(exercise);
+            // a concurrent request before the commit loads the old state and removes the mark
+            tutorLeaderboardService.getCourseLeaderboard(course);
+            verify(assessmentViewRepository, times(1)).findAllByLeaderboardId_ExerciseIdIn(List.of(1L));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // the committed change is loaded with the next request
+        tutorLeaderboardService.getCourseLeaderboard(course);
+        verify(assessmentViewRepository, times(2)).findAllByLeaderboardId_ExerciseIdIn(List.of(1L));
+    }
+}
@@ -0,0 +1,50 @@
+package de.tum.in.www1.artemis.service.connectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ConnectorMetricsServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConnectorMetricsService connectorMetricsService;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        connectorMetricsService = new ConnectorMetricsService(meterRegistry);
+    }
+
+    @Test
+    public void normalizeEndpoint_replacesIdsAndLimitsSegments() {
+        assertThat(ConnectorMetricsService.normalizeEndpoint(URI.create("https://bamboo.example.com/rest/api/latest/result/PROJ-PLAN1-42"))).isEqualTo(
+                "bamboo.example.com/rest/api/latest/result/{var}");
+        assertThat(ConnectorMetricsService.normalizeEndpoint(URI.create("https://bitbucket.example.com/rest/api/1.0/projects/PROJ/repos/proj-student1/permissions")))
+                .isEqualTo("bitbucket.example.com/rest/api/1.0/projects/{var}/repos/{var}/permissions");
+        // repository slugs and plan keys without digits are replaced as well, otherwise every repository would get its own histogram
+        assertThat(ConnectorMetricsService.normalizeEndpoint(URI.create("https://bitbucket.example.com/rest/api/1.0/projects/EIST/repos/eist-exercise-tests/webhooks")))
+                .isEqualTo("bitbucket.example.com/rest/api/1.0/projects/{var}/repos/{var}/webhooks");
+        assertThat(ConnectorMetricsService.normalizeEndpoint(URI.create("https://jenkins.example.com/job/EIST/job/EIST-BASE/lastBuild/testResults/api/json/extra")))
+                .isEqualTo("jenkins.example.com/job/{var}/job/{var}/lastBuild/testResults/api/json/**");
+        assertThat(ConnectorMetricsService.normalizeEndpoint(null)).isEqualTo("unknown");
+    }
+
+    @Test
+    public void recordRequest_countsErrorsPerConnector() {
+        final URI uri = URI.create("https://lms.example.com/outcomes");
+        connectorMetricsService.recordRequest("lti", "POST", uri, 200, 1_000_000, null);
+        connectorMetricsService.recordRequest("lti", "POST", uri, 500, 2_000_000, null);
+        connectorMetricsService.recordRequest("lti", "POST", uri, null, 3_000_000, new IOException("connection reset"));
+
+        assertThat(meterRegistry.get(ConnectorMetricsService.REQUEST_TIMER).tag("connector", "lti").timers()).hasSize(3);
+        assertThat(meterRegistry.get(ConnectorMetricsService.ERROR_COUNTER).tag("error", "500").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(ConnectorMetricsService.ERROR_COUNTER).tag("error", "IOException").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,115 @@
+package de.tum.in.www1.artemis.service.connectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.tum.in.www1.artemis.domain.Repository;
+import de.tum.in.www1.artemis.exception.GitException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class GitServiceCloneCoordinationTest {
+
+    private static final int NUMBER_OF_THREADS = 8;
+
+    @TempDir
+    Path root;
+
+    private GitService gitService;
+
+    private URL remoteUrl;
+
+    private String clonePath;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void init() throws Exception {
+        final Path remotePath = root.resolve("remote");
+        try (Git git = Git.init().setDirectory(remotePath.toFile()).call()) {
+            Files.writeString(remotePath.resolve("README.md"), "remote");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Initial commit").setAuthor("Artemis", "artemis@example.com").call();
+        }
+        remoteUrl = remotePath.toUri().toURL();
+        clonePath = root.resolve("clones").toString();
+
+        gitService = spy(new GitService(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(gitService, "GIT_USER", "artemis");
+        ReflectionTestUtils.setField(gitService, "GIT_PASSWORD", "artemis");
+        ReflectionTestUtils.setField(gitService, "repositoryCacheMaxSize", 10);
+        ReflectionTestUtils.setField(gitService, "repositoryCacheIdleTimeoutMinutes", 30L);
+        executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentCheckoutsShareOneCloneAndCoalescePulls() throws Exception {
+        // slow down the pulls, so that the concurrent callers arrive while a pull is running
+        doAnswer(invocation -> {
+            Thread.sleep(200);
+            return invocation.callRealMethod();
+        }).when(gitService).pull(any());
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Repository>> checkouts = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+            checkouts.add(executor.submit(() -> {
+                start.await();
+                return gitService.getOrCheckoutRepository(remoteUrl, true, clonePath);
+            }));
+        }
+        start.countDown();
+
+        final List<Repository> repositories = new ArrayList<>();
+        for (Future<Repository> checkout : checkouts) {
+            repositories.add(checkout.get());
+        }
+
+        assertThat(repositories).doesNotContainNull();
+        assertThat(repositories.stream().map(Repository::getLocalPath).distinct()).hasSize(1);
+        assertThat(repositories.get(0).resolve("HEAD")).isNotNull();
+        // the callers that waited for the clone share at most a running and a pending pull instead of pulling one after the other
+        verify(gitService, atMost(3)).pull(any());
+    }
+
+    @Test
+    public void waitingCallersFailIfTheCloneFails() throws Exception {
+        final URL missingRemoteUrl = root.resolve("missing").toUri().toURL();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Repository>> checkouts = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+            checkouts.add(executor.submit(() -> {
+                start.await();
+                return gitService.getOrCheckoutRepository(missingRemoteUrl, false, clonePath);
+            }));
+        }
+        start.countDown();
+
+        for (Future<Repository> checkout : checkouts) {
+            assertThatThrownBy(checkout::get).hasCauseInstanceOf(GitException.class);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package de.tum.in.www1.artemis.service.connectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.tum.in.www1.artemis.domain.ProgrammingExercise;
+import de.tum.in.www1.artemis.domain.Repository;
+import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
+import de.tum.in.www1.artemis.domain.participation.TemplateProgrammingExerciseParticipation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class GitServiceObjectSharingTest {
+
+    private final Logger log = LoggerFactory.getLogger(GitServiceObjectSharingTest.class);
+
+    private static final int NUMBER_OF_TEMPLATE_FILES = 100;
+
+    @TempDir
+    Path root;
+
+    private GitService gitService;
+
+    private Path templatePath;
+
+    private ProgrammingExercise exercise;
+
+    @BeforeEach
+    public void init() throws Exception {
+        gitService = new GitService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(gitService, "GIT_USER", "artemis");
+        ReflectionTestUtils.setField(gitService, "GIT_PASSWORD", "artemis");
+        ReflectionTestUtils.setField(gitService, "REPO_CLONE_PATH", root.resolve("clones").toString() + "/");
+        ReflectionTestUtils.setField(gitService, "repositoryCacheMaxSize", 10);
+        ReflectionTestUtils.setField(gitService, "repositoryCacheIdleTimeoutMinutes", 30L);
+        ReflectionTestUtils.setField(gitService, "objectSharingEnabled", true);
+        ReflectionTestUtils.setField(gitService, "mirrorRefreshSeconds", 300L);
+
+        // the template contains random (i.e. incompressible) content, so that the size of the object stores can be compared
+        templatePath = root.resolve("remote/template");
+        final Random random = new Random(42);
+        try (Git git = Git.init().setDirectory(templatePath.toFile()).call()) {
+            for (int i = 0; i < NUMBER_OF_TEMPLATE_FILES; i++) {
+                final byte[] content = new byte[4096];
+                random.nextBytes(content);
+                Files.write(templatePath.resolve("File" + i + ".bin"), content);
+            }
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Template").setAuthor("Artemis", "artemis@example.com").call();
+        }
+
+        final TemplateProgrammingExerciseParticipation templateParticipation = new TemplateProgrammingExerciseParticipation();
+        templateParticipation.setRepositoryUrl(templatePath.toUri().toURL().toString());
+        exercise = new ProgrammingExercise();
+        exercise.setTemplateParticipation(templateParticipation);
+    }
+
+    @Test
+    public void studentClonesOnlyStoreTheStudentObjects() throws Exception {
+        final ProgrammingExerciseStudentParticipation participation = createStudentRepository("student1");
+        final ObjectId studentCommit = commit(participation, "Student.java", "class Student {}");
+
+        final Repository repository = gitService.getOrCheckoutRepository(participation, root.resolve("clones").toString() + "/");
+
+        assertThat(repository.resolve("HEAD")).isEqualTo(studentCommit);
+        assertThat(repository.getLocalPath().resolve("File0.bin")).exists();
+        assertThat(repository.getLocalPath().resolve("Student.java")).hasContent("class Student {}");
+        assertThat(repository.getLocalPath().resolve(".git/objects/info/alternates")).exists();
+
+        final Path mirrorPath = root.resolve("clones/.mirrors").resolve(templatePath.toString().substring(1) + ".git");
+        final long cloneObjectsSize = sizeOfObjects(repository.getLocalPath().resolve(".git/objects"));
+        final long mirrorObjectsSize = sizeOfObjects(mirrorPath.resolve("objects"));
+        log.info("Objects stored in the student clone: {} bytes, in the template mirror: {} bytes", cloneObjectsSize, mirrorObjectsSize);
+        assertThat(cloneObjectsSize).isLessThan(mirrorObjectsSize / 10);
+    }
+
+    @Test
+    public void studentClonesCanBePulledAndShareOneMirror() throws Exception {
+        final ProgrammingExerciseStudentParticipation participation1 = createStudentRepository("student1");
+        final ProgrammingExerciseStudentParticipation participation2 = createStudentRepository("student2");
+        final String clonePath = root.resolve("clones").toString() + "/";
+
+        final Repository repository1 = gitService.getOrCheckoutRepository(participation1, clonePath);
+        gitService.getOrCheckoutRepository(participation2, clonePath);
+        assertThat(root.resolve("clones/.mirrors").resolve(templatePath.toString().substring(1) + ".git")).isDirectory();
+
+        final ObjectId newCommit = commit(participation1, "Student.java", "class Student { int points; }");
+        final Repository pulledRepository = gitService.getOrCheckoutRepository(participation1, clonePath);
+
+        assertThat(pulledRepository).isSameAs(repository1);
+        assertThat(pulledRepository.resolve("HEAD")).isEqualTo(newCommit);
+        assertThat(pulledRepository.getLocalPath().resolve("Student.java")).hasContent("class Student { int points; }");
+    }
+
+    @Test
+    public void clonesWithoutSharingObjectsIfTheTemplateIsUnavailable() throws Exception {
+        final ProgrammingExerciseStudentParticipation participation = createStudentRepository("student1");
+        FileUtils.deleteDirectory(templatePath.toFile());
+
+        final Repository repository = gitService.getOrCheckoutRepository(participation, root.resolve("clones").toString() + "/");
+
+        assertThat(repository.getLocalPath().resolve("File0.bin")).exists();
+        assertThat(repository.getLocalPath().resolve(".git/objects/info/alternates")).doesNotExist();
+    }
+
+    @Test
+    public void clonesForDownloadsDoNotShareObjects() throws Exception {
+        final ProgrammingExerciseStudentParticipation participation = createStudentRepository("student1");
+
+        final Repository repository = gitService.getOrCheckoutRepository(participation, root.resolve("downloads").toString() + "/");
+
+        assertThat(repository.getLocalPath().resolve("File0.bin")).exists();
+        assertThat(repository.getLocalPath().resolve(".git/objects/info/alternates")).doesNotExist();
+    }
+
+    @Test
+    public void clonesWithoutSharingObjectsIfTheRepositoryHasNoMasterBranch() throws Exception {
+        final ProgrammingExerciseStudentParticipation participation = createStudentRepository("student1");
+        try (Git git = Git.open(Path.of(participation.getRepositoryUrlAsUrl().toURI()).toFile())) {
+            git.branchRename().setOldName("master").setNewName("main").call();
+        }
+
+        final Repository repository = gitService.getOrCheckoutRepository(participation, root.resolve("clones").toString() + "/");
+
+        assertThat(repository.getLocalPath().resolve("File0.bin")).exists();
+        assertThat(repository.getLocalPath().resolve(".git/objects/info/alternates")).doesNotExist();
+    }
+
+    @Test
+    public void mirrorsAreNotGarbageCollected() throws Exception {
+        gitService.getOrCheckoutRepository(createStudentRepository("student1"), root.resolve("clones").toString() + "/");
+
+        final Path mirrorPath = root.resolve("clones/.mirrors").resolve(templatePath.toString().substring(1) + ".git");
+        try (Git mirror = Git.open(mirrorPath.toFile())) {
+            assertThat(mirror.getRepository().getConfig().getInt("gc", null, "auto", -1)).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void deleteMirror_keepsTheClonesThatShareItsObjectsUsable() throws Exception {
+        final ProgrammingExerciseStudentParticipation participation = createStudentRepository("student1");
+        final ObjectId studentCommit = commit(participation, "Student.java", "class Student {}");
+        final Repository repository = gitService.getOrCheckoutRepository(participation, root.resolve("clones").toString() + "/");
+        final Path mirrorPath = root.resolve("clones/.mirrors").resolve(templatePath.toString().substring(1) + ".git");
+
+        gitService.deleteMirror(templatePath.toUri().toURL());
+
+        assertThat(mirrorPath).doesNotExist();
+        assertThat(repository.getLocalPath().resolve(".git/objects/info/alternates")).doesNotExist();
+        final Repository reopenedRepository = gitService.getRepositoryByLocalPath(repository.getLocalPath());
+        assertThat(reopenedRepository.resolve("HEAD")).isEqualTo(studentCommit);
+        // the objects of the template are now stored in the clone
+        assertThat(reopenedRepository.open(reopenedRepository.resolve("HEAD:File0.bin")).getSize()).isEqualTo(4096);
+    }
+
+    private ProgrammingExerciseStudentParticipation createStudentRepository(String name) throws Exception {
+        final Path studentPath = root.resolve("remote/" + name);
+        Git.cloneRepository().setURI(templatePath.toUri().toString()).setDirectory(studentPath.toFile()).call().close();
+        final ProgrammingExerciseStudentParticipation participation = new ProgrammingExerciseStudentParticipation();
+        participation.setRepositoryUrl(studentPath.toUri().toURL().toString());
+        participation.setProgrammingExercise(exercise);
+        return participation;
+    }
+
+    private ObjectId commit(ProgrammingExerciseStudentParticipation participation, String fileName, String content) throws Exception {
+        final Path studentPath = Path.of(participation.getRepositoryUrlAsUrl().toURI());
+        try (Git git = Git.open(studentPath.toFile())) {
+            Files.writeString(studentPath.resolve(fileName), content);
+            git.add().addFilepattern(".").call();
+            return git.commit().setMessage("Student commit").setAuthor("Student", "student@example.com").call().getId();
+        }
+    }
+
+    private long sizeOfObjects(Path objectsPath) throws IOException {
+        try (Stream<Path> files = Files.walk(objectsPath)) {
+            return files.filter(Files::isRegularFile).filter(file -> !file.getParent().getFileName().toString().equals("info")).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package de.tum.in.www1.artemis.service.connectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class GitServiceRefCacheTest {
+
+    private static final int NUMBER_OF_THREADS = 8;
+
+    @TempDir
+    Path root;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private GitService gitService;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        gitService = spy(new GitService(meterRegistry));
+        ReflectionTestUtils.setField(gitService, "GIT_USER", "artemis");
+        ReflectionTestUtils.setField(gitService, "GIT_PASSWORD", "artemis");
+        ReflectionTestUtils.setField(gitService, "refCacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(gitService, "refResolutionParallelism", 4);
+        gitService.init();
+        executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        gitService.shutdown();
+    }
+
+    @Test
+    public void concurrentLookupsOfTheTemplateShareOneRemoteQuery() throws Exception {
+        final Path templatePath = createRemoteRepository("template");
+        final ObjectId templateHead = commit(templatePath, "Initial commit");
+        final URL templateUrl = templatePath.toUri().toURL();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<ObjectId>> lookups = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_THREADS * 4; i++) {
+            lookups.add(executor.submit(() -> {
+                start.await();
+                return gitService.getCachedLastCommitHash(templateUrl);
+            }));
+        }
+        start.countDown();
+        for (Future<ObjectId> lookup : lookups) {
+            assertThat(lookup.get()).isEqualTo(templateHead);
+        }
+
+        verify(gitService, times(1)).getLastCommitHash(any());
+        assertThat(meterRegistry.get("artemis.git.ls-remote.saved").counter().count()).isEqualTo(NUMBER_OF_THREADS * 4 - 1);
+    }
+
+    @Test
+    public void pushedCommitIsVisibleAfterInvalidation() throws Exception {
+        final Path templatePath = createRemoteRepository("template");
+        final ObjectId firstCommit = commit(templatePath, "Initial commit");
+        final URL templateUrl = templatePath.toUri().toURL();
+        assertThat(gitService.getCachedLastCommitHash(templateUrl)).isEqualTo(firstCommit);
+
+        final ObjectId secondCommit = commit(templatePath, "Second commit");
+        assertThat(gitService.getCachedLastCommitHash(templateUrl)).isEqualTo(firstCommit);
+
+        gitService.invalidateCachedLastCommitHash(templateUrl);
+        assertThat(gitService.getCachedLastCommitHash(templateUrl)).isEqualTo(secondCommit);
+    }
+
+    @Test
+    public void batchedLookupQueriesEveryRepositoryOnce() throws Exception {
+        final List<URL> repoUrls = new ArrayList<>();
+        final List<ObjectId> heads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final Path repositoryPath = createRemoteRepository("student" + i);
+            heads.add(commit(repositoryPath, "Commit of student " + i));
+            repoUrls.add(repositoryPath.toUri().toURL());
+        }
+        // every repository is contained twice, the missing repository cannot be resolved
+        final List<URL> requestedUrls = new ArrayList<>(repoUrls);
+        requestedUrls.addAll(repoUrls);
+        requestedUrls.add(root.resolve("missing").toUri().toURL());
+        requestedUrls.add(null);
+
+        final Map<String, ObjectId> lastCommitHashes = gitService.getLastCommitHashes(requestedUrls);
+
+        assertThat(lastCommitHashes).hasSize(3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(lastCommitHashes.get(repoUrls.get(i).toString())).isEqualTo(heads.get(i));
+        }
+        verify(gitService, times(4)).getLastCommitHash(any());
+        assertThat(meterRegistry.get("artemis.git.ls-remote.requests").counter().count()).isEqualTo(4);
+
+        // the resolved hashes are reused by subsequent lookups
+        assertThat(gitService.getCachedLastCommitHash(repoUrls.get(0))).isEqualTo(heads.get(0));
+        verify(gitService, times(4)).getLastCommitHash(any());
+    }
+
+    private Path createRemoteRepository(String name) throws Exception {
+        final Path repositoryPath = root.resolve(name);
+        Git.init().setDirectory(repositoryPath.toFile()).call().close();
+        return repositoryPath;
+    }
+
+    private ObjectId commit(Path repositoryPath, String message) throws Exception {
+        try (Git git = Git.open(repositoryPath.toFile())) {
+            Files.writeString(repositoryPath.resolve("README.md"), message);
+            git.add().addFilepattern(".").call();
+            final RevCommit commit = git.commit().setMessage(message).setAuthor("Artemis", "artemis@example.com").call();
+            return commit.getId();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package de.tum.in.www1.artemis.service.connectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.tum.in.www1.artemis.domain.Repository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class GitServiceRepositoryCacheTest {
+
+    private static final int NUMBER_OF_REPOSITORIES = 200;
+
+    private static final int CACHE_SIZE = 50;
+
+    private static final int NUMBER_OF_THREADS = 8;
+
+    private static final int CHECKOUTS_PER_THREAD = 500;
+
+    @TempDir
+    Path repositoriesRoot;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private GitService gitService;
+
+    private List<Path> repositoryPaths;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void init() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        gitService = new GitService(meterRegistry);
+        ReflectionTestUtils.setField(gitService, "repositoryCacheMaxSize", CACHE_SIZE);
+        ReflectionTestUtils.setField(gitService, "repositoryCacheIdleTimeoutMinutes", 30L);
+        repositoryPaths = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_REPOSITORIES; i++) {
+            final Path repositoryPath = repositoriesRoot.resolve("repo" + i);
+            try (Git git = Git.init().setDirectory(repositoryPath.toFile()).call()) {
+                Files.writeString(repositoryPath.resolve("README.md"), "repository " + i);
+                git.add().addFilepattern(".").call();
+                git.commit().setMessage("Initial commit").setAuthor("Artemis", "artemis@example.com").call();
+            }
+            repositoryPaths.add(repositoryPath);
+        }
+        executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Checks out many repositories from concurrent threads and checks that the cache stays bounded while all checked out repositories stay usable until they are released.
+     */
+    @Test
+    public void soakTest_cacheStaysBoundedUnderConcurrentCheckouts() throws Exception {
+        final List<Future<?>> workers = new ArrayList<>();
+        for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+            final Random random = new Random(thread);
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < CHECKOUTS_PER_THREAD; i++) {
+                    final Path repositoryPath = repositoryPaths.get(random.nextInt(NUMBER_OF_REPOSITORIES));
+                    try (Repository repository = gitService.getRepositoryByLocalPath(repositoryPath)) {
+                        assertThat(repository).isNotNull();
+                        assertThat(repository.getLocalPath()).isEqualTo(repositoryPath);
+                        assertThat(repository.resolve("HEAD")).isNotNull();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        assertThat(meterRegistry.get("artemis.git.repositories.open").gauge().value()).isLessThanOrEqualTo(CACHE_SIZE);
+        assertThat(meterRegistry.get("artemis.git.repositories.evictions").tag("cause", "size").counter().count()).isGreaterThan(0);
+        assertThat(meterRegistry.get("artemis.git.pack.files.open").gauge().value()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    public void evictIdleRepositories_closesRepositoriesThatAreNotUsedAnymore() {
+        final Repository repository = gitService.getRepositoryByLocalPath(repositoryPaths.get(0));
+        assertThat(gitService.getRepositoryByLocalPath(repositoryPaths.get(0))).as("the cached repository is reused").isSameAs(repository);
+        repository.close();
+        repository.close();
+        assertThat(useCount(repository)).as("only the cache holds a reference").isEqualTo(1);
+
+        ReflectionTestUtils.setField(gitService, "repositoryCacheIdleTimeoutMinutes", 0L);
+        gitService.evictIdleRepositories();
+
+        assertThat(meterRegistry.get("artemis.git.repositories.open").gauge().value()).isEqualTo(0);
+        assertThat(meterRegistry.get("artemis.git.repositories.evictions").tag("cause", "idle").counter().count()).isEqualTo(1);
+        assertThat(useCount(repository)).as("the evicted repository is closed").isEqualTo(0);
+        assertThat(gitService.getRepositoryByLocalPath(repositoryPaths.get(0))).isNotSameAs(repository);
+    }
+
+    @Test
+    public void evictIdleRepositories_closesRepositoriesInUseOnlyAfterTheyAreReleased() {
+        final Repository repository = gitService.getRepositoryByLocalPath(repositoryPaths.get(0));
+        assertThat(gitService.listFilesAndFolders(repository)).isNotEmpty();
+
+        ReflectionTestUtils.setField(gitService, "repositoryCacheIdleTimeoutMinutes", 0L);
+        gitService.evictIdleRepositories();
+
+        assertThat(meterRegistry.get("artemis.git.repositories.open").gauge().value()).isEqualTo(0);
+        assertThat(useCount(repository)).as("the evicted repository stays open for the caller").isEqualTo(1);
+        assertThat(repository.getContent()).as("the file listing of the caller is kept").isNotNull();
+
+        repository.close();
+
+        assertThat(useCount(repository)).as("the released repository is closed").isEqualTo(0);
+        assertThat(repository.getContent()).as("the closed repository drops its file listing").isNull();
+    }
+
+    /**
+     * Checks out a repository through getOrCheckoutRepository like RepositoryService or the programming exercise services do, every checkout is counted until it is released.
+     */
+    @Test
+    public void getOrCheckoutRepository_countsEveryCheckoutUntilItIsReleased() throws Exception {
+        final URL remoteUrl = repositoryPaths.get(2).toUri().toURL();
+        final String clonePath = repositoriesRoot.resolve("clones").toString();
+        ReflectionTestUtils.setField(gitService, "GIT_USER", "artemis");
+        ReflectionTestUtils.setField(gitService, "GIT_PASSWORD", "artemis");
+
+        final Repository repository = gitService.getOrCheckoutRepository(remoteUrl, false, clonePath);
+        for (int i = 0; i < 10; i++) {
+            assertThat(gitService.getOrCheckoutRepository(remoteUrl, false, clonePath)).isSameAs(repository);
+        }
+        assertThat(useCount(repository)).as("the cache and every checkout hold a reference").isEqualTo(12);
+
+        ReflectionTestUtils.setField(gitService, "repositoryCacheIdleTimeoutMinutes", 0L);
+        gitService.evictIdleRepositories();
+        assertThat(meterRegistry.get("artemis.git.repositories.open").gauge().value()).isEqualTo(0);
+        assertThat(useCount(repository)).isEqualTo(11);
+
+        for (int i = 0; i < 11; i++) {
+            repository.close();
+        }
+        assertThat(useCount(repository)).as("the evicted repository is closed once all checkouts are released").isEqualTo(0);
+    }
+
+    @Test
+    public void getRepositoryByLocalPath_evictsDeletedRepositories() throws Exception {
+        final Path repositoryPath = repositoryPaths.get(1);
+        final Repository repository = gitService.getRepositoryByLocalPath(repositoryPath);
+        repository.close();
+        FileUtils.deleteDirectory(repositoryPath.toFile());
+
+        assertThat(gitService.getRepositoryByLocalPath(repositoryPath)).isNull();
+        assertThat(meterRegistry.get("artemis.git.repositories.evictions").tag("cause", "deleted").counter().count()).isEqualTo(1);
+        assertThat(useCount(repository)).isEqualTo(0);
+    }
+
+    /**
+     * The number of open references that JGit counts for the repository, its files are closed when the count drops to 0.
+     */
+    private static int useCount(Repository repository) {
+        return ((AtomicInteger) ReflectionTestUtils.getField(repository, "useCnt")).get();
+    }
+}
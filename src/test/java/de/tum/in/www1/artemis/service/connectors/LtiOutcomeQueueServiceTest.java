@@ -0,0 +1,153 @@
+package de.tum.in.www1.artemis.service.connectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.tum.in.www1.artemis.domain.LtiOutcomeReport;
+import de.tum.in.www1.artemis.domain.LtiOutcomeUrl;
+import de.tum.in.www1.artemis.domain.Result;
+import de.tum.in.www1.artemis.repository.LtiOutcomeReportRepository;
+import de.tum.in.www1.artemis.repository.LtiOutcomeUrlRepository;
+import de.tum.in.www1.artemis.repository.ResultRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class LtiOutcomeQueueServiceTest {
+
+    private static final long PARTICIPATION_ID = 42L;
+
+    private LtiOutcomeReportRepository ltiOutcomeReportRepository;
+
+    private CloseableHttpClient pooledHttpClient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LtiOutcomeQueueService ltiOutcomeQueueService;
+
+    private LtiOutcomeReport report;
+
+    @BeforeEach
+    public void init() throws IOException {
+        ltiOutcomeReportRepository = mock(LtiOutcomeReportRepository.class);
+        LtiOutcomeUrlRepository ltiOutcomeUrlRepository = mock(LtiOutcomeUrlRepository.class);
+        ResultRepository resultRepository = mock(ResultRepository.class);
+        pooledHttpClient = mock(CloseableHttpClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        LtiOutcomeUrl ltiOutcomeUrl = new LtiOutcomeUrl();
+        ltiOutcomeUrl.setUrl("https://lms.example.com/outcomes");
+        ltiOutcomeUrl.setSourcedId("source-1");
+        when(ltiOutcomeUrlRepository.findAllByParticipationId(PARTICIPATION_ID)).thenReturn(List.of(ltiOutcomeUrl));
+        when(resultRepository.findFirstByParticipationIdOrderByCompletionDateDesc(PARTICIPATION_ID)).thenReturn(Optional.of(new Result().score(80L)));
+        when(pooledHttpClient.execute(any(HttpUriRequest.class), ArgumentMatchers.<ResponseHandler<String>>any())).thenReturn("<imsx_POXEnvelopeResponse/>");
+
+        ltiOutcomeQueueService = new LtiOutcomeQueueService(ltiOutcomeReportRepository, ltiOutcomeUrlRepository, resultRepository, pooledHttpClient,
+                new ConnectorMetricsService(meterRegistry), meterRegistry);
+        ReflectionTestUtils.setField(ltiOutcomeQueueService, "OAUTH_KEY", "key");
+        ReflectionTestUtils.setField(ltiOutcomeQueueService, "OAUTH_SECRET", "secret");
+        ReflectionTestUtils.setField(ltiOutcomeQueueService, "concurrency", 1);
+        ReflectionTestUtils.setField(ltiOutcomeQueueService, "batchSize", 10);
+        ReflectionTestUtils.setField(ltiOutcomeQueueService, "maxAttempts", 3);
+        ltiOutcomeQueueService.init();
+
+        report = new LtiOutcomeReport(PARTICIPATION_ID, ZonedDateTime.now().minusSeconds(10), ZonedDateTime.now().minusSeconds(5));
+        report.setId(1L);
+        when(ltiOutcomeReportRepository.findIdsOfDueReports(any(), any())).thenReturn(List.of(1L));
+        when(ltiOutcomeReportRepository.claim(eq(List.of(1L)), anyString(), any(), any())).thenReturn(1);
+        when(ltiOutcomeReportRepository.findAllByClaimTokenOrderByNextAttemptDateAsc(anyString())).thenReturn(List.of(report));
+        when(ltiOutcomeReportRepository.deleteIfNotEnqueuedAgain(1L, report.getEnqueuedDate())).thenReturn(1);
+        when(ltiOutcomeReportRepository.scheduleRetry(eq(1L), eq(report.getEnqueuedDate()), anyInt(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ltiOutcomeQueueService.shutdown();
+    }
+
+    @Test
+    public void processQueue_deliversTheLatestScoreAndRemovesTheReport() throws IOException {
+        ltiOutcomeQueueService.processQueue();
+
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(pooledHttpClient).execute(request.capture(), ArgumentMatchers.<ResponseHandler<String>>any());
+        assertThat(request.getValue().getURI().toString()).isEqualTo("https://lms.example.com/outcomes");
+        verify(ltiOutcomeReportRepository).deleteIfNotEnqueuedAgain(1L, report.getEnqueuedDate());
+        verify(ltiOutcomeReportRepository, never()).scheduleRetry(anyLong(), any(), anyInt(), any());
+        verify(ltiOutcomeReportRepository, never()).release(anyLong(), anyString());
+        assertThat(meterRegistry.get("artemis.lti.outcome.delivery.latency").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void processQueue_deliversNothingIfTheReportsWereClaimedByAnotherInstance() throws IOException {
+        when(ltiOutcomeReportRepository.claim(eq(List.of(1L)), anyString(), any(), any())).thenReturn(0);
+
+        ltiOutcomeQueueService.processQueue();
+
+        verify(pooledHttpClient, never()).execute(any(HttpUriRequest.class), ArgumentMatchers.<ResponseHandler<String>>any());
+        verify(ltiOutcomeReportRepository, never()).findAllByClaimTokenOrderByNextAttemptDateAsc(anyString());
+    }
+
+    @Test
+    public void processQueue_releasesTheClaimIfANewerResultWasCoalescedDuringTheDelivery() {
+        when(ltiOutcomeReportRepository.deleteIfNotEnqueuedAgain(1L, report.getEnqueuedDate())).thenReturn(0);
+
+        ltiOutcomeQueueService.processQueue();
+
+        ArgumentCaptor<String> claimToken = ArgumentCaptor.forClass(String.class);
+        verify(ltiOutcomeReportRepository).claim(eq(List.of(1L)), claimToken.capture(), any(), any());
+        verify(ltiOutcomeReportRepository).release(1L, claimToken.getValue());
+    }
+
+    @Test
+    public void processQueue_schedulesARetryWithBackoffAfterAFailedDelivery() throws IOException {
+        when(pooledHttpClient.execute(any(HttpUriRequest.class), ArgumentMatchers.<ResponseHandler<String>>any())).thenThrow(new IOException("connection refused"));
+        report.setAttempts(1);
+        final ZonedDateTime start = ZonedDateTime.now();
+
+        ltiOutcomeQueueService.processQueue();
+
+        ArgumentCaptor<ZonedDateTime> nextAttemptDate = ArgumentCaptor.forClass(ZonedDateTime.class);
+        verify(ltiOutcomeReportRepository).scheduleRetry(eq(1L), eq(report.getEnqueuedDate()), eq(2), nextAttemptDate.capture());
+        assertThat(nextAttemptDate.getValue()).isAfterOrEqualTo(start.plusSeconds(60)).isBefore(start.plusSeconds(120));
+        verify(ltiOutcomeReportRepository, never()).deleteIfNotEnqueuedAgain(anyLong(), any());
+        assertThat(meterRegistry.get("artemis.lti.outcome.delivery.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void processQueue_dropsTheReportAfterTheMaximumNumberOfAttempts() throws IOException {
+        when(pooledHttpClient.execute(any(HttpUriRequest.class), ArgumentMatchers.<ResponseHandler<String>>any())).thenThrow(new IOException("connection refused"));
+        report.setAttempts(2);
+
+        ltiOutcomeQueueService.processQueue();
+
+        verify(ltiOutcomeReportRepository).deleteIfNotEnqueuedAgain(1L, report.getEnqueuedDate());
+        verify(ltiOutcomeReportRepository, never()).scheduleRetry(anyLong(), any(), anyInt(), any());
+        assertThat(meterRegistry.get("artemis.lti.outcome.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void retryDelay_doublesWithEveryAttemptUpToOneHour() {
+        assertThat(LtiOutcomeQueueService.retryDelay(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(LtiOutcomeQueueService.retryDelay(2)).isEqualTo(Duration.ofSeconds(60));
+        assertThat(LtiOutcomeQueueService.retryDelay(3)).isEqualTo(Duration.ofSeconds(120));
+        assertThat(LtiOutcomeQueueService.retryDelay(7)).isEqualTo(Duration.ofMinutes(32));
+        assertThat(LtiOutcomeQueueService.retryDelay(8)).isEqualTo(Duration.ofHours(1));
+        assertThat(LtiOutcomeQueueService.retryDelay(100)).isEqualTo(Duration.ofHours(1));
+    }
+}
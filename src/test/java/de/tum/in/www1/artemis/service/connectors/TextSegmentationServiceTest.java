@@ -13,6 +13,7 @@ import java.util.List;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
 
 import de.tum.in.www1.artemis.domain.TextBlock;
 import de.tum.in.www1.artemis.domain.TextSubmission;
@@ -24,7 +25,7 @@ public class TextSegmentationServiceTest {
 
     @Test
     public void segmentSubmissions() throws NetworkingError {
-        final TextSegmentationService segmentationService = new TextSegmentationService();
+        final TextSegmentationService segmentationService = new TextSegmentationService(new RestTemplate());
         ReflectionTestUtils.setField(segmentationService, "API_ENDPOINT", SEGMENTATION_ENDPOINT);
 
         // create 10 sample submissions with IDs from 0 to 9
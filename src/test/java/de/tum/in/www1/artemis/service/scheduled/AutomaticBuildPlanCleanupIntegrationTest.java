@@ -0,0 +1,136 @@
+package de.tum.in.www1.artemis.service.scheduled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import de.tum.in.www1.artemis.AbstractSpringIntegrationBambooBitbucketJiraTest;
+import de.tum.in.www1.artemis.domain.BuildPlanCleanupRun;
+import de.tum.in.www1.artemis.domain.ProgrammingExercise;
+import de.tum.in.www1.artemis.domain.Result;
+import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
+import de.tum.in.www1.artemis.repository.BuildPlanCleanupRunRepository;
+import de.tum.in.www1.artemis.repository.ProgrammingExerciseRepository;
+import de.tum.in.www1.artemis.repository.ProgrammingExerciseStudentParticipationRepository;
+import de.tum.in.www1.artemis.repository.ResultRepository;
+import de.tum.in.www1.artemis.util.DatabaseUtilService;
+
+public class AutomaticBuildPlanCleanupIntegrationTest extends AbstractSpringIntegrationBambooBitbucketJiraTest {
+
+    @Autowired
+    private DatabaseUtilService database;
+
+    @Autowired
+    private ProgrammingExerciseRepository programmingExerciseRepository;
+
+    @Autowired
+    private ProgrammingExerciseStudentParticipationRepository participationRepository;
+
+    @Autowired
+    private ResultRepository resultRepository;
+
+    @Autowired
+    private BuildPlanCleanupRunRepository buildPlanCleanupRunRepository;
+
+    private ProgrammingExercise programmingExercise;
+
+    private final ZonedDateTime now = ZonedDateTime.now();
+
+    @BeforeEach
+    public void init() {
+        database.addUsers(6, 0, 1);
+        database.addCourseWithOneProgrammingExercise();
+        programmingExercise = programmingExerciseRepository.findAll().get(0);
+        // the build plans can only be cleaned up if they are neither needed for builds after the due date nor published
+        programmingExercise.setBuildAndTestStudentSubmissionsAfterDueDate(null);
+        programmingExercise.setPublishBuildPlanUrl(false);
+        programmingExercise = programmingExerciseRepository.save(programmingExercise);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        buildPlanCleanupRunRepository.deleteAll();
+        database.resetDatabase();
+    }
+
+    @Test
+    public void findNextWithBuildPlanToCleanup_findsTheParticipationsWhoseBuildPlansAreNotNeededAnymore() {
+        final var withoutResultForAWeek = addParticipation("student1", now.minusDays(8));
+        addParticipation("student2", now.minusDays(1));
+        final var successfulThreeDaysAgo = addParticipation("student3", now.minusDays(8));
+        addResult(successfulThreeDaysAgo, true, now.minusDays(4));
+        final var successfulYesterday = addParticipation("student4", now.minusDays(8));
+        addResult(successfulYesterday, true, now.minusDays(1));
+        final var failedForAWeek = addParticipation("student5", now.minusDays(10));
+        addResult(failedForAWeek, false, now.minusDays(8));
+        // only the latest result counts
+        final var failedAndThenSuccessfulYesterday = addParticipation("student6", now.minusDays(10));
+        addResult(failedAndThenSuccessfulYesterday, false, now.minusDays(8));
+        addResult(failedAndThenSuccessfulYesterday, true, now.minusDays(1));
+
+        final var participations = participationRepository.findNextWithBuildPlanToCleanup(0L, now, PageRequest.of(0, 10));
+
+        assertThat(ids(participations)).containsExactly(withoutResultForAWeek.getId(), successfulThreeDaysAgo.getId(), failedForAWeek.getId());
+        // the exercise and the students are fetched for the deletion of the build plans
+        assertThat(participations.get(0).getProgrammingExercise().getProjectKey()).isEqualTo(programmingExercise.getProjectKey());
+        assertThat(participations.get(0).getStudent()).isPresent();
+    }
+
+    @Test
+    public void findNextWithBuildPlanToCleanup_continuesAfterTheLastParticipationAndSkipsParticipationsWithoutBuildPlan() {
+        final var first = addParticipation("student1", now.minusDays(8));
+        final var withoutBuildPlan = addParticipation("student2", now.minusDays(8));
+        withoutBuildPlan.setBuildPlanId(null);
+        participationRepository.save(withoutBuildPlan);
+        final var third = addParticipation("student3", now.minusDays(8));
+        final var fourth = addParticipation("student4", now.minusDays(8));
+
+        assertThat(ids(participationRepository.findNextWithBuildPlanToCleanup(0L, now, PageRequest.of(0, 2)))).containsExactly(first.getId(), third.getId());
+        assertThat(ids(participationRepository.findNextWithBuildPlanToCleanup(third.getId(), now, PageRequest.of(0, 2)))).containsExactly(fourth.getId());
+    }
+
+    @Test
+    public void findNextWithBuildPlanToCleanup_keepsPublishedBuildPlansUntilTheBuildsAfterTheDueDateAreDone() {
+        programmingExercise.setPublishBuildPlanUrl(true);
+        programmingExercise = programmingExerciseRepository.save(programmingExercise);
+        final var participation = addParticipation("student1", now.minusDays(8));
+
+        assertThat(participationRepository.findNextWithBuildPlanToCleanup(0L, now, PageRequest.of(0, 10))).isEmpty();
+
+        programmingExercise.setBuildAndTestStudentSubmissionsAfterDueDate(now.minusDays(2));
+        programmingExercise = programmingExerciseRepository.save(programmingExercise);
+
+        assertThat(ids(participationRepository.findNextWithBuildPlanToCleanup(0L, now, PageRequest.of(0, 10)))).containsExactly(participation.getId());
+    }
+
+    @Test
+    public void finishIfRunning_finishesARunOnlyOnce() {
+        final BuildPlanCleanupRun run = buildPlanCleanupRunRepository.save(new BuildPlanCleanupRun(now.minusHours(1)));
+
+        assertThat(buildPlanCleanupRunRepository.finishIfRunning(run.getId(), now)).isEqualTo(1);
+        assertThat(buildPlanCleanupRunRepository.finishIfRunning(run.getId(), now)).isEqualTo(0);
+        assertThat(buildPlanCleanupRunRepository.findFirstByEndDateIsNullOrderByStartDateDesc()).isEmpty();
+    }
+
+    private ProgrammingExerciseStudentParticipation addParticipation(String login, ZonedDateTime initializationDate) {
+        final var participation = database.addStudentParticipationForProgrammingExercise(programmingExercise, login);
+        participation.setInitializationDate(initializationDate);
+        return participationRepository.save(participation);
+    }
+
+    private void addResult(ProgrammingExerciseStudentParticipation participation, boolean successful, ZonedDateTime completionDate) {
+        resultRepository.save(new Result().participation(participation).successful(successful).completionDate(completionDate).rated(true).score(successful ? 100L : 0L));
+    }
+
+    private List<Long> ids(List<ProgrammingExerciseStudentParticipation> participations) {
+        return participations.stream().map(ProgrammingExerciseStudentParticipation::getId).collect(Collectors.toList());
+    }
+}
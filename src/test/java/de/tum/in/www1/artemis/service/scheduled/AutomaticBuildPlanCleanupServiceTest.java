@@ -0,0 +1,163 @@
+package de.tum.in.www1.artemis.service.scheduled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.Environment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.tum.in.www1.artemis.domain.BuildPlanCleanupRun;
+import de.tum.in.www1.artemis.domain.participation.ProgrammingExerciseStudentParticipation;
+import de.tum.in.www1.artemis.repository.BuildPlanCleanupRunRepository;
+import de.tum.in.www1.artemis.repository.ProgrammingExerciseStudentParticipationRepository;
+import de.tum.in.www1.artemis.service.ParticipationService;
+
+public class AutomaticBuildPlanCleanupServiceTest {
+
+    private ProgrammingExerciseStudentParticipationRepository participationRepository;
+
+    private BuildPlanCleanupRunRepository buildPlanCleanupRunRepository;
+
+    private ParticipationService participationService;
+
+    private AutomaticBuildPlanCleanupService cleanupService;
+
+    @BeforeEach
+    public void init() {
+        participationRepository = mock(ProgrammingExerciseStudentParticipationRepository.class);
+        buildPlanCleanupRunRepository = mock(BuildPlanCleanupRunRepository.class);
+        participationService = mock(ParticipationService.class);
+        when(buildPlanCleanupRunRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        // the resumed runs are executed in the calling thread
+        cleanupService = new AutomaticBuildPlanCleanupService(mock(Environment.class), participationRepository, buildPlanCleanupRunRepository, participationService, Runnable::run);
+        ReflectionTestUtils.setField(cleanupService, "pageSize", 10);
+        ReflectionTestUtils.setField(cleanupService, "concurrency", 3);
+        ReflectionTestUtils.setField(cleanupService, "ratePerSecond", 1000.0);
+        cleanupService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cleanupService.shutdown();
+    }
+
+    @Test
+    public void cleanupBuildPlans_processesPagesAndStoresProgress() {
+        when(participationRepository.findNextWithBuildPlanToCleanup(eq(0L), any(), any())).thenReturn(participations(1, 10));
+        when(participationRepository.findNextWithBuildPlanToCleanup(eq(10L), any(), any())).thenReturn(participations(11, 15));
+        when(participationRepository.findNextWithBuildPlanToCleanup(eq(15L), any(), any())).thenReturn(List.of());
+        doThrow(new RuntimeException("Bamboo not reachable")).when(participationService).cleanupBuildPlan(argThat(participation -> participation.getId() == 12L));
+
+        final BuildPlanCleanupRun run = new BuildPlanCleanupRun(ZonedDateTime.now());
+        cleanupService.cleanupBuildPlans(run);
+
+        verify(participationService, times(15)).cleanupBuildPlan(any());
+        assertThat(run.getCleanedBuildPlans()).isEqualTo(14);
+        assertThat(run.getFailedBuildPlans()).isEqualTo(1);
+        assertThat(run.getLastParticipationId()).isEqualTo(15L);
+        assertThat(run.getEndDate()).isNotNull();
+    }
+
+    @Test
+    public void cleanupBuildPlans_resumesAfterLastProcessedParticipation() {
+        when(participationRepository.findNextWithBuildPlanToCleanup(anyLong(), any(), any())).thenReturn(List.of());
+
+        final BuildPlanCleanupRun run = new BuildPlanCleanupRun(ZonedDateTime.now().minusHours(1));
+        run.setLastParticipationId(42L);
+        cleanupService.cleanupBuildPlans(run);
+
+        verify(participationRepository).findNextWithBuildPlanToCleanup(eq(42L), any(), any());
+        verify(participationService, never()).cleanupBuildPlan(any());
+        assertThat(run.getEndDate()).isNotNull();
+    }
+
+    @Test
+    public void resumeInterruptedRun_continuesTheRunIfThisServerClosedIt() {
+        final BuildPlanCleanupRun interruptedRun = interruptedRun(42L);
+        when(buildPlanCleanupRunRepository.finishIfRunning(eq(1L), any())).thenReturn(1);
+        when(participationRepository.findNextWithBuildPlanToCleanup(anyLong(), any(), any())).thenReturn(List.of());
+
+        cleanupService.resumeInterruptedRun();
+
+        verify(participationRepository).findNextWithBuildPlanToCleanup(eq(42L), any(), any());
+        verify(buildPlanCleanupRunRepository, atLeastOnce()).save(argThat(run -> run != interruptedRun && run.getStartDate().equals(interruptedRun.getStartDate())));
+    }
+
+    @Test
+    public void resumeInterruptedRun_leavesTheRunToAnotherServerThatClosedIt() {
+        interruptedRun(42L);
+        when(buildPlanCleanupRunRepository.finishIfRunning(eq(1L), any())).thenReturn(0);
+
+        cleanupService.resumeInterruptedRun();
+
+        verify(participationRepository, never()).findNextWithBuildPlanToCleanup(anyLong(), any(), any());
+        verify(buildPlanCleanupRunRepository, never()).save(any());
+    }
+
+    @Test
+    public void resumeInterruptedRun_isSkippedWhileTheNightlyRunIsRunning() throws Exception {
+        final Environment env = mock(Environment.class);
+        when(env.getActiveProfiles()).thenReturn(new String[] { "prod" });
+        cleanupService.shutdown();
+        cleanupService = new AutomaticBuildPlanCleanupService(env, participationRepository, buildPlanCleanupRunRepository, participationService, Runnable::run);
+        ReflectionTestUtils.setField(cleanupService, "pageSize", 10);
+        ReflectionTestUtils.setField(cleanupService, "concurrency", 3);
+        ReflectionTestUtils.setField(cleanupService, "ratePerSecond", 1000.0);
+        cleanupService.init();
+        final CountDownLatch nightlyRunStarted = new CountDownLatch(1);
+        final CountDownLatch finishNightlyRun = new CountDownLatch(1);
+        when(participationRepository.findNextWithBuildPlanToCleanup(anyLong(), any(), any())).thenAnswer(invocation -> {
+            nightlyRunStarted.countDown();
+            finishNightlyRun.await();
+            return List.of();
+        });
+        final ExecutorService nightlyExecutor = Executors.newSingleThreadExecutor();
+        final Future<?> nightlyRun = nightlyExecutor.submit(() -> cleanupService.cleanupBuildPlans());
+        assertThat(nightlyRunStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        final BuildPlanCleanupRun interruptedRun = interruptedRun(42L);
+        when(buildPlanCleanupRunRepository.finishIfRunning(eq(1L), any())).thenReturn(1);
+        cleanupService.resumeInterruptedRun();
+        finishNightlyRun.countDown();
+        nightlyRun.get(10, TimeUnit.SECONDS);
+        nightlyExecutor.shutdown();
+
+        // only the nightly run has searched for build plans, the resumed run was finished without cleaning up anything
+        verify(participationRepository, times(1)).findNextWithBuildPlanToCleanup(anyLong(), any(), any());
+        verify(buildPlanCleanupRunRepository, atLeastOnce()).save(argThat(run -> run != interruptedRun && run.getLastParticipationId() == 42L && run.getEndDate() != null));
+    }
+
+    private BuildPlanCleanupRun interruptedRun(long lastParticipationId) {
+        final BuildPlanCleanupRun run = new BuildPlanCleanupRun(ZonedDateTime.now().minusHours(1));
+        run.setId(1L);
+        run.setLastParticipationId(lastParticipationId);
+        when(buildPlanCleanupRunRepository.findFirstByEndDateIsNullOrderByStartDateDesc()).thenReturn(Optional.of(run));
+        return run;
+    }
+
+    private List<ProgrammingExerciseStudentParticipation> participations(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId).mapToObj(id -> {
+            final ProgrammingExerciseStudentParticipation participation = new ProgrammingExerciseStudentParticipation();
+            participation.setId(id);
+            participation.setBuildPlanId("PROJ-STUDENT" + id);
+            return participation;
+        }).collect(Collectors.toList());
+    }
+}
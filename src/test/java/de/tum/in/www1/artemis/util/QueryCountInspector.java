@@ -0,0 +1,71 @@
+package de.tum.in.www1.artemis.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.Callable;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread. It is registered as statement inspector in the test configuration
+ * (hibernate.session_factory.statement_inspector), so that tests can check the number of statements of a request or a service call and notice N+1 selects or other
+ * regressions. MockMvc requests are executed on the thread of the test, so their statements are counted as well.
+ * Example:
+ * <pre>{@code
+ * long queryCount = QueryCountInspector.countQueries(() -> request.get("/api/exercises/" + exerciseId + "/details", HttpStatus.OK, Exercise.class));
+ * QueryCountInspector.assertQueryCountAtMost(queryCount, () -> request.get("/api/exercises/" + otherExerciseId + "/details", HttpStatus.OK, Exercise.class));
+ * }</pre>
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<long[]> queryCount = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        queryCount.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * @param call the code that should be inspected, e.g. a request
+     * @return the number of SQL statements prepared by the call on the current thread
+     * @throws Exception if the call throws an exception
+     */
+    public static long countQueries(Callable<?> call) throws Exception {
+        long countBefore = queryCount.get()[0];
+        call.call();
+        return queryCount.get()[0] - countBefore;
+    }
+
+    /**
+     * Fails if the call prepares a different number of SQL statements than expected.
+     *
+     * @param expectedQueryCount the expected number of statements
+     * @param call               the code that should be inspected, e.g. a request
+     * @param <T>                the type of the return value of the call
+     * @return the return value of the call
+     * @throws Exception if the call throws an exception
+     */
+    public static <T> T assertQueryCount(long expectedQueryCount, Callable<T> call) throws Exception {
+        long countBefore = queryCount.get()[0];
+        T value = call.call();
+        assertThat(queryCount.get()[0] - countBefore).as("number of SQL statements").isEqualTo(expectedQueryCount);
+        return value;
+    }
+
+    /**
+     * Fails if the call prepares more SQL statements than allowed.
+     *
+     * @param maxQueryCount the maximum number of statements
+     * @param call          the code that should be inspected, e.g. a request
+     * @param <T>           the type of the return value of the call
+     * @return the return value of the call
+     * @throws Exception if the call throws an exception
+     */
+    public static <T> T assertQueryCountAtMost(long maxQueryCount, Callable<T> call) throws Exception {
+        long countBefore = queryCount.get()[0];
+        T value = call.call();
+        assertThat(queryCount.get()[0] - countBefore).as("number of SQL statements").isLessThanOrEqualTo(maxQueryCount);
+        return value;
+    }
+}
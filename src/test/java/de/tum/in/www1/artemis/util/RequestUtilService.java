@@ -16,6 +16,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.lang.Nullable;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.stereotype.Service;
 import org.springframework.test.web.servlet.MockMvc;
@@ -275,6 +276,36 @@ public class RequestUtilService {
         return mapper.readValue(contentAsString, responseType);
     }
 
+    /**
+     * Performs a get request with the given headers, e.g. conditional or range requests.
+     *
+     * @param path           the path of the request
+     * @param expectedStatus the expected status of the response
+     * @param headers        the headers of the request
+     * @return the response with its headers and content
+     * @throws Exception if the request fails
+     */
+    public MockHttpServletResponse getWithHeaders(String path, HttpStatus expectedStatus, HttpHeaders headers) throws Exception {
+        return mvc.perform(MockMvcRequestBuilders.get(new URI(path)).headers(headers).with(csrf())).andExpect(status().is(expectedStatus.value())).andReturn().getResponse();
+    }
+
+    /**
+     * Performs a get request whose response body is written asynchronously, e.g. a StreamingResponseBody.
+     *
+     * @param path           the path of the request
+     * @param expectedStatus the expected status of the response
+     * @return the content of the response
+     * @throws Exception if the request fails
+     */
+    public String getStreamed(String path, HttpStatus expectedStatus) throws Exception {
+        MvcResult res = mvc.perform(MockMvcRequestBuilders.get(new URI(path)).with(csrf())).andReturn();
+        if (res.getRequest().isAsyncStarted()) {
+            res = mvc.perform(MockMvcRequestBuilders.asyncDispatch(res)).andReturn();
+        }
+        assertThat(res.getResponse().getStatus()).isEqualTo(expectedStatus.value());
+        return res.getResponse().getContentAsString();
+    }
+
     public byte[] getPng(String path, HttpStatus expectedStatus, MultiValueMap<String, String> params) throws Exception {
         final var res = mvc.perform(MockMvcRequestBuilders.get(new URI(path)).params(params).with(csrf())).andExpect(status().is(expectedStatus.value())).andReturn();
         return res.getResponse().getContentAsByteArray();